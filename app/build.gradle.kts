@@ -14,6 +14,13 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Room şemalarını migration doğrulaması için app/schemas klasörüne aktarır
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments += mapOf("room.schemaLocation" to "$projectDir/schemas")
+            }
+        }
     }
 
     buildTypes {
@@ -29,6 +36,12 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    // Dışa aktarılan şemalar, MigrationTestHelper'ın okuyabilmesi için test asset'i olarak eklenir
+    sourceSets {
+        getByName("androidTest") {
+            assets.srcDir("$projectDir/schemas")
+        }
+    }
 }
 
 // DÜZELTME: Değişken tanımı "def" yerine "val" ile yapılıyor.
@@ -48,4 +61,5 @@ dependencies {
     // DÜZELTME: Room Kütüphanesi Bağımlılıkları Kotlin Script formatında
     implementation("androidx.room:room-runtime:$room_version")
     annotationProcessor("androidx.room:room-compiler:$room_version")
+    androidTestImplementation("androidx.room:room-testing:$room_version")
 }
\ No newline at end of file
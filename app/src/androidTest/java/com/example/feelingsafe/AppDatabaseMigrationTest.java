@@ -0,0 +1,159 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test that runs the production migrations one step at a time against the
+ * schemas exported to app/schemas, then checks that existing rows survive each change.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppDatabaseMigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    // Each migration must leave exactly the schema Room exported for its target version.
+    private void migrateStepByStep(int fromVersion) throws IOException {
+        for (Migration migration : AppDatabase.MIGRATIONS) {
+            if (migration.startVersion >= fromVersion) {
+                helper.runMigrationsAndValidate(TEST_DB, migration.endVersion, true, migration).close();
+            }
+        }
+    }
+
+    private AppDatabase openMigrated() {
+        AppDatabase db = Room.databaseBuilder(context, AppDatabase.class, TEST_DB)
+                .addMigrations(AppDatabase.MIGRATIONS)
+                .build();
+        helper.closeWhenFinished(db);
+        return db;
+    }
+
+    @Test
+    public void migrateEveryStep_matchesExportedSchemas() throws IOException {
+        helper.createDatabase(TEST_DB, 1).close();
+        migrateStepByStep(1);
+    }
+
+    @Test
+    public void migrateFromVersion1_keepsRowsAndAddsNewSchemaObjects() throws IOException {
+        SupportSQLiteDatabase v1 = helper.createDatabase(TEST_DB, 1);
+        v1.execSQL("INSERT INTO location_history (latitude, longitude, timestamp) VALUES (41.0082, 28.9784, 1000)");
+        v1.execSQL("INSERT INTO location_history (latitude, longitude, timestamp) VALUES (39.9334, 32.8597, 2000)");
+        v1.close();
+        migrateStepByStep(1);
+
+        AppDatabase db = openMigrated();
+        List<LocationHistory> rows = db.locationHistoryDao().getAll();
+        assertEquals(2, rows.size());
+        assertEquals(2000, rows.get(0).timestamp);
+        assertEquals(41.0082, rows.get(1).latitude, 1e-9);
+        // The grid cell computed in SQL by the migration must match the one computed in Java.
+        assertEquals(GeoCell.cellOf(41.0082, 28.9784), rows.get(1).cell);
+        assertEquals(1, db.locationHistoryDao().query(new SimpleSQLiteQuery(
+                "SELECT * FROM location_history WHERE cell = ?", new Object[]{GeoCell.cellOf(39.9334, 32.8597)})).size());
+        // Metadata that was never stored is reported as unknown.
+        assertEquals(LocationHistory.UNKNOWN, rows.get(0).accuracy, 0f);
+        assertNull(rows.get(0).provider);
+
+        // The newest-first page must be served from the index instead of a full scan plus sort.
+        StringBuilder plan = new StringBuilder();
+        try (Cursor c = db.getOpenHelper().getWritableDatabase().query(
+                "EXPLAIN QUERY PLAN SELECT * FROM location_history ORDER BY timestamp DESC, id DESC LIMIT 50")) {
+            while (c.moveToNext()) {
+                plan.append(c.getString(c.getColumnCount() - 1)).append('\n');
+            }
+        }
+        assertTrue(plan.toString(), plan.toString().contains("index_location_history_timestamp"));
+        assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+
+        // The visit aggregate is seeded from the existing rows.
+        assertNotNull(db.placeVisitDao().getVisit(GeoCell.cellOf(41.0082, 28.9784)));
+
+        // Segment partitions are only created when the first segment of a month is written.
+        assertTrue(db.routeSegmentStore().listPartitions().isEmpty());
+        assertTrue(db.routeSegmentStore().getOverlapping(Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void migrateFromVersion4_splitsSegmentsIntoMonthlyTables() throws IOException {
+        SupportSQLiteDatabase v4 = helper.createDatabase(TEST_DB, 4);
+        // 2024-01-15 and 2024-02-10 (UTC).
+        v4.execSQL("INSERT INTO route_segments (start_time, end_time, raw_count, point_count, tolerance_meters, data) "
+                + "VALUES (1705312800000, 1705316400000, 10, 2, 10.0, x'01')");
+        v4.execSQL("INSERT INTO route_segments (start_time, end_time, raw_count, point_count, tolerance_meters, data) "
+                + "VALUES (1707559200000, 1707562800000, 10, 2, 10.0, x'01')");
+        v4.close();
+        migrateStepByStep(4);
+
+        RouteSegmentStore store = openMigrated().routeSegmentStore();
+        assertEquals(2, store.listPartitions().size());
+        assertEquals("route_segments_202401", store.listPartitions().get(0));
+        assertEquals(1, store.getOverlapping(1705000000000L, 1705400000000L).size());
+        assertEquals(2, store.getOverlapping(1705000000000L, 1708000000000L).size());
+
+        // Expiring January is a table drop and leaves February alone.
+        assertEquals(1, store.expireBefore(1706745600000L));
+        assertEquals(1, store.listPartitions().size());
+    }
+
+    @Test
+    public void migrateFromVersion10_indexesExistingTripAddresses() throws IOException {
+        SupportSQLiteDatabase v10 = helper.createDatabase(TEST_DB, 10);
+        v10.execSQL("INSERT INTO trips (start_time, end_time, distance_meters, point_count, min_latitude, min_longitude, "
+                + "max_latitude, max_longitude, closed, start_address, end_address) "
+                + "VALUES (1000, 2000, 500.0, 10, 41.0, 28.9, 41.1, 29.0, 1, 'Moda', 'Levent')");
+        v10.close();
+        migrateStepByStep(10);
+
+        SupportSQLiteDatabase db = openMigrated().getOpenHelper().getWritableDatabase();
+        try (Cursor c = db.query("SELECT docid FROM trip_search WHERE trip_search MATCH 'moda'")) {
+            assertEquals(1, c.getCount());
+        }
+    }
+
+    @Test
+    public void migrateFromVersion12_foldsTurkishIInTripSearch() throws IOException {
+        SupportSQLiteDatabase v12 = helper.createDatabase(TEST_DB, 12);
+        v12.execSQL("INSERT INTO trips (start_time, end_time, distance_meters, point_count, min_latitude, min_longitude, "
+                + "max_latitude, max_longitude, closed, start_address, end_address) "
+                + "VALUES (1000, 2000, 500.0, 10, 41.0, 28.9, 41.1, 29.0, 1, 'Kadıköy', 'İstanbul')");
+        v12.close();
+        migrateStepByStep(12);
+
+        TripDao trips = openMigrated().tripDao();
+        assertEquals(1, trips.search(TripSearch.toMatchQuery("kadikoy"), 10).size());
+        assertEquals(1, trips.search(TripSearch.toMatchQuery("İstanbul"), 10).size());
+        assertEquals(1, trips.search(TripSearch.toMatchQuery("istanbul"), 10).size());
+    }
+}
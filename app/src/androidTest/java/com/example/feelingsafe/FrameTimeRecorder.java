@@ -0,0 +1,102 @@
+package com.example.feelingsafe;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import java.util.Arrays;
+
+/**
+ * TR: FrameTimeRecorder, bir pencerenin çizdiği her karenin toplam süresini (FrameMetrics.TOTAL_DURATION) kaydeder.
+ * TR: Kaydırma performansını ölçmek için kullanılır; ör. bir test listeyi kaydırırken yüzdelikleri ve takılan (jank)
+ * TR: kare sayısını kontrol eder. Ölçümler kendi thread'inde alınır, ana thread'i yavaşlatmaz.
+ * EN: FrameTimeRecorder records the total duration (FrameMetrics.TOTAL_DURATION) of every frame a window draws.
+ * EN: It is used to measure scrolling performance; e.g. a test checks the percentiles and the number of janky frames
+ * EN: while scrolling the list. Measurements are taken on their own thread and don't slow down the main thread.
+ */
+public class FrameTimeRecorder implements Window.OnFrameMetricsAvailableListener {
+
+    // TR: 60 Hz ekranda bir karenin süresi. / EN: The duration of one frame on a 60 Hz display.
+    public static final double FRAME_BUDGET_MS = 1000.0 / 60;
+    private static final int MAX_FRAMES = 4096;
+
+    private final long[] durationsNs = new long[MAX_FRAMES];
+    private int count = 0;
+    private HandlerThread thread;
+    private Window window;
+
+    /**
+     * TR: Kaydı başlatır; önceki ölçümler silinir. Ana thread'den çağrılmalıdır.
+     * EN: Starts recording; earlier measurements are cleared. Must be called from the main thread.
+     */
+    public void start(Window window) {
+        synchronized (this) {
+            count = 0;
+        }
+        this.window = window;
+        thread = new HandlerThread("FrameTimeRecorder");
+        thread.start();
+        window.addOnFrameMetricsAvailableListener(this, new Handler(thread.getLooper()));
+    }
+
+    /**
+     * TR: Kaydı durdurur. Ana thread'den çağrılmalıdır.
+     * EN: Stops recording. Must be called from the main thread.
+     */
+    public void stop() {
+        if (window != null) {
+            window.removeOnFrameMetricsAvailableListener(this);
+            window = null;
+        }
+        if (thread != null) {
+            thread.quitSafely();
+            thread = null;
+        }
+    }
+
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        // TR: İlk kare (layout ve inflate dahil) kaydırma performansını yansıtmaz. / EN: The first frame (including layout and inflation) doesn't reflect scrolling performance.
+        if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+            return;
+        }
+        synchronized (this) {
+            if (count < MAX_FRAMES) {
+                durationsNs[count++] = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            }
+        }
+    }
+
+    public synchronized int frameCount() {
+        return count;
+    }
+
+    /**
+     * TR: Kaydedilen karelerin verilen yüzdeliği (0-100), milisaniye cinsinden. Hiç kare yoksa 0.
+     * EN: The given percentile (0-100) of the recorded frames, in milliseconds. 0 if there are no frames.
+     */
+    public synchronized double percentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(durationsNs, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(count - 1, Math.ceil(percentile / 100 * count) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * TR: Süresi bütçeyi (FRAME_BUDGET_MS) aşan, yani en az bir ekran yenilemesini kaçıran kare sayısı.
+     * EN: The number of frames over budget (FRAME_BUDGET_MS), i.e. that missed at least one display refresh.
+     */
+    public synchronized int jankyFrameCount() {
+        int janky = 0;
+        for (int i = 0; i < count; i++) {
+            if (durationsNs[i] / 1_000_000.0 > FRAME_BUDGET_MS) {
+                janky++;
+            }
+        }
+        return janky;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.room.Room;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Instrumented test for the route history list over several days of points. The activity runs against an
+ * in-memory database, so the test rows never reach the real history, the tracker or the aggregates.
+ *
+ * Binding is checked directly: every row must be bound with the exact strings RouteRowBuilder prepared,
+ * so formatting work creeping back into binding shows up as a failure on any device.
+ *
+ * The frame time check depends on the device, so it only runs when asked for:
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.frameBenchmark=true
+ */
+@RunWith(AndroidJUnit4.class)
+public class RouteHistoryScrollTest {
+
+    private static final long FROM = 631_152_000_000L;
+    private static final int POINTS = 3000;
+    private static final long STEP_MS = 5 * 60 * 1000L;
+    private static final long TO = FROM + POINTS * STEP_MS;
+
+    private Context context;
+    private AppDatabase database;
+    private AppDatabase previousDatabase;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        previousDatabase = AppDatabase.replaceInstanceForTesting(database);
+        List<LocationHistory> points = new ArrayList<>(POINTS);
+        for (int i = 0; i < POINTS; i++) {
+            points.add(new LocationHistory(41.0 + i * 0.0001, 29.0 + i * 0.0001, FROM + i * STEP_MS));
+        }
+        database.runInTransaction(() -> database.locationHistoryDao().insertAll(points));
+    }
+
+    @After
+    public void tearDown() {
+        AppDatabase.replaceInstanceForTesting(previousDatabase);
+        database.close();
+    }
+
+    private Intent historyIntent() {
+        return new Intent(context, RouteHistoryActivity.class)
+                .putExtra(RouteHistoryActivity.EXTRA_FROM, FROM)
+                .putExtra(RouteHistoryActivity.EXTRA_TO, TO);
+    }
+
+    @Test
+    public void bind_assignsPrecomputedTextsWithoutFormatting() {
+        try (ActivityScenario<RouteHistoryActivity> scenario = ActivityScenario.launch(historyIntent())) {
+            waitForRows(scenario);
+            scenario.onActivity(activity -> {
+                RecyclerView list = recyclerView(activity);
+                RouteHistoryAdapter adapter = (RouteHistoryAdapter) list.getAdapter();
+                RecyclerView.ViewHolder header = adapter.onCreateViewHolder(list, RouteRow.TYPE_HEADER);
+                RecyclerView.ViewHolder point = adapter.onCreateViewHolder(list, RouteRow.TYPE_POINT);
+                for (int position = 0; position < adapter.getItemCount(); position++) {
+                    RouteRow row = adapter.getRow(position);
+                    if (row.isHeader()) {
+                        adapter.onBindViewHolder(header, position);
+                        assertSame(row.title, ((RouteHistoryAdapter.HeaderViewHolder) header).dayTextView.getText());
+                    } else {
+                        adapter.onBindViewHolder(point, position);
+                        RouteHistoryAdapter.RouteViewHolder holder = (RouteHistoryAdapter.RouteViewHolder) point;
+                        assertSame(row.title, holder.coordinatesTextView.getText());
+                        assertSame(row.subtitle, holder.timestampTextView.getText());
+                    }
+                }
+            });
+        }
+    }
+
+    @Test
+    public void flingThroughHistory_staysWithinFrameBudget() {
+        assumeTrue("frame benchmark not requested",
+                Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString("frameBenchmark")));
+        FrameTimeRecorder recorder = new FrameTimeRecorder();
+
+        try (ActivityScenario<RouteHistoryActivity> scenario = ActivityScenario.launch(historyIntent())) {
+            waitForRows(scenario);
+            scenario.onActivity(activity -> recorder.start(activity.getWindow()));
+            for (int i = 0; i < 120; i++) {
+                scenario.onActivity(activity -> recyclerView(activity).scrollBy(0, 300));
+                InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+            }
+            scenario.onActivity(activity -> recorder.stop());
+        }
+
+        assertTrue("no frames recorded", recorder.frameCount() > 0);
+        double p90 = recorder.percentileMs(90);
+        assertTrue("90th percentile frame time " + p90 + " ms", p90 < FrameTimeRecorder.FRAME_BUDGET_MS * 2);
+        assertTrue("janky frames: " + recorder.jankyFrameCount() + " of " + recorder.frameCount(),
+                recorder.jankyFrameCount() * 10 < recorder.frameCount());
+    }
+
+    private static RecyclerView recyclerView(RouteHistoryActivity activity) {
+        return activity.findViewById(R.id.recyclerViewRouteHistory);
+    }
+
+    private static void waitForRows(ActivityScenario<RouteHistoryActivity> scenario) {
+        long deadline = SystemClock.uptimeMillis() + 5000;
+        int[] count = {0};
+        while (count[0] == 0 && SystemClock.uptimeMillis() < deadline) {
+            SystemClock.sleep(50);
+            scenario.onActivity(activity -> {
+                RecyclerView.Adapter<?> adapter = recyclerView(activity).getAdapter();
+                count[0] = adapter == null ? 0 : adapter.getItemCount();
+            });
+        }
+        assertTrue("route history rows were not loaded", count[0] > 0);
+    }
+}
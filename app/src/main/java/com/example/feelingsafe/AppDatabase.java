@@ -1,23 +1,345 @@
 package com.example.feelingsafe;
 
+import android.app.Application;
 import android.content.Context;
+import android.database.Cursor;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;
+import androidx.room.InvalidationTracker;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 // EN: This code block defines the database structure and specifies which table it will include.
 // TR: Bu kod bloğu veritabanının yapısını tanımlar ve içinde hangi tabloyu barındıracağını belirtir.
-@Database(entities = {LocationHistory.class}, version = 1, exportSchema = false)
+// EN: The schema of every version is exported to app/schemas so that migrations can be verified.
+// TR: Her sürümün şeması, migration'ların doğrulanabilmesi için app/schemas klasörüne aktarılır.
+@Database(entities = {LocationHistory.class, JournalCheckpoint.class, PlaceVisit.class, Trip.class, PlaceAddress.class, TripSearch.class}, version = 13, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
 
+    // EN: Version 1 -> 2: Adds the index on location_history.timestamp. Existing records are kept.
+    // TR: Sürüm 1 -> 2: location_history.timestamp üzerine index ekler. Mevcut kayıtlar korunur.
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_location_history_timestamp` ON `location_history` (`timestamp`)");
+        }
+    };
+
+    // EN: Version 2 -> 3: Adds the route_segments table for compressed old history.
+    // TR: Sürüm 2 -> 3: Sıkıştırılmış eski geçmiş için route_segments tablosunu ekler.
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `route_segments` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`start_time` INTEGER NOT NULL, `end_time` INTEGER NOT NULL, `raw_count` INTEGER NOT NULL, "
+                    + "`point_count` INTEGER NOT NULL, `tolerance_meters` REAL NOT NULL, `data` BLOB NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_route_segments_start_time` ON `route_segments` (`start_time`)");
+        }
+    };
+
+    // EN: Version 3 -> 4: Adds route_segments.sample_interval_ms, used by the retention engine to track downsampled segments.
+    // TR: Sürüm 3 -> 4: Seyreltme motorunun hangi parçaların seyreltildiğini izlemesi için route_segments.sample_interval_ms sütununu ekler.
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `route_segments` ADD COLUMN `sample_interval_ms` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // EN: Version 4 -> 5: Splits route_segments into one table per month (route_segments_YYYYMM, see RouteSegmentStore)
+    // EN: so that expiring a month is a DROP TABLE. The rows are copied with their ids and the old table is dropped.
+    // TR: Sürüm 4 -> 5: route_segments tablosunu her ay için bir tabloya böler (route_segments_YYYYMM, bkz. RouteSegmentStore);
+    // TR: böylece bir ayın silinmesi tek bir DROP TABLE olur. Satırlar id'leriyle kopyalanır ve eski tablo silinir.
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            String month = "strftime('%Y%m', start_time / 1000, 'unixepoch')";
+            List<String> months = new ArrayList<>();
+            try (Cursor cursor = db.query("SELECT DISTINCT " + month + " FROM route_segments")) {
+                while (cursor.moveToNext()) {
+                    months.add(cursor.getString(0));
+                }
+            }
+            for (String key : months) {
+                String table = RouteSegmentStore.TABLE_PREFIX + key;
+                RouteSegmentStore.createPartition(db, table);
+                db.execSQL("INSERT INTO `" + table + "` (id, start_time, end_time, raw_count, point_count, "
+                        + "tolerance_meters, sample_interval_ms, data) SELECT id, start_time, end_time, raw_count, point_count, "
+                        + "tolerance_meters, sample_interval_ms, data FROM route_segments WHERE " + month + " = ?",
+                        new Object[]{key});
+            }
+            db.execSQL("DROP TABLE IF EXISTS `route_segments`");
+        }
+    };
+
+    // EN: Version 5 -> 6: Adds the journal_checkpoint table that records how far LocationJournal has been folded into Room.
+    // TR: Sürüm 5 -> 6: LocationJournal'ın Room'a ne kadarının aktarıldığını tutan journal_checkpoint tablosunu ekler.
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `journal_checkpoint` (`id` INTEGER NOT NULL, "
+                    + "`committed_seq` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+        }
+    };
+
+    // EN: Version 6 -> 7: Adds the grid cell column and the (cell, timestamp) index to location_history for area queries,
+    // EN: and a bounding box to every segment partition. Existing rows and segments are filled in.
+    // TR: Sürüm 6 -> 7: Alan sorguları için location_history'e ızgara hücresi sütununu ve (cell, timestamp) index'ini,
+    // TR: her parça tablosuna da bir sınır kutusu ekler. Mevcut satırlar ve parçalar doldurulur.
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `location_history` ADD COLUMN `cell` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE `location_history` SET `cell` = " + GeoCell.SQL_EXPRESSION);
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_location_history_cell_timestamp` ON `location_history` (`cell`, `timestamp`)");
+            for (String table : RouteSegmentStore.listPartitions(db)) {
+                RouteSegmentStore.addBoundingBox(db, table);
+            }
+        }
+    };
+
+    // EN: Version 7 -> 8: Adds the place_visits aggregate and seeds it once from the raw history with the same rules as
+    // EN: PlaceVisitAggregator (LAG gives each row the previous row). After this it is only updated incrementally.
+    // TR: Sürüm 7 -> 8: place_visits özet tablosunu ekler ve bir kereliğine ham geçmişten PlaceVisitAggregator ile aynı
+    // TR: kurallarla doldurur (LAG her satıra bir önceki satırı verir). Bundan sonra sadece artımlı olarak güncellenir.
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `place_visits` (`cell` INTEGER NOT NULL, `visit_count` INTEGER NOT NULL, "
+                    + "`dwell_ms` INTEGER NOT NULL, `last_visit` INTEGER NOT NULL, PRIMARY KEY(`cell`))");
+            db.execSQL(PlaceVisitAggregator.REBUILD_SQL);
+        }
+    };
+
+    // EN: Version 8 -> 9: Adds the trips summary table. It is filled from the existing history by TripSegmenter.backfillOnce.
+    // TR: Sürüm 8 -> 9: Yolculuk özet tablosunu ekler. Tablo mevcut geçmişten TripSegmenter.backfillOnce ile doldurulur.
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `trips` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`start_time` INTEGER NOT NULL, `end_time` INTEGER NOT NULL, `distance_meters` REAL NOT NULL, "
+                    + "`point_count` INTEGER NOT NULL, `min_latitude` REAL NOT NULL, `min_longitude` REAL NOT NULL, "
+                    + "`max_latitude` REAL NOT NULL, `max_longitude` REAL NOT NULL, `closed` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_trips_start_time` ON `trips` (`start_time`)");
+        }
+    };
+
+    // EN: Version 9 -> 10: Adds the place_addresses cache of reverse geocoding results and the trip endpoint address columns.
+    // EN: Existing trips get NULL addresses, so PlaceAddressEnricher resolves them in the background.
+    // TR: Sürüm 9 -> 10: Ters coğrafi kodlama sonuçlarının önbelleği place_addresses tablosunu ve yolculuk uçlarının adres sütunlarını ekler.
+    // TR: Mevcut yolculukların adresleri NULL olur; PlaceAddressEnricher bunları arkaplanda çözer.
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `place_addresses` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`cell` INTEGER NOT NULL, `latitude` REAL NOT NULL, `longitude` REAL NOT NULL, `address` TEXT, "
+                    + "`resolved_at` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_place_addresses_cell` ON `place_addresses` (`cell`)");
+            db.execSQL("ALTER TABLE `trips` ADD COLUMN `start_address` TEXT");
+            db.execSQL("ALTER TABLE `trips` ADD COLUMN `end_address` TEXT");
+        }
+    };
+
+    // EN: Version 10 -> 11: Adds the trip_search full-text index over the trip addresses. It is an external content FTS4
+    // EN: table on trips, so the triggers Room would create for it are created here too, and the index is built once.
+    // TR: Sürüm 10 -> 11: Yolculuk adresleri üzerinde trip_search tam metin index'ini ekler. trips üzerinde harici içerikli
+    // TR: bir FTS4 tablosu olduğu için Room'un oluşturacağı tetikleyiciler burada da oluşturulur ve index bir kez kurulur.
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `trip_search` USING FTS4(`start_address` TEXT, `end_address` TEXT, "
+                    + "tokenize=unicode61, content=`trips`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_BEFORE_UPDATE BEFORE UPDATE ON `trips` "
+                    + "BEGIN DELETE FROM `trip_search` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_BEFORE_DELETE BEFORE DELETE ON `trips` "
+                    + "BEGIN DELETE FROM `trip_search` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_AFTER_UPDATE AFTER UPDATE ON `trips` "
+                    + "BEGIN INSERT INTO `trip_search`(`docid`, `start_address`, `end_address`) "
+                    + "VALUES (NEW.`rowid`, NEW.`start_address`, NEW.`end_address`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_AFTER_INSERT AFTER INSERT ON `trips` "
+                    + "BEGIN INSERT INTO `trip_search`(`docid`, `start_address`, `end_address`) "
+                    + "VALUES (NEW.`rowid`, NEW.`start_address`, NEW.`end_address`); END");
+            db.execSQL("INSERT INTO `trip_search`(`trip_search`) VALUES ('rebuild')");
+        }
+    };
+
+    // EN: Version 11 -> 12: Adds the accuracy, speed, bearing and provider of each fix to location_history.
+    // EN: Existing rows get -1 (LocationHistory.UNKNOWN) and NULL, since those values were never stored.
+    // TR: Sürüm 11 -> 12: location_history'e her konumun doğruluğunu, hızını, yönünü ve sağlayıcısını ekler.
+    // TR: Bu değerler hiç saklanmadığı için mevcut satırlar -1 (LocationHistory.UNKNOWN) ve NULL alır.
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `location_history` ADD COLUMN `accuracy` REAL NOT NULL DEFAULT -1");
+            db.execSQL("ALTER TABLE `location_history` ADD COLUMN `speed` REAL NOT NULL DEFAULT -1");
+            db.execSQL("ALTER TABLE `location_history` ADD COLUMN `bearing` REAL NOT NULL DEFAULT -1");
+            db.execSQL("ALTER TABLE `location_history` ADD COLUMN `provider` TEXT");
+        }
+    };
+
+    // EN: Version 12 -> 13: trip_search now indexes trips.search_text, the two addresses with the Turkish ı and İ folded
+    // EN: to i (see TripSearch.fold), because unicode61 doesn't fold them. The column is filled for the trips that already
+    // EN: have addresses, then the index is recreated on it with Room's triggers and built once.
+    // TR: Sürüm 12 -> 13: trip_search artık trips.search_text sütununu, yani ı ve İ'si i'ye çevrilmiş iki adresi index'ler
+    // TR: (bkz. TripSearch.fold), çünkü unicode61 bunları çevirmez. Sütun adresi olan yolculuklar için doldurulur, sonra
+    // TR: index Room'un tetikleyicileriyle bu sütun üzerinde yeniden oluşturulur ve bir kez kurulur.
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            for (String trigger : new String[]{"BEFORE_UPDATE", "BEFORE_DELETE", "AFTER_UPDATE", "AFTER_INSERT"}) {
+                db.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_trip_search_" + trigger);
+            }
+            db.execSQL("DROP TABLE IF EXISTS `trip_search`");
+            db.execSQL("ALTER TABLE `trips` ADD COLUMN `search_text` TEXT");
+            db.execSQL("UPDATE `trips` SET `search_text` = replace(replace(`start_address` || ' ' || `end_address`, 'İ', 'i'), 'ı', 'i') "
+                    + "WHERE `start_address` IS NOT NULL AND `end_address` IS NOT NULL");
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `trip_search` USING FTS4(`search_text` TEXT, "
+                    + "tokenize=unicode61, content=`trips`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_BEFORE_UPDATE BEFORE UPDATE ON `trips` "
+                    + "BEGIN DELETE FROM `trip_search` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_BEFORE_DELETE BEFORE DELETE ON `trips` "
+                    + "BEGIN DELETE FROM `trip_search` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_AFTER_UPDATE AFTER UPDATE ON `trips` "
+                    + "BEGIN INSERT INTO `trip_search`(`docid`, `search_text`) VALUES (NEW.`rowid`, NEW.`search_text`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_trip_search_AFTER_INSERT AFTER INSERT ON `trips` "
+                    + "BEGIN INSERT INTO `trip_search`(`docid`, `search_text`) VALUES (NEW.`rowid`, NEW.`search_text`); END");
+            db.execSQL("INSERT INTO `trip_search`(`trip_search`) VALUES ('rebuild')");
+        }
+    };
+
+    // EN: All migrations in order. Both the database builder and the migration test use this list.
+    // TR: Tüm migration'lar sırasıyla. Hem veritabanı oluşturucu hem de migration testi bu listeyi kullanır.
+    static final Migration[] MIGRATIONS = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13};
+
     // EN: This part provides access to the DAO(Data Access Object) of the LocationHistory table. It is used for insert, delete, and query operations.
     // TR: Bu kısım LocationHistory tablosunun DAO’suna erişim sağlar. Ekleme, silme ve sorgulama işlemleri burada yapılır.
     public abstract LocationHistoryDao locationHistoryDao();
 
+    // EN: Raw read access to the compressed route segments. Use routeSegmentStore() instead, which hides the monthly tables.
+    // TR: Sıkıştırılmış rota parçalarını ham olarak okur. Bunun yerine aylık tabloları gizleyen routeSegmentStore() kullanılmalıdır.
+    public abstract RouteSegmentDao routeSegmentDao();
+
+    // EN: Access to the LocationJournal checkpoint. Used by LocationJournalCompactor.
+    // TR: LocationJournal kontrol noktasına erişim sağlar. LocationJournalCompactor tarafından kullanılır.
+    public abstract JournalCheckpointDao journalCheckpointDao();
+
+    // EN: Access to the visit-frequency aggregate per grid cell, kept up to date by PlaceVisitAggregator.
+    // TR: PlaceVisitAggregator'ın güncel tuttuğu, hücre başına ziyaret sıklığı özetine erişim sağlar.
+    public abstract PlaceVisitDao placeVisitDao();
+
+    // EN: Access to the trip summaries written by TripSegmenter and listed on the route history screen.
+    // TR: TripSegmenter'ın yazdığı ve rota geçmişi ekranında listelenen yolculuk özetlerine erişim sağlar.
+    public abstract TripDao tripDao();
+
+    // EN: Access to the cached reverse geocoding results written by PlaceAddressEnricher.
+    // TR: PlaceAddressEnricher'ın yazdığı, önbelleğe alınmış ters coğrafi kodlama sonuçlarına erişim sağlar.
+    public abstract PlaceAddressDao placeAddressDao();
+
+    private volatile RouteSegmentStore routeSegmentStore;
+
+    // EN: This method returns the month-partitioned store of the compressed route segments written by RouteCompactor.
+    // TR: Bu metot RouteCompactor'ın yazdığı sıkıştırılmış rota parçalarının aylara bölünmüş deposunu döndürür.
+    public RouteSegmentStore routeSegmentStore() {
+        if (routeSegmentStore == null) {
+            synchronized (this) {
+                if (routeSegmentStore == null) {
+                    routeSegmentStore = new RouteSegmentStore(this);
+                }
+            }
+        }
+        return routeSegmentStore;
+    }
+
+    private volatile RouteCache routeCache;
+
+    // EN: This method returns the shared columnar cache of route time windows. Writers tell it which ranges became stale.
+    // TR: Bu metot rota zaman aralıklarının ortak sütunlu önbelleğini döndürür. Yazan bileşenler hangi aralıkların eskidiğini bildirir.
+    public RouteCache routeCache() {
+        if (routeCache == null) {
+            synchronized (this) {
+                if (routeCache == null) {
+                    routeCache = new RouteCache(this);
+                }
+            }
+        }
+        return routeCache;
+    }
+
+    // EN: Puts newly created databases into incremental auto_vacuum mode so that HistoryRetentionEngine can return freed
+    // EN: pages to the file system in small steps. SQLite only applies the mode to a file that already has tables with a
+    // EN: VACUUM, and onCreate runs inside a transaction (after Room created the tables), so the VACUUM is done in onOpen.
+    // EN: The file is still empty then, so it is instant. Existing databases are never switched: that VACUUM would rewrite
+    // EN: the whole file and lock it for a long time.
+    // TR: Yeni oluşturulan veritabanlarını incremental auto_vacuum moduna alır; böylece HistoryRetentionEngine boşalan
+    // TR: sayfaları küçük adımlarla dosya sistemine geri verebilir. SQLite bu modu tabloları olan bir dosyaya ancak VACUUM ile
+    // TR: uygular ve onCreate bir transaction içinde (Room tabloları oluşturduktan sonra) çalışır; bu yüzden VACUUM onOpen'da
+    // TR: yapılır. Dosya o sırada hâlâ boş olduğu için anında biter. Mevcut veritabanları hiçbir zaman değiştirilmez: o VACUUM
+    // TR: tüm dosyayı yeniden yazar ve uzun süre kilitlerdi.
+    private static final class IncrementalVacuumCallback extends RoomDatabase.Callback {
+        private boolean created = false;
+
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            created = true;
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            if (created) {
+                created = false;
+                db.execSQL("VACUUM");
+            }
+        }
+    }
+
     // EN: This code block keeps only one instance of the database in memory (Singleton Pattern).
     // TR: Bu kod bloğu veritabanının hafızada yalnızca tek bir örneğinin tutulmasını sağlar (Singleton Deseni).
     private static volatile AppDatabase INSTANCE;
 
+    // EN: The suffix of the process IsolatedLocationTrackingService runs in (see AndroidManifest.xml).
+    // TR: IsolatedLocationTrackingService'in çalıştığı sürecin son eki (bkz. AndroidManifest.xml).
+    static final String TRACKER_PROCESS_SUFFIX = ":tracker";
+
+    // EN: When the tracker runs in its own process, its writes call onAppended on that process's route cache, not on this one.
+    // EN: So this process clears its cache whenever the history changes. A table change can't be traced to a process, so this
+    // EN: is only done while the separate process setting is on.
+    // TR: Takip servisi kendi sürecinde çalışırken yazmaları o sürecin rota önbelleğinde onAppended'ı çağırır, buradakinde değil.
+    // TR: Bu yüzden bu süreç geçmiş her değiştiğinde önbelleğini temizler. Bir tablo değişikliğinin hangi süreçten geldiği
+    // TR: bilinemediği için bu sadece ayrı süreç ayarı açıkken yapılır.
+    private static void watchTrackerProcess(Context context, AppDatabase database) {
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("location_history") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                if (context.getSharedPreferences(SettingActivity.PREFS_NAME, Context.MODE_PRIVATE)
+                        .getBoolean(SettingActivity.SEPARATE_PROCESS_KEY, false)) {
+                    database.routeCache().clear();
+                }
+            }
+        });
+    }
+
+    // EN: Lets instrumented tests swap the singleton (e.g. for an in-memory database) so they never write test rows into the
+    // EN: real file that the tracker and the aggregates use. Returns the previous instance so the test can put it back.
+    // TR: Enstrümanlı testlerin tekil örneği değiştirmesini sağlar (ör. hafızadaki bir veritabanıyla); böylece test satırları
+    // TR: takip servisinin ve özet tabloların kullandığı gerçek dosyaya hiç yazılmaz. Test geri koyabilsin diye önceki örneği döndürür.
+    @VisibleForTesting
+    static AppDatabase replaceInstanceForTesting(@Nullable AppDatabase database) {
+        synchronized (AppDatabase.class) {
+            AppDatabase previous = INSTANCE;
+            INSTANCE = database;
+            return previous;
+        }
+    }
+
     // EN: This method checks if the database instance exists. If not, it safely creates it and then returns it.
     // TR: Bu metot veritabanı örneğinin var olup olmadığını kontrol eder. Yoksa güvenli bir şekilde oluşturur ve geri döndürür.
     public static AppDatabase getInstance(final Context context) {
@@ -26,9 +348,20 @@ public abstract class AppDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     // EN: This part actually builds the database file named "sos_app_database".
                     // TR: Bu kısım "sos_app_database" isimli veritabanı dosyasını gerçekten oluşturur.
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
+                    // EN: The tracking service may run in its own process; multi-instance invalidation lets table observers
+                    // EN: (e.g. the route history screen) here see the writes made there.
+                    // TR: Takip servisi kendi sürecinde çalışabilir; çoklu örnek bildirimi, buradaki tablo gözlemcilerinin
+                    // TR: (ör. rota geçmişi ekranı) orada yapılan yazmaları görmesini sağlar.
+                    AppDatabase database = Room.databaseBuilder(context.getApplicationContext(),
                                     AppDatabase.class, "sos_app_database")
+                            .addMigrations(MIGRATIONS)
+                            .enableMultiInstanceInvalidation()
+                            .addCallback(new IncrementalVacuumCallback())
                             .build();
+                    if (!Application.getProcessName().endsWith(TRACKER_PROCESS_SUFFIX)) {
+                        watchTrackerProcess(context.getApplicationContext(), database);
+                    }
+                    INSTANCE = database;
                 }
             }
         }
@@ -0,0 +1,14 @@
+package com.example.feelingsafe;
+
+/**
+ * TR: LocationHistoryDao.getDailyCounts() sorgusunun sonuç satırı: bir gün ve o gün kaydedilen konum sayısı.
+ * EN: The result row of the LocationHistoryDao.getDailyCounts() query: a day and the number of locations saved on that day.
+ */
+public class DailyLocationCount {
+
+    // TR: 1970-01-01'den bu yana geçen gün sayısı (yerel saate göre). / EN: Number of days since 1970-01-01 (in local time).
+    public long epochDay;
+
+    // TR: O gün kaydedilen konum sayısı. / EN: Number of locations saved on that day.
+    public int count;
+}
@@ -0,0 +1,76 @@
+package com.example.feelingsafe;
+
+/**
+ * TR: GeoCell, dünyayı CELL_DEGREES (yaklaşık 1.1 km) boyutunda sabit bir ızgaraya böler ve her hücreye tek bir sayı verir:
+ * TR: satır * ROW_STRIDE + sütun. Aynı satırdaki komşu hücrelerin sayıları ardışıktır; bu yüzden bir dikdörtgen alan,
+ * TR: satır başına bir aralık (BETWEEN) olarak index üzerinden okunabilir.
+ * TR: Hesap SQL'de de aynı şekilde yapılabilir (bkz. SQL_EXPRESSION); migration mevcut satırları bununla doldurur.
+ * EN: GeoCell splits the world into a fixed grid of CELL_DEGREES (about 1.1 km) and gives each cell a single number:
+ * EN: row * ROW_STRIDE + column. Neighbouring cells in the same row have consecutive numbers, so a rectangular area
+ * EN: can be read through the index as one range (BETWEEN) per row.
+ * EN: The same computation can be done in SQL (see SQL_EXPRESSION); the migration fills existing rows with it.
+ */
+final class GeoCell {
+
+    static final double CELL_DEGREES = 0.01;
+    private static final double CELLS_PER_DEGREE = 100.0;
+    // TR: Sütun sayısından (36001) büyük olmalıdır. / EN: Must be larger than the number of columns (36001).
+    static final long ROW_STRIDE = 65536;
+
+    // TR: cellOf() ile birebir aynı sonucu veren SQL ifadesi (CAST sıfıra doğru keser; değerler pozitif olduğundan floor ile aynıdır).
+    // EN: The SQL expression that gives exactly the same result as cellOf() (CAST truncates toward zero; values are positive, so it equals floor).
+    static final String SQL_EXPRESSION = "CAST((latitude + 90) * 100 AS INTEGER) * 65536 + CAST((longitude + 180) * 100 AS INTEGER)";
+
+    // TR: Bir sorgu bundan fazla satıra yayılırsa satır başına aralık yerine tek bir geniş aralık kullanılır.
+    // EN: If a query spans more rows than this, a single wide range is used instead of one range per row.
+    static final int MAX_ROW_RANGES = 64;
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180.0;
+
+    private GeoCell() {
+    }
+
+    static long cellOf(double latitude, double longitude) {
+        return row(latitude) * ROW_STRIDE + column(longitude);
+    }
+
+    static long row(double latitude) {
+        return (long) ((clamp(latitude, -90, 90) + 90) * CELLS_PER_DEGREE);
+    }
+
+    static long column(double longitude) {
+        return (long) ((clamp(longitude, -180, 180) + 180) * CELLS_PER_DEGREE);
+    }
+
+    /**
+     * TR: Bir noktanın çevresinde radiusMeters yarıçaplı daireyi içine alan kutuyu döndürür: {minLat, minLon, maxLat, maxLon}.
+     * EN: Returns the box enclosing the circle of radiusMeters around a point: {minLat, minLon, maxLat, maxLon}.
+     */
+    static double[] boundingBox(double latitude, double longitude, double radiusMeters) {
+        double dLat = radiusMeters / METERS_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        // TR: Kutuplara yakın yerlerde boylam farkı bütün dünyayı kapsar. / EN: Near the poles the longitude delta covers the whole world.
+        double dLon = cosLat < 1e-6 ? 360 : Math.min(360, dLat / cosLat);
+        return new double[]{
+                clamp(latitude - dLat, -90, 90), clamp(longitude - dLon, -180, 180),
+                clamp(latitude + dLat, -90, 90), clamp(longitude + dLon, -180, 180)
+        };
+    }
+
+    /**
+     * TR: İki nokta arasındaki büyük daire mesafesi (haversine), metre cinsinden.
+     * EN: The great-circle distance between two points (haversine), in meters.
+     */
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.feelingsafe;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingEvent;
+
+/**
+ * TR: GeofenceExitReceiver, takip servisi durağan moddayken kurduğu geofence'tan çıkıldığında Play Services tarafından
+ * TR: çağrılır ve servise tam takibe dönmesini söyler (ACTION_RESUME_TRACKING). Geofence olayları ön plan servisi başlatma
+ * TR: kısıtlamalarından muaf olduğu için servis uygulama arkaplandayken de başlatılabilir.
+ * EN: GeofenceExitReceiver is called by Play Services when the user leaves the geofence the tracking service set up in
+ * EN: stationary mode, and tells the service to go back to full tracking (ACTION_RESUME_TRACKING). Geofence events are exempt
+ * EN: from the foreground service start restrictions, so the service can be started while the app is in the background too.
+ */
+public class GeofenceExitReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        GeofencingEvent event = GeofencingEvent.fromIntent(intent);
+        if (event == null || event.hasError()) {
+            Log.w("GeofenceExitReceiver", "Geofence error: " + (event == null ? "no event" : event.getErrorCode()));
+            return;
+        }
+        if (event.getGeofenceTransition() != Geofence.GEOFENCE_TRANSITION_EXIT) {
+            return;
+        }
+        // TR: Takip ayarlardan kapatıldıysa (ör. servis öldürülüp geofence kaldıysa) servisi başlatmayız.
+        // EN: If tracking was turned off in the settings (e.g. the service was killed and the geofence was left behind) we don't start the service.
+        if (!context.getSharedPreferences(SettingActivity.PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(SettingActivity.TRACKING_STATE_KEY, false)) {
+            return;
+        }
+        LocationTrackingService.start(context, LocationTrackingService.ACTION_RESUME_TRACKING);
+    }
+}
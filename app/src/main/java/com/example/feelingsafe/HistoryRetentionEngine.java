@@ -0,0 +1,224 @@
+package com.example.feelingsafe;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * TR: HistoryRetentionEngine, yaşlanan konum geçmişini kademeli olarak seyreltir (tiered downsampling):
+ * TR: son 7 gün tam çözünürlükte kalır, 90 güne kadar dakikada bir nokta, daha eskisi için 15 dakikada bir nokta tutulur.
+ * TR: 7 günden eski kayıtlar zaten RouteCompactor tarafından route_segments tablosuna taşındığı için seyreltme parçalar üzerinde yapılır.
+ * TR: İş küçük parçalar halinde veritabanı thread'ine gönderilir; böylece takip servisinin yazma işlemleri hiçbir zaman uzun süre beklemez.
+ * TR: Geçmiş varsayılan olarak hiç silinmez; kullanıcı ayarlardan bir süre seçerse o kadar aydan eski aylar tek bir
+ * TR: DROP TABLE ile tamamen silinir (bkz. RouteSegmentStore).
+ * TR: Sonunda boşalan disk alanı, veritabanı incremental auto_vacuum modundaysa incremental_vacuum ile geri kazanılır.
+ * EN: HistoryRetentionEngine gradually downsamples aging location history (tiered downsampling):
+ * EN: the last 7 days stay at full resolution, one point per minute is kept up to 90 days, and one point per 15 minutes after that.
+ * EN: Records older than 7 days have already been moved to the route_segments table by RouteCompactor, so downsampling works on the segments.
+ * EN: The work is sent to the database thread in small chunks, so the tracking service's writes never wait for long.
+ * EN: History is never deleted by default; if the user picks a limit in the settings, months older than that are removed
+ * EN: entirely with a single DROP TABLE (see RouteSegmentStore).
+ * EN: Finally, the freed disk space is reclaimed with incremental_vacuum if the database is in incremental auto_vacuum mode.
+ */
+public class HistoryRetentionEngine {
+
+    private static final String TAG = "HistoryRetentionEngine";
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * TR: Bir seyreltme kademesi: minAgeMs'den eski kayıtlarda iki nokta arası en az intervalMs olur.
+     * EN: One downsampling tier: in records older than minAgeMs, there is at least intervalMs between two points.
+     */
+    public static final class Tier {
+        final long minAgeMs;
+        final long intervalMs;
+
+        public Tier(long minAgeMs, long intervalMs) {
+            this.minAgeMs = minAgeMs;
+            this.intervalMs = intervalMs;
+        }
+    }
+
+    // TR: Varsayılan kademeler; en seyrek kademe en sonda olmalıdır. / EN: The default tiers; the sparsest tier must come last.
+    static final Tier[] DEFAULT_TIERS = {
+            new Tier(7 * DAY_MS, 60 * 1000L),
+            new Tier(90 * DAY_MS, 15 * 60 * 1000L)
+    };
+
+    // TR: Tek bir adımda işlenecek en fazla parça sayısı. / EN: The maximum number of segments processed in a single step.
+    private static final int SEGMENTS_PER_STEP = 4;
+    // TR: Tek bir adımda serbest bırakılacak en fazla sayfa sayısı. / EN: The maximum number of pages freed in a single step.
+    private static final int VACUUM_PAGES_PER_STEP = 128;
+
+    private final AppDatabase database;
+    private final Tier[] tiers;
+    private ExecutorService executor;
+    private boolean running = false;
+    // TR: Bu kadar aydan eski geçmiş tamamen silinir; 0 ise hiçbir şey silinmez. / EN: History older than this many months is deleted entirely; 0 deletes nothing.
+    private volatile int maxHistoryMonths = 0;
+
+    public HistoryRetentionEngine(AppDatabase database) {
+        this(database, DEFAULT_TIERS);
+    }
+
+    public HistoryRetentionEngine(AppDatabase database, Tier[] tiers) {
+        this.database = database;
+        this.tiers = tiers;
+    }
+
+    /**
+     * TR: Geçmişin kaç ay tutulacağını belirler; 0 geçmişi süresiz tutar. Bir sonraki start() çağrısında uygulanır.
+     * EN: Sets how many months of history are kept; 0 keeps history indefinitely. Applied on the next call to start().
+     */
+    public void setMaxHistoryMonths(int months) {
+        maxHistoryMonths = Math.max(0, months);
+    }
+
+    /**
+     * TR: Seyreltmeyi başlatır. Her adım verilen (tek thread'li) executor'a ayrı bir görev olarak gönderilir;
+     * TR: adımların arasında kuyruktaki diğer yazma işlemleri çalışabilir. Zaten çalışıyorsa bir şey yapmaz.
+     * EN: Starts downsampling. Each step is sent as a separate task to the given (single-threaded) executor;
+     * EN: other queued write operations can run between the steps. Does nothing if it is already running.
+     */
+    public synchronized void start(ExecutorService executor) {
+        if (running) {
+            return;
+        }
+        running = true;
+        this.executor = executor;
+        executor.execute(this::expireStep);
+    }
+
+    // TR: Kullanıcı bir süre seçtiyse süresi dolan ayları tek seferde siler; ay başına tek bir DROP TABLE olduğu için bu adım kısa sürer.
+    // EN: If the user picked a limit, drops the expired months at once; since it is a single DROP TABLE per month, this step is short.
+    private void expireStep() {
+        int months = maxHistoryMonths;
+        if (months > 0) {
+            Calendar cutoff = Calendar.getInstance();
+            cutoff.add(Calendar.MONTH, -months);
+            int dropped = database.routeSegmentStore().expireBefore(cutoff.getTimeInMillis());
+            if (dropped > 0) {
+                Log.d(TAG, "Expired " + dropped + " months");
+            }
+        }
+        submit(this::downsampleStep);
+    }
+
+    private void downsampleStep() {
+        long now = System.currentTimeMillis();
+        int processed = 0;
+        // TR: Önce en seyrek (en eski) kademe; böylece bir parça iki kez yeniden kodlanmaz.
+        // EN: The sparsest (oldest) tier first, so a segment isn't re-encoded twice.
+        for (int t = tiers.length - 1; t >= 0 && processed < SEGMENTS_PER_STEP; t--) {
+            Tier tier = tiers[t];
+            List<RouteSegment> segments = database.routeSegmentStore()
+                    .getNeedingResample(now - tier.minAgeMs, tier.intervalMs, SEGMENTS_PER_STEP - processed);
+            for (RouteSegment segment : segments) {
+                resample(segment, tier.intervalMs);
+                processed++;
+            }
+        }
+        if (processed > 0) {
+            Log.d(TAG, "Downsampled " + processed + " segments");
+            submit(this::downsampleStep);
+        } else {
+            submit(this::reclaimStep);
+        }
+    }
+
+    /**
+     * TR: Parçadaki noktaları, ardışık iki nokta arasında en az intervalMs olacak şekilde seyreltir. İlk ve son nokta korunur.
+     * EN: Thins the points of a segment so that there is at least intervalMs between two consecutive points. The first and last points are kept.
+     */
+    private void resample(RouteSegment segment, long intervalMs) {
+        int n = segment.pointCount;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        long[] timestamps = new long[n];
+        boolean[] keep = new boolean[n];
+        RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(segment.data);
+        int count = 0;
+        long lastKept = Long.MIN_VALUE;
+        while (reader.next() && count < n) {
+            latitudes[count] = reader.latitude();
+            longitudes[count] = reader.longitude();
+            timestamps[count] = reader.timestamp();
+            if (count == 0 || timestamps[count] - lastKept >= intervalMs) {
+                keep[count] = true;
+                lastKept = timestamps[count];
+            }
+            count++;
+        }
+        if (count > 0) {
+            keep[count - 1] = true;
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                kept++;
+            }
+        }
+        segment.data = RouteSegmentCodec.encode(latitudes, longitudes, timestamps, keep, count);
+        segment.pointCount = kept;
+        segment.sampleIntervalMs = intervalMs;
+        database.routeSegmentStore().update(segment);
+    }
+
+    /**
+     * TR: Silinen verilerin kapladığı sayfaları küçük adımlarla dosyadan atar. Sadece incremental auto_vacuum modunda
+     * TR: oluşturulmuş veritabanlarında yapılır (bkz. AppDatabase.IncrementalVacuumCallback). Eski kurulumlarda mod
+     * TR: değiştirilmez; bu tüm dosyayı yeniden yazan ve veritabanını uzun süre kilitleyen bir VACUUM gerektirirdi.
+     * TR: Orada boşalan sayfalar dosyada kalır ve SQLite tarafından yeni yazmalar için tekrar kullanılır.
+     * EN: Drops the pages occupied by deleted data from the file in small steps. This is only done on databases created
+     * EN: in incremental auto_vacuum mode (see AppDatabase.IncrementalVacuumCallback). Older installs aren't switched;
+     * EN: that would need a VACUUM that rewrites the whole file and locks the database for a long time. There the freed
+     * EN: pages stay in the file and SQLite reuses them for new writes.
+     */
+    private void reclaimStep() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        // 2 = INCREMENTAL
+        boolean incremental = queryLong(db, "PRAGMA auto_vacuum") == 2;
+        if (incremental && queryLong(db, "PRAGMA freelist_count") > 0) {
+            queryLong(db, "PRAGMA incremental_vacuum(" + VACUUM_PAGES_PER_STEP + ")");
+            submit(this::reclaimStep);
+            return;
+        }
+        // TR: WAL dosyasını da küçültüyoruz. / EN: We also shrink the WAL file.
+        queryLong(db, "PRAGMA wal_checkpoint(TRUNCATE)");
+        synchronized (this) {
+            running = false;
+        }
+    }
+
+    /**
+     * TR: Bir sonraki adımı kuyruğa ekler. Executor kapatıldıysa (servis durduysa) işi bırakır; bir sonraki başlatmada kaldığı yerden devam eder.
+     * EN: Queues the next step. If the executor was shut down (the service stopped), the work is dropped; it continues where it left off on the next start.
+     */
+    private void submit(Runnable step) {
+        try {
+            executor.execute(step);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                running = false;
+            }
+        }
+    }
+
+    // TR: Tek değer döndüren PRAGMA'ları çalıştırır. Bazı PRAGMA'lar (incremental_vacuum gibi) işlerini satırlar okunurken yapar.
+    // EN: Runs PRAGMAs that return a single value. Some PRAGMAs (like incremental_vacuum) do their work while the rows are read.
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            long value = 0;
+            while (cursor.moveToNext()) {
+                value = cursor.getLong(0);
+            }
+            return value;
+        }
+    }
+}
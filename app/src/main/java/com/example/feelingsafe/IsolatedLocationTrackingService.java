@@ -0,0 +1,12 @@
+package com.example.feelingsafe;
+
+/**
+ * TR: IsolatedLocationTrackingService, LocationTrackingService'in aynısıdır ama manifestte kendi sürecinde (":tracker")
+ * TR: tanımlanır. Ayarlarda "ayrı süreç" açıksa bu sınıf başlatılır; böylece konum alma ve yazma işleri arayüzün belleği ve
+ * TR: çöp toplayıcısıyla yarışmaz. Arayüz servisin durumunu Messenger ile (TrackingStatus) alır.
+ * EN: IsolatedLocationTrackingService is the same as LocationTrackingService but is declared in its own process (":tracker")
+ * EN: in the manifest. If "separate process" is on in the settings this class is started, so location ingestion and writing
+ * EN: don't compete with the UI's heap and garbage collector. The UI gets the service's state over a Messenger (TrackingStatus).
+ */
+public class IsolatedLocationTrackingService extends LocationTrackingService {
+}
@@ -0,0 +1,25 @@
+package com.example.feelingsafe;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// LocationJournal'dan Room'a aktarılmış son kaydın bir sonrasının sıra numarası.
+// Tabloda her zaman tek bir satır (id = 0) vardır. Bu satır, kayıtların location_history'e eklendiği
+// transaction içinde güncellenir; böylece bir çökme sonrası aynı kayıtlar iki kez eklenmez.
+@Entity(tableName = "journal_checkpoint")
+public class JournalCheckpoint {
+
+    static final int SINGLETON_ID = 0;
+
+    @PrimaryKey
+    public int id;
+
+    @ColumnInfo(name = "committed_seq")
+    public long committedSeq;
+
+    public JournalCheckpoint(long committedSeq) {
+        this.id = SINGLETON_ID;
+        this.committedSeq = committedSeq;
+    }
+}
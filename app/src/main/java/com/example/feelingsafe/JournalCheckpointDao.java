@@ -0,0 +1,19 @@
+package com.example.feelingsafe;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+// LocationJournal kontrol noktasını okur ve yazar.
+@Dao
+public interface JournalCheckpointDao {
+
+    // Kontrol noktası henüz hiç yazılmadıysa null döner.
+    @Query("SELECT committed_seq FROM journal_checkpoint WHERE id = 0")
+    Long getCommittedSeq();
+
+    // Tek satırı ekler veya üzerine yazar.
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void save(JournalCheckpoint checkpoint);
+}
@@ -0,0 +1,215 @@
+package com.example.feelingsafe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * TR: LocationBackupCodec, konum geçmişi yedeklerinin ikili (binary) dosya biçimini yazar ve okur.
+ * TR: Dosya bir başlık ve ardından bloklardan oluşur. Başlık: MAGIC (4 byte), FORMAT_VERSION (1 byte), bayraklar (1 byte).
+ * TR: FLAG_DEFLATE varsa başlıktan sonraki her şey Deflate ile sıkıştırılır. Her blok: nokta sayısı (varint),
+ * TR: veri uzunluğu (varint), veri ve verinin CRC32'si (4 byte). Sayısı 0 olan blok dosyanın sonudur.
+ * TR: Veride noktalar RouteSegmentCodec'teki gibi mikro-derece ve milisaniye cinsinden, bir önceki noktaya göre ZigZag
+ * TR: varint farkları olarak yazılır. Her blok sıfırdan başlar ve kendi sağlama toplamıyla, diğerlerinden bağımsız doğrulanır.
+ * EN: LocationBackupCodec writes and reads the binary file format of location history backups.
+ * EN: The file is a header followed by blocks. Header: MAGIC (4 bytes), FORMAT_VERSION (1 byte), flags (1 byte).
+ * EN: If FLAG_DEFLATE is set, everything after the header is compressed with Deflate. Each block: point count (varint),
+ * EN: payload length (varint), payload and the CRC32 of the payload (4 bytes). A block with count 0 ends the file.
+ * EN: In the payload, points are written as in RouteSegmentCodec: microdegrees and milliseconds, as ZigZag varint deltas
+ * EN: from the previous point. Every block starts from zero and is verified by its own checksum, independently of the others.
+ */
+final class LocationBackupCodec {
+
+    static final byte[] MAGIC = {'F', 'S', 'L', 'B'};
+    static final int FORMAT_VERSION = 1;
+    static final int FLAG_DEFLATE = 1;
+    // TR: Bir bloktaki en fazla nokta; geri yüklemede her blok tek bir transaction'da yazılır.
+    // EN: The maximum number of points in a block; during restore each block is written in a single transaction.
+    static final int BLOCK_SIZE = 4096;
+    // TR: Bozuk bir uzunluk alanı yüzünden devasa bir dizi ayrılmasın diye. / EN: So a corrupt length field doesn't allocate a huge array.
+    private static final int MAX_PAYLOAD_BYTES = BLOCK_SIZE * 30;
+
+    private LocationBackupCodec() {
+    }
+
+    /**
+     * TR: Noktaları bloklar halinde bir akışa yazar. Noktalar eskiden yeniye verilmelidir; finish() çağrılmadan dosya tamamlanmaz.
+     * EN: Writes points to a stream in blocks. Points must be given oldest first; the file isn't complete until finish() is called.
+     */
+    static final class Writer {
+        private final OutputStream out;
+        private final DeflaterOutputStream deflater;
+        // TR: Bloğun verisi burada birikir ve yeniden kullanılır. / EN: The payload of the block collects here and is reused.
+        private final ByteArrayOutputStream payload = new ByteArrayOutputStream(BLOCK_SIZE * 8);
+        private final ByteArrayOutputStream header = new ByteArrayOutputStream(16);
+        private final CRC32 crc = new CRC32();
+        private int count = 0;
+        private long previousLat;
+        private long previousLon;
+        private long previousTime;
+
+        Writer(OutputStream out, boolean compress) throws IOException {
+            out.write(MAGIC);
+            out.write(FORMAT_VERSION);
+            out.write(compress ? FLAG_DEFLATE : 0);
+            if (compress) {
+                deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED), 64 * 1024);
+                this.out = deflater;
+            } else {
+                deflater = null;
+                this.out = out;
+            }
+        }
+
+        void write(double latitude, double longitude, long timestamp) throws IOException {
+            long lat = Math.round(latitude * 1e6);
+            long lon = Math.round(longitude * 1e6);
+            Varint.write(payload, Varint.zigZag(lat - previousLat));
+            Varint.write(payload, Varint.zigZag(lon - previousLon));
+            Varint.write(payload, Varint.zigZag(timestamp - previousTime));
+            previousLat = lat;
+            previousLon = lon;
+            previousTime = timestamp;
+            if (++count == BLOCK_SIZE) {
+                flushBlock();
+            }
+        }
+
+        /**
+         * TR: Kalan noktaları ve bitiş bloğunu yazar. Alttaki akışı kapatmaz.
+         * EN: Writes the remaining points and the end block. Doesn't close the underlying stream.
+         */
+        void finish() throws IOException {
+            flushBlock();
+            header.reset();
+            Varint.write(header, 0);
+            header.writeTo(out);
+            if (deflater != null) {
+                deflater.finish();
+            }
+            out.flush();
+        }
+
+        private void flushBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            crc.reset();
+            crc.update(payload.toByteArray(), 0, payload.size());
+            long checksum = crc.getValue();
+            header.reset();
+            Varint.write(header, count);
+            Varint.write(header, payload.size());
+            header.writeTo(out);
+            payload.writeTo(out);
+            out.write((int) (checksum >>> 24));
+            out.write((int) (checksum >>> 16));
+            out.write((int) (checksum >>> 8));
+            out.write((int) checksum);
+            payload.reset();
+            count = 0;
+            previousLat = 0;
+            previousLon = 0;
+            previousTime = 0;
+        }
+    }
+
+    /**
+     * TR: Yedeği blok blok okur. Başlık veya sağlama toplamı hatalıysa IOException fırlatır.
+     * EN: Reads a backup block by block. Throws IOException if the header or a checksum is wrong.
+     */
+    static final class Reader {
+        private final DataInputStream in;
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[BLOCK_SIZE * 8];
+        private boolean finished = false;
+
+        Reader(InputStream source) throws IOException {
+            DataInputStream header = new DataInputStream(source);
+            byte[] magic = new byte[MAGIC.length];
+            header.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a location backup");
+                }
+            }
+            int version = header.readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported location backup version: " + version);
+            }
+            int flags = header.readUnsignedByte();
+            in = (flags & FLAG_DEFLATE) != 0
+                    ? new DataInputStream(new InflaterInputStream(source, new Inflater(), 64 * 1024))
+                    : header;
+        }
+
+        /**
+         * TR: Bir sonraki bloğun noktalarını out listesine ekler. Dosyanın sonuna gelindiyse false döner.
+         * EN: Adds the points of the next block to the out list. Returns false at the end of the file.
+         */
+        boolean readBlock(List<LocationHistory> out) throws IOException {
+            if (finished) {
+                return false;
+            }
+            int count = (int) readVarint();
+            if (count == 0) {
+                finished = true;
+                return false;
+            }
+            long length = readVarint();
+            if (count < 0 || count > BLOCK_SIZE || length < 0 || length > MAX_PAYLOAD_BYTES) {
+                throw new IOException("Corrupt location backup block header");
+            }
+            if (buffer.length < length) {
+                buffer = new byte[(int) length];
+            }
+            in.readFully(buffer, 0, (int) length);
+            long expected = in.readInt() & 0xFFFFFFFFL;
+            crc.reset();
+            crc.update(buffer, 0, (int) length);
+            if (crc.getValue() != expected) {
+                throw new IOException("Location backup checksum mismatch");
+            }
+            // TR: Tampon bloktan uzun olabilir; okunacak nokta sayısı count ile sınırlıdır. / EN: The buffer may be longer than the block; the number of points read is bounded by count.
+            Varint.Reader reader = new Varint.Reader(buffer);
+            long lat = 0;
+            long lon = 0;
+            long time = 0;
+            try {
+                for (int i = 0; i < count; i++) {
+                    lat += reader.readSigned();
+                    lon += reader.readSigned();
+                    time += reader.readSigned();
+                    out.add(new LocationHistory(lat / 1e6, lon / 1e6, time));
+                }
+            } catch (IllegalStateException e) {
+                throw new IOException("Corrupt location backup block", e);
+            }
+            return true;
+        }
+
+        private long readVarint() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Unexpected end of location backup");
+                }
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint in location backup");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.feelingsafe;
+
+import java.util.List;
+
+/**
+ * TR: LocationBatchWriter, konumları veritabanına yazan tek noktadır. Hem LocationWriteBuffer hem de
+ * TR: LocationJournalCompactor bunu kullanır. Konumlar, onlardan türetilen özetlerle (ziyaret sıklığı, yolculuklar)
+ * TR: birlikte tek bir transaction içinde yazılır; böylece özetler hiçbir zaman ham geçmişten kopamaz.
+ * TR: Veritabanı thread'inde çağrılmalıdır.
+ * EN: LocationBatchWriter is the single place that writes locations to the database. Both LocationWriteBuffer and
+ * EN: LocationJournalCompactor use it. The locations are written in a single transaction together with the summaries
+ * EN: derived from them (visit frequency, trips), so the summaries can never drift from the raw history.
+ * EN: It must be called on the database thread.
+ */
+public class LocationBatchWriter {
+
+    private final AppDatabase database;
+    private final PlaceVisitAggregator visitAggregator;
+    private final TripSegmenter tripSegmenter;
+
+    public LocationBatchWriter(AppDatabase database, PlaceVisitAggregator visitAggregator, TripSegmenter tripSegmenter) {
+        this.database = database;
+        this.visitAggregator = visitAggregator;
+        this.tripSegmenter = tripSegmenter;
+    }
+
+    /**
+     * TR: Konumları (eskiden yeniye) yazar. Başka bir transaction'ın içinden de çağrılabilir.
+     * EN: Writes the locations (oldest first). It can also be called from inside another transaction.
+     */
+    public void write(List<LocationHistory> batch) {
+        database.runInTransaction(() -> {
+            visitAggregator.add(batch);
+            tripSegmenter.add(batch);
+            database.locationHistoryDao().insertAll(batch);
+        });
+    }
+}
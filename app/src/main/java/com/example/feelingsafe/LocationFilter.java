@@ -0,0 +1,111 @@
+package com.example.feelingsafe;
+
+/**
+ * TR: LocationFilter, konum sağlayıcısından gelen ham konumları veritabanına yazılmadan önce temizler:
+ * TR: doğruluğu MAX_ACCURACY_METERS'ten kötü olanları ve bir öncekinden zaman olarak geri kalanları atar, ölçüm
+ * TR: hatası düşüldükten sonra bile MAX_SPEED_MPS'ten hızlı bir sıçrama gerektirenleri aykırı değer sayar ve geri kalanları
+ * TR: basit bir Kalman filtresiyle (konum başına tek bir varyans) yumuşatır. Filtrenin varyansı zamanla
+ * TR: PROCESS_NOISE_MPS hızında büyür; ölçümün ağırlığı doğruluğuna göre belirlenir.
+ * TR: Uzun bir aradan (RESET_GAP_MS) sonra veya art arda MAX_CONSECUTIVE_REJECTS konum atıldıysa filtre yeni konumdan
+ * TR: baştan başlar; böylece gerçek bir konum değişikliği (ör. uçak yolculuğu) sonsuza kadar reddedilmez.
+ * TR: Thread-safe değildir; tek bir thread'den (servisin konum callback'i) kullanılmalıdır.
+ * EN: LocationFilter cleans up the raw locations from the location provider before they are written to the database:
+ * EN: it drops the ones with an accuracy worse than MAX_ACCURACY_METERS and the ones that are older than the previous one,
+ * EN: treats the ones that would need a jump faster than MAX_SPEED_MPS, even after subtracting the measurement error, as
+ * EN: outliers, and smooths the rest with a simple Kalman filter (a single variance per position). The filter's variance
+ * EN: grows over time at PROCESS_NOISE_MPS; the weight of a measurement is set by its accuracy.
+ * EN: After a long gap (RESET_GAP_MS) or after MAX_CONSECUTIVE_REJECTS rejected locations in a row, the filter restarts
+ * EN: from the new location, so a real change of position (e.g. a flight) isn't rejected forever.
+ * EN: It isn't thread-safe; it must be used from a single thread (the service's location callback).
+ */
+final class LocationFilter {
+
+    static final float MAX_ACCURACY_METERS = 150f;
+    // TR: Yaklaşık 250 km/s. / EN: About 250 km/h.
+    static final double MAX_SPEED_MPS = 70;
+    // TR: Kullanıcının konumunun saniyede ne kadar belirsizleştiği (yürüme/araç arası bir değer).
+    // EN: How much the user's position becomes uncertain per second (a value between walking and driving).
+    static final double PROCESS_NOISE_MPS = 3;
+    static final long RESET_GAP_MS = TripSegmenter.TRIP_GAP_MS;
+    static final int MAX_CONSECUTIVE_REJECTS = 5;
+    // TR: Doğruluk sıfırsa kullanılan değer. / EN: The value used when the accuracy is zero.
+    private static final float MIN_ACCURACY_METERS = 1f;
+
+    private boolean initialized = false;
+    private double latitude;
+    private double longitude;
+    private long timestamp;
+    // TR: Tahminin varyansı (metre kare). / EN: The variance of the estimate (square meters).
+    private double variance;
+    private int consecutiveRejects = 0;
+
+    private int accepted = 0;
+    private int rejected = 0;
+
+    /**
+     * TR: Ham bir konumu işler. Konum atıldıysa null, kabul edildiyse yumuşatılmış konumu döndürür. Yumuşatılmış konumun
+     * TR: doğruluğu filtrenin tahminidir; hız, yön ve sağlayıcı olduğu gibi korunur.
+     * EN: Processes a raw location. Returns null if the location was dropped, otherwise the smoothed location. The accuracy of
+     * EN: the smoothed location is the filter's estimate; speed, bearing and provider are kept as they are.
+     */
+    LocationHistory process(double latitude, double longitude, long timestamp, float accuracy, float speed, float bearing,
+                            String provider) {
+        if (accuracy > MAX_ACCURACY_METERS || (initialized && timestamp <= this.timestamp)) {
+            return reject();
+        }
+        // TR: Doğruluğu bilinmeyen konuma en kötü kabul edilen doğruluk verilir. / EN: A location with an unknown accuracy gets the worst accepted accuracy.
+        float measurementAccuracy = accuracy < 0 ? MAX_ACCURACY_METERS : Math.max(accuracy, MIN_ACCURACY_METERS);
+        double measurementVariance = (double) measurementAccuracy * measurementAccuracy;
+        if (!initialized || timestamp - this.timestamp > RESET_GAP_MS || consecutiveRejects >= MAX_CONSECUTIVE_REJECTS) {
+            reset(latitude, longitude, timestamp, measurementVariance);
+            return accept(speed, bearing, provider);
+        }
+
+        double seconds = (timestamp - this.timestamp) / 1000.0;
+        double distance = GeoCell.distanceMeters(this.latitude, this.longitude, latitude, longitude);
+        // TR: İki konumun hata payları düşüldükten sonra kalan mesafe bile imkânsız bir hız gerektiriyorsa aykırı değerdir.
+        // EN: If even the distance left after subtracting both error margins needs an impossible speed, it is an outlier.
+        double unexplained = distance - measurementAccuracy - Math.sqrt(variance);
+        if (unexplained > MAX_SPEED_MPS * seconds) {
+            return reject();
+        }
+
+        // TR: Tahmin adımı: kullanıcı hareket etmiş olabilir. / EN: Predict step: the user may have moved.
+        variance += seconds * PROCESS_NOISE_MPS * PROCESS_NOISE_MPS;
+        // TR: Güncelleme adımı: ölçüm, varyanslarının oranında tahmine karışır. / EN: Update step: the measurement is blended in by the ratio of the variances.
+        double gain = variance / (variance + measurementVariance);
+        this.latitude += gain * (latitude - this.latitude);
+        this.longitude += gain * (longitude - this.longitude);
+        this.timestamp = timestamp;
+        variance = (1 - gain) * variance;
+        return accept(speed, bearing, provider);
+    }
+
+    int acceptedCount() {
+        return accepted;
+    }
+
+    int rejectedCount() {
+        return rejected;
+    }
+
+    private void reset(double latitude, double longitude, long timestamp, double variance) {
+        initialized = true;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = timestamp;
+        this.variance = variance;
+    }
+
+    private LocationHistory accept(float speed, float bearing, String provider) {
+        consecutiveRejects = 0;
+        accepted++;
+        return new LocationHistory(latitude, longitude, timestamp, (float) Math.sqrt(variance), speed, bearing, provider);
+    }
+
+    private LocationHistory reject() {
+        consecutiveRejects++;
+        rejected++;
+        return null;
+    }
+}
@@ -2,10 +2,15 @@ package com.example.feelingsafe;
 
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 // @Entity işareti, bu sınıfın bir veritabanı tablosu olduğunu Room'a söyler.
-@Entity(tableName = "location_history")
+// timestamp üzerindeki index sayesinde zamana göre sıralama ve aralık sorguları tüm tabloyu taramaz.
+// (SQLite her index'e rowid'yi, yani id'yi, otomatik ekler; bu yüzden (timestamp, id) sıralaması da bu index'i kullanır.)
+// (cell, timestamp) index'i "X noktasının yakınında ne zaman bulundum" gibi alan sorguları içindir (bkz. GeoCell).
+@Entity(tableName = "location_history", indices = {@Index(value = "timestamp"), @Index(value = {"cell", "timestamp"})})
 public class LocationHistory {
 
     // @PrimaryKey, bu alanın her satır için benzersiz bir anahtar olduğunu belirtir.
@@ -23,10 +28,43 @@ public class LocationHistory {
     @ColumnInfo(name = "timestamp")
     public long timestamp;
 
+    // Konumun ait olduğu ızgara hücresi (GeoCell.cellOf). Kurucu metod tarafından hesaplanır.
+    @ColumnInfo(name = "cell", defaultValue = "0")
+    public long cell;
+
+    // Bilinmeyen doğruluk, hız ve yön değerleri için kullanılır (eski kayıtlar, sıkıştırılmış parçalar, yedekler).
+    public static final float UNKNOWN = -1f;
+
+    // Konumun tahmini doğruluğu (metre, %68 güven aralığı). LocationFilter'dan geçen konumlarda filtrenin kendi tahminidir.
+    @ColumnInfo(name = "accuracy", defaultValue = "-1")
+    public float accuracy = UNKNOWN;
+
+    // Konum sağlayıcısının bildirdiği hız (m/s) ve yön (derece, 0-360).
+    @ColumnInfo(name = "speed", defaultValue = "-1")
+    public float speed = UNKNOWN;
+
+    @ColumnInfo(name = "bearing", defaultValue = "-1")
+    public float bearing = UNKNOWN;
+
+    // Konumu üreten sağlayıcı ("fused", "gps", "network"...). Bilinmiyorsa null.
+    @ColumnInfo(name = "provider")
+    public String provider;
+
     // Room'un nesneleri oluşturabilmesi için boş bir kurucu metod gerekebilir.
     public LocationHistory(double latitude, double longitude, long timestamp) {
         this.latitude = latitude;
         this.longitude = longitude;
         this.timestamp = timestamp;
+        this.cell = GeoCell.cellOf(latitude, longitude);
+    }
+
+    // Tüm ölçüm bilgileriyle bir konum oluşturur. Room bu kurucu metodu kullanmaz.
+    @Ignore
+    public LocationHistory(double latitude, double longitude, long timestamp, float accuracy, float speed, float bearing, String provider) {
+        this(latitude, longitude, timestamp);
+        this.accuracy = accuracy;
+        this.speed = speed;
+        this.bearing = bearing;
+        this.provider = provider;
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.example.feelingsafe;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TR: LocationHistoryBackup, konum geçmişinin tamamını LocationBackupCodec biçiminde bir dosyaya yedekler ve geri yükler
+ * TR: (ör. yeni bir telefona geçerken). Yedekleme, dışa aktarma gibi LocationHistoryRepository.readChunkAfter() ile
+ * TR: sabit bellekle okur; sıkıştırılmış parçalar ve günlükteki noktalar da dahildir. Geri yükleme her bloğu tek bir
+ * TR: transaction'da toplu olarak ekler; ziyaret sıklığı ve yolculuk özetlerine sadece eklenen noktaların katkısı eklenir.
+ * TR: Veritabanı thread'inde (arkaplanda) çağrılmalıdır. Geri yüklerken takip servisi durdurulmuş olmalıdır, çünkü
+ * TR: servisin yazma yolu son konumu ve açık yolculuğu hafızada tutar.
+ * EN: LocationHistoryBackup backs up the whole location history to a file in the LocationBackupCodec format and restores it
+ * EN: (e.g. when moving to a new phone). Like the export, backup reads with constant memory using
+ * EN: LocationHistoryRepository.readChunkAfter(); compressed segments and journal points are included. Restore inserts each
+ * EN: block in bulk in a single transaction; only the contribution of the inserted points is added to the visit frequencies
+ * EN: and trip summaries.
+ * EN: It must be called on the database thread (in the background). The tracking service must be stopped while restoring,
+ * EN: because the service's write path keeps the latest location and the open trip in memory.
+ */
+public class LocationHistoryBackup {
+
+    private static final String TAG = "LocationHistoryBackup";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AppDatabase database;
+    private final LocationHistoryRepository repository;
+
+    public LocationHistoryBackup(AppDatabase database) {
+        this.database = database;
+        this.repository = new LocationHistoryRepository(database);
+    }
+
+    /**
+     * TR: Tüm geçmişi eskiden yeniye yazar ve yazılan nokta sayısını döndürür. Alttaki akışı kapatmaz.
+     * EN: Writes the whole history, oldest first, and returns the number of points written. Doesn't close the underlying stream.
+     */
+    public long backup(OutputStream out, boolean compress) throws IOException {
+        LocationBackupCodec.Writer writer = new LocationBackupCodec.Writer(new BufferedOutputStream(out, BUFFER_SIZE), compress);
+        LocationHistoryRepository.Chunk chunk = new LocationHistoryRepository.Chunk(LocationBackupCodec.BLOCK_SIZE);
+        long afterTimestamp = Long.MIN_VALUE;
+        int afterId = LocationHistoryRepository.COMPACTED_ID;
+        long count = 0;
+        while (true) {
+            repository.readChunkAfter(afterTimestamp, afterId, Long.MAX_VALUE, chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                writer.write(chunk.latitude(i), chunk.longitude(i), chunk.timestamp(i));
+            }
+            count += chunk.size();
+            if (chunk.size() < LocationBackupCodec.BLOCK_SIZE) {
+                break;
+            }
+            afterTimestamp = chunk.timestamp(chunk.size() - 1);
+            afterId = chunk.id(chunk.size() - 1);
+        }
+        writer.finish();
+        return count;
+    }
+
+    /**
+     * TR: Yedekteki noktaları ham tabloya ekler ve eklenen nokta sayısını döndürür. Cihazda zaten geçmiş varsa, onun
+     * TR: kapsadığı zaman aralığına düşen noktalar atlanır; böylece aynı yedek iki kez yüklense de nokta tekrarlanmaz.
+     * TR: Bozuk bir blokta IOException fırlatır; o ana kadarki bloklar eklenmiş kalır.
+     * EN: Inserts the points of the backup into the raw table and returns the number of points inserted. If the device already
+     * EN: has history, points falling into the time range it covers are skipped, so points aren't repeated even if the same
+     * EN: backup is restored twice. Throws IOException on a corrupt block; the blocks up to that point stay inserted.
+     */
+    public long restore(InputStream in) throws IOException {
+        LocationBackupCodec.Reader reader = new LocationBackupCodec.Reader(new BufferedInputStream(in, BUFFER_SIZE));
+        List<LocationHistory> newestPage = repository.getLatestPage(1);
+        LocationHistory newest = newestPage.isEmpty() ? null : newestPage.get(0);
+        // TR: Geçmiş boşsa tüm noktalar "mevcut geçmişten önce" sayılır. / EN: If the history is empty, every point counts as "before the existing history".
+        long oldestTime = newest == null ? Long.MAX_VALUE
+                : repository.getPageAfter(Long.MIN_VALUE, LocationHistoryRepository.COMPACTED_ID, 1).get(0).timestamp;
+        long newestTime = newest == null ? Long.MIN_VALUE : newest.timestamp;
+
+        // TR: Eklenen noktalar, servisin yazma yolundaki gibi ziyaret ve yolculuk özetlerine artımlı olarak eklenir; mevcut
+        // TR: özetler (sıkıştırılmış parçalara ait olanlar dahil) olduğu gibi kalır. Yedek eskiden yeniye okunduğu için
+        // TR: eklenenler iki dizidir: mevcut geçmişten öncekiler ve sonrakiler. Her dizi kendinden önceki noktadan devam eder.
+        // EN: The inserted points are added incrementally to the visit and trip summaries, as on the service's write path; the
+        // EN: existing summaries (including those of compacted segments) stay as they are. Since the backup is read oldest
+        // EN: first, the inserted points form two runs: before and after the existing history. Each run continues from the point before it.
+        PlaceVisitAggregator visits = new PlaceVisitAggregator(database);
+        TripSegmenter trips = new TripSegmenter(database);
+        LocationBatchWriter writer = new LocationBatchWriter(database, visits, trips);
+        database.runInTransaction(() -> {
+            visits.restartAfter(null);
+            trips.restartAfter(null);
+        });
+        boolean afterExisting = false;
+        List<LocationHistory> block = new ArrayList<>(LocationBackupCodec.BLOCK_SIZE);
+        List<LocationHistory> toInsert = new ArrayList<>(LocationBackupCodec.BLOCK_SIZE);
+        long inserted = 0;
+        try {
+            while (reader.readBlock(block)) {
+                for (LocationHistory location : block) {
+                    if (location.timestamp < oldestTime) {
+                        toInsert.add(location);
+                    } else if (location.timestamp > newestTime) {
+                        if (!afterExisting) {
+                            inserted += write(writer, toInsert);
+                            database.runInTransaction(() -> {
+                                trips.finish();
+                                visits.restartAfter(newest);
+                                trips.restartAfter(newest);
+                            });
+                            afterExisting = true;
+                        }
+                        toInsert.add(location);
+                    }
+                }
+                inserted += write(writer, toInsert);
+                block.clear();
+            }
+        } finally {
+            database.runInTransaction(trips::finish);
+            if (inserted > 0) {
+                database.routeCache().clear();
+            }
+        }
+        Log.d(TAG, "Restored " + inserted + " locations");
+        return inserted;
+    }
+
+    // TR: Blok başına tek transaction: her satır için ayrı bir disk senkronizasyonu yapılmaz. Listeyi boşaltır.
+    // EN: One transaction per block: there is no separate disk sync for every row. Empties the list.
+    private static int write(LocationBatchWriter writer, List<LocationHistory> points) {
+        int count = points.size();
+        if (count > 0) {
+            writer.write(points);
+            points.clear();
+        }
+        return count;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.feelingsafe;
 import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.List;
 
@@ -14,11 +16,62 @@ public interface LocationHistoryDao {
     @Insert
     void insert(LocationHistory locationHistory);
 
+    // Toplu ekleme: Room, listenin tamamını tek bir transaction içinde yazar.
+    // Böylece her konum için ayrı bir disk senkronizasyonu yapılmaz.
+    @Insert
+    void insertAll(List<LocationHistory> locations);
+
     // @Query, karmaşık sorgular yazmamızı sağlar. Bu sorgu, tüm konum geçmişini
     // en yeniden en eskiye doğru sıralayarak getirir.
     @Query("SELECT * FROM location_history ORDER BY timestamp DESC")
     List<LocationHistory> getAll();
 
+    // Sayfalama (keyset pagination): OFFSET yerine son görülen kaydın (timestamp, id)
+    // değerinden devam eder. Böylece tablo ne kadar büyük olursa olsun her sayfa
+    // sadece LIMIT kadar satır okur. id, aynı timestamp'e sahip kayıtları ayırmak içindir.
+    // İlk sayfa sorgusu aynı zamanda "son N konum" sorgusudur.
+    @Query("SELECT * FROM location_history ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<LocationHistory> getLatestPage(int limit);
+
+    // Verilen kayıttan daha eski olan sayfayı (yeniden eskiye) getirir.
+    @Query("SELECT * FROM location_history WHERE timestamp < :timestamp OR (timestamp = :timestamp AND id < :id) "
+            + "ORDER BY timestamp DESC, id DESC LIMIT :limit")
+    List<LocationHistory> getPageBefore(long timestamp, int id, int limit);
+
+    // Verilen kayıttan daha yeni olan sayfayı getirir. Sonuç eskiden yeniye sıralıdır.
+    @Query("SELECT * FROM location_history WHERE timestamp > :timestamp OR (timestamp = :timestamp AND id > :id) "
+            + "ORDER BY timestamp ASC, id ASC LIMIT :limit")
+    List<LocationHistory> getPageAfter(long timestamp, int id, int limit);
+
+    // İki zaman arasındaki (dahil) konumları eskiden yeniye getirir.
+    @Query("SELECT * FROM location_history WHERE timestamp BETWEEN :from AND :to ORDER BY timestamp ASC, id ASC")
+    List<LocationHistory> getBetween(long from, long to);
+
+    // Verilen aralıktaki konumların gün başına sayısı. Sadece timestamp sütunu okunduğu için
+    // sorgu tabloya hiç dokunmadan timestamp index'i üzerinden (covering index) çalışır.
+    // Günler cihazın saat dilimine göre SQLite'ın 'localtime' dönüşümüyle bölünür; böylece her konum kendi tarihindeki
+    // UTC farkını kullanır ve yaz saati geçişini içeren aralıklarda da doğru güne düşer. Yerel gece yarısının julianday
+    // değerinden 1970-01-01'in julianday değeri (2440587.5) çıkarılınca yerel gün numarası elde edilir.
+    @Query("SELECT CAST(julianday(timestamp / 1000, 'unixepoch', 'localtime', 'start of day') - 2440587.5 AS INTEGER) "
+            + "AS epochDay, COUNT(*) AS count FROM location_history "
+            + "WHERE timestamp BETWEEN :from AND :to GROUP BY epochDay ORDER BY epochDay")
+    List<DailyLocationCount> getDailyCounts(long from, long to);
+
+    // En eski sayfayı eskiden yeniye getirir. getPageAfter ile birlikte tabloyu baştan sona gezmek için kullanılır.
+    @Query("SELECT * FROM location_history ORDER BY timestamp ASC, id ASC LIMIT :limit")
+    List<LocationHistory> getOldestPage(int limit);
+
+    // (fromTimestamp, fromId) ile (toTimestamp, toId) arasındaki (dahil) kayıtları siler.
+    @Query("DELETE FROM location_history "
+            + "WHERE (timestamp > :fromTimestamp OR (timestamp = :fromTimestamp AND id >= :fromId)) "
+            + "AND (timestamp < :toTimestamp OR (timestamp = :toTimestamp AND id <= :toId))")
+    int deleteRange(long fromTimestamp, int fromId, long toTimestamp, int toId);
+
+    // Koşulları çalışma anında oluşturulan sorgular için (ör. alan sorgusunda hücre aralıkları sayısı değişir).
+    // Doğrudan değil, LocationHistoryRepository üzerinden kullanılmalıdır.
+    @RawQuery(observedEntities = LocationHistory.class)
+    List<LocationHistory> query(SupportSQLiteQuery query);
+
     // Bu sorgu, tüm kayıtları siler.
     @Query("DELETE FROM location_history")
     void deleteAll();
@@ -0,0 +1,240 @@
+package com.example.feelingsafe;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * TR: LocationHistoryExporter, seçilen zaman aralığındaki konum geçmişini GPX veya GeoJSON olarak bir akışa yazar.
+ * TR: Noktalar LocationHistoryRepository.readChunkAfter() ile sabit boyutlu bir tampona parça parça okunur ve hemen
+ * TR: tamponlu bir Writer'a yazılır; bellek kullanımı geçmişin uzunluğundan bağımsızdır. Sayılar ve tarihler
+ * TR: String.format veya SimpleDateFormat kullanılmadan, nesne oluşturmadan yazılır; böylece hız diske bağlı kalır.
+ * TR: Veritabanı thread'inde (arkaplanda) çağrılmalıdır; cancel() herhangi bir thread'den çağrılabilir.
+ * EN: LocationHistoryExporter writes the location history of a selected time range to a stream as GPX or GeoJSON.
+ * EN: Points are read chunk by chunk into a fixed-size buffer with LocationHistoryRepository.readChunkAfter() and written
+ * EN: straight to a buffered Writer; memory use is independent of the length of the history. Numbers and dates are written
+ * EN: without String.format or SimpleDateFormat and without creating objects, so the speed stays bound by the disk.
+ * EN: It must be called on the database thread (in the background); cancel() can be called from any thread.
+ */
+public class LocationHistoryExporter {
+
+    /**
+     * TR: Desteklenen dosya biçimleri. / EN: The supported file formats.
+     */
+    public enum Format {
+        GPX("application/gpx+xml", "gpx"),
+        GEOJSON("application/geo+json", "geojson");
+
+        public final String mimeType;
+        public final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * TR: Her parça yazıldıktan sonra çağrılır. total bir tahmindir (bkz. LocationHistoryRepository.estimateCount).
+     * EN: Called after each chunk is written. total is an estimate (see LocationHistoryRepository.estimateCount).
+     */
+    public interface ProgressListener {
+        void onProgress(long exported, long total);
+    }
+
+    static final int CHUNK_SIZE = 2048;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+    // TR: Koordinatlar 7 ondalık basamakla (~1 cm) yazılır. / EN: Coordinates are written with 7 decimal places (~1 cm).
+    private static final int COORDINATE_DECIMALS = 7;
+    private static final long COORDINATE_SCALE = 10_000_000L;
+
+    private final LocationHistoryRepository repository;
+    private volatile boolean cancelled = false;
+    private volatile long exported = 0;
+
+    // TR: Aynı gündeki noktalar için tarih kısmı bir kez hesaplanır. / EN: The date part is computed once for points on the same day.
+    private final char[] dayPrefix = new char[11];
+    private long cachedDay = Long.MIN_VALUE;
+
+    public LocationHistoryExporter(AppDatabase database) {
+        this.repository = new LocationHistoryRepository(database);
+    }
+
+    /**
+     * TR: Devam eden dışa aktarmayı durdurur; export() bir sonraki parçadan önce false döner.
+     * EN: Stops the ongoing export; export() returns false before the next chunk.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // TR: Son export() çağrısında yazılan nokta sayısı. / EN: The number of points written by the last export() call.
+    public long exportedCount() {
+        return exported;
+    }
+
+    /**
+     * TR: İki zaman arasındaki (dahil) noktaları eskiden yeniye yazar. İptal edilirse yazılan kısım geçerli bir dosya
+     * TR: değildir ve false döner; akışı kapatmak ve gerekirse dosyayı silmek çağırana aittir.
+     * EN: Writes the points between two times (inclusive), oldest first. If cancelled, the part written isn't a valid file
+     * EN: and it returns false; closing the stream and deleting the file if needed is up to the caller.
+     */
+    public boolean export(OutputStream out, Format format, long from, long to, @Nullable ProgressListener listener) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long total = listener == null ? 0 : repository.estimateCount(from, to);
+        LocationHistoryRepository.Chunk chunk = new LocationHistoryRepository.Chunk(CHUNK_SIZE);
+        // TR: Keyset anahtarı aralığın hemen öncesinden başlar. / EN: The keyset key starts right before the range.
+        long afterTimestamp = from == Long.MIN_VALUE ? Long.MIN_VALUE : from - 1;
+        int afterId = LocationHistoryRepository.COMPACTED_ID;
+        long count = 0;
+        long previousTimestamp = Long.MIN_VALUE;
+
+        writeHeader(writer, format);
+        while (true) {
+            if (cancelled) {
+                writer.flush();
+                return false;
+            }
+            repository.readChunkAfter(afterTimestamp, afterId, to, chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                long timestamp = chunk.timestamp(i);
+                if (format == Format.GPX) {
+                    // TR: Uzun boşluklarda yeni bir iz parçası başlatılır. / EN: A new track segment starts at long gaps.
+                    if (count > 0 && timestamp - previousTimestamp > TripSegmenter.TRIP_GAP_MS) {
+                        writer.write("</trkseg>\n<trkseg>\n");
+                    }
+                    writeGpxPoint(writer, chunk.latitude(i), chunk.longitude(i), timestamp);
+                } else {
+                    writeGeoJsonPoint(writer, chunk.latitude(i), chunk.longitude(i), timestamp, count == 0);
+                }
+                previousTimestamp = timestamp;
+                count++;
+            }
+            exported = count;
+            if (listener != null) {
+                listener.onProgress(count, Math.max(total, count));
+            }
+            if (chunk.size() < CHUNK_SIZE) {
+                break;
+            }
+            afterTimestamp = chunk.timestamp(chunk.size() - 1);
+            afterId = chunk.id(chunk.size() - 1);
+        }
+        writeFooter(writer, format);
+        writer.flush();
+        return true;
+    }
+
+    private static void writeHeader(Writer writer, Format format) throws IOException {
+        if (format == Format.GPX) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                    + "<gpx version=\"1.1\" creator=\"FeelingSafe\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n"
+                    + "<trk>\n<name>FeelingSafe</name>\n<trkseg>\n");
+        } else {
+            writer.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+        }
+    }
+
+    private static void writeFooter(Writer writer, Format format) throws IOException {
+        if (format == Format.GPX) {
+            writer.write("</trkseg>\n</trk>\n</gpx>\n");
+        } else {
+            writer.write("\n]}\n");
+        }
+    }
+
+    private void writeGpxPoint(Writer writer, double latitude, double longitude, long timestamp) throws IOException {
+        writer.write("<trkpt lat=\"");
+        writeCoordinate(writer, latitude);
+        writer.write("\" lon=\"");
+        writeCoordinate(writer, longitude);
+        writer.write("\"><time>");
+        writeTime(writer, timestamp);
+        writer.write("</time></trkpt>\n");
+    }
+
+    private void writeGeoJsonPoint(Writer writer, double latitude, double longitude, long timestamp, boolean first) throws IOException {
+        if (!first) {
+            writer.write(",\n");
+        }
+        // TR: GeoJSON'da sıra boylam, enlemdir. / EN: In GeoJSON the order is longitude, latitude.
+        writer.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+        writeCoordinate(writer, longitude);
+        writer.write(',');
+        writeCoordinate(writer, latitude);
+        writer.write("]},\"properties\":{\"time\":\"");
+        writeTime(writer, timestamp);
+        writer.write("\"}}");
+    }
+
+    // TR: Sabit noktalı yazım; Double.toString'in üstel gösterimi (ör. 1.0E-4) GPX'te geçerli değildir.
+    // EN: Fixed-point output; Double.toString's exponent notation (e.g. 1.0E-4) isn't valid in GPX.
+    private static void writeCoordinate(Writer writer, double value) throws IOException {
+        long scaled = Math.round(value * COORDINATE_SCALE);
+        if (scaled < 0) {
+            writer.write('-');
+            scaled = -scaled;
+        }
+        writeDigits(writer, scaled / COORDINATE_SCALE, 1);
+        writer.write('.');
+        writeDigits(writer, scaled % COORDINATE_SCALE, COORDINATE_DECIMALS);
+    }
+
+    // TR: ISO 8601, UTC ve milisaniyeli: 2024-05-01T13:45:07.123Z. / EN: ISO 8601, UTC with milliseconds: 2024-05-01T13:45:07.123Z.
+    private void writeTime(Writer writer, long timestamp) throws IOException {
+        long day = Math.floorDiv(timestamp, DAY_MS);
+        if (day != cachedDay) {
+            Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            calendar.setTimeInMillis(day * DAY_MS);
+            putDigits(dayPrefix, 0, calendar.get(Calendar.YEAR), 4);
+            dayPrefix[4] = '-';
+            putDigits(dayPrefix, 5, calendar.get(Calendar.MONTH) + 1, 2);
+            dayPrefix[7] = '-';
+            putDigits(dayPrefix, 8, calendar.get(Calendar.DAY_OF_MONTH), 2);
+            dayPrefix[10] = 'T';
+            cachedDay = day;
+        }
+        writer.write(dayPrefix);
+        long millisOfDay = Math.floorMod(timestamp, DAY_MS);
+        writeDigits(writer, millisOfDay / 3_600_000, 2);
+        writer.write(':');
+        writeDigits(writer, millisOfDay / 60_000 % 60, 2);
+        writer.write(':');
+        writeDigits(writer, millisOfDay / 1000 % 60, 2);
+        writer.write('.');
+        writeDigits(writer, millisOfDay % 1000, 3);
+        writer.write('Z');
+    }
+
+    // TR: Negatif olmayan bir sayıyı en az minDigits basamakla (başına sıfır ekleyerek) yazar.
+    // EN: Writes a non-negative number with at least minDigits digits (padding with leading zeros).
+    private static void writeDigits(Writer writer, long value, int minDigits) throws IOException {
+        long divisor = 1;
+        int digits = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+            digits++;
+        }
+        for (int i = digits; i < minDigits; i++) {
+            writer.write('0');
+        }
+        for (; divisor > 0; divisor /= 10) {
+            writer.write((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    private static void putDigits(char[] target, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
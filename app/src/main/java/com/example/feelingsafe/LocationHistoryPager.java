@@ -0,0 +1,282 @@
+package com.example.feelingsafe;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * TR: LocationHistoryPager, konum geçmişini LocationHistoryRepository üzerinden (timestamp, id) anahtarına göre keyset sayfalama ile yükler.
+ * TR: Hafızada en fazla MAX_LOADED_ITEMS kadar kayıt tutar; kullanıcı kaydırdıkça bir uçtan sayfa
+ * TR: eklenirken diğer uçtan sayfa atılır. Tüm metodlar ana thread'den çağrılmalıdır. release()'ten sonra dinleyici çağrılmaz.
+ * EN: LocationHistoryPager loads the location history through LocationHistoryRepository with keyset pagination on the (timestamp, id) key.
+ * EN: It keeps at most MAX_LOADED_ITEMS records in memory; as the user scrolls, a page is added at one
+ * EN: end and dropped from the other end. All methods must be called from the main thread. After release() the listener isn't called.
+ * TR: startWatching() ile Room'un InvalidationTracker'ı dinlenir: servis yeni konum yazdığında sadece pencerenin başındaki
+ * TR: kayıttan daha yeni olanlar okunur ve listenin başına eklenir; eski kayıtlar tekrar okunmaz, yoklama (polling) yapılmaz.
+ * EN: startWatching() listens to Room's InvalidationTracker: when the service writes new locations, only the ones newer than
+ * EN: the first record of the window are read and added to the start of the list; old records aren't read again and there is no polling.
+ * TR: Günlük (LocationJournal) açıkken yeni konumlar Room'a ancak aktarıldığında yazılır; bu yüzden günlüğe her ekleme de aynı
+ * TR: okumayı tetikler ve depo günlükteki noktaları birleştirdiği için yeni konum hemen görünür.
+ * EN: While the journal (LocationJournal) is on, new locations only reach Room when they are folded in, so every append to the
+ * EN: journal triggers the same read too; the repository merges the journal points, so the new location shows up at once.
+ */
+public class LocationHistoryPager {
+
+    /**
+     * TR: Yüklü pencere her değiştiğinde yeni (değiştirilemez) listeyle ana thread'de çağrılır.
+     * EN: Called on the main thread with the new (immutable) list whenever the loaded window changes.
+     */
+    public interface Listener {
+        void onWindowChanged(List<LocationHistory> window);
+    }
+
+    static final int PAGE_SIZE = 50;
+    static final int MAX_LOADED_ITEMS = PAGE_SIZE * 6;
+
+    private final AppDatabase database;
+    private final LocationHistoryRepository repository;
+    private final ExecutorService databaseExecutor;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // TR: Sadece bu iki zaman arasındaki (dahil) kayıtlar yüklenir. / EN: Only records between these two times (inclusive) are loaded.
+    private long from = Long.MIN_VALUE;
+    private long to = Long.MAX_VALUE;
+
+    private List<LocationHistory> window = Collections.emptyList();
+    private boolean loading = false;
+    private boolean hasOlder = true;  // TR: Pencerenin altında daha eski kayıt olabilir. / EN: There may be older records below the window.
+    private boolean hasNewer = false; // TR: Pencerenin üstünden kayıt atıldıysa true olur. / EN: Becomes true when records were dropped above the window.
+    private boolean latestPending = false; // TR: Yükleme sürerken tablo değişti. / EN: The table changed while a load was running.
+    private boolean released = false; // TR: Ekran kapandı; sonuçlar artık dinleyiciye verilmez. / EN: The screen closed; results are no longer given to the listener.
+
+    private final Runnable latestRunnable = this::loadLatest;
+    // TR: Takip servisinin thread'inde çağrılır. / EN: Called on the tracking service's thread.
+    private final Runnable journalListener = () -> mainHandler.post(latestRunnable);
+
+    // TR: Room bu gözlemciyi kendi arkaplan thread'inde çağırır; işi ana thread'e aktarıyoruz.
+    // EN: Room calls this observer on its own background thread; we hand the work over to the main thread.
+    private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("location_history") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            mainHandler.post(latestRunnable);
+        }
+    };
+
+    public LocationHistoryPager(AppDatabase database, ExecutorService databaseExecutor, Listener listener) {
+        this.database = database;
+        this.repository = new LocationHistoryRepository(database);
+        this.databaseExecutor = databaseExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * TR: Yüklemeyi iki zaman arasıyla (dahil) sınırlar, ör. tek bir yolculuğun noktaları. loadFirstPage()'den önce çağrılmalıdır.
+     * EN: Limits loading to between two times (inclusive), e.g. the points of a single trip. Must be called before loadFirstPage().
+     */
+    public void setRange(long from, long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * TR: En yeni sayfayı yükler. Ekran açıldığında çağrılır.
+     * EN: Loads the newest page. Called when the screen opens.
+     */
+    public void loadFirstPage() {
+        if (loading) {
+            return;
+        }
+        loading = true;
+        databaseExecutor.execute(() -> {
+            // TR: Üst sınır varsa, ondan hemen sonraki bir günlük anahtarıyla başlarız; böylece günlük, ham tablo ve parçalar okunur.
+            // EN: If there is an upper bound, we start with a journal key right after it, so the journal, raw table and segments are read.
+            List<LocationHistory> page = to == Long.MAX_VALUE ? repository.getLatestPage(PAGE_SIZE)
+                    : repository.getPageBefore(to + 1, LocationHistoryRepository.JOURNAL_ID, PAGE_SIZE);
+            List<LocationHistory> clipped = clip(page);
+            mainHandler.post(() -> {
+                hasOlder = page.size() == PAGE_SIZE && clipped.size() == page.size();
+                hasNewer = false;
+                publish(clipped);
+                finishLoading();
+            });
+        });
+    }
+
+    /**
+     * TR: Pencerenin sonundaki kayıttan daha eski olan sayfayı yükler.
+     * EN: Loads the page that is older than the last record in the window.
+     */
+    public void loadOlder() {
+        if (loading || !hasOlder || window.isEmpty()) {
+            return;
+        }
+        loading = true;
+        final LocationHistory last = window.get(window.size() - 1);
+        databaseExecutor.execute(() -> {
+            List<LocationHistory> page = repository.getPageBefore(last.timestamp, last.id, PAGE_SIZE);
+            List<LocationHistory> clipped = clip(page);
+            mainHandler.post(() -> {
+                hasOlder = page.size() == PAGE_SIZE && clipped.size() == page.size();
+                List<LocationHistory> next = new ArrayList<>(window.size() + clipped.size());
+                next.addAll(window);
+                next.addAll(clipped);
+                int overflow = next.size() - MAX_LOADED_ITEMS;
+                if (overflow > 0) {
+                    // TR: En yeni kayıtları pencereden at. / EN: Drop the newest records from the window.
+                    next = new ArrayList<>(next.subList(overflow, next.size()));
+                    hasNewer = true;
+                }
+                publish(next);
+                finishLoading();
+            });
+        });
+    }
+
+    /**
+     * TR: Pencerenin başındaki kayıttan daha yeni olan sayfayı yükler (sadece önceden atılmış kayıtlar varsa).
+     * EN: Loads the page that is newer than the first record in the window (only if records were dropped before).
+     */
+    public void loadNewer() {
+        if (loading || !hasNewer || window.isEmpty()) {
+            return;
+        }
+        loading = true;
+        final LocationHistory first = window.get(0);
+        databaseExecutor.execute(() -> {
+            List<LocationHistory> page = clip(repository.getPageAfter(first.timestamp, first.id, PAGE_SIZE));
+            mainHandler.post(() -> {
+                hasNewer = page.size() == PAGE_SIZE;
+                // TR: Sorgu eskiden yeniye döner; listemiz yeniden eskiye sıralı olduğu için ters çeviriyoruz.
+                // EN: The query returns oldest first; we reverse it because our list is sorted newest first.
+                List<LocationHistory> next = new ArrayList<>(window.size() + page.size());
+                for (int i = page.size() - 1; i >= 0; i--) {
+                    next.add(page.get(i));
+                }
+                next.addAll(window);
+                int overflow = next.size() - MAX_LOADED_ITEMS;
+                if (overflow > 0) {
+                    // TR: En eski kayıtları pencereden at. / EN: Drop the oldest records from the window.
+                    next = new ArrayList<>(next.subList(0, MAX_LOADED_ITEMS));
+                    hasOlder = true;
+                }
+                publish(next);
+                finishLoading();
+            });
+        });
+    }
+
+    /**
+     * TR: Tablo değişikliklerini dinlemeye başlar ve aradaki sürede eklenmiş kayıtları yükler. Ekran görünür olduğunda (onStart) çağrılır.
+     * EN: Starts listening to table changes and loads the records added in the meantime. Called when the screen becomes visible (onStart).
+     */
+    public void startWatching() {
+        database.getInvalidationTracker().addObserver(observer);
+        LocationJournal.addAppendListener(journalListener);
+        loadLatest();
+    }
+
+    /**
+     * TR: Tablo değişikliklerini dinlemeyi bırakır. Ekran görünmez olduğunda (onStop) çağrılır.
+     * EN: Stops listening to table changes. Called when the screen is no longer visible (onStop).
+     */
+    public void stopWatching() {
+        database.getInvalidationTracker().removeObserver(observer);
+        LocationJournal.removeAppendListener(journalListener);
+        mainHandler.removeCallbacks(latestRunnable);
+        latestPending = false;
+    }
+
+    /**
+     * TR: Dinlemeyi bırakır ve sürmekte olan yüklemelerin sonuçlarını atar; dinleyici bir daha çağrılmaz. Ekran kapanırken
+     * TR: (onDestroy), veritabanı executor'ı kapatılmadan önce çağrılır.
+     * EN: Stops watching and drops the results of loads still running; the listener is never called again. Called when the
+     * EN: screen closes (onDestroy), before the database executor is shut down.
+     */
+    public void release() {
+        stopWatching();
+        released = true;
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * TR: Pencerenin başındaki kayıttan daha yeni kayıtları okur ve başa ekler. Kullanıcı listenin başından uzaklaştıysa
+     * TR: (hasNewer) bir şey yapmaz; yeni kayıtlar o zaman loadNewer() ile, başa dönerken gelir.
+     * EN: Reads the records newer than the first record of the window and adds them to the start. If the user has scrolled
+     * EN: away from the start (hasNewer) it does nothing; the new records then come with loadNewer() on the way back up.
+     */
+    public void loadLatest() {
+        if (loading) {
+            latestPending = true;
+            return;
+        }
+        if (hasNewer) {
+            return;
+        }
+        if (window.isEmpty()) {
+            loadFirstPage();
+            return;
+        }
+        loading = true;
+        final LocationHistory first = window.get(0);
+        databaseExecutor.execute(() -> {
+            List<LocationHistory> page = clip(repository.getPageAfter(first.timestamp, first.id, PAGE_SIZE));
+            mainHandler.post(() -> {
+                if (page.isEmpty()) {
+                    finishLoading();
+                    return;
+                }
+                // TR: Bir sayfadan fazla yeni kayıt varsa geri kalanı kaydırınca gelir. / EN: If there are more new records than a page, the rest comes on scrolling.
+                hasNewer = page.size() == PAGE_SIZE;
+                List<LocationHistory> next = new ArrayList<>(window.size() + page.size());
+                for (int i = page.size() - 1; i >= 0; i--) {
+                    next.add(page.get(i));
+                }
+                next.addAll(window);
+                if (next.size() > MAX_LOADED_ITEMS) {
+                    next = new ArrayList<>(next.subList(0, MAX_LOADED_ITEMS));
+                    hasOlder = true;
+                }
+                publish(next);
+                finishLoading();
+            });
+        });
+    }
+
+    // TR: Yükleme sırasında tablo değiştiyse değişikliği şimdi işler. / EN: If the table changed during a load, handles the change now.
+    private void finishLoading() {
+        loading = false;
+        if (latestPending && !released) {
+            latestPending = false;
+            loadLatest();
+        }
+    }
+
+    // TR: Aralığın dışında kalan kayıtları atar. Sayfalar sıralı olduğu için kırpılan bir sayfa, o yönde başka kayıt olmadığını gösterir.
+    // EN: Drops the records outside the range. Pages are ordered, so a clipped page means there are no more records in that direction.
+    private List<LocationHistory> clip(List<LocationHistory> page) {
+        List<LocationHistory> clipped = new ArrayList<>(page.size());
+        for (LocationHistory location : page) {
+            if (location.timestamp >= from && location.timestamp <= to) {
+                clipped.add(location);
+            }
+        }
+        return clipped;
+    }
+
+    private void publish(List<LocationHistory> next) {
+        if (released) {
+            return;
+        }
+        window = Collections.unmodifiableList(next);
+        listener.onWindowChanged(window);
+    }
+}
@@ -0,0 +1,536 @@
+package com.example.feelingsafe;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TR: LocationHistoryRepository, konum geçmişini okuyan ekranlar için tek bir erişim noktasıdır.
+ * TR: Yeni kayıtlar ham olarak location_history tablosunda, eski kayıtlar ise sıkıştırılmış olarak aylık route_segments
+ * TR: tablolarında (RouteSegmentStore) durur. Günlük (LocationJournal) açıksa, en yeni kayıtların bir kısmı henüz
+ * TR: sadece günlükte olabilir. Bu sınıf üçünü birleştirip aynı (timestamp, id) keyset sayfalamasıyla sunar.
+ * TR: Sıkıştırılmış noktaların gerçek bir id'si olmadığı için id'leri COMPACTED_ID, günlükteki noktalarınki ise JOURNAL_ID olur;
+ * TR: bu noktalar zaman damgalarıyla ayırt edilir.
+ * TR: Veritabanı thread'inde (arkaplanda) çağrılmalıdır.
+ * EN: LocationHistoryRepository is the single access point for screens that read the location history.
+ * EN: New records live raw in the location_history table, while old records live compressed in the monthly route_segments
+ * EN: tables (RouteSegmentStore). If the journal (LocationJournal) is open, some of the newest records may still be
+ * EN: only in the journal. This class merges all three and serves them with the same (timestamp, id) keyset paging.
+ * EN: Since compressed points don't have a real id, their id is COMPACTED_ID, and the id of journal points is JOURNAL_ID;
+ * EN: these points are told apart by their timestamps.
+ * EN: It must be called on the database thread (in the background).
+ */
+public class LocationHistoryRepository {
+
+    // TR: Sıkıştırılmış noktaların id'si. Negatif olması, keyset anahtarının parçaların içinde olduğunu gösterir;
+    // TR: parça içindeki zaman damgaları kesin artan olduğundan bu noktalar için zaman damgası tek başına benzersizdir.
+    // EN: The id of compressed points. Being negative tells that the keyset key is inside the segments;
+    // EN: since timestamps inside a segment are strictly increasing, the timestamp alone is unique for these points.
+    public static final int COMPACTED_ID = -1;
+
+    // TR: Henüz sadece günlükte olan noktaların id'si. Günlükteki noktaların hepsi veritabanındakilerden daha yenidir.
+    // EN: The id of points that are still only in the journal. All journal points are newer than the ones in the database.
+    public static final int JOURNAL_ID = Integer.MAX_VALUE;
+
+    private final AppDatabase database;
+
+    public LocationHistoryRepository(AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * TR: En yeni limit kadar konumu yeniden eskiye getirir.
+     * EN: Returns the newest limit locations, newest first.
+     */
+    public List<LocationHistory> getLatestPage(int limit) {
+        return database.runInTransaction(() -> {
+            List<LocationHistory> page = new ArrayList<>(limit);
+            appendJournalPointsBefore(page, pendingJournalPoints(), Long.MAX_VALUE, limit);
+            if (page.size() < limit) {
+                page.addAll(database.locationHistoryDao().getLatestPage(limit - page.size()));
+            }
+            long before = page.isEmpty() ? Long.MAX_VALUE : page.get(page.size() - 1).timestamp;
+            appendSegmentPointsBefore(page, before, limit);
+            return page;
+        });
+    }
+
+    /**
+     * TR: (timestamp, id) anahtarından daha eski olan sayfayı yeniden eskiye getirir.
+     * TR: Günlükteki kayıtlar ham kayıtlardan, ham kayıtların hepsi de sıkıştırılmış kayıtlardan daha yenidir;
+     * TR: bu yüzden sırasıyla günlük, ham tablo ve parçalar okunur.
+     * EN: Returns the page older than the (timestamp, id) key, newest first.
+     * EN: Journal records are newer than the raw records, and all raw records are newer than the compressed ones,
+     * EN: so the journal, the raw table and the segments are read in that order.
+     */
+    public List<LocationHistory> getPageBefore(long timestamp, int id, int limit) {
+        return database.runInTransaction(() -> {
+            List<LocationHistory> page = new ArrayList<>(limit);
+            long before = timestamp;
+            int beforeId = id;
+            if (id == JOURNAL_ID) {
+                // TR: Anahtar günlüğün içinde. Anahtar noktası bu arada Room'a aktarılmış olabilir; bu yüzden ham tabloda
+                // TR: sadece kesin daha eski zaman damgalarına bakıyoruz (id < 0 koşulu hiçbir satırı seçmez).
+                // EN: The key is inside the journal. The key point may have been moved to Room in the meantime, so in the raw
+                // EN: table we only look at strictly older timestamps (the id < 0 condition matches no row).
+                appendJournalPointsBefore(page, pendingJournalPoints(), timestamp, limit);
+                beforeId = 0;
+            }
+            if (beforeId >= 0) {
+                // TR: Anahtar hâlâ ham kayıtların içinde. / EN: The key is still among the raw records.
+                if (page.size() < limit) {
+                    page.addAll(database.locationHistoryDao().getPageBefore(timestamp, beforeId, limit - page.size()));
+                }
+                if (!page.isEmpty()) {
+                    before = page.get(page.size() - 1).timestamp;
+                }
+            }
+            appendSegmentPointsBefore(page, before, limit);
+            return page;
+        });
+    }
+
+    /**
+     * TR: (timestamp, id) anahtarından daha yeni olan sayfayı eskiden yeniye getirir.
+     * EN: Returns the page newer than the (timestamp, id) key, oldest first.
+     */
+    public List<LocationHistory> getPageAfter(long timestamp, int id, int limit) {
+        return database.runInTransaction(() -> {
+            List<LocationHistory> page = new ArrayList<>(limit);
+            long after = timestamp;
+            int afterId = id;
+            if (id < 0) {
+                // TR: Anahtar sıkıştırılmış parçaların içinde; önce kalan parçaları okuyoruz.
+                // EN: The key is inside the compressed segments; we read the remaining segments first.
+                while (page.size() < limit) {
+                    List<RouteSegment> segments = database.routeSegmentStore().getEndingAfter(after, 1);
+                    if (segments.isEmpty()) {
+                        break;
+                    }
+                    RouteSegment segment = segments.get(0);
+                    RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(segment.data);
+                    while (reader.next() && page.size() < limit) {
+                        if (reader.timestamp() > after) {
+                            page.add(toLocation(reader));
+                        }
+                    }
+                    after = segment.endTime;
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).timestamp;
+                }
+                afterId = Integer.MIN_VALUE;
+            }
+            // TR: Anahtar günlükteyse de ham tablo okunur: önceki çağrıdan beri günlük Room'a aktarılmış olabilir. JOURNAL_ID
+            // TR: en büyük id olduğu için anahtarla aynı zamandaki satırlar (anahtarın kendisi) atlanır.
+            // EN: The raw table is read even if the key is in the journal: the journal may have been moved to Room since the previous
+            // EN: call. JOURNAL_ID is the largest id, so rows at the key's time (the key itself) are skipped.
+            if (page.size() < limit) {
+                page.addAll(database.locationHistoryDao().getPageAfter(after, afterId, limit - page.size()));
+            }
+            if (page.size() < limit) {
+                // TR: Anahtar günlükteyse sadece ondan daha yeni günlük noktaları, değilse hepsi.
+                // EN: If the key is in the journal only the journal points newer than it, otherwise all of them.
+                for (LocationHistory location : pendingJournalPoints()) {
+                    if (page.size() >= limit) {
+                        break;
+                    }
+                    if (id != JOURNAL_ID || location.timestamp > timestamp) {
+                        page.add(location);
+                    }
+                }
+            }
+            return page;
+        });
+    }
+
+    /**
+     * TR: İki zaman arasındaki (dahil) tüm konumları eskiden yeniye getirir.
+     * EN: Returns all locations between two times (inclusive), oldest first.
+     */
+    public List<LocationHistory> getBetween(long from, long to) {
+        return database.runInTransaction(() -> {
+            List<LocationHistory> result = new ArrayList<>();
+            for (RouteSegment segment : database.routeSegmentStore().getOverlapping(from, to)) {
+                RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(segment.data);
+                while (reader.next()) {
+                    if (reader.timestamp() >= from && reader.timestamp() <= to) {
+                        result.add(toLocation(reader));
+                    }
+                }
+            }
+            result.addAll(database.locationHistoryDao().getBetween(from, to));
+            for (LocationHistory location : pendingJournalPoints()) {
+                if (location.timestamp >= from && location.timestamp <= to) {
+                    result.add(location);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * TR: İki zaman arasındaki (dahil) konumları getBetween ile aynı sırada, ama nesne oluşturmadan doğrudan ilkel
+     * TR: dizilere okur. Ham tablo Room'un cursor'ından sadece üç sütun seçilerek okunur. RouteCache bunu kullanır.
+     * EN: Reads the locations between two times (inclusive) in the same order as getBetween, but straight into primitive
+     * EN: arrays without creating objects. The raw table is read from Room's cursor, selecting only three columns. RouteCache uses this.
+     */
+    public RouteWindow loadWindow(long from, long to) {
+        return database.runInTransaction(() -> {
+            List<RouteSegment> segments = database.routeSegmentStore().getOverlapping(from, to);
+            List<LocationHistory> journalPoints = pendingJournalPoints();
+            try (Cursor cursor = database.query("SELECT latitude, longitude, timestamp FROM location_history "
+                    + "WHERE timestamp BETWEEN ? AND ? ORDER BY timestamp ASC, id ASC", new Object[]{from, to})) {
+                int capacity = cursor.getCount() + journalPoints.size();
+                for (RouteSegment segment : segments) {
+                    capacity += segment.pointCount;
+                }
+                double[] latitudes = new double[capacity];
+                double[] longitudes = new double[capacity];
+                long[] timestamps = new long[capacity];
+                int n = 0;
+                for (RouteSegment segment : segments) {
+                    RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(segment.data);
+                    while (reader.next() && n < capacity) {
+                        if (reader.timestamp() >= from && reader.timestamp() <= to) {
+                            latitudes[n] = reader.latitude();
+                            longitudes[n] = reader.longitude();
+                            timestamps[n] = reader.timestamp();
+                            n++;
+                        }
+                    }
+                }
+                while (cursor.moveToNext() && n < capacity) {
+                    latitudes[n] = cursor.getDouble(0);
+                    longitudes[n] = cursor.getDouble(1);
+                    timestamps[n] = cursor.getLong(2);
+                    n++;
+                }
+                for (LocationHistory location : journalPoints) {
+                    if (location.timestamp >= from && location.timestamp <= to && n < capacity) {
+                        latitudes[n] = location.latitude;
+                        longitudes[n] = location.longitude;
+                        timestamps[n] = location.timestamp;
+                        n++;
+                    }
+                }
+                if (n < capacity) {
+                    // TR: Parçaların aralık dışında kalan noktaları için ayrılan yeri geri veriyoruz.
+                    // EN: We give back the space reserved for segment points that fell outside the range.
+                    latitudes = Arrays.copyOf(latitudes, n);
+                    longitudes = Arrays.copyOf(longitudes, n);
+                    timestamps = Arrays.copyOf(timestamps, n);
+                }
+                return new RouteWindow(from, to, latitudes, longitudes, timestamps, n);
+            }
+        });
+    }
+
+    /**
+     * TR: Bir kutunun içinde ve iki zaman arasında (dahil) bulunan tüm konumları eskiden yeniye getirir.
+     * TR: Ham tablo (cell, timestamp) index'i üzerinden, sıkıştırılmış parçalar ise sınır kutularıyla elenerek okunur;
+     * TR: tablonun tamamı hiçbir zaman hafızaya alınmaz. Zaman sınırı istenmiyorsa Long.MIN_VALUE / Long.MAX_VALUE verilebilir.
+     * EN: Returns all locations inside a box and between two times (inclusive), oldest first.
+     * EN: The raw table is read through the (cell, timestamp) index, and compressed segments are filtered by their bounding boxes;
+     * EN: the whole table is never loaded into memory. Long.MIN_VALUE / Long.MAX_VALUE can be passed for no time limit.
+     */
+    public List<LocationHistory> getInArea(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                                           long from, long to) {
+        return database.runInTransaction(() -> {
+            List<LocationHistory> result = new ArrayList<>();
+            for (RouteSegment segment : database.routeSegmentStore()
+                    .getInArea(from, to, minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+                RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(segment.data);
+                while (reader.next()) {
+                    if (reader.timestamp() >= from && reader.timestamp() <= to
+                            && inBox(reader.latitude(), reader.longitude(), minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+                        result.add(toLocation(reader));
+                    }
+                }
+            }
+            result.addAll(database.locationHistoryDao().query(
+                    areaQuery(minLatitude, minLongitude, maxLatitude, maxLongitude, from, to)));
+            for (LocationHistory location : pendingJournalPoints()) {
+                if (location.timestamp >= from && location.timestamp <= to
+                        && inBox(location.latitude, location.longitude, minLatitude, minLongitude, maxLatitude, maxLongitude)) {
+                    result.add(location);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * TR: Bir noktaya radiusMeters mesafeden yakın olan ve iki zaman arasında bulunan konumları eskiden yeniye getirir.
+     * TR: Önce daireyi içine alan kutu getInArea ile okunur, sonra kutunun köşelerindeki noktalar mesafeye göre elenir.
+     * EN: Returns the locations closer than radiusMeters to a point and between two times, oldest first.
+     * EN: The box enclosing the circle is read with getInArea first, then the points in the box's corners are filtered by distance.
+     */
+    public List<LocationHistory> getWithinRadius(double latitude, double longitude, double radiusMeters, long from, long to) {
+        double[] box = GeoCell.boundingBox(latitude, longitude, radiusMeters);
+        List<LocationHistory> inBox = getInArea(box[0], box[1], box[2], box[3], from, to);
+        List<LocationHistory> result = new ArrayList<>(inBox.size());
+        for (LocationHistory location : inBox) {
+            if (GeoCell.distanceMeters(latitude, longitude, location.latitude, location.longitude) <= radiusMeters) {
+                result.add(location);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * TR: Kutunun kapsadığı her ızgara satırı için bir hücre aralığı (cell BETWEEN) oluşturur; SQLite her aralığı
+     * TR: (cell, timestamp) index'inde ayrı bir aramayla okur. Çok büyük kutularda tek bir geniş aralık kullanılır.
+     * TR: Hücreler kutunun kenarlarından taşabileceği için enlem/boylam koşulu ayrıca uygulanır.
+     * EN: Builds one cell range (cell BETWEEN) for each grid row the box covers; SQLite reads each range with a separate
+     * EN: seek on the (cell, timestamp) index. Very large boxes use a single wide range.
+     * EN: Cells can stick out of the box's edges, so the latitude/longitude condition is applied as well.
+     */
+    private static SimpleSQLiteQuery areaQuery(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                                               long from, long to) {
+        long firstRow = GeoCell.row(minLatitude);
+        long lastRow = GeoCell.row(maxLatitude);
+        long firstColumn = GeoCell.column(minLongitude);
+        long lastColumn = GeoCell.column(maxLongitude);
+        StringBuilder sql = new StringBuilder("SELECT * FROM location_history WHERE (");
+        List<Object> args = new ArrayList<>();
+        if (lastRow - firstRow >= GeoCell.MAX_ROW_RANGES) {
+            sql.append("cell BETWEEN ? AND ?");
+            args.add(firstRow * GeoCell.ROW_STRIDE + firstColumn);
+            args.add(lastRow * GeoCell.ROW_STRIDE + lastColumn);
+        } else {
+            for (long row = firstRow; row <= lastRow; row++) {
+                if (row > firstRow) {
+                    sql.append(" OR ");
+                }
+                sql.append("cell BETWEEN ? AND ?");
+                args.add(row * GeoCell.ROW_STRIDE + firstColumn);
+                args.add(row * GeoCell.ROW_STRIDE + lastColumn);
+            }
+        }
+        sql.append(") AND timestamp BETWEEN ? AND ? AND latitude BETWEEN ? AND ? AND longitude BETWEEN ? AND ? "
+                + "ORDER BY timestamp ASC, id ASC");
+        args.add(from);
+        args.add(to);
+        args.add(minLatitude);
+        args.add(maxLatitude);
+        args.add(minLongitude);
+        args.add(maxLongitude);
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    private static boolean inBox(double latitude, double longitude, double minLatitude, double minLongitude,
+                                 double maxLatitude, double maxLongitude) {
+        return latitude >= minLatitude && latitude <= maxLatitude && longitude >= minLongitude && longitude <= maxLongitude;
+    }
+
+    /**
+     * TR: readChunkAfter() ile doldurulan, tekrar tekrar kullanılan sabit boyutlu nokta tamponu. Dışa aktarma gibi bütün
+     * TR: geçmişi gezen okuyucular bellek kullanımını nokta sayısından bağımsız tutmak için bunu kullanır.
+     * EN: A reusable fixed-size point buffer filled by readChunkAfter(). Readers walking the whole history, such as the
+     * EN: export, use it to keep memory use independent of the number of points.
+     */
+    public static final class Chunk {
+        final double[] latitudes;
+        final double[] longitudes;
+        final long[] timestamps;
+        final int[] ids;
+        int size;
+
+        public Chunk(int capacity) {
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            timestamps = new long[capacity];
+            ids = new int[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double latitude(int i) {
+            return latitudes[i];
+        }
+
+        public double longitude(int i) {
+            return longitudes[i];
+        }
+
+        public long timestamp(int i) {
+            return timestamps[i];
+        }
+
+        // TR: Bir sonraki çağrının keyset anahtarı için. / EN: For the keyset key of the next call.
+        public int id(int i) {
+            return ids[i];
+        }
+
+        boolean isFull() {
+            return size == timestamps.length;
+        }
+
+        void add(double latitude, double longitude, long timestamp, int id) {
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            timestamps[size] = timestamp;
+            ids[size] = id;
+            size++;
+        }
+    }
+
+    /**
+     * TR: (timestamp, id) anahtarından sonraki ve en geç to zamanına kadar olan noktaları, getPageAfter ile aynı sırada ama
+     * TR: nesne oluşturmadan chunk'a okur. Ham tablo Room'un cursor'ından okunur. Her çağrı kendi kısa transaction'ında çalışır;
+     * TR: böylece uzun bir okuma sırasında yazma işlemleri beklemez, arada sıkıştırma çalışsa bile anahtar sayesinde
+     * TR: hiçbir nokta atlanmaz veya tekrarlanmaz. Chunk dolmadıysa aralığın sonuna gelinmiştir.
+     * EN: Reads the points after the (timestamp, id) key and up to the time to into the chunk, in the same order as getPageAfter
+     * EN: but without creating objects. The raw table is read from Room's cursor. Each call runs in its own short transaction,
+     * EN: so writes don't wait during a long read, and thanks to the key no point is skipped or repeated even if compaction runs
+     * EN: in between. If the chunk isn't full, the end of the range has been reached.
+     */
+    public void readChunkAfter(long timestamp, int id, long to, Chunk chunk) {
+        database.runInTransaction(() -> {
+            chunk.size = 0;
+            long after = timestamp;
+            int afterId = id;
+            if (id < 0) {
+                while (!chunk.isFull()) {
+                    List<RouteSegment> segments = database.routeSegmentStore().getEndingAfter(after, 1);
+                    if (segments.isEmpty() || segments.get(0).startTime > to) {
+                        break;
+                    }
+                    RouteSegment segment = segments.get(0);
+                    RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(segment.data);
+                    while (reader.next() && !chunk.isFull() && reader.timestamp() <= to) {
+                        if (reader.timestamp() > after) {
+                            chunk.add(reader.latitude(), reader.longitude(), reader.timestamp(), COMPACTED_ID);
+                        }
+                    }
+                    after = segment.endTime;
+                }
+                if (chunk.size > 0) {
+                    after = chunk.timestamps[chunk.size - 1];
+                }
+                afterId = Integer.MIN_VALUE;
+            }
+            // TR: Anahtar günlükteyse de ham tablo okunur: önceki çağrıdan beri günlük Room'a aktarılmış olabilir.
+            // EN: The raw table is read even if the key is in the journal: the journal may have been moved to Room since the previous call.
+            if (!chunk.isFull()) {
+                try (Cursor cursor = database.query("SELECT id, latitude, longitude, timestamp FROM location_history "
+                        + "WHERE (timestamp > ? OR (timestamp = ? AND id > ?)) AND timestamp <= ? "
+                        + "ORDER BY timestamp ASC, id ASC LIMIT ?",
+                        new Object[]{after, after, afterId, to, chunk.timestamps.length - chunk.size})) {
+                    while (cursor.moveToNext()) {
+                        chunk.add(cursor.getDouble(1), cursor.getDouble(2), cursor.getLong(3), cursor.getInt(0));
+                    }
+                }
+            }
+            if (!chunk.isFull()) {
+                // TR: Ham tablo bitti; sıra günlükte. / EN: The raw table is done; the journal is next.
+                for (LocationHistory location : pendingJournalPoints()) {
+                    if (chunk.isFull() || location.timestamp > to) {
+                        break;
+                    }
+                    if (id != JOURNAL_ID || location.timestamp > timestamp) {
+                        chunk.add(location.latitude, location.longitude, location.timestamp, JOURNAL_ID);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * TR: İki zaman arasındaki nokta sayısının tahmini (parçalar için üst sınır). İlerleme göstermek için kullanılır.
+     * EN: An estimate of the number of points between two times (an upper bound for segments). Used for showing progress.
+     */
+    public long estimateCount(long from, long to) {
+        return database.runInTransaction(() -> {
+            long count = database.routeSegmentStore().countPoints(from, to);
+            try (Cursor cursor = database.query("SELECT COUNT(*) FROM location_history WHERE timestamp BETWEEN ? AND ?",
+                    new Object[]{from, to})) {
+                if (cursor.moveToFirst()) {
+                    count += cursor.getLong(0);
+                }
+            }
+            for (LocationHistory location : pendingJournalPoints()) {
+                if (location.timestamp >= from && location.timestamp <= to) {
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /**
+     * TR: Günlükte olup bu transaction'ın gördüğü veritabanında henüz olmayan noktaları eskiden yeniye döndürür.
+     * TR: Transaction içinde çağrılmalıdır. Kontrol noktası kayıtlarla aynı transaction'da yazıldığından, günlükten
+     * TR: okunan ama kontrol noktasına göre zaten Room'a aktarılmış noktalar atlanır; böylece bir nokta iki kez görünmez.
+     * EN: Returns the points that are in the journal but not yet in the database seen by this transaction, oldest first.
+     * EN: Must be called inside a transaction. Since the checkpoint is written in the same transaction as the records, points
+     * EN: read from the journal but already moved to Room according to the checkpoint are skipped, so no point shows up twice.
+     */
+    private List<LocationHistory> pendingJournalPoints() {
+        LocationJournal journal = LocationJournal.getIfOpen();
+        if (journal == null) {
+            return Collections.emptyList();
+        }
+        LocationJournal.Pending pending = journal.readPending(LocationJournal.CAPACITY);
+        Long committed = database.journalCheckpointDao().getCommittedSeq();
+        int skip = committed == null ? 0 : (int) Math.min(pending.locations.size(), Math.max(0, committed - pending.fromSeq));
+        List<LocationHistory> points = pending.locations.subList(skip, pending.locations.size());
+        for (LocationHistory location : points) {
+            location.id = JOURNAL_ID;
+        }
+        return points;
+    }
+
+    /**
+     * TR: Sayfa dolana kadar, verilen zamandan daha eski günlük noktalarını yeniden eskiye ekler.
+     * EN: Appends journal points older than the given time, newest first, until the page is full.
+     */
+    private static void appendJournalPointsBefore(List<LocationHistory> page, List<LocationHistory> points, long before, int limit) {
+        for (int i = points.size() - 1; i >= 0 && page.size() < limit; i--) {
+            if (points.get(i).timestamp < before) {
+                page.add(points.get(i));
+            }
+        }
+    }
+
+    /**
+     * TR: Sayfa dolana kadar, verilen zamandan daha eski sıkıştırılmış noktaları yeniden eskiye ekler.
+     * EN: Appends compressed points older than the given time, newest first, until the page is full.
+     */
+    private void appendSegmentPointsBefore(List<LocationHistory> page, long before, int limit) {
+        while (page.size() < limit) {
+            List<RouteSegment> segments = database.routeSegmentStore().getStartingBefore(before, 1);
+            if (segments.isEmpty()) {
+                return;
+            }
+            RouteSegment segment = segments.get(0);
+            // TR: Parça içindeki noktalar eskiden yeniye kodlu; yeniden eskiye eklemek için önce çözüyoruz.
+            // EN: Points inside a segment are encoded oldest first; we decode them first to add them newest first.
+            List<LocationHistory> points = new ArrayList<>(segment.pointCount);
+            RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(segment.data);
+            while (reader.next()) {
+                if (reader.timestamp() < before) {
+                    points.add(toLocation(reader));
+                }
+            }
+            for (int i = points.size() - 1; i >= 0 && page.size() < limit; i--) {
+                page.add(points.get(i));
+            }
+            before = segment.startTime;
+        }
+    }
+
+    private static LocationHistory toLocation(RouteSegmentCodec.Reader reader) {
+        LocationHistory location = new LocationHistory(reader.latitude(), reader.longitude(), reader.timestamp());
+        location.id = COMPACTED_ID;
+        return location;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.feelingsafe;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.location.Location;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TR: LocationHub, uygulama içindeki tek konum aboneliğidir. FusedLocationProviderClient'a sadece o tek bir istek gönderir;
+ * TR: bu istek tüm abonelerin isteklerinin birleşimidir (en doğru öncelik, en kısa aralık ve en kısa mesafe). Gelen her konum
+ * TR: tüm abonelere kendi arkaplan thread'inde (ana thread'de değil) sırayla verilir ve son konum hafızada tutulur; böylece
+ * TR: getLatest() sağlayıcıya gitmeden hemen cevap verir. İsteği null olan abone sadece başkalarının istediği konumları dinler.
+ * TR: Hafızadaki konum sadece hub'a gelen konumlarla yenilenir; kimse konum istemiyorken (ör. durağan modda) eskiyebilir. Bu
+ * TR: yüzden requestSingle() önce hafızaya, o eskiyse sağlayıcının bildiği son konuma (getLastLocation, yeni konum almaz) bakar;
+ * TR: ikisi de MAX_CACHED_AGE_MS'den eskiyse ancak o zaman yeni bir konum ister.
+ * TR: Abonelik metodları her thread'den çağrılabilir. Aboneler hızlı çalışmalıdır; yavaş iş (ör. Geocoder) başka thread'e aktarılmalıdır.
+ * EN: LocationHub is the single location subscription in the app. It sends only one request to FusedLocationProviderClient;
+ * EN: that request is the union of all subscribers' requests (the most accurate priority, the shortest interval and the shortest
+ * EN: distance). Every location is handed to all subscribers in turn on the hub's own background thread (not the main thread) and the
+ * EN: last location is kept in memory, so getLatest() answers at once without going to the provider. A subscriber with a null
+ * EN: request only listens to the locations others asked for. The location in memory is only refreshed by locations that reach
+ * EN: the hub, so it can get old while nobody asks for locations (e.g. in stationary mode). So requestSingle() looks at memory
+ * EN: first, then, if that is stale, at the provider's last known location (getLastLocation, which doesn't get a new fix); only
+ * EN: if both are older than MAX_CACHED_AGE_MS does it ask for a new location. The subscription methods can be called from any thread.
+ * EN: Subscribers must be quick; slow work (e.g. Geocoder) should be handed over to another thread.
+ */
+public class LocationHub {
+
+    /**
+     * TR: Yeni bir konum geldiğinde hub'ın thread'inde çağrılır.
+     * EN: Called on the hub's thread when a new location arrives.
+     */
+    public interface Subscriber {
+        void onLocation(Location location);
+    }
+
+    private static final String TAG = "LocationHub";
+    // TR: requestSingle()'da hafızadaki konum bu süreden yeniyse sağlayıcıya gidilmez.
+    // EN: In requestSingle(), the provider isn't asked if the location in memory is newer than this.
+    static final long MAX_CACHED_AGE_MS = 2 * 60 * 1000L;
+    // TR: Tek seferlik istekler için; ilk konum gelince istek geri çekilir. / EN: For one-off requests; the request is withdrawn once the first location arrives.
+    private static final LocationRequest SINGLE_REQUEST = new LocationRequest.Builder(Priority.PRIORITY_BALANCED_POWER_ACCURACY, 10_000)
+            .build();
+
+    private static volatile LocationHub instance;
+
+    private final FusedLocationProviderClient client;
+    private final HandlerThread thread;
+    private final Handler handler;
+
+    // TR: Abone başına istek (null olabilir) ve tek seferlik aboneler. this ile korunur.
+    // EN: The request of each subscriber (may be null) and the one-off subscribers. Guarded by this.
+    private final Map<Subscriber, LocationRequest> subscriptions = new LinkedHashMap<>();
+    private final Set<Subscriber> singles = new HashSet<>();
+    // TR: requestSingle()'da sağlayıcının son konumunu bekleyen aboneler. this ile korunur.
+    // EN: The subscribers in requestSingle() waiting for the provider's last location. Guarded by this.
+    private final Set<Subscriber> awaitingLastKnown = new HashSet<>();
+    // TR: Sağlayıcıya gönderilmiş birleşik istek; yoksa null. / EN: The merged request sent to the provider; null if none.
+    private LocationRequest activeRequest;
+    // TR: Dağıtım sırasında kilit tutulmasın diye abonelerin kopyası. / EN: A copy of the subscribers so no lock is held while delivering.
+    private volatile Subscriber[] snapshot = new Subscriber[0];
+    private volatile Location latest;
+
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult locationResult) {
+            for (Location location : locationResult.getLocations()) {
+                if (location != null) {
+                    deliver(location);
+                }
+            }
+        }
+    };
+
+    @SuppressLint("MissingPermission")
+    private LocationHub(Context context) {
+        client = LocationServices.getFusedLocationProviderClient(context);
+        thread = new HandlerThread("LocationHub");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        try {
+            // TR: Sağlayıcının bildiği son konumla başlıyoruz; daha yeni bir konum geldiyse üzerine yazılmaz.
+            // EN: We start with the provider's last known location; it doesn't overwrite a newer location that already arrived.
+            client.getLastLocation().addOnSuccessListener(handler::post, location -> {
+                if (location != null && latest == null) {
+                    latest = location;
+                }
+            });
+        } catch (SecurityException e) {
+            Log.w(TAG, "No location permission yet", e);
+        }
+    }
+
+    public static LocationHub getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LocationHub.class) {
+                if (instance == null) {
+                    instance = new LocationHub(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * TR: Konumların dağıtıldığı thread'in Handler'ı. Durumunu bu thread'de tutan aboneler kendi işlerini de buraya gönderebilir.
+     * EN: The Handler of the thread locations are delivered on. Subscribers that keep their state on this thread can post their own work here too.
+     */
+    public Handler getHandler() {
+        return handler;
+    }
+
+    /**
+     * TR: Hub'ın gördüğü en son konum (sağlayıcıya gidilmez); hiç konum yoksa null.
+     * EN: The latest location the hub has seen (the provider isn't asked); null if there is none.
+     */
+    @Nullable
+    public Location getLatest() {
+        return latest;
+    }
+
+    /**
+     * TR: Aboneyi ekler veya isteğini değiştirir. İstek null ise abone sağlayıcıdan konum istemez, sadece gelenleri dinler.
+     * EN: Adds the subscriber or changes its request. If the request is null, the subscriber doesn't ask the provider for
+     * EN: locations and only listens to the ones that arrive.
+     */
+    public synchronized void subscribe(Subscriber subscriber, @Nullable LocationRequest request) {
+        subscriptions.put(subscriber, request);
+        singles.remove(subscriber);
+        awaitingLastKnown.remove(subscriber);
+        onSubscriptionsChanged();
+    }
+
+    public synchronized void unsubscribe(Subscriber subscriber) {
+        subscriptions.remove(subscriber);
+        singles.remove(subscriber);
+        awaitingLastKnown.remove(subscriber);
+        onSubscriptionsChanged();
+    }
+
+    /**
+     * TR: Aboneye tek bir güncel konum verir. Hafızadaki konum MAX_CACHED_AGE_MS'den yeniyse hemen çağrılır. Değilse
+     * TR: sağlayıcının bildiği son konum alınıp hafızaya yazılır ve o yeterince yeniyse onunla çağrılır; o da eskiyse sağlayıcıdan
+     * TR: gelen ilk yeni konumla çağrılır ve abonelik kendiliğinden biter. Önce unsubscribe() ile iptal edilebilir.
+     * EN: Gives the subscriber a single current location. It is called at once if the location in memory is newer than
+     * EN: MAX_CACHED_AGE_MS. Otherwise the provider's last known location is fetched and stored in memory, and the subscriber
+     * EN: is called with it if it is recent enough; if that is stale too, it is called with the first new location from the
+     * EN: provider and the subscription ends by itself. It can be cancelled before that with unsubscribe().
+     */
+    @SuppressLint("MissingPermission")
+    public void requestSingle(Subscriber subscriber) {
+        Location cached = latest;
+        if (isFresh(cached)) {
+            handler.post(() -> subscriber.onLocation(cached));
+            return;
+        }
+        synchronized (this) {
+            awaitingLastKnown.add(subscriber);
+        }
+        try {
+            client.getLastLocation()
+                    .addOnSuccessListener(handler::post, location -> onLastKnownLocation(subscriber, location))
+                    .addOnFailureListener(handler::post, e -> onLastKnownLocation(subscriber, null));
+        } catch (SecurityException e) {
+            Log.w(TAG, "No location permission for the last known location", e);
+            onLastKnownLocation(subscriber, null);
+        }
+    }
+
+    // TR: Hub'ın thread'inde çalışır (izin yoksa çağıranın thread'inde). Daha yeniyse son bilinen konum hafızaya yazılır.
+    // EN: Runs on the hub's thread (on the caller's thread if there is no permission). The last known location is stored if it is newer.
+    private void onLastKnownLocation(Subscriber subscriber, @Nullable Location location) {
+        Location current = latest;
+        if (location != null && (current == null || location.getElapsedRealtimeNanos() > current.getElapsedRealtimeNanos())) {
+            latest = location;
+            current = location;
+        }
+        synchronized (this) {
+            // TR: Bu arada iptal edildiyse bir şey yapılmaz. / EN: Nothing is done if it was cancelled in the meantime.
+            if (!awaitingLastKnown.remove(subscriber)) {
+                return;
+            }
+            if (!isFresh(current)) {
+                subscriptions.put(subscriber, SINGLE_REQUEST);
+                singles.add(subscriber);
+                onSubscriptionsChanged();
+                return;
+            }
+        }
+        Location fresh = current;
+        handler.post(() -> subscriber.onLocation(fresh));
+    }
+
+    // TR: Hub'ın thread'inde çalışır. / EN: Runs on the hub's thread.
+    private void deliver(Location location) {
+        latest = location;
+        Subscriber[] delivered = snapshot;
+        for (Subscriber subscriber : delivered) {
+            subscriber.onLocation(location);
+        }
+        synchronized (this) {
+            if (singles.isEmpty()) {
+                return;
+            }
+            // TR: Sadece bu konumu almış tek seferlik aboneler çıkarılır. / EN: Only the one-off subscribers that got this location are removed.
+            for (Subscriber subscriber : delivered) {
+                if (singles.remove(subscriber)) {
+                    subscriptions.remove(subscriber);
+                }
+            }
+            onSubscriptionsChanged();
+        }
+    }
+
+    // TR: Kilit tutulurken çağrılır. / EN: Called with the lock held.
+    @SuppressLint("MissingPermission")
+    private void onSubscriptionsChanged() {
+        snapshot = subscriptions.keySet().toArray(new Subscriber[0]);
+        LocationRequest merged = merge();
+        if (merged == null ? activeRequest == null : merged.equals(activeRequest)) {
+            return;
+        }
+        activeRequest = merged;
+        if (merged == null) {
+            client.removeLocationUpdates(callback);
+            return;
+        }
+        try {
+            // TR: Aynı callback ile yapılan yeni istek eskisinin yerine geçer. / EN: A new request with the same callback replaces the old one.
+            client.requestLocationUpdates(merged, callback, thread.getLooper());
+        } catch (SecurityException e) {
+            Log.w(TAG, "Location permission missing, no updates requested", e);
+            activeRequest = null;
+        }
+    }
+
+    // TR: Öncelik sabitlerinde küçük değer daha doğru konum demektir. / EN: In the priority constants, a smaller value means a more accurate location.
+    private LocationRequest merge() {
+        int priority = Priority.PRIORITY_PASSIVE;
+        long interval = Long.MAX_VALUE;
+        long minInterval = Long.MAX_VALUE;
+        float minDistance = Float.MAX_VALUE;
+        boolean any = false;
+        for (LocationRequest request : subscriptions.values()) {
+            if (request == null) {
+                continue;
+            }
+            any = true;
+            priority = Math.min(priority, request.getPriority());
+            interval = Math.min(interval, request.getIntervalMillis());
+            minInterval = Math.min(minInterval, request.getMinUpdateIntervalMillis());
+            minDistance = Math.min(minDistance, request.getMinUpdateDistanceMeters());
+        }
+        if (!any) {
+            return null;
+        }
+        return new LocationRequest.Builder(priority, interval)
+                .setMinUpdateIntervalMillis(minInterval)
+                .setMinUpdateDistanceMeters(minDistance)
+                .build();
+    }
+
+    private static boolean isFresh(@Nullable Location location) {
+        return location != null && ageMs(location) <= MAX_CACHED_AGE_MS;
+    }
+
+    private static long ageMs(Location location) {
+        return (SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos()) / 1_000_000;
+    }
+}
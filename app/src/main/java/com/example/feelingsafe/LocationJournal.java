@@ -0,0 +1,293 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * TR: LocationJournal, konumları hafızaya eşlenmiş (memory-mapped) bir dosyaya sabit genişlikte ikili kayıtlar olarak
+ * TR: ekleyen, halka (ring) şeklinde bir günlüktür. Bir ekleme sadece birkaç bellek yazmasıdır; veritabanı işlemi,
+ * TR: thread değişimi veya disk senkronizasyonu yoktur. Kayıtlar daha sonra toplu halde Room'a aktarılır (fold).
+ * TR: Her kaydın bir CRC32 sağlama toplamı vardır ve bu toplam kaydın sıra numarasını da içerir; böylece yarım kalmış
+ * TR: yazmalar ve halkanın önceki turundan kalan eski kayıtlar yeniden başlatmada ayırt edilir.
+ * TR: Sürecin (process) tamamında tek bir örnek vardır.
+ * EN: LocationJournal is a ring-shaped journal that appends locations as fixed-width binary records to a
+ * EN: memory-mapped file. An append is just a few memory writes; there is no database transaction, thread hop
+ * EN: or disk sync. The records are later moved to Room in bulk (fold).
+ * EN: Every record has a CRC32 checksum that also covers the record's sequence number, so torn writes and stale
+ * EN: records from the ring's previous lap are told apart on restart.
+ * EN: There is a single instance for the whole process.
+ */
+public class LocationJournal {
+
+    private static final String TAG = "LocationJournal";
+    private static final String FILE_NAME = "location_journal.bin";
+
+    // TR: Başlık: sihirli sayı, sürüm, kapasite, kayıt boyutu (4'er byte). / EN: Header: magic, version, capacity, record size (4 bytes each).
+    private static final int MAGIC = 0x46534A31; // "FSJ1"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    // TR: Kayıt: enlem (8), boylam (8), zaman (8), doğruluk (4), hız (4), yön (4), sağlayıcı kodu (4), CRC (4), boşluk (4).
+    // EN: Record: latitude (8), longitude (8), time (8), accuracy (4), speed (4), bearing (4), provider code (4), CRC (4), padding (4).
+    static final int RECORD_SIZE = 48;
+    private static final int PAYLOAD_SIZE = 40;
+    // TR: Sürüm 1 kayıtları: enlem, boylam, zaman, doğruluk, CRC. Güncellemeden sonra bir kereliğine okunur.
+    // EN: Version 1 records: latitude, longitude, time, accuracy, CRC. Read once after an upgrade.
+    private static final int V1_VERSION = 1;
+    private static final int V1_RECORD_SIZE = 32;
+    private static final int V1_PAYLOAD_SIZE = 28;
+    // TR: Sağlayıcı adları ve kayıttaki kodları (indeks); listede olmayanlar 0 (bilinmiyor) olarak saklanır.
+    // EN: The provider names and their codes in the record (the index); the ones not listed are stored as 0 (unknown).
+    private static final String[] PROVIDERS = {null, "fused", "gps", "network", "passive"};
+    static final int CAPACITY = 4096;
+
+    private static volatile LocationJournal instance;
+    // TR: Bu süreçte günlüğe bir konum eklendiğinde haber verilenler (ör. canlı geçmişi gösteren ekran). Günlük henüz açılmamışken de
+    // TR: kayıt olunabilsin diye statiktir. Günlüğün kilidi tutulurken çağrılırlar; sadece iş göndermeli, günlüğü okumamalıdırlar.
+    // EN: Told when a location is appended to the journal in this process (e.g. a screen showing live history). Static so that
+    // EN: they can register before the journal is opened. Called with the journal's lock held; they should only post work, not read the journal.
+    private static final List<Runnable> appendListeners = new CopyOnWriteArrayList<>();
+
+    private final File file;
+    private MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[PAYLOAD_SIZE + 8];
+    // TR: Sürüm 1 dosyasından kurtarılan, yeni biçimde tekrar yazılacak kayıtlar. / EN: Records recovered from a version 1 file, to be written again in the new format.
+    private List<LocationHistory> legacyRecords;
+
+    // TR: Room'a aktarılmış son kaydın bir sonrası ve yazılacak bir sonraki kaydın sıra numarası.
+    // EN: One past the last record moved to Room, and the sequence number of the next record to write.
+    private long committedSeq;
+    private long headSeq;
+    private boolean ready = false;
+
+    /**
+     * TR: Room'a aktarılmayı bekleyen kayıtlar: [fromSeq, upToSeq) aralığındaki sıra numaraları.
+     * TR: upToSeq, bu kayıtlar aktarıldıktan sonra kaydedilecek kontrol noktasıdır.
+     * EN: The records waiting to be moved to Room: the sequence numbers in [fromSeq, upToSeq).
+     * EN: upToSeq is the checkpoint to store once these records are moved.
+     */
+    public static final class Pending {
+        public final List<LocationHistory> locations;
+        public final long fromSeq;
+        public final long upToSeq;
+
+        Pending(List<LocationHistory> locations, long fromSeq, long upToSeq) {
+            this.locations = locations;
+            this.fromSeq = fromSeq;
+            this.upToSeq = upToSeq;
+        }
+    }
+
+    private LocationJournal(File file) {
+        this.file = file;
+    }
+
+    public static LocationJournal getInstance(Context context) {
+        if (instance == null) {
+            synchronized (LocationJournal.class) {
+                if (instance == null) {
+                    instance = new LocationJournal(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * TR: Günlük bu süreçte açılmışsa onu, açılmamışsa null döndürür. Sadece okuyan bileşenler içindir.
+     * EN: Returns the journal if it was opened in this process, otherwise null. Only for components that read.
+     */
+    static LocationJournal getIfOpen() {
+        LocationJournal journal = instance;
+        return journal != null && journal.isReady() ? journal : null;
+    }
+
+    static void addAppendListener(Runnable listener) {
+        appendListeners.add(listener);
+    }
+
+    static void removeAppendListener(Runnable listener) {
+        appendListeners.remove(listener);
+    }
+
+    /**
+     * TR: Dosyayı eşler ve committedSeq'ten başlayarak sağlama toplamı tutan kayıtları tarar (recovery).
+     * TR: İlk bozuk kayıtta durulur; ondan sonrası yazılmamış veya yarım kalmış kabul edilir. Arkaplanda çağrılmalıdır.
+     * EN: Maps the file and scans the records with a valid checksum starting at committedSeq (recovery).
+     * EN: It stops at the first broken record; everything after it is considered unwritten or torn. Must be called in the background.
+     */
+    public synchronized void recover(long committedSeq) throws IOException {
+        if (ready) {
+            return;
+        }
+        long size = HEADER_SIZE + (long) CAPACITY * RECORD_SIZE;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            readLegacyRecords(raf, committedSeq);
+            boolean fresh = raf.length() != size;
+            raf.setLength(size);
+            // TR: Eşleme, kanal kapansa bile geçerli kalır. / EN: The mapping stays valid even after the channel is closed.
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (fresh || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getInt(8) != CAPACITY || buffer.getInt(12) != RECORD_SIZE) {
+                for (int i = 0; i < size; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, CAPACITY);
+                buffer.putInt(12, RECORD_SIZE);
+                buffer.force();
+            }
+        }
+        this.committedSeq = committedSeq;
+        long seq = committedSeq;
+        while (seq - committedSeq < CAPACITY && isValid(seq)) {
+            seq++;
+        }
+        headSeq = seq;
+        ready = true;
+        if (legacyRecords != null) {
+            // TR: Dosya yeni biçimde sıfırlandı; eski kayıtlar aynı sıra numaralarıyla tekrar yazılır.
+            // EN: The file was reset in the new format; the old records are written again with the same sequence numbers.
+            for (LocationHistory location : legacyRecords) {
+                append(location);
+            }
+            legacyRecords = null;
+        }
+        if (headSeq > committedSeq) {
+            Log.d(TAG, "Recovered " + (headSeq - committedSeq) + " uncommitted records");
+        }
+    }
+
+    // TR: Dosya sürüm 1 biçimindeyse, henüz aktarılmamış geçerli kayıtlarını dosya sıfırlanmadan önce hafızaya okur.
+    // EN: If the file is in the version 1 format, reads its valid records not moved yet into memory before the file is reset.
+    private void readLegacyRecords(RandomAccessFile raf, long committedSeq) throws IOException {
+        long legacySize = HEADER_SIZE + (long) CAPACITY * V1_RECORD_SIZE;
+        if (raf.length() != legacySize) {
+            return;
+        }
+        MappedByteBuffer legacy = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, legacySize);
+        if (legacy.getInt(0) != MAGIC || legacy.getInt(4) != V1_VERSION || legacy.getInt(12) != V1_RECORD_SIZE) {
+            return;
+        }
+        legacyRecords = new ArrayList<>();
+        for (long seq = committedSeq; seq - committedSeq < CAPACITY; seq++) {
+            int offset = HEADER_SIZE + (int) (seq % CAPACITY) * V1_RECORD_SIZE;
+            if (legacy.getInt(offset + V1_PAYLOAD_SIZE) != checksum(legacy, seq, offset, V1_PAYLOAD_SIZE)) {
+                break;
+            }
+            LocationHistory location = new LocationHistory(legacy.getDouble(offset), legacy.getDouble(offset + 8),
+                    legacy.getLong(offset + 16));
+            location.accuracy = legacy.getFloat(offset + 24);
+            legacyRecords.add(location);
+        }
+        Log.d(TAG, "Upgrading " + legacyRecords.size() + " records from journal version 1");
+    }
+
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * TR: Bir konumu günlüğe ekler. Günlük hazır değilse veya dolmuşsa false döner; çağıran taraf o zaman
+     * TR: konumu başka bir yoldan (LocationWriteBuffer) kaydetmelidir.
+     * EN: Appends a location to the journal. Returns false if the journal is not ready or is full; the caller must then
+     * EN: save the location another way (LocationWriteBuffer).
+     */
+    public synchronized boolean append(LocationHistory location) {
+        if (!ready || headSeq - committedSeq >= CAPACITY) {
+            return false;
+        }
+        int offset = offsetOf(headSeq);
+        buffer.putDouble(offset, location.latitude);
+        buffer.putDouble(offset + 8, location.longitude);
+        buffer.putLong(offset + 16, location.timestamp);
+        buffer.putFloat(offset + 24, location.accuracy);
+        buffer.putFloat(offset + 28, location.speed);
+        buffer.putFloat(offset + 32, location.bearing);
+        buffer.putInt(offset + 36, providerCode(location.provider));
+        buffer.putInt(offset + PAYLOAD_SIZE, checksum(buffer, headSeq, offset, PAYLOAD_SIZE));
+        headSeq++;
+        for (Runnable listener : appendListeners) {
+            listener.run();
+        }
+        return true;
+    }
+
+    public synchronized int pendingCount() {
+        return (int) (headSeq - committedSeq);
+    }
+
+    /**
+     * TR: Room'a henüz aktarılmamış kayıtları (en fazla max tane) eskiden yeniye okur.
+     * TR: Kayıtların id'si LocationHistoryRepository.JOURNAL_ID olur.
+     * EN: Reads the records not yet moved to Room (at most max of them), oldest first.
+     * EN: The id of the records is LocationHistoryRepository.JOURNAL_ID.
+     */
+    public synchronized Pending readPending(int max) {
+        long end = Math.min(headSeq, committedSeq + max);
+        List<LocationHistory> locations = new ArrayList<>((int) (end - committedSeq));
+        for (long seq = committedSeq; seq < end; seq++) {
+            int offset = offsetOf(seq);
+            int provider = buffer.getInt(offset + 36);
+            locations.add(new LocationHistory(buffer.getDouble(offset), buffer.getDouble(offset + 8), buffer.getLong(offset + 16),
+                    buffer.getFloat(offset + 24), buffer.getFloat(offset + 28), buffer.getFloat(offset + 32),
+                    provider > 0 && provider < PROVIDERS.length ? PROVIDERS[provider] : null));
+        }
+        return new Pending(locations, committedSeq, end);
+    }
+
+    /**
+     * TR: upToSeq'ten önceki kayıtların Room'a aktarıldığını işaretler; yerleri yeni kayıtlar için boşalır.
+     * TR: Aktarılan kayıtlar diske senkronize edilir ki eski tur kayıtları bir çökme sonrası tekrar okunmasın.
+     * EN: Marks the records before upToSeq as moved to Room; their slots become free for new records.
+     * EN: The journal is synced to disk so that records from an old lap are not read again after a crash.
+     */
+    public synchronized void markCommitted(long upToSeq) {
+        if (upToSeq > committedSeq) {
+            committedSeq = upToSeq;
+            buffer.force();
+        }
+    }
+
+    private int offsetOf(long seq) {
+        return HEADER_SIZE + (int) (seq % CAPACITY) * RECORD_SIZE;
+    }
+
+    private boolean isValid(long seq) {
+        int offset = offsetOf(seq);
+        return buffer.getInt(offset + PAYLOAD_SIZE) == checksum(buffer, seq, offset, PAYLOAD_SIZE);
+    }
+
+    private static int providerCode(String provider) {
+        for (int i = 1; i < PROVIDERS.length; i++) {
+            if (PROVIDERS[i].equals(provider)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    // TR: Kaydın içeriği ve sıra numarası üzerinden CRC32 hesaplar. / EN: Computes a CRC32 over the record's payload and its sequence number.
+    private int checksum(MappedByteBuffer source, long seq, int offset, int payloadSize) {
+        for (int i = 0; i < payloadSize; i++) {
+            scratch[i] = source.get(offset + i);
+        }
+        for (int i = 0; i < 8; i++) {
+            scratch[payloadSize + i] = (byte) (seq >>> (8 * i));
+        }
+        crc.reset();
+        crc.update(scratch, 0, payloadSize + 8);
+        return (int) crc.getValue();
+    }
+}
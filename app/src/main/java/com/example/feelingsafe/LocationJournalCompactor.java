@@ -0,0 +1,176 @@
+package com.example.feelingsafe;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TR: LocationJournalCompactor, LocationTrackingService ile LocationJournal arasındaki yazma yoludur.
+ * TR: Servis başladığında günlüğü arkaplanda açar ve önceki çalışmadan kalan, Room'a aktarılmamış kayıtları aktarır (replay).
+ * TR: Sonrasında günlükte FOLD_THRESHOLD kadar kayıt biriktiğinde veya FOLD_INTERVAL_MS geçtiğinde kayıtları
+ * TR: tek bir transaction ile Room'a aktarır. Kontrol noktası aynı transaction içinde yeniden okunup yazıldığı için bir kayıt,
+ * TR: süreç değişiminde iki süreç aynı günlük dosyasını aktarsa bile, iki kez eklenmez.
+ * TR: append() ve stop(), konumları ileten thread'den (LocationHub'ın thread'i) çağrılmalıdır; böylece stop() son append()'ten
+ * TR: sonra çalışır. start() herhangi bir thread'den çağrılabilir. Zamanlı aktarım ana thread'in Handler'ında çalışır.
+ * EN: LocationJournalCompactor is the write path between LocationTrackingService and LocationJournal.
+ * EN: When the service starts, it opens the journal in the background and moves the records left over from the previous run
+ * EN: that weren't moved to Room yet (replay). After that, it moves the records to Room in a single transaction whenever
+ * EN: FOLD_THRESHOLD records have collected in the journal or FOLD_INTERVAL_MS has passed. The checkpoint is written in
+ * EN: the same transaction and read again inside it before writing, so a record is never inserted twice, even when two
+ * EN: processes fold the same journal file during a process switch.
+ * EN: append() and stop() must be called from the thread that delivers the locations (LocationHub's thread), so stop() runs
+ * EN: after the last append(). start() may be called from any thread. The timed fold runs on the main thread's Handler.
+ */
+public class LocationJournalCompactor {
+
+    private static final String TAG = "LocationJournalCompactor";
+
+    // TR: Bu kadar kayıt biriktiğinde aktarım hemen başlar. / EN: Folding starts right away when this many records have collected.
+    static final int FOLD_THRESHOLD = 256;
+    // TR: Kayıtlar en fazla bu kadar süre sadece günlükte kalır. / EN: Records stay only in the journal for at most this long.
+    static final long FOLD_INTERVAL_MS = 15 * 60 * 1000L;
+    // TR: Tek bir transaction'da aktarılan en fazla kayıt sayısı. / EN: The maximum number of records moved in a single transaction.
+    private static final int MAX_FOLD_BATCH = 1024;
+
+    private final AppDatabase database;
+    private final LocationJournal journal;
+    private final ExecutorService databaseExecutor;
+    private final LocationBatchWriter batchWriter;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean foldQueued = new AtomicBoolean(false);
+    private final AtomicLong foldedTotal = new AtomicLong();  // TR: Servis başladığından beri aktarılan kayıtlar. / EN: Records folded since the service started.
+    private final Runnable timedFold = new Runnable() {
+        @Override
+        public void run() {
+            requestFold();
+            handler.postDelayed(this, FOLD_INTERVAL_MS);
+        }
+    };
+
+    public LocationJournalCompactor(AppDatabase database, LocationJournal journal, ExecutorService databaseExecutor,
+                                    LocationBatchWriter batchWriter) {
+        this.database = database;
+        this.journal = journal;
+        this.databaseExecutor = databaseExecutor;
+        this.batchWriter = batchWriter;
+    }
+
+    /**
+     * TR: Günlüğü arkaplanda açar, kalan kayıtları aktarır ve zamanlı aktarımı başlatır.
+     * TR: Günlük açılana kadar append() false döner; bu sırada gelen konumlar diğer yoldan yazılır.
+     * EN: Opens the journal in the background, moves the leftover records and starts the timed fold.
+     * EN: Until the journal is open, append() returns false; the locations arriving meanwhile are written the other way.
+     */
+    public void start() {
+        databaseExecutor.execute(() -> {
+            try {
+                Long committed = database.journalCheckpointDao().getCommittedSeq();
+                journal.recover(committed == null ? 0 : committed);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not open the journal, falling back to direct writes", e);
+                return;
+            }
+            fold();
+        });
+        handler.removeCallbacks(timedFold);
+        handler.postDelayed(timedFold, FOLD_INTERVAL_MS);
+    }
+
+    /**
+     * TR: Konumu günlüğe ekler. Günlük hazır değilse veya doluysa false döner.
+     * EN: Appends the location to the journal. Returns false if the journal is not ready or is full.
+     */
+    public boolean append(LocationHistory location) {
+        if (!journal.append(location)) {
+            // TR: Günlük doluysa, yer açılması için aktarımı tetikliyoruz. / EN: If the journal is full, we trigger a fold to free up space.
+            requestFold();
+            return false;
+        }
+        // TR: Günlükteki noktalar da okumalarda göründüğü için önbellekteki aralık eskir.
+        // EN: Journal points show up in reads too, so the cached range becomes stale.
+        database.routeCache().onAppended(location.timestamp, location.timestamp);
+        if (journal.pendingCount() >= FOLD_THRESHOLD) {
+            requestFold();
+        }
+        return true;
+    }
+
+    /**
+     * TR: Zamanlı aktarımı durdurur ve bekleyen kayıtlar için son bir aktarım ister.
+     * TR: Aktarılamayan kayıtlar kaybolmaz; bir sonraki start() çağrısında aktarılır.
+     * EN: Stops the timed fold and requests a last fold for the pending records.
+     * EN: Records that couldn't be moved aren't lost; they are moved on the next start() call.
+     */
+    public void stop() {
+        handler.removeCallbacks(timedFold);
+        requestFold();
+    }
+
+    /**
+     * TR: Günlükte veritabanına aktarılmayı bekleyen kayıt sayısı. / EN: The number of journal records waiting to be folded into the database.
+     */
+    public int pendingCount() {
+        return journal.isReady() ? journal.pendingCount() : 0;
+    }
+
+    /**
+     * TR: Bu örnek başladığından beri veritabanına aktarılan kayıt sayısı. / EN: The number of records folded into the database since this instance started.
+     */
+    public long foldedCount() {
+        return foldedTotal.get();
+    }
+
+    private void requestFold() {
+        if (!journal.isReady() || journal.pendingCount() == 0 || !foldQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            databaseExecutor.execute(this::fold);
+        } catch (RejectedExecutionException e) {
+            foldQueued.set(false);
+        }
+    }
+
+    // TR: Veritabanı thread'inde çalışır. / EN: Runs on the database thread.
+    private void fold() {
+        foldQueued.set(false);
+        int folded = 0;
+        while (true) {
+            LocationJournal.Pending pending = journal.readPending(MAX_FOLD_BATCH);
+            if (pending.locations.isEmpty()) {
+                break;
+            }
+            // TR: Kontrol noktası transaction'ın içinde yeniden okunur: servis süreç değiştirirken eski sürecin son aktarımı ile
+            // TR: yeni sürecin açılıştaki aktarımı aynı dosyadan aynı kayıtları okuyabilir. Yazma transaction'ları sırayla
+            // TR: çalıştığı için, diğer sürecin aktardığı kayıtlar burada görülür ve atlanır.
+            // EN: The checkpoint is read again inside the transaction: while the service switches processes, the old process's
+            // EN: last fold and the new process's fold on start can read the same records from the same file. Write transactions
+            // EN: run one at a time, so the records the other process has folded are seen here and skipped.
+            int written = database.runInTransaction(() -> {
+                Long committed = database.journalCheckpointDao().getCommittedSeq();
+                long skip = committed == null ? 0 : Math.max(0, Math.min(committed, pending.upToSeq) - pending.fromSeq);
+                List<LocationHistory> fresh = pending.locations.subList((int) skip, pending.locations.size());
+                if (!fresh.isEmpty()) {
+                    batchWriter.write(fresh);
+                    database.journalCheckpointDao().save(new JournalCheckpoint(pending.upToSeq));
+                }
+                return fresh.size();
+            });
+            // TR: Yerler ancak transaction başarıyla bittikten sonra serbest bırakılır.
+            // EN: The slots are only freed once the transaction has completed successfully.
+            journal.markCommitted(pending.upToSeq);
+            folded += written;
+            foldedTotal.addAndGet(written);
+        }
+        if (folded > 0) {
+            Log.d(TAG, "Folded " + folded + " journal records");
+        }
+    }
+}
@@ -4,77 +4,188 @@ import android.Manifest;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Application;
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.location.Location;
+import android.os.BatteryManager;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
 import android.os.Looper;
+import android.os.PowerManager;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
 
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
 import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
-import com.google.android.gms.location.Priority;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class LocationTrackingService extends Service {
 
+    // Durağan moddaki geofence'tan çıkıldığında GeofenceExitReceiver servisi bu eylemle başlatır
+    public static final String ACTION_RESUME_TRACKING = "com.example.feelingsafe.action.RESUME_TRACKING";
+    // Ayarlar değiştiğinde servis yeniden başlatılmaz; bu eylemle Intent'teki yeni yapılandırmayı alıp konum isteğini değiştirir
+    public static final String ACTION_RECONFIGURE = "com.example.feelingsafe.action.RECONFIGURE";
+
     private static final String CHANNEL_ID = "LocationTrackingChannel";
     private static final int NOTIFICATION_ID = 12345;
+    // Alışılmadık bir yerde olunduğunda gösterilen uyarının kanalı ve numarası
+    private static final String DEVIATION_CHANNEL_ID = "DeviationAlertChannel";
+    private static final int DEVIATION_NOTIFICATION_ID = 12346;
+    // Eski geçmişin sıkıştırılması ve seyreltilmesi gibi bakım işlerinin ne sıklıkla çalışacağı
+    private static final long MAINTENANCE_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+    // Kapanmış yolculukların adreslerinin ne sıklıkla çözüleceği
+    private static final long ADDRESS_INTERVAL_MS = 15 * 60 * 1000L;
+    // Dururken konum gelmediği için örnekleme profilinin zamanla yeniden değerlendirilme sıklığı
+    private static final long SAMPLING_TICK_MS = 60 * 1000L;
+    // Pil bu yüzdenin altındaysa ve şarj olmuyorsa hareket profilleri bir kademe düşürülür
+    private static final int LOW_BATTERY_PERCENT = 20;
+    // Durağan modda kurulan geofence'ın yarıçapı (Play Services bundan küçük geofence'larda güvenilir çalışmaz)
+    private static final float STATIONARY_RADIUS_METERS = 150;
+    private static final String STATIONARY_GEOFENCE_ID = "stationary";
+    // Sadece servisin yazdığı durum dosyası. Ayarlar dosyasından ayrıdır: SharedPreferences dosyanın tamamını yazdığı için
+    // iki süreç aynı dosyaya yazarsa birinin değişiklikleri kaybolur
+    private static final String STATE_PREFS_NAME = "TrackerState";
 
-    private FusedLocationProviderClient fusedLocationProviderClient;
-    private LocationCallback locationCallback;
+    // Konumlar uygulamanın tek konum aboneliğinden (LocationHub) gelir. Konum işleme, örnekleme profili ve durağan mod
+    // hub'ın thread'inde (trackingHandler) çalışır; ana thread'de sadece bakım ve adres işleri planlanır
+    private LocationHub locationHub;
+    private Handler trackingHandler;
+    private final LocationHub.Subscriber locationSubscriber = this::onLocation;
+    private GeofencingClient geofencingClient;
     private AppDatabase database;
     // Arka planda veritabanı işlemi yapmak için bir ExecutorService
     private ExecutorService databaseExecutor;
+    // Konumları ziyaret sıklığı ve yolculuk özetleriyle birlikte yazan yardımcı (iki yazma yolu da kullanır)
+    private LocationBatchWriter batchWriter;
+    // Konumları biriktirip toplu halde yazan tampon
+    private LocationWriteBuffer writeBuffer;
+    // Ayarlarda açıksa konumlar önce hafızaya eşlenmiş günlüğe yazılır; kapalıysa null'dır
+    private LocationJournalCompactor journalCompactor;
+    // Kapanmış eski kayıtları sıkıştırılmış rota parçalarına taşıyan yardımcı
+    private RouteCompactor routeCompactor;
+    // Yaşlanan geçmişi kademeli olarak seyrelten motor
+    private HistoryRetentionEngine retentionEngine;
+    // Yolculuk uçlarını adrese çeviren yardımcı; Geocoder ağ kullanabildiği için kendi thread'inde çalışır
+    private PlaceAddressEnricher addressEnricher;
+    private ExecutorService geocodeExecutor;
+    // Konumları yazılmadan önce temizleyen ve yumuşatan filtre (sadece hub'ın thread'inden kullanılır)
+    private final LocationFilter locationFilter = new LocationFilter();
+    // Her yeni konumu kullanıcının alışılmış yerleri ve saatleriyle karşılaştıran yardımcı
+    private RouteDeviationMatcher deviationMatcher;
+    // Konum isteğini hıza, son harekete ve pil durumuna göre seçen zamanlayıcı (sadece hub'ın thread'inden kullanılır)
+    private final SamplingScheduler samplingScheduler = new SamplingScheduler();
+    // Çalışırken değiştirilebilen ayarlar (örnekleme, tampon eşikleri, durağan moda geçiş süresi); ACTION_RECONFIGURE ile yenilenir
+    private volatile TrackingConfig config;
+    // İlk onStartCommand'den sonra true olur; daha önce gelen eylemler tam başlangıç gibi işlenir (sadece ana thread)
+    private boolean started = false;
+    // Durağan moddayken true'dur: konum isteği yoktur, sadece geofence'tan çıkış beklenir (hub'ın thread'inde değişir)
+    private volatile boolean stationary = false;
+    // onDestroy çağrıldıktan sonra hub'ın thread'inde bekleyen işler konum isteğini yeniden başlatmasın diye
+    private volatile boolean destroyed = false;
+    // Arayüzün bağlanıp durum aldığı Messenger ve kayıtlı istemciler (ikisi de hub'ın thread'inde çalışır)
+    private Messenger statusMessenger;
+    private final List<Messenger> statusClients = new ArrayList<>();
+    private long lastStatusAt = 0;
+    private LocationHistory lastFix;
+    private final Handler maintenanceHandler = new Handler(Looper.getMainLooper());
+    // Bakım işini veritabanı thread'ine gönderir ve kendini bir sonraki sefer için yeniden planlar
+    private final Runnable maintenanceTask = new Runnable() {
+        @Override
+        public void run() {
+            databaseExecutor.execute(() -> routeCompactor.compactClosedStretches());
+            // Seyreltme küçük adımlar halinde aynı kuyruğa eklenir; aradaki konum yazma işlemleri beklemez
+            retentionEngine.start(databaseExecutor);
+            // Alışkanlık modeli de parça parça yeniden kurulur (ilk çalışmada ilk kez kurulur)
+            deviationMatcher.rebuild(databaseExecutor);
+            maintenanceHandler.postDelayed(this, MAINTENANCE_INTERVAL_MS);
+        }
+    };
+    // Kullanıcı dururken konum gelmez; durduğunu anlayıp seyrek örneklemeye geçmek için profil zamanla da kontrol edilir
+    private final Runnable samplingTask = new Runnable() {
+        @Override
+        public void run() {
+            if (destroyed) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            applySamplingProfile(samplingScheduler.onTick(now, isLowPower()));
+            long dwellMs = config.stationaryDwellMs;
+            if (dwellMs > 0 && samplingScheduler.current() == SamplingScheduler.Profile.STILL
+                    && now - samplingScheduler.lastMovedAt() >= dwellMs) {
+                enterStationaryMode();
+            }
+            // Durağan moddayken zamanlayıcı durur; geofence'tan çıkışta yeniden başlar
+            if (!stationary) {
+                trackingHandler.postDelayed(this, SAMPLING_TICK_MS);
+            }
+        }
+    };
+    // Adres çözme işini kendi thread'ine gönderir (tek thread olduğu için çalışmalar üst üste binmez)
+    private final Runnable addressTask = new Runnable() {
+        @Override
+        public void run() {
+            geocodeExecutor.execute(addressEnricher::run);
+            maintenanceHandler.postDelayed(this, ADDRESS_INTERVAL_MS);
+        }
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
-        fusedLocationProviderClient = LocationServices.getFusedLocationProviderClient(this);
+        locationHub = LocationHub.getInstance(this);
+        trackingHandler = locationHub.getHandler();
+        statusMessenger = new Messenger(new Handler(trackingHandler.getLooper(), this::handleStatusMessage));
+        geofencingClient = LocationServices.getGeofencingClient(this);
+        // Önceki çalışma öldürüldüyse geofence'ı kalmış olabilir; servis tam takiple başladığı için kaldırıyoruz
+        geofencingClient.removeGeofences(stationaryPendingIntent());
         databaseExecutor = Executors.newSingleThreadExecutor();
         database = AppDatabase.getInstance(getApplicationContext()); // Veritabanı örneğini alıyoruz
-
-        // Konum her güncellendiğinde ne olacağını tanımlıyoruz
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(LocationResult locationResult) {
-                if (locationResult == null) {
-                    return;
-                }
-                for (Location location : locationResult.getLocations()) {
-                    if (location != null) {
-                        Log.d("LocationService", "New location added: " + location.getLatitude() + ", " + location.getLongitude());
-
-                        // Yeni bir konum geçmişi nesnesi oluştur
-                        LocationHistory newLocation = new LocationHistory(
-                                location.getLatitude(),
-                                location.getLongitude(),
-                                System.currentTimeMillis()
-                        );
-
-                        // Veritabanına kaydetme işlemini ana iş parçacığı dışında yap
-                        databaseExecutor.execute(() -> {
-                            database.locationHistoryDao().insert(newLocation);
-                        });
-                    }
-                }
-            }
-        };
+        TripSegmenter tripSegmenter = new TripSegmenter(database);
+        batchWriter = new LocationBatchWriter(database, new PlaceVisitAggregator(database), tripSegmenter);
+        // Mevcut geçmiş bir kereliğine yolculuklara bölünür (diğer yazma işlerinden önce); yapıldığı servisin durum dosyasına yazılır
+        SharedPreferences state = getSharedPreferences(STATE_PREFS_NAME, MODE_PRIVATE);
+        databaseExecutor.execute(() -> tripSegmenter.backfillOnce(state));
+        writeBuffer = new LocationWriteBuffer(database, databaseExecutor, batchWriter);
+        routeCompactor = new RouteCompactor(database);
+        retentionEngine = new HistoryRetentionEngine(database);
+        geocodeExecutor = Executors.newSingleThreadExecutor();
+        addressEnricher = new PlaceAddressEnricher(this, database);
+        deviationMatcher = new RouteDeviationMatcher(database, this::showDeviationAlert);
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        String action = intent == null ? null : intent.getAction();
+        // Ayarlar Intent ile gelir (bkz. TrackingConfig); servis ayrı süreçteyken SharedPreferences eski kalabilir
+        TrackingConfig next = TrackingConfig.fromIntent(intent);
+        // Çalışan servisin ayarları değişti: servis, thread'ler ve bildirim olduğu gibi kalır
+        if (started && ACTION_RECONFIGURE.equals(action)) {
+            if (next != null) {
+                reconfigure(next);
+            }
+            return START_STICKY;
+        }
+
         // Servisi bir Foreground Service'e dönüştürüyoruz
         createNotificationChannel();
         Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
@@ -85,21 +196,148 @@ public class LocationTrackingService extends Service {
 
         startForeground(NOTIFICATION_ID, notification);
 
-        // Konum güncellemelerini başlat
-        startLocationUpdates();
+        // Geofence'tan çıkıldı: sadece tam takibe dönülür, bakım işleri yeniden planlanmaz. Servis bu arada öldürülüp
+        // bu eylemle yeniden oluşturulduysa durağan mod zaten yoktur ve aşağıdaki tam başlangıç yapılır
+        if (started && ACTION_RESUME_TRACKING.equals(action)) {
+            if (next != null) {
+                applyConfig(next);
+            }
+            trackingHandler.post(this::exitStationaryMode);
+            return START_STICKY;
+        }
+        if (!started) {
+            // Sistem servisi Intent'siz yeniden başlattıysa süreç de yeni açılmıştır; ayarlar o zaman diskten okunur
+            TrackingConfig initial = next != null ? next : TrackingConfig.read(settings());
+            applyConfig(initial);
+            if (initial.journal) {
+                journalCompactor = new LocationJournalCompactor(database, LocationJournal.getInstance(this), databaseExecutor, batchWriter);
+                // Günlüğü açar ve önceki çalışmadan kalan kayıtları veritabanına aktarır
+                journalCompactor.start();
+            }
+        } else if (next != null) {
+            applyConfig(next);
+        }
+        started = true;
+
+        // Konum güncellemelerini başlat (durağan moddaysak geofence zaten kuruludur)
+        trackingHandler.post(() -> {
+            if (!stationary && !destroyed) {
+                startLocationUpdates();
+            }
+        });
+
+        // Bakım işini planla (onStartCommand birden fazla kez çağrılabildiği için önce eskisini kaldırıyoruz)
+        maintenanceHandler.removeCallbacks(maintenanceTask);
+        maintenanceHandler.post(maintenanceTask);
+        maintenanceHandler.removeCallbacks(addressTask);
+        maintenanceHandler.post(addressTask);
+        trackingHandler.removeCallbacks(samplingTask);
+        trackingHandler.post(() -> {
+            if (!stationary) {
+                trackingHandler.postDelayed(samplingTask, SAMPLING_TICK_MS);
+            }
+        });
 
         // Sistem servisi sonlandırırsa, yeniden başlatmasını istiyoruz
         return START_STICKY;
     }
 
+    // Konum her güncellendiğinde hub'ın thread'inde çağrılır
+    private void onLocation(Location location) {
+        // Konum önce filtreden geçer: kötü doğruluklu ve imkânsız sıçrama yapan konumlar atılır,
+        // kalanlar yumuşatılır. Zaman damgası olarak konumun ölçüldüğü an (getTime) kullanılır
+        LocationHistory newLocation = locationFilter.process(
+                location.getLatitude(),
+                location.getLongitude(),
+                location.getTime(),
+                location.hasAccuracy() ? location.getAccuracy() : LocationHistory.UNKNOWN,
+                location.hasSpeed() ? location.getSpeed() : LocationHistory.UNKNOWN,
+                location.hasBearing() ? location.getBearing() : LocationHistory.UNKNOWN,
+                location.getProvider()
+        );
+        if (newLocation == null) {
+            Log.d("LocationService", "Location rejected: accuracy " + location.getAccuracy() + " m");
+            publishStatus(false);
+            return;
+        }
+        Log.d("LocationService", "New location added: " + newLocation.latitude + ", " + newLocation.longitude);
+
+        // Günlük açıksa konum sadece birkaç bellek yazmasıyla günlüğe eklenir.
+        // Günlük kapalı, henüz hazır değil veya doluysa konumu tampona ekle; tampon dolduğunda
+        // veya süresi geldiğinde tek bir transaction ile arka planda veritabanına yazılır
+        if (journalCompactor == null || !journalCompactor.append(newLocation)) {
+            writeBuffer.add(newLocation);
+        }
+
+        // Konum alışılmış yerlerle karşılaştırılır (geçmiş taranmaz, sabit süreli)
+        deviationMatcher.onLocation(newLocation);
+
+        // Hız değiştiyse konum isteği yeni profile göre değiştirilir
+        applySamplingProfile(samplingScheduler.onFix(newLocation, isLowPower()));
+
+        lastFix = newLocation;
+        publishStatus(false);
+    }
+
+    // Sadece Intent'siz yeniden başlatmada kullanılır; o zaman süreç yeni açıldığı için ayarlar diskten güncel okunur
+    private SharedPreferences settings() {
+        return getSharedPreferences(SettingActivity.PREFS_NAME, MODE_PRIVATE);
+    }
+
+    // Arayüzden gelen durum mesajlarını işler (hub'ın thread'inde)
+    private boolean handleStatusMessage(Message message) {
+        switch (message.what) {
+            case TrackingStatus.MSG_REGISTER:
+                if (message.replyTo != null && !statusClients.contains(message.replyTo)) {
+                    statusClients.add(message.replyTo);
+                    publishStatus(true);
+                }
+                return true;
+            case TrackingStatus.MSG_UNREGISTER:
+                statusClients.remove(message.replyTo);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Durumu kayıtlı istemcilere gönderir; force değilse en fazla MIN_PUBLISH_INTERVAL_MS'de bir. Kapanmış istemciler çıkarılır
+    private void publishStatus(boolean force) {
+        long now = System.currentTimeMillis();
+        if (statusClients.isEmpty() || (!force && now - lastStatusAt < TrackingStatus.MIN_PUBLISH_INTERVAL_MS)) {
+            return;
+        }
+        lastStatusAt = now;
+        TrackingStatus status = new TrackingStatus();
+        status.pointsWritten = writeBuffer.writtenCount() + (journalCompactor == null ? 0 : journalCompactor.foldedCount());
+        status.pointsRejected = locationFilter.rejectedCount();
+        status.queueDepth = writeBuffer.pendingCount() + (journalCompactor == null ? 0 : journalCompactor.pendingCount());
+        if (lastFix != null) {
+            status.lastFixTime = lastFix.timestamp;
+            status.lastLatitude = lastFix.latitude;
+            status.lastLongitude = lastFix.longitude;
+            status.lastAccuracy = lastFix.accuracy;
+        }
+        TrackingConfig current = config;
+        status.profile = current == null || current.adaptive ? samplingScheduler.current().name() : "FIXED";
+        status.stationary = stationary;
+        status.process = Application.getProcessName();
+        for (int i = statusClients.size() - 1; i >= 0; i--) {
+            Message message = Message.obtain(null, TrackingStatus.MSG_STATUS);
+            message.setData(status.toBundle());
+            try {
+                statusClients.get(i).send(message);
+            } catch (RemoteException e) {
+                statusClients.remove(i);
+            }
+        }
+    }
+
     private void startLocationUpdates() {
-        // Konuştuğumuz optimize edilmiş konum isteği
-        LocationRequest locationRequest = new LocationRequest.Builder(
-                Priority.PRIORITY_BALANCED_POWER_ACCURACY,
-                60000) // En geç 60 saniyede bir
-                .setMinUpdateIntervalMillis(30000) // En erken 30 saniyede bir
-                .setMinUpdateDistanceMeters(50) // VEYA en az 50 METRE hareket ettiğinde
-                .build();
+        // Konum isteği uyarlamalı örneklemede o anki profilden (başlangıçta eski sabit istekle aynı olan IDLE),
+        // kapalıysa ayarlardaki sabit değerlerden oluşturulur
+        TrackingConfig current = config;
+        LocationRequest locationRequest = current.adaptive ? samplingScheduler.current().toRequest() : current.fixedRequest();
 
         // İzin kontrolü
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED && ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
@@ -108,7 +346,112 @@ public class LocationTrackingService extends Service {
             return;
         }
 
-        fusedLocationProviderClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+        // Aynı aboneyle yapılan yeni istek eskisinin yerine geçer
+        locationHub.subscribe(locationSubscriber, locationRequest);
+    }
+
+    // Yapılandırmanın çalışırken değiştirilebilen kısmını uygular; yazma yolu (günlük) sadece ilk başlangıçta seçilir
+    private void applyConfig(TrackingConfig next) {
+        config = next;
+        writeBuffer.setPolicy(next.batchSize, next.batchMaxAgeMs);
+        retentionEngine.setMaxHistoryMonths(next.historyExpiryMonths);
+    }
+
+    // Yeni ayarlar tek bir istek değişikliğiyle uygulanır: hub yeni isteği sağlayıcıya gönderir, istek aynıysa
+    // hiçbir şey yapmaz. Durağan mod kapatıldıysa tam takibe dönülür
+    private void reconfigure(TrackingConfig next) {
+        applyConfig(next);
+        Log.d("LocationService", "Reconfigured: adaptive " + next.adaptive + ", batch " + next.batchSize);
+        trackingHandler.post(() -> {
+            if (stationary && next.stationaryDwellMs == 0) {
+                exitStationaryMode();
+            } else if (!stationary && !destroyed) {
+                startLocationUpdates();
+            }
+            publishStatus(true);
+        });
+    }
+
+    // Profil değiştiyse isteği yeniden gönderir. Yeni istek eskisinin yerine geçtiği için güncellemeleri durdurmaya
+    // gerek yoktur ve arada konum kaçırılmaz
+    private void applySamplingProfile(@Nullable SamplingScheduler.Profile profile) {
+        if (profile == null) {
+            return;
+        }
+        Log.d("LocationService", "Sampling profile: " + profile);
+        startLocationUpdates();
+    }
+
+    // Kullanıcı uzun süredir hareket etmiyor: son yerinin çevresine bir geofence kurulur ve kurulduktan sonra konum isteği
+    // tamamen kaldırılır. Böylece dururken ne konum uyanması ne de veritabanı yazması olur. Geofence için arkaplan konum
+    // izni gerekir; izin yoksa veya geofence kurulamazsa seyrek örneklemeyle (STILL) devam edilir
+    private void enterStationaryMode() {
+        if (stationary || ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED
+                || ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_BACKGROUND_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        Geofence geofence = new Geofence.Builder()
+                .setRequestId(STATIONARY_GEOFENCE_ID)
+                .setCircularRegion(samplingScheduler.anchorLatitude(), samplingScheduler.anchorLongitude(), STATIONARY_RADIUS_METERS)
+                .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_EXIT)
+                .build();
+        // Kurulduğu anda zaten dışarıdaysak çıkış hemen bildirilir
+        GeofencingRequest request = new GeofencingRequest.Builder()
+                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_EXIT)
+                .addGeofence(geofence)
+                .build();
+        stationary = true;
+        // Sonuçlar da hub'ın thread'inde işlenir
+        geofencingClient.addGeofences(request, stationaryPendingIntent())
+                .addOnSuccessListener(trackingHandler::post, unused -> {
+                    if (!stationary) {
+                        return; // Bu arada çıkış bildirildi
+                    }
+                    Log.d("LocationService", "Stationary mode: location updates removed");
+                    locationHub.unsubscribe(locationSubscriber);
+                    publishStatus(true);
+                })
+                .addOnFailureListener(trackingHandler::post, e -> {
+                    Log.w("LocationService", "Stationary geofence could not be added", e);
+                    stationary = false;
+                    trackingHandler.postDelayed(samplingTask, SAMPLING_TICK_MS);
+                });
+    }
+
+    // Geofence'tan çıkıldı: geofence kaldırılır, zamanlayıcı hareket başlamış gibi sıfırlanır ve konum isteği yeniden gönderilir
+    private void exitStationaryMode() {
+        if (!stationary || destroyed) {
+            return;
+        }
+        Log.d("LocationService", "Left stationary geofence: resuming location updates");
+        stationary = false;
+        geofencingClient.removeGeofences(stationaryPendingIntent());
+        samplingScheduler.wake(System.currentTimeMillis());
+        startLocationUpdates();
+        trackingHandler.removeCallbacks(samplingTask);
+        trackingHandler.postDelayed(samplingTask, SAMPLING_TICK_MS);
+        publishStatus(true);
+    }
+
+    // Play Services geofence olayını intent'e eklediği için PendingIntent değiştirilebilir (MUTABLE) olmalıdır
+    private PendingIntent stationaryPendingIntent() {
+        Intent intent = new Intent(this, GeofenceExitReceiver.class);
+        return PendingIntent.getBroadcast(this, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+    }
+
+    // Güç tasarrufu açıksa veya pil azalmış ve şarj olmuyorsa true döner
+    private boolean isLowPower() {
+        PowerManager powerManager = getSystemService(PowerManager.class);
+        if (powerManager != null && powerManager.isPowerSaveMode()) {
+            return true;
+        }
+        BatteryManager batteryManager = getSystemService(BatteryManager.class);
+        if (batteryManager == null || batteryManager.isCharging()) {
+            return false;
+        }
+        int percent = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return percent > 0 && percent < LOW_BATTERY_PERCENT;
     }
 
     private void createNotificationChannel() {
@@ -118,26 +461,109 @@ public class LocationTrackingService extends Service {
                     "Location Tracking Channel",
                     NotificationManager.IMPORTANCE_DEFAULT
             );
+            // Sapma uyarısı kullanıcının hemen görmesi için yüksek öncelikli ayrı bir kanaldadır
+            NotificationChannel deviationChannel = new NotificationChannel(
+                    DEVIATION_CHANNEL_ID,
+                    getString(R.string.deviation_channel_name),
+                    NotificationManager.IMPORTANCE_HIGH
+            );
             NotificationManager manager = getSystemService(NotificationManager.class);
             if (manager != null) {
                 manager.createNotificationChannel(serviceChannel);
+                manager.createNotificationChannel(deviationChannel);
             }
         }
     }
 
+    // Kullanıcı günün bu saati için alışılmadık bir yerde; S.O.S. geri sayımını başlatmayı öneren bir bildirim gösterir.
+    // Geri sayım kendiliğinden başlamaz, sadece kullanıcı bildirimdeki düğmeye basarsa MainActivity'de başlar.
+    private void showDeviationAlert(LocationHistory location) {
+        Log.d("LocationService", "Unusual location: " + location.latitude + ", " + location.longitude);
+        Intent countdownIntent = new Intent(this, MainActivity.class)
+                .setAction(MainActivity.ACTION_START_SOS_COUNTDOWN)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        PendingIntent countdownPendingIntent = PendingIntent.getActivity(this, 0, countdownIntent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+        Notification notification = new NotificationCompat.Builder(this, DEVIATION_CHANNEL_ID)
+                .setContentTitle(getString(R.string.deviation_title))
+                .setContentText(getString(R.string.deviation_text))
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setAutoCancel(true)
+                .addAction(0, getString(R.string.deviation_action_sos), countdownPendingIntent)
+                .build();
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager != null) {
+            manager.notify(DEVIATION_NOTIFICATION_ID, notification);
+        }
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
+        destroyed = true;
         // Servis durduğunda konum güncellemelerini de durdur
-        fusedLocationProviderClient.removeLocationUpdates(locationCallback);
-        // Arka plan işlemcisini kapat
-        databaseExecutor.shutdown();
+        locationHub.unsubscribe(locationSubscriber);
+        maintenanceHandler.removeCallbacks(maintenanceTask);
+        maintenanceHandler.removeCallbacks(addressTask);
+        addressEnricher.cancel();
+        geocodeExecutor.shutdown();
+        // Kapanış hub'ın thread'inde, o an işlenmekte olan konumdan sonra çalışır; böylece yazma işlemcisi kapandıktan
+        // sonra tampona konum eklenmez
+        trackingHandler.post(() -> {
+            locationHub.unsubscribe(locationSubscriber);
+            trackingHandler.removeCallbacks(samplingTask);
+            if (stationary) {
+                geofencingClient.removeGeofences(stationaryPendingIntent());
+                stationary = false;
+            }
+            // Tamponda bekleyen konumlar kaybolmasın diye hepsini yaz
+            writeBuffer.flush();
+            if (journalCompactor != null) {
+                // Günlükteki kayıtlar dosyada kaldığı için kaybolmaz; yine de son bir aktarım istiyoruz
+                journalCompactor.stop();
+            }
+            // Arka plan işlemcisini kapat (kuyruktaki yazma işlemleri yine de tamamlanır)
+            databaseExecutor.shutdown();
+        });
     }
 
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
-        // Bu bir "started service" olduğu için onBind'a ihtiyacımız yok.
-        return null;
+        // Servis "started service" olarak çalışır; bağlanmak sadece durum almak içindir (bkz. TrackingStatus)
+        return statusMessenger.getBinder();
+    }
+
+    // Ayarlara göre çalıştırılacak servis sınıfı: "ayrı süreç" açıksa kendi sürecindeki IsolatedLocationTrackingService
+    public static Class<? extends LocationTrackingService> serviceClass(Context context) {
+        boolean isolated = context.getSharedPreferences(SettingActivity.PREFS_NAME, Context.MODE_PRIVATE)
+                .getBoolean(SettingActivity.SEPARATE_PROCESS_KEY, false);
+        return isolated ? IsolatedLocationTrackingService.class : LocationTrackingService.class;
+    }
+
+    // Ayarlardaki servisi ön plan servisi olarak başlatır; action null olabilir
+    public static void start(Context context, @Nullable String action) {
+        Intent intent = new Intent(context, serviceClass(context)).setAction(action);
+        ContextCompat.startForegroundService(context, currentConfig(context).writeTo(intent));
+    }
+
+    // Çalışan servise yeni ayarları uygulamasını söyler. Uygulama ön plandayken çağrıldığı için normal startService yeterlidir;
+    // servis çalışmıyorsa bu çağrı onu tam olarak başlatır
+    public static void reconfigure(Context context) {
+        Intent intent = new Intent(context, serviceClass(context)).setAction(ACTION_RECONFIGURE);
+        context.startService(currentConfig(context).writeTo(intent));
+    }
+
+    // Ayarlar onları yazan süreçte (arayüz) okunur ve Intent ile servise taşınır
+    private static TrackingConfig currentConfig(Context context) {
+        return TrackingConfig.read(context.getSharedPreferences(SettingActivity.PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    // Süreç ayarı değişmiş olabileceği için iki servisi de durdurur
+    public static void stopAll(Context context) {
+        context.stopService(new Intent(context, LocationTrackingService.class));
+        context.stopService(new Intent(context, IsolatedLocationTrackingService.class));
     }
 }
\ No newline at end of file
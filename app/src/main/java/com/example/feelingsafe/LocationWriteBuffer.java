@@ -0,0 +1,117 @@
+package com.example.feelingsafe;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TR: LocationWriteBuffer, LocationTrackingService'ten gelen konumları hafızada biriktirir ve
+ * TR: bunları tek bir veritabanı işlemi (transaction) içinde toplu olarak yazar (group commit).
+ * TR: Böylece her konum için ayrı bir SQLite işlemi ve disk senkronizasyonu yapılmaz.
+ * EN: LocationWriteBuffer collects the locations coming from LocationTrackingService in memory and
+ * EN: writes them in bulk inside a single database transaction (group commit).
+ * EN: This avoids a separate SQLite transaction and disk sync for every single location.
+ */
+public class LocationWriteBuffer {
+
+    private static final String TAG = "LocationWriteBuffer";
+
+    // TR: Bu kadar konum biriktiğinde tampon hemen yazılır. / EN: The buffer is written as soon as this many locations are collected.
+    static final int MAX_BATCH_SIZE = 20;
+    // TR: İlk konum bu süreden daha uzun beklediyse tampon yazılır. / EN: The buffer is written if the first location has waited longer than this.
+    static final long MAX_BATCH_AGE_MS = 5 * 60 * 1000L;
+
+    private final AppDatabase database;
+    private final ExecutorService databaseExecutor;
+    private final LocationBatchWriter batchWriter;
+    private final Handler handler;                                  // TR: Süre eşiği için zamanlayıcı. / EN: Timer for the age threshold.
+    // TR: Çalışırken setPolicy() ile değiştirilebilen eşikler. / EN: The thresholds, which setPolicy() can change while running.
+    private int maxBatchSize = MAX_BATCH_SIZE;
+    private long maxBatchAgeMs = MAX_BATCH_AGE_MS;
+    private List<LocationHistory> pending = new ArrayList<>(MAX_BATCH_SIZE);
+    private final AtomicLong written = new AtomicLong();            // TR: Veritabanına yazılan konumlar. / EN: Locations written to the database.
+    private final Runnable ageFlush = this::flush;                  // TR: Her seferinde yeni lambda oluşturmamak için tek örnek. / EN: A single instance so we don't allocate a new lambda each time.
+
+    /**
+     * TR: Süre zamanlayıcısı ana thread'in Looper'ına bağlanır. add() ve flush() her thread'den çağrılabilir
+     * TR: (konumlar LocationHub'ın thread'inden gelir, süre eşiği ana thread'de dolar).
+     * EN: The age timer is bound to the main thread's Looper. add() and flush() can be called from any thread
+     * EN: (locations come from LocationHub's thread, the age threshold expires on the main thread).
+     */
+    public LocationWriteBuffer(AppDatabase database, ExecutorService databaseExecutor, LocationBatchWriter batchWriter) {
+        this.database = database;
+        this.databaseExecutor = databaseExecutor;
+        this.batchWriter = batchWriter;
+        this.handler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * TR: Yeni bir konumu tampona ekler. Boyut eşiğine ulaşılırsa tampon hemen yazılır.
+     * EN: Adds a new location to the buffer. If the size threshold is reached, the buffer is written immediately.
+     */
+    public synchronized void add(LocationHistory location) {
+        if (pending.isEmpty()) {
+            // TR: İlk konum geldiğinde süre sayacını başlatıyoruz. / EN: We start the age timer when the first location arrives.
+            handler.postDelayed(ageFlush, maxBatchAgeMs);
+        }
+        pending.add(location);
+        if (pending.size() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * TR: Boyut ve süre eşiklerini değiştirir. Bekleyen konumlar yeni eşiklere göre hemen yazılabilir; süre sayacı yeniden kurulur.
+     * EN: Changes the size and age thresholds. Pending locations may be written at once under the new thresholds; the age timer is restarted.
+     */
+    public synchronized void setPolicy(int maxBatchSize, long maxBatchAgeMs) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchAgeMs = maxBatchAgeMs;
+        if (pending.size() >= maxBatchSize) {
+            flush();
+        } else if (!pending.isEmpty()) {
+            handler.removeCallbacks(ageFlush);
+            handler.postDelayed(ageFlush, maxBatchAgeMs);
+        }
+    }
+
+    /**
+     * TR: Tamponda yazılmayı bekleyen konum sayısı. / EN: The number of locations waiting in the buffer.
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * TR: Bu tampondan veritabanına yazılmış konum sayısı. / EN: The number of locations written to the database from this buffer.
+     */
+    public long writtenCount() {
+        return written.get();
+    }
+
+    /**
+     * TR: Tampondaki tüm konumları tek bir transaction ile arkaplan thread'inde veritabanına yazar.
+     * EN: Writes all buffered locations to the database in a single transaction on the background thread.
+     */
+    public synchronized void flush() {
+        handler.removeCallbacks(ageFlush);
+        if (pending.isEmpty()) {
+            return;
+        }
+        final List<LocationHistory> batch = pending;
+        pending = new ArrayList<>(maxBatchSize);
+        databaseExecutor.execute(() -> {
+            // TR: Toplu ekleme ve özetlerin güncellenmesi tek bir transaction içinde çalışır.
+            // EN: The bulk insert and the update of the summaries run inside a single transaction.
+            batchWriter.write(batch);
+            written.addAndGet(batch.size());
+            database.routeCache().onAppended(batch.get(0).timestamp, batch.get(batch.size() - 1).timestamp);
+            Log.d(TAG, "Flushed " + batch.size() + " locations");
+        });
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.feelingsafe;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -13,9 +12,9 @@ import android.hardware.SensorManager;
 import android.location.Address;
 import android.location.Geocoder;
 import android.location.Location;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.CountDownTimer;
-import android.os.Looper;
 import android.telephony.SmsManager;
 import android.view.View;
 import android.widget.Button;
@@ -28,18 +27,13 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
-import com.google.android.gms.location.LocationServices;
-import com.google.android.gms.location.Priority;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
@@ -57,8 +51,10 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
     private SOSButtonView sosButtonView;
 
     // --- Konum ve Sensör Bileşenleri ---
-    private FusedLocationProviderClient fusedLocationProviderClient;
-    private LocationCallback locationCallback;
+    // Konum, takip servisiyle paylaşılan tek konum aboneliğinden (LocationHub) alınır
+    private LocationHub locationHub;
+    // Hub konumu kendi thread'inde verir; adres ana thread'de gösterilir
+    private final LocationHub.Subscriber addressSubscriber = location -> runOnUiThread(() -> getAddressFromLocation(location));
     private SensorManager sensorManager;
     private Sensor accelerometer;
 
@@ -68,6 +64,11 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
     private long freefallStartTime = 0;
     private CountDownTimer sosCountDownTimer;
     private AlertDialog countdownDialog;
+    // Takip servisinin sapma bildiriminden gelindiyse geri sayım onResume'da başlatılır
+    private boolean pendingSosCountdown = false;
+
+    // Bu eylemle açılırsa ekran S.O.S. geri sayımını başlatır (bkz. LocationTrackingService sapma uyarısı)
+    public static final String ACTION_START_SOS_COUNTDOWN = "com.example.feelingsafe.ACTION_START_SOS_COUNTDOWN";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -81,7 +82,7 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         sosButtonView = findViewById(R.id.sosButtonView);
 
         // 2. Servisleri ve Yöneticileri Başlatma
-        fusedLocationProviderClient = LocationServices.getFusedLocationProviderClient(this);
+        locationHub = LocationHub.getInstance(this);
         sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
         if (sensorManager != null) {
             accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
@@ -102,6 +103,31 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
 
         // 4. Gerekli İzinleri Kontrol Et ve İşlemleri Başlat
         checkAndRequestPermissions();
+        // Ekran yeniden oluşturulduğunda (döndürme, tema değişimi, süreç geri yükleme) aynı Intent tekrar gelir;
+        // eylem sadece ilk açılışta kullanılır, yoksa geri sayım her seferinde yeniden başlar ve SMS gönderir
+        if (savedInstanceState == null) {
+            consumeSosCountdownAction();
+        }
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        consumeSosCountdownAction();
+    }
+
+    // Geri sayım eylemini bir kez kullanır ve Intent'ten siler. Son uygulamalar listesinden açılışta eski Intent
+    // yeniden verildiği için o durumda eylem yok sayılır
+    private void consumeSosCountdownAction() {
+        Intent intent = getIntent();
+        if (!ACTION_START_SOS_COUNTDOWN.equals(intent.getAction())) {
+            return;
+        }
+        setIntent(new Intent(intent).setAction(null));
+        if ((intent.getFlags() & Intent.FLAG_ACTIVITY_LAUNCHED_FROM_HISTORY) == 0) {
+            pendingSosCountdown = true;
+        }
     }
 
     //==============================================================================================
@@ -115,6 +141,10 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         if (isFallDetectionEnabled && accelerometer != null) {
             sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_NORMAL);
         }
+        if (pendingSosCountdown) {
+            pendingSosCountdown = false;
+            startSosCountdown(getString(R.string.deviation_countdown_title));
+        }
     }
 
     @Override
@@ -125,11 +155,22 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         if (countdownDialog != null && countdownDialog.isShowing()) countdownDialog.dismiss();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Henüz cevaplanmamış konum isteği varsa iptal edilir
+        locationHub.unsubscribe(addressSubscriber);
+    }
+
     //==============================================================================================
     // İZİN YÖNETİMİ
     //==============================================================================================
     private void checkAndRequestPermissions() {
-        String[] permissionsToRequest = {Manifest.permission.ACCESS_FINE_LOCATION, Manifest.permission.SEND_SMS};
+        List<String> permissionsToRequest = new ArrayList<>(Arrays.asList(Manifest.permission.ACCESS_FINE_LOCATION, Manifest.permission.SEND_SMS));
+        // Android 13'ten itibaren sapma uyarısı gibi bildirimler için izin gerekir
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            permissionsToRequest.add(Manifest.permission.POST_NOTIFICATIONS);
+        }
         List<String> permissionsNeeded = new ArrayList<>();
         for (String permission : permissionsToRequest) {
             if (ContextCompat.checkSelfPermission(this, permission) != PackageManager.PERMISSION_GRANTED) {
@@ -179,7 +220,7 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
             }
             if (inFreefall && magnitude > IMPACT_THRESHOLD) {
                 if (System.currentTimeMillis() - freefallStartTime < 1000) {
-                    startSosCountdown();
+                    startSosCountdown("Fall Detected!");
                 }
                 inFreefall = false;
             }
@@ -194,7 +235,7 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
     }
 
     // HATA DÜZELTMESİNİN YAPILDIĞI METOD BURASI
-    private void startSosCountdown() {
+    private void startSosCountdown(String title) {
         // Eğer zaten bir geri sayım varsa, yenisini başlatma
         if (countdownDialog != null && countdownDialog.isShowing()) {
             return;
@@ -206,7 +247,7 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
         final TextView countdownTextView = dialogView.findViewById(R.id.textViewCountdown);
 
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
-        builder.setTitle("Fall Detected!");
+        builder.setTitle(title);
         // 3. Standart mesaj yerine kendi özel arayüzümüzü ayarlıyoruz
         builder.setView(dialogView);
         builder.setCancelable(false);
@@ -289,34 +330,10 @@ public class MainActivity extends AppCompatActivity implements SensorEventListen
     //==============================================================================================
     // KONUM METODLARI
     //==============================================================================================
-    @SuppressLint("MissingPermission")
+    // Hub'daki son konum yeterince yeniyse hemen kullanılır; değilse sağlayıcıdan tek bir güncel konum istenir.
+    // Takip servisi çalışıyorsa ikisi aynı abonelikten beslenir, ayrı bir konum isteği gönderilmez
     private void getLastKnownLocation() {
-        fusedLocationProviderClient.getLastLocation().addOnSuccessListener(this, location -> {
-            if (location != null) {
-                getAddressFromLocation(location);
-            } else {
-                requestNewLocationData();
-            }
-        });
-    }
-
-    @SuppressLint("MissingPermission")
-    private void requestNewLocationData() {
-        LocationRequest locationRequest = new LocationRequest.Builder(Priority.PRIORITY_BALANCED_POWER_ACCURACY, 60000)
-                .setMinUpdateIntervalMillis(30000).setMinUpdateDistanceMeters(50).build();
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(@NonNull LocationResult locationResult) {
-                Location lastLocation = locationResult.getLastLocation();
-                if (lastLocation != null) {
-                    getAddressFromLocation(lastLocation);
-                    if (fusedLocationProviderClient != null && locationCallback != null) {
-                        fusedLocationProviderClient.removeLocationUpdates(locationCallback);
-                    }
-                }
-            }
-        };
-        fusedLocationProviderClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+        locationHub.requestSingle(addressSubscriber);
     }
 
     private void getAddressFromLocation(Location location) {
@@ -0,0 +1,48 @@
+package com.example.feelingsafe;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// Ters coğrafi kodlama (reverse geocoding) sonucu. PlaceAddressEnricher bir noktayı çözdüğünde sonucu buraya yazar;
+// DEDUP_RADIUS_METERS içindeki sonraki noktalar için Geocoder tekrar çağrılmaz, bu satır kullanılır.
+// Hücre (GeoCell) sütunu sadece yakındaki satırları index üzerinden bulmak içindir.
+@Entity(tableName = "place_addresses", indices = {@Index(value = "cell")})
+public class PlaceAddress {
+
+    @PrimaryKey(autoGenerate = true)
+    public int id;
+
+    // Çözülen noktanın hücresi (GeoCell.cellOf).
+    @ColumnInfo(name = "cell")
+    public long cell;
+
+    @ColumnInfo(name = "latitude")
+    public double latitude;
+
+    @ColumnInfo(name = "longitude")
+    public double longitude;
+
+    // Adresin tek satırlık hali. Geocoder bu nokta için adres bulamadıysa boş metindir (tekrar sorulmasın diye).
+    @ColumnInfo(name = "address")
+    public String address;
+
+    // Adresin çözüldüğü zaman.
+    @ColumnInfo(name = "resolved_at")
+    public long resolvedAt;
+
+    @Ignore
+    public PlaceAddress(double latitude, double longitude, String address, long resolvedAt) {
+        this.cell = GeoCell.cellOf(latitude, longitude);
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.address = address;
+        this.resolvedAt = resolvedAt;
+    }
+
+    // Room, satırları okurken bu kurucu metodu kullanır.
+    public PlaceAddress() {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.feelingsafe;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+// Çözülmüş adresleri okur ve yazar. Yazma işlemleri sadece PlaceAddressEnricher tarafından yapılır.
+@Dao
+public interface PlaceAddressDao {
+
+    @Insert
+    long insert(PlaceAddress address);
+
+    // Verilen hücrelerdeki adresler; yakındaki bir adresi bulmak için bir noktanın hücresi ve komşuları verilir.
+    @Query("SELECT * FROM place_addresses WHERE cell IN (:cells)")
+    List<PlaceAddress> getInCells(long[] cells);
+
+    @Query("SELECT COUNT(*) FROM place_addresses")
+    int count();
+}
@@ -0,0 +1,169 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TR: PlaceAddressEnricher, kapanmış yolculukların başlangıç ve bitiş noktalarını (TripSegmenter yolculukları duraklarda
+ * TR: bitirdiği için bitiş noktaları aynı zamanda kullanıcının durduğu yerlerdir) arkaplanda adrese çevirir ve trips tablosuna yazar.
+ * TR: Her sonuç place_addresses tablosunda saklanır; DEDUP_RADIUS_METERS içindeki bir nokta için Geocoder tekrar çağrılmaz,
+ * TR: böylece ev ve iş gibi sık gidilen yerler bir kez çözülür. Geocoder çağrıları arasında en az MIN_LOOKUP_INTERVAL_MS
+ * TR: beklenir ve bir çalışmada en fazla MAX_LOOKUPS_PER_RUN çağrı yapılır; kalanlar bir sonraki çalışmaya kalır.
+ * TR: Geocoder ağ kullanıp thread'i bloklayabileceği için run() veritabanı thread'inde değil, kendi thread'inde çağrılmalıdır.
+ * EN: PlaceAddressEnricher turns the start and end points of closed trips into addresses in the background and writes them
+ * EN: to the trips table (TripSegmenter ends trips at stops, so the end points are also the places where the user stopped).
+ * EN: Every result is kept in the place_addresses table; Geocoder isn't called again for a point within DEDUP_RADIUS_METERS,
+ * EN: so frequently visited places like home and work are resolved once. There is at least MIN_LOOKUP_INTERVAL_MS between
+ * EN: Geocoder calls and at most MAX_LOOKUPS_PER_RUN calls in one run; the rest is left to the next run.
+ * EN: Geocoder may use the network and block the thread, so run() must be called on its own thread, not the database thread.
+ */
+public class PlaceAddressEnricher {
+
+    private static final String TAG = "PlaceAddressEnricher";
+
+    // TR: Bu mesafedeki iki nokta aynı yer sayılır. Hücreden (GeoCell, ~1.1 km) küçük olmalıdır.
+    // EN: Two points within this distance count as the same place. Must be smaller than a cell (GeoCell, ~1.1 km).
+    static final double DEDUP_RADIUS_METERS = 150;
+    // TR: İki Geocoder çağrısı arasındaki en kısa süre. / EN: The shortest time between two Geocoder calls.
+    static final long MIN_LOOKUP_INTERVAL_MS = 1100;
+    // TR: Bir çalışmadaki en fazla Geocoder çağrısı. / EN: The maximum number of Geocoder calls in one run.
+    static final int MAX_LOOKUPS_PER_RUN = 30;
+    private static final int TRIPS_PER_STEP = 20;
+
+    private final AppDatabase database;
+    private final LocationHistoryRepository repository;
+    private final Geocoder geocoder;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean cancelled = false;
+    private long lastLookupAt = Long.MIN_VALUE / 2;
+    private int lookups;
+
+    public PlaceAddressEnricher(Context context, AppDatabase database) {
+        this.database = database;
+        this.repository = new LocationHistoryRepository(database);
+        this.geocoder = new Geocoder(context.getApplicationContext(), Locale.getDefault());
+    }
+
+    /**
+     * TR: Adresi eksik yolculukları en yeniden başlayarak çözer. Zaten çalışıyorsa bir şey yapmaz. Ağ hatasında durur;
+     * TR: çözülemeyen yolculuklar NULL kalır ve bir sonraki çalışmada tekrar denenir.
+     * EN: Resolves the trips with missing addresses, newest first. Does nothing if it is already running. Stops on a network
+     * EN: error; unresolved trips stay NULL and are tried again in the next run.
+     */
+    public void run() {
+        if (!Geocoder.isPresent() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        lookups = 0;
+        int resolved = 0;
+        try {
+            while (!cancelled) {
+                List<Trip> trips = database.tripDao().getClosedWithoutAddresses(TRIPS_PER_STEP);
+                if (trips.isEmpty()) {
+                    break;
+                }
+                for (Trip trip : trips) {
+                    String start = resolve(endpoint(trip, true));
+                    String end = resolve(endpoint(trip, false));
+                    if (start == null || end == null) {
+                        // TR: Bu çalışmanın çağrı hakkı bitti. / EN: This run's call budget is used up.
+                        return;
+                    }
+                    database.tripDao().setAddresses(trip.id, start, end, TripSearch.searchText(start, end));
+                    resolved++;
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Geocoder unavailable, will retry later", e);
+        } finally {
+            running.set(false);
+            if (resolved > 0) {
+                Log.d(TAG, "Resolved addresses of " + resolved + " trips with " + lookups + " lookups");
+            }
+        }
+    }
+
+    /**
+     * TR: Devam eden çalışmayı bir sonraki yolculukta durdurur. Servis kapanırken çağrılır.
+     * EN: Stops the ongoing run at the next trip. Called when the service shuts down.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // TR: Yolculuğun ilk veya son noktası; noktalar silindiyse (ör. seyreltme) null.
+    // EN: The first or last point of the trip; null if the points were deleted (e.g. by downsampling).
+    private LocationHistory endpoint(Trip trip, boolean start) {
+        List<LocationHistory> page = start
+                ? repository.getPageAfter(trip.startTime - 1, LocationHistoryRepository.COMPACTED_ID, 1)
+                : repository.getPageBefore(trip.endTime + 1, 0, 1);
+        if (page.isEmpty()) {
+            return null;
+        }
+        LocationHistory location = page.get(0);
+        return location.timestamp >= trip.startTime && location.timestamp <= trip.endTime ? location : null;
+    }
+
+    // TR: Noktanın adresi: önce önbellekte yakın bir sonuç aranır, yoksa Geocoder'a sorulur. Çağrı hakkı bittiyse null.
+    // EN: The address of the point: a nearby result is looked up in the cache first, otherwise Geocoder is asked. Null if the call budget is used up.
+    private String resolve(LocationHistory location) throws IOException {
+        if (location == null) {
+            return "";
+        }
+        String cached = findNearby(location.latitude, location.longitude);
+        if (cached != null) {
+            return cached;
+        }
+        if (lookups >= MAX_LOOKUPS_PER_RUN) {
+            return null;
+        }
+        long wait = lastLookupAt + MIN_LOOKUP_INTERVAL_MS - SystemClock.elapsedRealtime();
+        if (wait > 0) {
+            SystemClock.sleep(wait);
+        }
+        lookups++;
+        lastLookupAt = SystemClock.elapsedRealtime();
+        List<Address> addresses = geocoder.getFromLocation(location.latitude, location.longitude, 1);
+        String line = addresses == null || addresses.isEmpty() || addresses.get(0).getAddressLine(0) == null
+                ? "" : addresses.get(0).getAddressLine(0);
+        database.placeAddressDao().insert(new PlaceAddress(location.latitude, location.longitude, line, System.currentTimeMillis()));
+        return line;
+    }
+
+    // TR: DEDUP_RADIUS_METERS içindeki en yakın önbellek sonucu; yoksa null. Yarıçap hücreden küçük olduğu için
+    // TR: noktanın hücresi ve sekiz komşusu yeterlidir.
+    // EN: The nearest cached result within DEDUP_RADIUS_METERS, or null. The radius is smaller than a cell, so the
+    // EN: point's cell and its eight neighbours are enough.
+    private String findNearby(double latitude, double longitude) {
+        long row = GeoCell.row(latitude);
+        long column = GeoCell.column(longitude);
+        long[] cells = new long[9];
+        int n = 0;
+        for (long r = row - 1; r <= row + 1; r++) {
+            for (long c = column - 1; c <= column + 1; c++) {
+                cells[n++] = r * GeoCell.ROW_STRIDE + c;
+            }
+        }
+        PlaceAddress nearest = null;
+        double nearestDistance = DEDUP_RADIUS_METERS;
+        for (PlaceAddress candidate : database.placeAddressDao().getInCells(cells)) {
+            double distance = GeoCell.distanceMeters(latitude, longitude, candidate.latitude, candidate.longitude);
+            if (distance <= nearestDistance) {
+                nearest = candidate;
+                nearestDistance = distance;
+            }
+        }
+        if (nearest == null) {
+            return null;
+        }
+        return nearest.address == null ? "" : nearest.address;
+    }
+}
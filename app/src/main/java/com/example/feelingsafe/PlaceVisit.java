@@ -0,0 +1,36 @@
+package com.example.feelingsafe;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// Bir ızgara hücresindeki (GeoCell) ziyaretlerin özeti. Tablo, konumlar veritabanına yazılırken
+// PlaceVisitAggregator tarafından artımlı olarak güncellenir; hiçbir zaman baştan hesaplanmaz.
+// Böylece sık gidilen yerler ve hiç gidilmemiş alanlar location_history taranmadan bulunur.
+@Entity(tableName = "place_visits")
+public class PlaceVisit {
+
+    // Hücre numarası (GeoCell.cellOf).
+    @PrimaryKey
+    @ColumnInfo(name = "cell")
+    public long cell;
+
+    // Hücreye kaç kez girildiği. Hücrede uzun bir ara (PlaceVisitAggregator.MAX_DWELL_GAP_MS) sonrası gelen konum da yeni bir ziyarettir.
+    @ColumnInfo(name = "visit_count")
+    public int visitCount;
+
+    // Hücrede geçirilen toplam süre: aynı hücredeki ardışık konumlar arasındaki sürelerin toplamı.
+    @ColumnInfo(name = "dwell_ms")
+    public long dwellMs;
+
+    // Hücredeki en son konumun zaman damgası.
+    @ColumnInfo(name = "last_visit")
+    public long lastVisit;
+
+    public PlaceVisit(long cell, int visitCount, long dwellMs, long lastVisit) {
+        this.cell = cell;
+        this.visitCount = visitCount;
+        this.dwellMs = dwellMs;
+        this.lastVisit = lastVisit;
+    }
+}
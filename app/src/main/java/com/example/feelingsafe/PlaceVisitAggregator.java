@@ -0,0 +1,105 @@
+package com.example.feelingsafe;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TR: PlaceVisitAggregator, yeni konumlar veritabanına yazılırken place_visits tablosunu artımlı olarak günceller.
+ * TR: Bir toplu yazmadaki (batch) konumlar önce hafızada hücre başına toplanır; sonra her farklı hücre için tek bir
+ * TR: UPDATE çalışır. Konum başına iş sadece bir karşılaştırma ve bir HashMap erişimidir.
+ * TR: Bir önceki konum hafızada tutulur; böylece ardışık batch'ler arasındaki kalış süresi de doğru hesaplanır.
+ * TR: Veritabanı thread'inde, konumları ekleyen transaction'ın içinde çağrılmalıdır.
+ * EN: PlaceVisitAggregator incrementally updates the place_visits table while new locations are written to the database.
+ * EN: The locations of a batch are first summed per cell in memory; then a single UPDATE runs for each distinct cell.
+ * EN: The work per location is just a comparison and a HashMap access.
+ * EN: The previous location is kept in memory, so the dwell time between consecutive batches is computed correctly too.
+ * EN: It must be called on the database thread, inside the transaction that inserts the locations.
+ */
+public class PlaceVisitAggregator {
+
+    // TR: Aynı hücredeki iki konum arasında bundan uzun süre varsa aradaki süre kalış sayılmaz ve yeni bir ziyaret başlar.
+    // EN: If there is more than this between two locations in the same cell, the gap isn't counted as dwell and a new visit starts.
+    static final long MAX_DWELL_GAP_MS = 10 * 60 * 1000L;
+
+    // TR: place_visits tablosunu location_history'nin tamamından, add() ile aynı kurallarla tek bir sorguda yeniden hesaplar
+    // TR: (LAG ile bir önceki konumun hücresi ve zamanı). Migration bunu kullanır; tablo önceden boş olmalıdır.
+    // EN: Recomputes the place_visits table from the whole location_history in a single query, with the same rules as add()
+    // EN: (LAG gives the cell and time of the previous location). The migration uses it; the table must be empty first.
+    static final String REBUILD_SQL = "INSERT INTO place_visits (cell, visit_count, dwell_ms, last_visit) "
+            + "SELECT cell, SUM(CASE WHEN cell = prev_cell AND gap <= " + MAX_DWELL_GAP_MS + " THEN 0 ELSE 1 END), "
+            + "SUM(CASE WHEN cell = prev_cell AND gap <= " + MAX_DWELL_GAP_MS + " THEN gap ELSE 0 END), MAX(timestamp) "
+            + "FROM (SELECT cell, timestamp, LAG(cell) OVER w AS prev_cell, timestamp - LAG(timestamp) OVER w AS gap "
+            + "FROM location_history WINDOW w AS (ORDER BY timestamp, id)) GROUP BY cell";
+
+    private final AppDatabase database;
+    private boolean initialized = false;
+    private long previousCell;
+    private long previousTimestamp = Long.MIN_VALUE;
+
+    public PlaceVisitAggregator(AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * TR: Yazılmak üzere olan konumları (eskiden yeniye) özete ekler.
+     * EN: Adds the locations about to be written (oldest first) to the summary.
+     */
+    public void add(List<LocationHistory> batch) {
+        if (!initialized) {
+            // TR: Servis yeniden başladıysa bir önceki konum, veritabanındaki en son konumdur.
+            // EN: If the service restarted, the previous location is the latest location in the database.
+            List<LocationHistory> latest = database.locationHistoryDao().getLatestPage(1);
+            if (!latest.isEmpty()) {
+                previousCell = latest.get(0).cell;
+                previousTimestamp = latest.get(0).timestamp;
+            }
+            initialized = true;
+        }
+        Map<Long, PlaceVisit> deltas = new HashMap<>();
+        for (LocationHistory location : batch) {
+            PlaceVisit delta = deltas.get(location.cell);
+            if (delta == null) {
+                delta = new PlaceVisit(location.cell, 0, 0, location.timestamp);
+                deltas.put(location.cell, delta);
+            }
+            long gap = location.timestamp - previousTimestamp;
+            if (previousTimestamp != Long.MIN_VALUE && location.cell == previousCell && gap >= 0 && gap <= MAX_DWELL_GAP_MS) {
+                delta.dwellMs += gap;
+            } else {
+                delta.visitCount++;
+            }
+            delta.lastVisit = Math.max(delta.lastVisit, location.timestamp);
+            previousCell = location.cell;
+            previousTimestamp = location.timestamp;
+        }
+        PlaceVisitDao dao = database.placeVisitDao();
+        for (PlaceVisit delta : deltas.values()) {
+            dao.insertIfAbsent(new PlaceVisit(delta.cell, 0, 0, delta.lastVisit));
+            dao.addVisits(delta.cell, delta.visitCount, delta.dwellMs, delta.lastVisit);
+        }
+    }
+
+    /**
+     * TR: Sonraki add() çağrılarını verilen konumdan (null ise hiçbir konumdan) hemen sonra gelen noktalar olarak sayar.
+     * TR: Geçmişe dışarıdan eklenen bir nokta dizisinden önce çağrılır (ör. yedekten geri yükleme).
+     * EN: Counts the following add() calls as the points right after the given location (after no location if null).
+     * EN: Called before a run of points added to the history from outside (e.g. restoring a backup).
+     */
+    public void restartAfter(@Nullable LocationHistory previous) {
+        initialized = true;
+        previousCell = previous == null ? 0 : previous.cell;
+        previousTimestamp = previous == null ? Long.MIN_VALUE : previous.timestamp;
+    }
+
+    /**
+     * TR: Konumun bulunduğu hücrede daha önce en az minVisits kez bulunulmuş mu? Yabancı bir alanı tespit etmek için kullanılır.
+     * EN: Has the cell of the location been visited at least minVisits times before? Used to detect an unfamiliar area.
+     */
+    public boolean isFamiliar(double latitude, double longitude, int minVisits) {
+        PlaceVisit visit = database.placeVisitDao().getVisit(GeoCell.cellOf(latitude, longitude));
+        return visit != null && visit.visitCount >= minVisits;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.feelingsafe;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+// Ziyaret sıklığı tablosunu okur ve artımlı olarak günceller.
+@Dao
+public interface PlaceVisitDao {
+
+    // Hücre için boş bir satır ekler; satır zaten varsa bir şey yapmaz. Ardından addVisits çağrılır.
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertIfAbsent(PlaceVisit visit);
+
+    // Hücrenin sayaçlarına verilen farkları ekler.
+    @Query("UPDATE place_visits SET visit_count = visit_count + :visits, dwell_ms = dwell_ms + :dwellMs, "
+            + "last_visit = MAX(last_visit, :lastVisit) WHERE cell = :cell")
+    void addVisits(long cell, int visits, long dwellMs, long lastVisit);
+
+    // Tek bir hücrenin özeti; hücrede hiç bulunulmadıysa null döner.
+    @Query("SELECT * FROM place_visits WHERE cell = :cell")
+    PlaceVisit getVisit(long cell);
+
+    // En çok zaman geçirilen hücreler (sık gidilen yerler).
+    @Query("SELECT * FROM place_visits ORDER BY dwell_ms DESC LIMIT :limit")
+    List<PlaceVisit> getFrequentPlaces(int limit);
+
+    @Query("DELETE FROM place_visits")
+    void deleteAll();
+}
@@ -0,0 +1,126 @@
+package com.example.feelingsafe;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * TR: RouteCache, rota çizimi, istatistik ve dışa aktarma gibi okuyucular için zaman aralıklarını RouteWindow olarak
+ * TR: önbellekte tutar. Toplam nokta sayısı MAX_CACHED_POINTS'i geçerse en uzun süredir kullanılmayan aralıklar atılır (LRU).
+ * TR: Yeni bir konum eklendiğinde sadece o zamanı kapsayan aralıklar, eski geçmiş sıkıştırıldığında veya seyreltildiğinde
+ * TR: ise hepsi geçersiz sayılır. get() veritabanı thread'inde (arkaplanda) çağrılmalıdır.
+ * EN: RouteCache keeps time ranges cached as RouteWindows for readers such as route drawing, statistics and export.
+ * EN: If the total number of points exceeds MAX_CACHED_POINTS, the least recently used ranges are dropped (LRU).
+ * EN: When a new location is added only the ranges covering that time are invalidated; when old history is compacted or
+ * EN: downsampled, all of them are. get() must be called on the database thread (in the background).
+ */
+public class RouteCache {
+
+    // TR: Yaklaşık 6 MB. / EN: About 6 MB.
+    static final int MAX_CACHED_POINTS = 250_000;
+
+    private static final class Key {
+        final long from;
+        final long to;
+
+        Key(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return from == other.from && to == other.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(from) * 31 + Long.hashCode(to);
+        }
+    }
+
+    private final LocationHistoryRepository repository;
+    // TR: accessOrder = true: her get() aralığı listenin sonuna taşır. / EN: accessOrder = true: every get() moves the range to the end of the list.
+    private final LinkedHashMap<Key, RouteWindow> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private int cachedPoints = 0;
+    // TR: Her geçersiz kılmada artar. Kilidin dışında yüklenen bir aralık, yükleme sırasında bu değiştiyse önbelleğe konmaz;
+    // TR: yoksa arada gelen onAppended()/clear() çağrısından önceki veri önbellekte kalırdı.
+    // EN: Incremented on every invalidation. A range loaded outside the lock isn't cached if this changed during the load;
+    // EN: otherwise the data from before an onAppended()/clear() call that landed in between would stay cached.
+    private long generation = 0;
+
+    public RouteCache(AppDatabase database) {
+        this.repository = new LocationHistoryRepository(database);
+    }
+
+    /**
+     * TR: İki zaman arasındaki (dahil) konumları döndürür; önbellekte yoksa veritabanından yükler.
+     * EN: Returns the locations between two times (inclusive); loads them from the database if they aren't cached.
+     */
+    public RouteWindow get(long from, long to) {
+        Key key = new Key(from, to);
+        long loadedGeneration;
+        synchronized (this) {
+            RouteWindow cached = windows.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            loadedGeneration = generation;
+        }
+        // TR: Yükleme kilidin dışında yapılır; aynı aralık iki kez yüklenirse sonuncusu kalır.
+        // EN: Loading happens outside the lock; if the same range is loaded twice, the last one stays.
+        RouteWindow window = repository.loadWindow(from, to);
+        synchronized (this) {
+            if (loadedGeneration != generation) {
+                return window;
+            }
+            RouteWindow previous = windows.put(key, window);
+            if (previous != null) {
+                cachedPoints -= previous.size();
+            }
+            cachedPoints += window.size();
+            Iterator<RouteWindow> eldest = windows.values().iterator();
+            while (cachedPoints > MAX_CACHED_POINTS && eldest.hasNext()) {
+                RouteWindow evicted = eldest.next();
+                if (evicted == window) {
+                    break;
+                }
+                cachedPoints -= evicted.size();
+                eldest.remove();
+            }
+        }
+        return window;
+    }
+
+    /**
+     * TR: İki zaman arasına yeni konumlar eklendi; bu aralıkla kesişen aralıklar atılır.
+     * EN: New locations were added between two times; the ranges overlapping them are dropped.
+     */
+    public synchronized void onAppended(long from, long to) {
+        generation++;
+        Iterator<Map.Entry<Key, RouteWindow>> it = windows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, RouteWindow> entry = it.next();
+            if (entry.getKey().from <= to && entry.getKey().to >= from) {
+                cachedPoints -= entry.getValue().size();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * TR: Tüm aralıkları atar. Değişiklik commit edildikten sonra çağrılmalıdır; transaction'ın içinden çağrılırsa başka
+     * TR: bir thread commit'ten önceki veriyi okuyup yeniden önbelleğe koyabilir.
+     * EN: Drops all ranges. Must be called after the change has committed; if called from inside the transaction, another
+     * EN: thread can read the data from before the commit and cache it again.
+     */
+    public synchronized void clear() {
+        generation++;
+        windows.clear();
+        cachedPoints = 0;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.feelingsafe;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * TR: RouteCompactor, artık değişmeyecek (kapanmış) eski konum kayıtlarını sıkıştırılmış rota parçalarına (route_segments) taşır.
+ * TR: Kayıtlar zaman boşluklarına ve gün sınırlarına göre parçalara ayrılır, Douglas–Peucker ile sadeleştirilir,
+ * TR: delta/varint ile kodlanır ve her parça tek bir transaction içinde yazılıp ham satırları silinir.
+ * TR: Veritabanı thread'inde (arkaplanda) çalıştırılmalıdır.
+ * EN: RouteCompactor moves old location records that will no longer change (closed) into compressed route segments (route_segments).
+ * EN: Records are split into segments by time gaps and day boundaries, simplified with Douglas–Peucker,
+ * EN: encoded with delta/varints, and each segment is written and its raw rows deleted inside a single transaction.
+ * EN: It must be run on the database thread (in the background).
+ */
+public class RouteCompactor {
+
+    private static final String TAG = "RouteCompactor";
+
+    // TR: Son bu kadar gün ham (tam çözünürlüklü) olarak kalır. / EN: The last this many days stay raw (full resolution).
+    static final int COMPACT_AFTER_DAYS = 7;
+    // TR: Varsayılan sadeleştirme hata payı (metre). / EN: Default simplification tolerance (meters).
+    static final double DEFAULT_TOLERANCE_METERS = 10.0;
+    // TR: İki konum arasında bu kadar süre varsa yeni bir parça başlar. / EN: A new segment starts if there is this much time between two locations.
+    static final long STRETCH_GAP_MS = 10 * 60 * 1000L;
+    // TR: Bir parçadaki en fazla ham nokta sayısı. / EN: The maximum number of raw points in a segment.
+    static final int MAX_SEGMENT_POINTS = 4096;
+    private static final int READ_PAGE_SIZE = 500;
+
+    private final AppDatabase database;
+    private final double toleranceMeters;
+
+    public RouteCompactor(AppDatabase database) {
+        this(database, DEFAULT_TOLERANCE_METERS);
+    }
+
+    public RouteCompactor(AppDatabase database, double toleranceMeters) {
+        this.database = database;
+        this.toleranceMeters = toleranceMeters;
+    }
+
+    /**
+     * TR: COMPACT_AFTER_DAYS günden eski olan tüm kayıtları sıkıştırır. Kesim noktası gece yarısına denk gelir,
+     * TR: böylece kesimden önceki son parça da kapanmış sayılır.
+     * EN: Compacts all records older than COMPACT_AFTER_DAYS days. The cutoff falls on midnight,
+     * EN: so the last segment before the cutoff also counts as closed.
+     */
+    public int compactClosedStretches() {
+        Calendar cutoff = Calendar.getInstance();
+        cutoff.add(Calendar.DAY_OF_YEAR, -COMPACT_AFTER_DAYS);
+        truncateToDay(cutoff);
+        return compactBefore(cutoff.getTimeInMillis());
+    }
+
+    /**
+     * TR: Verilen zamandan önceki kayıtları sıkıştırır ve yazılan parça sayısını döndürür.
+     * EN: Compacts the records before the given time and returns the number of segments written.
+     */
+    public int compactBefore(long cutoff) {
+        LocationHistoryDao dao = database.locationHistoryDao();
+        List<LocationHistory> stretch = new ArrayList<>();
+        long stretchDayEnd = 0;
+        int written = 0;
+        Calendar day = Calendar.getInstance();
+
+        // TR: Tabloyu eskiden yeniye keyset sayfalama ile geziyoruz. Yazılan parçaların satırları silinse de
+        // TR: sonraki sayfa son okunan kaydın anahtarından devam ettiği için okuma sırası bozulmaz.
+        // EN: We walk the table from oldest to newest with keyset paging. Even though the rows of written segments
+        // EN: are deleted, the read order is not disturbed because the next page continues from the key of the last record read.
+        List<LocationHistory> page = dao.getOldestPage(READ_PAGE_SIZE);
+        boolean reachedCutoff = false;
+        while (!page.isEmpty() && !reachedCutoff) {
+            for (LocationHistory point : page) {
+                if (point.timestamp >= cutoff) {
+                    reachedCutoff = true;
+                    break;
+                }
+                if (!stretch.isEmpty()) {
+                    LocationHistory last = stretch.get(stretch.size() - 1);
+                    boolean closed = point.timestamp - last.timestamp > STRETCH_GAP_MS
+                            || point.timestamp >= stretchDayEnd
+                            || stretch.size() >= MAX_SEGMENT_POINTS;
+                    if (closed) {
+                        writeSegment(stretch);
+                        written++;
+                        stretch.clear();
+                    }
+                }
+                if (stretch.isEmpty()) {
+                    day.setTimeInMillis(point.timestamp);
+                    truncateToDay(day);
+                    day.add(Calendar.DAY_OF_YEAR, 1);
+                    stretchDayEnd = day.getTimeInMillis();
+                }
+                stretch.add(point);
+            }
+            LocationHistory last = page.get(page.size() - 1);
+            page = dao.getPageAfter(last.timestamp, last.id, READ_PAGE_SIZE);
+        }
+        // TR: Kesimden önce biten son parça da kapanmıştır (kesim gece yarısında). / EN: The last segment ending before the cutoff is closed too (the cutoff is at midnight).
+        if (!stretch.isEmpty()) {
+            writeSegment(stretch);
+            written++;
+        }
+        if (written > 0) {
+            Log.d(TAG, "Compacted " + written + " segments");
+        }
+        return written;
+    }
+
+    /**
+     * TR: Bir parçayı sadeleştirip kodlar; parçayı ekleme ve ham satırları silme işlemleri tek transaction içinde yapılır.
+     * EN: Simplifies and encodes one segment; inserting the segment and deleting the raw rows happen in a single transaction.
+     */
+    private void writeSegment(List<LocationHistory> stretch) {
+        int n = stretch.size();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        long[] timestamps = new long[n];
+        int count = 0;
+        for (LocationHistory point : stretch) {
+            // TR: Aynı zaman damgasına sahip tekrar eden noktaları atıyoruz; parça içinde zaman kesin artan olmalı.
+            // EN: We drop repeated points with the same timestamp; time must be strictly increasing inside a segment.
+            if (count > 0 && point.timestamp <= timestamps[count - 1]) {
+                continue;
+            }
+            latitudes[count] = point.latitude;
+            longitudes[count] = point.longitude;
+            timestamps[count] = point.timestamp;
+            count++;
+        }
+        boolean[] keep = RouteSimplifier.simplify(latitudes, longitudes, count, toleranceMeters);
+        byte[] data = RouteSegmentCodec.encode(latitudes, longitudes, timestamps, keep, count);
+        int kept = 0;
+        double minLatitude = 90, minLongitude = 180, maxLatitude = -90, maxLongitude = -180;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                kept++;
+                minLatitude = Math.min(minLatitude, latitudes[i]);
+                minLongitude = Math.min(minLongitude, longitudes[i]);
+                maxLatitude = Math.max(maxLatitude, latitudes[i]);
+                maxLongitude = Math.max(maxLongitude, longitudes[i]);
+            }
+        }
+        final RouteSegment segment = new RouteSegment(timestamps[0], timestamps[count - 1], n, kept, toleranceMeters, data);
+        // TR: Alan sorguları için sınır kutusu. Seyreltme noktaları sadece azalttığı için kutu sonradan da geçerli kalır.
+        // EN: The bounding box for area queries. Downsampling only removes points, so the box stays valid afterwards too.
+        segment.minLatitude = minLatitude;
+        segment.minLongitude = minLongitude;
+        segment.maxLatitude = maxLatitude;
+        segment.maxLongitude = maxLongitude;
+        final LocationHistory first = stretch.get(0);
+        final LocationHistory last = stretch.get(n - 1);
+        database.runInTransaction(() -> {
+            database.routeSegmentStore().insert(segment);
+            database.locationHistoryDao().deleteRange(first.timestamp, first.id, last.timestamp, last.id);
+        });
+        // TR: Önbellek commit'ten sonra temizlenir; içeride temizlense eşzamanlı bir okuma eski veriyi yeniden önbelleğe koyabilirdi.
+        // EN: The cache is cleared after the commit; cleared inside, a concurrent read could cache the old data again.
+        database.routeCache().clear();
+    }
+
+    private static void truncateToDay(Calendar calendar) {
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+    }
+}
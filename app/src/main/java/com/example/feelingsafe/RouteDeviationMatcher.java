@@ -0,0 +1,136 @@
+package com.example.feelingsafe;
+
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * TR: RouteDeviationMatcher, takip servisine gelen her konumu kullanıcının alışılmış yerleri ve saatleriyle karşılaştırır
+ * TR: (bkz. RouteHabitModel). Art arda DEVIATION_FIXES konum, en az DEVIATION_MIN_MS boyunca alışılmadık bir yerdeyse
+ * TR: (ör. gece normal yolun dışında) bir kez sapma bildirir; sonraki bildirim için COOLDOWN_MS beklenir.
+ * TR: Model son MODEL_DAYS günün geçmişinden, veritabanı thread'inde parça parça kurulur ve hazır olunca tek seferde
+ * TR: yenisiyle değiştirilir. Konum başına iş sabit süredir: geçmiş taranmaz, sadece modelde birkaç hash araması yapılır.
+ * TR: onLocation() hep aynı thread'den (servisin konum thread'i) çağrılmalıdır.
+ * EN: RouteDeviationMatcher compares every location coming into the tracking service with the user's habitual places and
+ * EN: hours (see RouteHabitModel). If DEVIATION_FIXES locations in a row, spanning at least DEVIATION_MIN_MS, are at an
+ * EN: unusual place (e.g. off the normal route at night), it reports a deviation once; the next report waits COOLDOWN_MS.
+ * EN: The model is built from the last MODEL_DAYS days of history, chunk by chunk on the database thread, and is swapped
+ * EN: in at once when ready. The work per location is constant time: the history isn't scanned, only a few hash lookups
+ * EN: are done in the model. onLocation() must always be called from the same thread (the service's location thread).
+ */
+public class RouteDeviationMatcher {
+
+    private static final String TAG = "RouteDeviationMatcher";
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    // TR: Modelin kurulduğu geçmişin uzunluğu. / EN: The length of the history the model is built from.
+    static final int MODEL_DAYS = 60;
+    // TR: Model en az bu kadar günlük geçmişe sahip değilse hiçbir şey bildirilmez (her yer "alışılmadık" görünürdü).
+    // EN: Nothing is reported unless the model has at least this many days of history (every place would look "unusual").
+    static final int MIN_TRAINED_DAYS = 7;
+    static final int DEVIATION_FIXES = 3;
+    static final long DEVIATION_MIN_MS = 2 * 60 * 1000L;
+    static final long COOLDOWN_MS = 60 * 60 * 1000L;
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * TR: Sapma bulunduğunda onLocation()'ı çağıran thread'de çağrılır.
+     * EN: Called on the thread that calls onLocation() when a deviation is found.
+     */
+    public interface Listener {
+        void onDeviation(LocationHistory location);
+    }
+
+    private final LocationHistoryRepository repository;
+    private final Listener listener;
+
+    // TR: Kullanımdaki model; kurulurken eskisi kullanılmaya devam eder. / EN: The model in use; the old one stays in use while a new one is built.
+    private volatile RouteHabitModel model;
+    private boolean building = false;
+
+    // TR: onLocation()'ı çağıran thread'in durumu. / EN: The state of the thread that calls onLocation().
+    private int unusualFixes = 0;
+    private long unusualSince = 0;
+    private long lastReportAt = Long.MIN_VALUE / 2;
+
+    public RouteDeviationMatcher(AppDatabase database, Listener listener) {
+        this.repository = new LocationHistoryRepository(database);
+        this.listener = listener;
+    }
+
+    /**
+     * TR: Modeli yeniden kurar. Her parça (CHUNK_SIZE nokta) verilen tek thread'li executor'a ayrı bir görev olarak
+     * TR: gönderilir; aradaki konum yazma işlemleri beklemez. Zaten kuruluyorsa bir şey yapmaz.
+     * EN: Rebuilds the model. Each chunk (CHUNK_SIZE points) is sent as a separate task to the given single-threaded executor,
+     * EN: so the location writes in between don't wait. Does nothing if it is already being built.
+     */
+    public synchronized void rebuild(ExecutorService executor) {
+        if (building) {
+            return;
+        }
+        building = true;
+        RouteHabitModel next = new RouteHabitModel();
+        LocationHistoryRepository.Chunk chunk = new LocationHistoryRepository.Chunk(CHUNK_SIZE);
+        long from = System.currentTimeMillis() - MODEL_DAYS * DAY_MS;
+        submit(executor, () -> buildStep(executor, next, chunk, from - 1, LocationHistoryRepository.COMPACTED_ID));
+    }
+
+    private void buildStep(ExecutorService executor, RouteHabitModel next, LocationHistoryRepository.Chunk chunk,
+                           long afterTimestamp, int afterId) {
+        repository.readChunkAfter(afterTimestamp, afterId, Long.MAX_VALUE, chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            next.add(chunk.latitude(i), chunk.longitude(i), chunk.timestamp(i));
+        }
+        if (chunk.size() == CHUNK_SIZE) {
+            long lastTimestamp = chunk.timestamp(CHUNK_SIZE - 1);
+            int lastId = chunk.id(CHUNK_SIZE - 1);
+            submit(executor, () -> buildStep(executor, next, chunk, lastTimestamp, lastId));
+            return;
+        }
+        model = next;
+        Log.d(TAG, "Habit model built: " + next.size() + " keys over " + next.trainedDays() + " days");
+        synchronized (this) {
+            building = false;
+        }
+    }
+
+    private void submit(ExecutorService executor, Runnable step) {
+        try {
+            executor.execute(step);
+        } catch (RejectedExecutionException e) {
+            // TR: Servis kapanıyor; model bir sonraki başlangıçta kurulur. / EN: The service is shutting down; the model is built on the next start.
+            synchronized (this) {
+                building = false;
+            }
+        }
+    }
+
+    /**
+     * TR: Yeni bir konumu değerlendirir ve gerekiyorsa dinleyiciyi çağırır. Sabit sürelidir.
+     * EN: Evaluates a new location and calls the listener if needed. Constant time.
+     */
+    public void onLocation(LocationHistory location) {
+        RouteHabitModel current = model;
+        if (current == null || current.trainedDays() < MIN_TRAINED_DAYS) {
+            return;
+        }
+        boolean habitual = current.isHabitual(location.latitude, location.longitude, location.timestamp);
+        // TR: Yeni konumlar da modele eklenir; böylece yeni bir alışkanlık bir sonraki kuruluşu beklemeden öğrenilir.
+        // EN: New locations are added to the model too, so a new habit is learned without waiting for the next build.
+        current.add(location.latitude, location.longitude, location.timestamp);
+        if (habitual) {
+            unusualFixes = 0;
+            return;
+        }
+        if (unusualFixes == 0) {
+            unusualSince = location.timestamp;
+        }
+        unusualFixes++;
+        if (unusualFixes >= DEVIATION_FIXES && location.timestamp - unusualSince >= DEVIATION_MIN_MS
+                && location.timestamp - lastReportAt >= COOLDOWN_MS) {
+            lastReportAt = location.timestamp;
+            listener.onDeviation(location);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.feelingsafe;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * TR: RouteHabitModel, kullanıcının hangi ızgara hücresinde (GeoCell) günün hangi saatinde bulunduğunu, kaç farklı günde
+ * TR: görüldüğüyle birlikte tutan küçük bir modeldir. Anahtar (hücre, saat) çiftidir ve ilkel dizilerle açık adresli bir
+ * TR: hash tablosunda tutulur; böylece binlerce anahtar birkaç yüz KB'a sığar ve sorgu nesne oluşturmaz.
+ * TR: Bir nokta, kendi hücresi veya sekiz komşusunda, kendi saatinde veya bir önceki/sonraki saatte en az MIN_HABIT_DAYS
+ * TR: farklı gün görülmüşse "alışılmış" sayılır: en fazla 27 hash araması, yani geçmişin boyutundan bağımsız sabit süre.
+ * TR: Thread-safe değildir; tek bir thread'den kullanılmalıdır.
+ * EN: RouteHabitModel is a small model of which grid cell (GeoCell) the user is in at which hour of the day, along with the
+ * EN: number of different days it was seen on. The key is the (cell, hour) pair, kept in an open-addressing hash table of
+ * EN: primitive arrays, so thousands of keys fit in a few hundred KB and a lookup creates no objects.
+ * EN: A point counts as "habitual" if its own cell or one of its eight neighbours was seen on at least MIN_HABIT_DAYS
+ * EN: different days at its hour or the hour before/after: at most 27 hash lookups, i.e. constant time regardless of the size of the history.
+ * EN: It isn't thread-safe; it must be used from a single thread.
+ */
+final class RouteHabitModel {
+
+    static final int BUCKETS_PER_DAY = 24;
+    // TR: Bir (hücre, saat) çiftinin alışılmış sayılması için görüldüğü en az gün sayısı.
+    // EN: The minimum number of days a (cell, hour) pair must be seen on to count as habitual.
+    static final int MIN_HABIT_DAYS = 3;
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    private static final long EMPTY = -1;
+
+    private final TimeZone timeZone = TimeZone.getDefault();
+    private long[] keys;
+    // TR: Anahtarın görüldüğü farklı gün sayısı ve en son görüldüğü gün. / EN: The number of different days the key was seen on, and the last day it was seen.
+    private int[] days;
+    private int[] lastDay;
+    private int size = 0;
+
+    // TR: Modelde en az bir noktası olan farklı günler (olgunluk kontrolü için). / EN: The different days with at least one point in the model (for the maturity check).
+    private int trainedDays = 0;
+    private int lastTrainedDay = Integer.MIN_VALUE;
+
+    RouteHabitModel() {
+        allocate(1024);
+    }
+
+    /**
+     * TR: Bir noktayı modele ekler. Noktalar zaman sırasıyla eklenmelidir (gün sayımı bunu varsayar).
+     * EN: Adds a point to the model. Points must be added in time order (the day counting assumes it).
+     */
+    void add(double latitude, double longitude, long timestamp) {
+        long local = timestamp + timeZone.getOffset(timestamp);
+        int day = (int) Math.floorDiv(local, DAY_MS);
+        if (day != lastTrainedDay) {
+            lastTrainedDay = day;
+            trainedDays++;
+        }
+        long key = key(GeoCell.cellOf(latitude, longitude), bucketOf(local));
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = find(key);
+            }
+            keys[slot] = key;
+            days[slot] = 1;
+            lastDay[slot] = day;
+            size++;
+        } else if (lastDay[slot] != day) {
+            days[slot]++;
+            lastDay[slot] = day;
+        }
+    }
+
+    /**
+     * TR: Nokta, günün bu saati için alışılmış bir yerde mi?
+     * EN: Is the point at a habitual place for this hour of the day?
+     */
+    boolean isHabitual(double latitude, double longitude, long timestamp) {
+        long local = timestamp + timeZone.getOffset(timestamp);
+        int bucket = bucketOf(local);
+        long row = GeoCell.row(latitude);
+        long column = GeoCell.column(longitude);
+        for (long r = row - 1; r <= row + 1; r++) {
+            for (long c = column - 1; c <= column + 1; c++) {
+                long cell = r * GeoCell.ROW_STRIDE + c;
+                for (int b = -1; b <= 1; b++) {
+                    int slot = find(key(cell, (bucket + b + BUCKETS_PER_DAY) % BUCKETS_PER_DAY));
+                    if (keys[slot] != EMPTY && days[slot] >= MIN_HABIT_DAYS) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    int trainedDays() {
+        return trainedDays;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int bucketOf(long localTimestamp) {
+        return (int) (Math.floorMod(localTimestamp, DAY_MS) / (DAY_MS / BUCKETS_PER_DAY));
+    }
+
+    private static long key(long cell, int bucket) {
+        return cell * BUCKETS_PER_DAY + bucket;
+    }
+
+    // TR: Anahtarın yuvası ya da ilk boş yuva (doğrusal yoklama). / EN: The key's slot or the first empty slot (linear probing).
+    private int find(long key) {
+        int mask = keys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        days = new int[capacity];
+        lastDay = new int[capacity];
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldDays = days;
+        int[] oldLastDay = lastDay;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                days[slot] = oldDays[i];
+                lastDay[slot] = oldLastDay[i];
+            }
+        }
+    }
+}
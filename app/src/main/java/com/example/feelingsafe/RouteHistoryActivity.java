@@ -1,19 +1,45 @@
 package com.example.feelingsafe;
 
+import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.DocumentsContract;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import java.util.ArrayList;
+import androidx.room.InvalidationTracker;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * TR: RouteHistoryActivity, Room veritabanına kaydedilmiş olan konum geçmişini
  * TR: bir liste halinde kullanıcıya gösteren ekrandır.
  * EN: RouteHistoryActivity is the screen that displays the location history,
  * EN: which was saved to the Room database, to the user in a list format.
+ * TR: Ekran önce yolculukların (trips tablosu) listesini gösterir. Bir yolculuğa dokunulunca aynı ekran EXTRA_FROM/EXTRA_TO
+ * TR: ile yeniden açılır ve sadece o yolculuğun noktalarını, kaydırma sırasında LocationHistoryPager ile sayfa sayfa yükler.
+ * EN: The screen first shows the list of trips (the trips table). Tapping a trip reopens the same screen with EXTRA_FROM/EXTRA_TO,
+ * EN: which loads only that trip's points, page by page with LocationHistoryPager while scrolling.
+ * TR: Ekran görünürken Room'un InvalidationTracker'ı dinlenir; servisin yazdığı yeni konumlar yoklama yapmadan listeye eklenir.
+ * EN: While the screen is visible, Room's InvalidationTracker is observed; new locations written by the service are added to the list without polling.
  */
 public class RouteHistoryActivity extends AppCompatActivity {
 
@@ -21,12 +47,49 @@ public class RouteHistoryActivity extends AppCompatActivity {
     // --- UI Elements and List Variables ---
     private RecyclerView recyclerView;          // TR: Konum kayıtlarını gösterecek olan liste. / EN: The list that will display the location records.
     private RouteHistoryAdapter adapter;        // TR: Verileri RecyclerView'a bağlayan adaptör. / EN: The adapter that binds the data to the RecyclerView.
-    private List<LocationHistory> historyList = new ArrayList<>(); // TR: Veritabanından çekilen konumların tutulacağı liste. / EN: The list that will hold the locations fetched from the database.
+    private LinearLayoutManager layoutManager;  // TR: Görünen satır pozisyonlarını öğrenmek için. / EN: To find out the visible row positions.
+    private RouteView routeView;                // TR: Seçilen yolculuğun çizimi. / EN: The drawing of the selected trip.
+
+    // TR: Verilirse ekran yolculuk listesi yerine bu iki zaman arasındaki noktaları gösterir.
+    // EN: If given, the screen shows the points between these two times instead of the trip list.
+    public static final String EXTRA_FROM = "com.example.feelingsafe.EXTRA_FROM";
+    public static final String EXTRA_TO = "com.example.feelingsafe.EXTRA_TO";
+
+    // TR: Yazma bittikten bu kadar sonra arama yapılır. / EN: The search runs this long after typing stops.
+    private static final long SEARCH_DELAY_MS = 150;
+    // TR: Arama en fazla bu kadar yolculuk döndürür. / EN: The search returns at most this many trips.
+    private static final int SEARCH_LIMIT = 200;
+
+    // TR: Listenin sonuna bu kadar satır kala yeni sayfa istenir. / EN: A new page is requested when this many rows are left before the end of the list.
+    private static final int PREFETCH_DISTANCE = 15;
 
     // --- Veritabanı Bileşenleri ---
     // --- Database Components ---
     private AppDatabase database;               // TR: Room veritabanımızın ana erişim nesnesi. / EN: The main access object for our Room database.
     private ExecutorService databaseExecutor;   // TR: Veritabanı işlemlerini arkaplan thread'inde çalıştırmak için. / EN: For running database operations on a background thread.
+    private LocationHistoryPager pager;         // TR: Kayıtları sayfa sayfa yükleyen yardımcı. / EN: The helper that loads records page by page.
+    private Runnable reloadTrips;               // TR: Yolculuk listesini yeniden okur; noktalar gösteriliyorsa null. / EN: Reads the trip list again; null when points are shown.
+    private InvalidationTracker.Observer tripsObserver; // TR: Yolculuk listesinde trips tablosunu dinler. / EN: Observes the trips table in the trip list.
+    // TR: Arama kutusundaki metnin MATCH ifadesi; boşsa null ve tüm yolculuklar listelenir. / EN: The MATCH expression of the search box text; null when empty, and all trips are listed.
+    private volatile String searchQuery;
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    // TR: Dışa aktarma uzun sürebilir; liste yüklemesini bekletmemek için ayrı bir thread'de çalışır.
+    // EN: Export may take long; it runs on a separate thread so it doesn't hold up list loading.
+    private ExecutorService exportExecutor;
+
+    // --- Dışa Aktarma ---
+    // --- Export ---
+    private long rangeFrom = Long.MIN_VALUE;    // TR: Dışa aktarılacak aralık; yolculuk listesinde tüm geçmiş. / EN: The range to export; the whole history in the trip list.
+    private long rangeTo = Long.MAX_VALUE;
+    private LocationHistoryExporter exporter;   // TR: Devam eden dışa aktarma; yoksa null. / EN: The ongoing export; null if there is none.
+    // TR: Kullanıcıya dosyanın nereye kaydedileceğini sorar (Storage Access Framework); izin gerekmez.
+    // EN: Asks the user where to save the file (Storage Access Framework); no permission is needed.
+    private final ActivityResultLauncher<String> createGpxDocument = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(LocationHistoryExporter.Format.GPX.mimeType),
+            uri -> startExport(uri, LocationHistoryExporter.Format.GPX));
+    private final ActivityResultLauncher<String> createGeoJsonDocument = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(LocationHistoryExporter.Format.GEOJSON.mimeType),
+            uri -> startExport(uri, LocationHistoryExporter.Format.GEOJSON));
 
     /**
      * TR: Aktivite ilk oluşturulduğunda çağrılır.
@@ -42,51 +105,259 @@ public class RouteHistoryActivity extends AppCompatActivity {
         // TR: XML'deki RecyclerView'ı Java koduna bağlıyoruz.
         // EN: We connect the RecyclerView from the XML to the Java code.
         recyclerView = findViewById(R.id.recyclerViewRouteHistory);
+        routeView = findViewById(R.id.routeView);
 
         // TR: Arkaplanda tek bir işlem yapacak olan thread havuzumuzu oluşturuyoruz.
         // EN: We are creating our thread pool that will execute a single task in the background.
         databaseExecutor = Executors.newSingleThreadExecutor();
+        exportExecutor = Executors.newSingleThreadExecutor();
 
         // TR: Veritabanımızın tekil örneğini (singleton instance) alıyoruz.
         // EN: We are getting the singleton instance of our database.
         database = AppDatabase.getInstance(getApplicationContext());
 
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+
+        Intent intent = getIntent();
+        if (intent.hasExtra(EXTRA_FROM) && intent.hasExtra(EXTRA_TO)) {
+            rangeFrom = intent.getLongExtra(EXTRA_FROM, Long.MIN_VALUE);
+            rangeTo = intent.getLongExtra(EXTRA_TO, Long.MAX_VALUE);
+            showPoints(rangeFrom, rangeTo);
+        } else {
+            showTrips();
+        }
+
+        findViewById(R.id.buttonExportGpx).setOnClickListener(v -> createGpxDocument.launch(exportFileName(LocationHistoryExporter.Format.GPX)));
+        findViewById(R.id.buttonExportGeoJson).setOnClickListener(v -> createGeoJsonDocument.launch(exportFileName(LocationHistoryExporter.Format.GEOJSON)));
+    }
+
+    /**
+     * TR: Yolculuk özetlerini listeler. Tablo küçük olduğu için (yolculuk sayısı kadar satır) tek seferde okunur.
+     * EN: Lists the trip summaries. The table is small (one row per trip), so it is read at once.
+     */
+    private void showTrips() {
+        TripAdapter tripAdapter = new TripAdapter(trip -> {
+            Intent intent = new Intent(this, RouteHistoryActivity.class);
+            intent.putExtra(EXTRA_FROM, trip.startTime);
+            // TR: Devam eden yolculuğun sonu henüz belli değil; üst sınır vermeyiz ki yeni noktalar da görünsün.
+            // EN: The end of an ongoing trip isn't known yet; we give no upper bound so new points show up too.
+            intent.putExtra(EXTRA_TO, trip.closed ? trip.endTime : Long.MAX_VALUE);
+            startActivity(intent);
+        });
+        recyclerView.setAdapter(tripAdapter);
+        // TR: Room'un gözlemcisi kendi thread'inde çağırdığı için ekran kapandıktan hemen sonra da gelebilir.
+        // EN: Room's observer calls this on its own thread, so it can still arrive right after the screen closed.
+        reloadTrips = () -> {
+            try {
+                databaseExecutor.execute(() -> {
+                    String query = searchQuery;
+                    List<Trip> trips = query == null ? database.tripDao().getAll() : database.tripDao().search(query, SEARCH_LIMIT);
+                    runOnUiThread(() -> tripAdapter.submitList(trips));
+                });
+            } catch (RejectedExecutionException e) {
+                // TR: Ekran kapandı. / EN: The screen was closed.
+            }
+        };
+        setUpSearch();
+        // TR: Yeni konumlar açık yolculuğun özetini günceller; tablo küçük olduğu için değişince yeniden okunur, DiffUtil sadece değişen satırları çizer.
+        // EN: New locations update the open trip's summary; the table is small, so it is read again on change and DiffUtil only redraws the changed rows.
+        tripsObserver = new InvalidationTracker.Observer("trips") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                reloadTrips.run();
+            }
+        };
+        // TR: İlk okuma onStart()'ta yapılır. / EN: The first read happens in onStart().
+    }
+
+    /**
+     * TR: Arama kutusunu gösterir. Yazılan kelimeler adreslerin tam metin index'inde (trip_search) aranır ve liste eşleşen
+     * TR: yolculuklarla, en yeniden başlayarak değiştirilir; bir sonuca dokunmak o yolculuğun noktalarını açar.
+     * EN: Shows the search box. The typed words are looked up in the full-text index of the addresses (trip_search) and the
+     * EN: list is replaced with the matching trips, newest first; tapping a result opens that trip's points.
+     */
+    private void setUpSearch() {
+        EditText searchBox = findViewById(R.id.editTextSearch);
+        searchBox.setVisibility(View.VISIBLE);
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable text) {
+                searchQuery = TripSearch.toMatchQuery(text.toString());
+                searchHandler.removeCallbacks(reloadTrips);
+                searchHandler.postDelayed(reloadTrips, SEARCH_DELAY_MS);
+            }
+        });
+    }
+
+    /**
+     * TR: İki zaman arasındaki noktaları sayfa sayfa gösterir.
+     * EN: Shows the points between two times, page by page.
+     */
+    private void showPoints(long from, long to) {
         // TR: Adaptörümüzü boş bir liste ile başlatıyoruz. Veriler daha sonra yüklenecek.
         // EN: We initialize our adapter with an empty list. The data will be loaded later.
-        adapter = new RouteHistoryAdapter(historyList);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        adapter = new RouteHistoryAdapter();
         recyclerView.setAdapter(adapter);
 
-        // TR: Veritabanından konum geçmişini yüklemek için metodumuzu çağırıyoruz.
-        // EN: We call our method to load the location history from the database.
-        loadLocationHistory();
+        recyclerView.addItemDecoration(new StickyDayHeaderDecoration(this, adapter));
+
+        // TR: Pager her yeni pencereyi verdiğinde satır modelleri arkaplanda hazırlanır ve adaptöre verilir;
+        // TR: DiffUtil sadece eklenen/çıkarılan satırları günceller. Servisin eklediği yeni noktalar başa eklendiği için bu tek bir
+        // TR: notifyItemRangeInserted olur; mevcut satırlar yeniden bağlanmaz.
+        // EN: Whenever the pager hands over a new window, the row models are prepared in the background and given to the adapter;
+        // EN: DiffUtil only updates the added/removed rows. New points added by the service go to the start, so this becomes a
+        // EN: single notifyItemRangeInserted; the existing rows aren't rebound.
+        RouteRowBuilder rowBuilder = new RouteRowBuilder(this);
+        pager = new LocationHistoryPager(database, databaseExecutor, window -> databaseExecutor.execute(() -> {
+            List<RouteRow> rows = rowBuilder.build(window);
+            runOnUiThread(() -> adapter.submitList(rows));
+        }));
+        pager.setRange(from, to);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                onListScrolled();
+            }
+        });
+
+        // TR: Sadece aralığın en yeni sayfasını yüklüyoruz; geri kalanı kaydırdıkça gelecek.
+        // EN: We only load the newest page of the range; the rest will come as the user scrolls.
+        pager.loadFirstPage();
+
+        // TR: Çizim için aralığın tamamı RouteCache'ten (sıkıştırılmış diziler olarak) alınır.
+        // EN: For the drawing, the whole range is taken from RouteCache (as compact arrays).
+        routeView.setVisibility(View.VISIBLE);
+        databaseExecutor.execute(() -> {
+            RouteWindow window = database.routeCache().get(from, to);
+            runOnUiThread(() -> routeView.setWindow(window));
+        });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // TR: Sadece ekran görünürken dinliyoruz; arada eklenenler tekrar görünür olunca tek seferde gelir.
+        // EN: We only observe while the screen is visible; whatever was added in between comes at once when it becomes visible again.
+        if (pager != null) {
+            pager.startWatching();
+        }
+        if (tripsObserver != null) {
+            database.getInvalidationTracker().addObserver(tripsObserver);
+            reloadTrips.run();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (pager != null) {
+            pager.stopWatching();
+        }
+        if (tripsObserver != null) {
+            database.getInvalidationTracker().removeObserver(tripsObserver);
+        }
     }
 
     /**
-     * TR: Veritabanından tüm konum kayıtlarını arkaplanda çeker ve sonucu arayüzde gösterir.
-     * EN: Fetches all location records from the database in the background and displays the result on the UI.
+     * TR: Kullanıcı listenin sonuna (veya başına) yaklaştığında bir sonraki sayfayı yükler.
+     * TR: Böylece sadece ekranda görülen kısmın etrafındaki kayıtlar hafızada tutulur.
+     * EN: Loads the next page when the user scrolls close to the end (or the start) of the list.
+     * EN: This way only the records around the visible part of the screen are kept in memory.
      */
-    private void loadLocationHistory() {
-        // TR: databaseExecutor.execute(), içine yazılan kodun arkaplan thread'inde çalışmasını sağlar.
-        // TR: Veritabanı işlemleri gibi uzun sürebilecek işlemlerin ana arayüz thread'ini (UI Thread)
-        // TR: kilitlemesini ve uygulamanın donmasını engellemek için bu zorunludur.
-        // EN: databaseExecutor.execute() ensures that the code written inside it runs on a background thread.
-        // EN: This is mandatory to prevent long-running operations like database queries from blocking
-        // EN: the main UI thread and causing the application to freeze (ANR).
-        databaseExecutor.execute(() -> {
-            // TR: Arkaplan thread'i üzerinde: Veritabanından tüm geçmişi DAO aracılığıyla alıyoruz.
-            // EN: On the background thread: We get all history from the database via the DAO.
-            final List<LocationHistory> loadedHistory = database.locationHistoryDao().getAll();
-
-            // TR: Arayüz elemanları sadece ana thread'den güncellenebilir.
-            // TR: Bu yüzden, aldığımız verileri listeye eklemek için runOnUiThread ile ana thread'e geri dönüyoruz.
-            // EN: UI elements can only be updated from the main thread.
-            // EN: Therefore, we return to the main thread using runOnUiThread to add the data we fetched to the list.
+    private void onListScrolled() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (last >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+            pager.loadOlder();
+        } else if (first != RecyclerView.NO_POSITION && first <= PREFETCH_DISTANCE) {
+            pager.loadNewer();
+        }
+    }
+
+    private String exportFileName(LocationHistoryExporter.Format format) {
+        return "feelingsafe_route." + format.extension;
+    }
+
+    /**
+     * TR: Seçilen dosyaya arkaplanda dışa aktarır ve ilerlemeyi iptal edilebilir bir pencerede gösterir.
+     * EN: Exports to the chosen file in the background and shows the progress in a cancellable dialog.
+     */
+    private void startExport(Uri uri, LocationHistoryExporter.Format format) {
+        if (uri == null || exporter != null) {
+            return;
+        }
+        View dialogView = getLayoutInflater().inflate(R.layout.dialog_export_progress, null);
+        ProgressBar progressBar = dialogView.findViewById(R.id.progressBarExport);
+        TextView progressText = dialogView.findViewById(R.id.textViewExportProgress);
+        LocationHistoryExporter job = new LocationHistoryExporter(database);
+        exporter = job;
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle(R.string.export_title)
+                .setView(dialogView)
+                .setCancelable(false)
+                .setNegativeButton(R.string.btn_cancel, (d, which) -> job.cancel())
+                .show();
+
+        long from = rangeFrom;
+        long to = rangeTo;
+        exportExecutor.execute(() -> {
+            String message;
+            boolean completed = false;
+            try (OutputStream out = getContentResolver().openOutputStream(uri, "wt")) {
+                if (out == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                // TR: Arayüz her nokta için değil, her parça (CHUNK_SIZE nokta) için bir kez güncellenir.
+                // EN: The UI is updated once per chunk (CHUNK_SIZE points), not for every point.
+                completed = job.export(out, format, from, to, (exported, total) -> runOnUiThread(() -> {
+                    progressBar.setProgress((int) (exported * progressBar.getMax() / Math.max(1, total)));
+                    progressText.setText(getString(R.string.export_progress, exported, total));
+                }));
+                message = completed ? getString(R.string.export_done, job.exportedCount()) : getString(R.string.export_cancelled);
+            } catch (IOException | RuntimeException e) {
+                message = getString(R.string.export_failed, e.getMessage());
+            }
+            if (!completed) {
+                // TR: Yarım kalan dosya geçerli değildir. / EN: A half-written file isn't valid.
+                try {
+                    DocumentsContract.deleteDocument(getContentResolver(), uri);
+                } catch (IOException | RuntimeException ignored) {
+                    // TR: Silinemezse kullanıcı elle silebilir. / EN: If it can't be deleted, the user can delete it by hand.
+                }
+            }
+            String result = message;
             runOnUiThread(() -> {
-                historyList.clear(); // TR: Önceki verileri temizle. / EN: Clear previous data.
-                historyList.addAll(loadedHistory); // TR: Yeni verileri ekle. / EN: Add the new data.
-                adapter.notifyDataSetChanged(); // TR: Adaptöre verilerin değiştiğini ve listeyi yenilemesi gerektiğini bildir. / EN: Notify the adapter that the data has changed and it should refresh the list.
+                exporter = null;
+                if (!isDestroyed()) {
+                    dialog.dismiss();
+                    Toast.makeText(this, result, Toast.LENGTH_LONG).show();
+                }
             });
         });
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchHandler.removeCallbacksAndMessages(null);
+        // TR: Sürmekte olan sayfa yüklemeleri artık satır hazırlama işini kapalı executor'a göndermez.
+        // EN: Page loads still running no longer send row building work to the shut-down executor.
+        if (pager != null) {
+            pager.release();
+        }
+        databaseExecutor.shutdown();
+        if (exporter != null) {
+            exporter.cancel();
+        }
+        exportExecutor.shutdown();
+    }
+}
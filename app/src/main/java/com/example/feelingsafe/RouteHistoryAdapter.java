@@ -1,85 +1,106 @@
 package com.example.feelingsafe;
 
-import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
 
 /**
- * TR: RouteHistoryAdapter, veritabanından gelen konum geçmişi listesini (List<LocationHistory>) alır
- * TR: ve her bir konumu RecyclerView içinde bir satır olarak nasıl göstereceğini yönetir.
- * EN: RouteHistoryAdapter takes the location history list (List<LocationHistory>) from the database
- * EN: and manages how to display each location as a row in the RecyclerView.
+ * TR: RouteHistoryAdapter, RouteRowBuilder'ın arkaplanda hazırladığı satır modellerini (List<RouteRow>) alır
+ * TR: ve her birini RecyclerView içinde bir gün başlığı veya bir konum satırı olarak gösterir.
+ * TR: Tüm metinler önceden biçimlendirildiği için bağlama (bind) sırasında hiçbir nesne oluşturulmaz; satırların kararlı id'leri vardır.
+ * TR: Yeni liste submitList() ile verilir; farklar DiffUtil ile arkaplanda hesaplanır ve sadece değişen satırlar güncellenir.
+ * EN: RouteHistoryAdapter takes the row models (List<RouteRow>) prepared in the background by RouteRowBuilder
+ * EN: and shows each one as a day header or a location row in the RecyclerView.
+ * EN: Since all texts are formatted in advance, no objects are created while binding; rows have stable ids.
+ * EN: A new list is given with submitList(); the differences are computed by DiffUtil in the background and only changed rows are updated.
  */
-public class RouteHistoryAdapter extends RecyclerView.Adapter<RouteHistoryAdapter.RouteViewHolder> {
+public class RouteHistoryAdapter extends ListAdapter<RouteRow, RecyclerView.ViewHolder> {
 
-    // TR: Adaptörün üzerinde çalışacağı veri listesi.
-    // EN: The data list that the adapter will work on.
-    private List<LocationHistory> historyList;
+    /**
+     * TR: DiffUtil'in iki satırın aynı olup olmadığını anlaması için kullanılır. RouteRowBuilder değişmeyen satırlar için
+     * TR: aynı nesneyi yeniden kullandığından içerik karşılaştırması çoğunlukla tek bir referans karşılaştırmasıdır.
+     * EN: Used by DiffUtil to decide whether two rows are the same. RouteRowBuilder reuses the same object for unchanged rows,
+     * EN: so the content comparison is mostly a single reference comparison.
+     */
+    private static final DiffUtil.ItemCallback<RouteRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<RouteRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RouteRow oldItem, @NonNull RouteRow newItem) {
+            return oldItem.stableId == newItem.stableId && oldItem.type == newItem.type;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RouteRow oldItem, @NonNull RouteRow newItem) {
+            return oldItem == newItem
+                    || (oldItem.title.equals(newItem.title) && Objects.equals(oldItem.subtitle, newItem.subtitle));
+        }
+    };
 
     /**
-     * TR: RouteHistoryAdapter'ın kurucu metodu (Constructor).
-     * TR: Bu adaptörü oluşturan aktivite (RouteHistoryActivity), ona göstereceği veri listesini bu metod aracılığıyla verir.
-     * EN: The constructor for the RouteHistoryAdapter.
-     * EN: The activity that creates this adapter (RouteHistoryActivity) provides the data list to display through this method.
+     * TR: RouteHistoryAdapter'ın kurucu metodu (Constructor). Liste başlangıçta boştur.
+     * EN: The constructor for the RouteHistoryAdapter. The list is initially empty.
      */
-    public RouteHistoryAdapter(List<LocationHistory> historyList) {
-        this.historyList = historyList;
+    public RouteHistoryAdapter() {
+        super(DIFF_CALLBACK);
+        // TR: Kararlı id'ler sayesinde liste değişince RecyclerView görünen satırları yeniden bağlamak yerine yerinde tutar.
+        // EN: With stable ids, RecyclerView keeps visible rows in place instead of rebinding them when the list changes.
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).stableId;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getItem(position).type;
+    }
+
+    // TR: Yapışkan gün başlığı (StickyDayHeaderDecoration) için. / EN: For the sticky day header (StickyDayHeaderDecoration).
+    RouteRow getRow(int position) {
+        return getItem(position);
     }
 
     /**
      * TR: RecyclerView, ekranda gösterilecek yeni bir satıra ihtiyaç duyduğunda bu metod çağrılır.
-     * TR: Bu metod, satırın arayüzünü (route_list_item.xml) oluşturur ve onu bir ViewHolder içinde geri döndürür.
+     * TR: Bu metod, satırın arayüzünü (route_list_item.xml veya route_day_header.xml) oluşturur ve onu bir ViewHolder içinde geri döndürür.
      * EN: This method is called when the RecyclerView needs a new row to display on the screen.
-     * EN: This method creates the layout for the row (route_list_item.xml) and returns it inside a ViewHolder.
+     * EN: This method creates the layout for the row (route_list_item.xml or route_day_header.xml) and returns it inside a ViewHolder.
      */
     @NonNull
     @Override
-    public RouteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         // TR: LayoutInflater, XML layout dosyasını bir View (Görünüm) nesnesine dönüştürür.
         // EN: LayoutInflater "inflates" an XML layout file into a View object.
-        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.route_list_item, parent, false);
-        return new RouteViewHolder(view);
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == RouteRow.TYPE_HEADER) {
+            return new HeaderViewHolder(inflater.inflate(R.layout.route_day_header, parent, false));
+        }
+        return new RouteViewHolder(inflater.inflate(R.layout.route_list_item, parent, false));
     }
 
     /**
      * TR: RecyclerView, belirli bir pozisyondaki satırı ilgili veriyle doldurmak istediğinde bu metod çağrılır.
-     * TR: Bu metod, scrolling (kaydırma) sırasında sürekli olarak çağrılır.
+     * TR: Bu metod, scrolling (kaydırma) sırasında sürekli olarak çağrılır; bu yüzden sadece hazır metinleri atar.
      * EN: This method is called when the RecyclerView wants to populate a row at a specific position with the relevant data.
-     * EN: This method is called continuously during scrolling.
+     * EN: This method is called continuously during scrolling, so it only assigns the prepared texts.
      */
     @Override
-    public void onBindViewHolder(@NonNull RouteViewHolder holder, int position) {
-        // TR: Listeden o anki pozisyona denk gelen konum verisini alıyoruz.
-        // EN: We get the location data object from the list that corresponds to the current position.
-        LocationHistory historyItem = historyList.get(position);
-
-        // TR: Enlem ve boylamı formatlayarak okunabilir bir metin haline getiriyoruz.
-        // EN: We format the latitude and longitude into a readable string.
-        String coordinates = String.format(Locale.US, "Coordinates: %.5f, %.5f", historyItem.latitude, historyItem.longitude);
-        holder.coordinatesTextView.setText(coordinates);
-
-        // TR: Veritabanında long olarak tutulan zaman damgasını (timestamp) okunabilir bir tarih formatına (dd-MM-yyyy HH:mm:ss) çeviriyoruz.
-        // EN: We convert the timestamp, which is stored as a long in the database, into a readable date format (dd-MM-yyyy HH:mm:ss).
-        SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss", Locale.getDefault());
-        String dateString = sdf.format(new Date(historyItem.timestamp));
-        holder.timestampTextView.setText("Time: " + dateString);
-    }
-
-    /**
-     * TR: RecyclerView'a listede toplam kaç tane öğe olduğunu bildirir.
-     * EN: Tells the RecyclerView the total number of items in the list.
-     */
-    @Override
-    public int getItemCount() {
-        return historyList.size();
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        RouteRow row = getItem(position);
+        if (holder instanceof HeaderViewHolder) {
+            ((HeaderViewHolder) holder).dayTextView.setText(row.title);
+        } else {
+            RouteViewHolder routeHolder = (RouteViewHolder) holder;
+            routeHolder.coordinatesTextView.setText(row.title);
+            routeHolder.timestampTextView.setText(row.subtitle);
+        }
     }
 
     /**
@@ -88,11 +109,11 @@ public class RouteHistoryAdapter extends RecyclerView.Adapter<RouteHistoryAdapte
      * EN: RouteViewHolder acts as a cache that holds the UI elements (TextViews) of a single row in the RecyclerView.
      * EN: This "ViewHolder Pattern" significantly improves performance (especially scrolling smoothness) by preventing repeated calls to findViewById() for each row.
      */
-    class RouteViewHolder extends RecyclerView.ViewHolder {
-        TextView coordinatesTextView;
-        TextView timestampTextView;
+    static class RouteViewHolder extends RecyclerView.ViewHolder {
+        final TextView coordinatesTextView;
+        final TextView timestampTextView;
 
-        public RouteViewHolder(@NonNull View itemView) {
+        RouteViewHolder(@NonNull View itemView) {
             super(itemView);
             // TR: Satırın içindeki TextView'ları bir kere bulup değişkenlere atıyoruz.
             // EN: We find the TextViews inside the row once and assign them to variables.
@@ -100,4 +121,17 @@ public class RouteHistoryAdapter extends RecyclerView.Adapter<RouteHistoryAdapte
             timestampTextView = itemView.findViewById(R.id.textViewTimestamp);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * TR: Gün başlığı satırının TextView'ını tutar.
+     * EN: Holds the TextView of a day header row.
+     */
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final TextView dayTextView;
+
+        HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            dayTextView = itemView.findViewById(R.id.textViewDayHeader);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.feelingsafe;
+
+/**
+ * TR: RouteRow, rota geçmişi listesindeki tek bir satırın değiştirilemez (immutable) görüntü modelidir: ya bir gün başlığı
+ * TR: ya da bir konum. Tüm metinler RouteRowBuilder tarafından arkaplanda önceden biçimlendirilir; böylece
+ * TR: RouteHistoryAdapter bağlama (bind) sırasında hiçbir nesne oluşturmaz.
+ * EN: RouteRow is the immutable view model of a single row in the route history list: either a day header or a location.
+ * EN: All texts are formatted in advance in the background by RouteRowBuilder, so RouteHistoryAdapter creates no objects
+ * EN: while binding.
+ */
+public final class RouteRow {
+
+    static final int TYPE_HEADER = 0;
+    static final int TYPE_POINT = 1;
+
+    public final int type;
+    // TR: RecyclerView'ın kararlı id'si (setHasStableIds). / EN: The RecyclerView's stable id (setHasStableIds).
+    public final long stableId;
+    // TR: Başlık için gün adı; konum için koordinatlar. / EN: The day name for a header; the coordinates for a location.
+    public final String title;
+    // TR: Konum için saat; başlık için null. / EN: The time for a location; null for a header.
+    public final String subtitle;
+    // TR: Satırın ait olduğu günün başlık metni; yapışkan başlık bunu çizer. / EN: The header text of the row's day; the sticky header draws it.
+    public final String dayLabel;
+    // TR: Konum satırında kaynak kayıt (içeriği karşılaştırmak için); başlıkta null. / EN: The source record for a location row (to compare contents); null for a header.
+    final LocationHistory location;
+
+    private RouteRow(int type, long stableId, String title, String subtitle, String dayLabel, LocationHistory location) {
+        this.type = type;
+        this.stableId = stableId;
+        this.title = title;
+        this.subtitle = subtitle;
+        this.dayLabel = dayLabel;
+        this.location = location;
+    }
+
+    static RouteRow header(long dayStart, String dayLabel) {
+        return new RouteRow(TYPE_HEADER, headerId(dayStart), dayLabel, null, dayLabel, null);
+    }
+
+    static RouteRow point(LocationHistory location, String coordinates, String time, String dayLabel) {
+        return new RouteRow(TYPE_POINT, pointId(location), coordinates, time, dayLabel, location);
+    }
+
+    // TR: Ham kayıtların id'si pozitiftir. Sıkıştırılmış ve günlükteki noktaların gerçek bir id'si olmadığı için zaman damgasından
+    // TR: çift negatif sayılar, başlıklar için ise günden tek negatif sayılar üretilir. -1 (RecyclerView.NO_ID) hiç kullanılmaz.
+    // EN: Raw records have positive ids. Compressed and journal points have no real id, so even negative numbers are derived
+    // EN: from the timestamp, and odd negative numbers from the day for headers. -1 (RecyclerView.NO_ID) is never used.
+    static long pointId(LocationHistory location) {
+        if (location.id > 0 && location.id != LocationHistoryRepository.JOURNAL_ID) {
+            return location.id;
+        }
+        return -2 - Math.abs(location.timestamp) * 2;
+    }
+
+    static long headerId(long dayStart) {
+        return -3 - Math.abs(dayStart) * 2;
+    }
+
+    boolean isHeader() {
+        return type == TYPE_HEADER;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * TR: RouteRowBuilder, LocationHistoryPager'ın yüklediği pencereyi (yeniden eskiye) gün başlıklarıyla birlikte RouteRow
+ * TR: listesine çevirir. Tarih biçimlendiriciler bir kez oluşturulur; bir önceki pencerede zaten hazırlanmış satırlar
+ * TR: yeniden kullanılır, böylece kaydırırken sadece yeni gelen sayfa biçimlendirilir.
+ * TR: Arkaplan thread'inde çağrılmalıdır ve thread-safe değildir (hep aynı thread'den çağrılmalıdır).
+ * EN: RouteRowBuilder turns the window loaded by LocationHistoryPager (newest first) into a list of RouteRows with day headers.
+ * EN: The date formatters are created once; rows already prepared for the previous window are reused, so while scrolling
+ * EN: only the newly arrived page is formatted.
+ * EN: It must be called on a background thread and isn't thread-safe (always call it from the same thread).
+ */
+public class RouteRowBuilder {
+
+    private final Context context;
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("EEEE, d MMMM yyyy", Locale.getDefault());
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+    private final Calendar calendar = Calendar.getInstance();
+    private final Date date = new Date();
+
+    // TR: En son hesaplanan günün sınırları; ardışık noktalar çoğunlukla aynı gündedir. / EN: The bounds of the last computed day; consecutive points are mostly on the same day.
+    private long dayStart = Long.MAX_VALUE;
+    private long dayEnd = Long.MIN_VALUE;
+
+    // TR: Bir önceki pencerenin satırları, kararlı id'ye göre. / EN: The rows of the previous window, by stable id.
+    private Map<Long, RouteRow> previousRows = new HashMap<>();
+
+    public RouteRowBuilder(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public List<RouteRow> build(List<LocationHistory> window) {
+        List<RouteRow> rows = new ArrayList<>(window.size() + 8);
+        Map<Long, RouteRow> currentRows = new HashMap<>(window.size() * 2);
+        long currentDay = Long.MIN_VALUE;
+        RouteRow header = null;
+        for (LocationHistory location : window) {
+            long start = dayStartOf(location.timestamp);
+            if (header == null || start != currentDay) {
+                currentDay = start;
+                header = previousRows.get(RouteRow.headerId(start));
+                if (header == null) {
+                    date.setTime(start);
+                    header = RouteRow.header(start, dayFormat.format(date));
+                }
+                rows.add(header);
+                currentRows.put(header.stableId, header);
+            }
+            RouteRow row = previousRows.get(RouteRow.pointId(location));
+            if (row == null || !sameLocation(row.location, location)) {
+                date.setTime(location.timestamp);
+                row = RouteRow.point(location,
+                        context.getString(R.string.coordinates_label, location.latitude, location.longitude),
+                        context.getString(R.string.timestamp_label, timeFormat.format(date)),
+                        header.dayLabel);
+            }
+            rows.add(row);
+            currentRows.put(row.stableId, row);
+        }
+        previousRows = currentRows;
+        return rows;
+    }
+
+    private long dayStartOf(long timestamp) {
+        if (timestamp >= dayStart && timestamp < dayEnd) {
+            return dayStart;
+        }
+        calendar.setTimeInMillis(timestamp);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        dayStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        dayEnd = calendar.getTimeInMillis();
+        return dayStart;
+    }
+
+    private static boolean sameLocation(LocationHistory a, LocationHistory b) {
+        return a.timestamp == b.timestamp && a.latitude == b.latitude && a.longitude == b.longitude;
+    }
+}
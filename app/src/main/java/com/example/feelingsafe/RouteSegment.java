@@ -0,0 +1,64 @@
+package com.example.feelingsafe;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+// Sıkıştırılmış rota parçası: kapanmış bir zaman aralığındaki konumlar sadeleştirilip
+// RouteSegmentCodec ile tek bir BLOB olarak saklanır. Ham satırlar parçaya taşındıktan sonra silinir.
+// Parçalar aylara bölünmüş route_segments_YYYYMM tablolarında durur (bkz. RouteSegmentStore);
+// bu yüzden bu sınıf bir @Entity değil, @RawQuery sonuçlarının eşlendiği bir veri modelidir.
+public class RouteSegment {
+
+    // Parçanın kendi ay tablosu içindeki id'si.
+    @ColumnInfo(name = "id")
+    public int id;
+
+    // Parçadaki ilk ve son noktanın zaman damgası.
+    @ColumnInfo(name = "start_time")
+    public long startTime;
+
+    @ColumnInfo(name = "end_time")
+    public long endTime;
+
+    // Sıkıştırmadan önceki ham nokta sayısı.
+    @ColumnInfo(name = "raw_count")
+    public int rawCount;
+
+    // BLOB içinde saklanan (sadeleştirilmiş) nokta sayısı.
+    @ColumnInfo(name = "point_count")
+    public int pointCount;
+
+    // Sadeleştirmede kullanılan en büyük hata payı (metre).
+    @ColumnInfo(name = "tolerance_meters")
+    public double toleranceMeters;
+
+    // Seyreltme (retention) sonrası noktalar arasındaki en küçük süre. 0 ise parça hiç seyreltilmemiştir.
+    @ColumnInfo(name = "sample_interval_ms", defaultValue = "0")
+    public long sampleIntervalMs;
+
+    // Parçadaki noktaları içine alan kutu. Alan sorgularında parçayı çözmeden elemek için kullanılır.
+    @ColumnInfo(name = "min_latitude")
+    public double minLatitude;
+
+    @ColumnInfo(name = "min_longitude")
+    public double minLongitude;
+
+    @ColumnInfo(name = "max_latitude")
+    public double maxLatitude;
+
+    @ColumnInfo(name = "max_longitude")
+    public double maxLongitude;
+
+    @NonNull
+    @ColumnInfo(name = "data", typeAffinity = ColumnInfo.BLOB)
+    public byte[] data;
+
+    public RouteSegment(long startTime, long endTime, int rawCount, int pointCount, double toleranceMeters, @NonNull byte[] data) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.rawCount = rawCount;
+        this.pointCount = pointCount;
+        this.toleranceMeters = toleranceMeters;
+        this.data = data;
+    }
+}
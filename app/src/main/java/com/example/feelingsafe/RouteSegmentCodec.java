@@ -0,0 +1,111 @@
+package com.example.feelingsafe;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * TR: RouteSegmentCodec, bir rota parçasının noktalarını sıkıştırılmış bir byte dizisine (BLOB) çevirir ve geri okur.
+ * TR: Koordinatlar mikro-derece (1e-6°, yaklaşık 11 cm) tam sayılarına yuvarlanır; her nokta bir önceki noktaya göre
+ * TR: fark (delta) olarak ZigZag varint ile yazılır. Böylece düz bir yoldaki bir nokta genellikle 6-8 byte tutar.
+ * EN: RouteSegmentCodec turns the points of a route segment into a compressed byte array (BLOB) and reads them back.
+ * EN: Coordinates are rounded to integer microdegrees (1e-6°, about 11 cm); each point is written as a delta from the
+ * EN: previous point using ZigZag varints. A point on a straight road usually takes 6-8 bytes this way.
+ */
+final class RouteSegmentCodec {
+
+    // TR: Biçim değişirse eski kayıtları okuyabilmek için sürüm numarası. / EN: Version number so old records can be read if the format changes.
+    static final int FORMAT_VERSION = 1;
+
+    private RouteSegmentCodec() {
+    }
+
+    /**
+     * TR: keep dizisinde true olan noktaları kodlar. Zaman damgaları artan sırada olmalıdır.
+     * EN: Encodes the points whose keep flag is true. Timestamps must be in ascending order.
+     */
+    static byte[] encode(double[] latitudes, double[] longitudes, long[] timestamps, boolean[] keep, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                kept++;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + kept * 8);
+        out.write(FORMAT_VERSION);
+        Varint.write(out, kept);
+
+        long previousLat = 0;
+        long previousLon = 0;
+        long previousTime = 0;
+        for (int i = 0; i < count; i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            long lat = Math.round(latitudes[i] * 1e6);
+            long lon = Math.round(longitudes[i] * 1e6);
+            // TR: İlk nokta sıfıra göre fark olarak, yani mutlak değer olarak yazılır. / EN: The first point is written as a delta from zero, i.e. as an absolute value.
+            Varint.write(out, Varint.zigZag(lat - previousLat));
+            Varint.write(out, Varint.zigZag(lon - previousLon));
+            Varint.write(out, Varint.zigZag(timestamps[i] - previousTime));
+            previousLat = lat;
+            previousLon = lon;
+            previousTime = timestamps[i];
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * TR: Kodlanmış noktaları tek tek, ihtiyaç oldukça (lazy) çözen okuyucu. Her next() çağrısında alanlar bir sonraki noktayla güncellenir.
+     * TR: Okuma sırasında hiçbir nesne oluşturulmaz.
+     * EN: A reader that decodes the encoded points one by one, only when needed (lazily). The fields are updated with the next point on each next() call.
+     * EN: No objects are created while reading.
+     */
+    static final class Reader {
+        private final Varint.Reader in;
+        private final int count;
+        private int index = -1;
+        private long latE6;
+        private long lonE6;
+        private long timestamp;
+
+        Reader(byte[] data) {
+            in = new Varint.Reader(data);
+            int version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported route segment format: " + version);
+            }
+            count = (int) in.read();
+        }
+
+        int count() {
+            return count;
+        }
+
+        // TR: Az önce okunan noktanın segment içindeki sırası. / EN: The position of the point just read inside the segment.
+        int index() {
+            return index;
+        }
+
+        boolean next() {
+            if (index + 1 >= count) {
+                return false;
+            }
+            latE6 += in.readSigned();
+            lonE6 += in.readSigned();
+            timestamp += in.readSigned();
+            index++;
+            return true;
+        }
+
+        double latitude() {
+            return latE6 / 1e6;
+        }
+
+        double longitude() {
+            return lonE6 / 1e6;
+        }
+
+        long timestamp() {
+            return timestamp;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.feelingsafe;
+
+import androidx.room.Dao;
+import androidx.room.RawQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.List;
+
+// Sıkıştırılmış rota parçalarını okumak için kullanılır. Parçalar aylara bölünmüş tablolarda
+// durduğundan tablo adı sorguda değişir; bu yüzden sadece @RawQuery vardır.
+// Doğrudan değil, bölümlemeyi gizleyen RouteSegmentStore üzerinden kullanılmalıdır.
+@Dao
+public interface RouteSegmentDao {
+
+    @RawQuery
+    List<RouteSegment> query(SupportSQLiteQuery query);
+}
@@ -0,0 +1,342 @@
+package com.example.feelingsafe;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * TR: RouteSegmentStore, sıkıştırılmış rota parçalarını aylara bölünmüş tablolarda (route_segments_YYYYMM) saklar.
+ * TR: Bir parça, başlangıç zamanının (UTC) ayına ait tabloya yazılır. Sorgular sadece istenen zaman aralığını kapsayan
+ * TR: tablolara gider ve bir ayın silinmesi satır satır DELETE yerine tek bir DROP TABLE ile yapılır.
+ * TR: Dışarıya eski RouteSegmentDao ile aynı metodları sunar; bölümleme (partitioning) bu sınıfın içinde gizlidir.
+ * TR: Veritabanı thread'inde (arkaplanda) çağrılmalıdır.
+ * EN: RouteSegmentStore keeps the compressed route segments in tables split by month (route_segments_YYYYMM).
+ * EN: A segment is written to the table of the (UTC) month of its start time. Queries only go to the tables covering
+ * EN: the requested time range, and expiring a month is a single DROP TABLE instead of a row-by-row DELETE.
+ * EN: It offers the same methods as the old RouteSegmentDao; the partitioning is hidden inside this class.
+ * EN: It must be called on the database thread (in the background).
+ */
+public class RouteSegmentStore {
+
+    static final String TABLE_PREFIX = "route_segments_";
+    // TR: Bir parça en fazla bir gün sürer (RouteCompactor gün sınırında böler); bu yüzden önceki ayın tablosuna da bakmak gerekebilir.
+    // EN: A segment lasts at most one day (RouteCompactor splits at day boundaries), so the previous month's table may need to be checked too.
+    private static final long MAX_SEGMENT_SPAN_MS = 24 * 60 * 60 * 1000L;
+
+    // TR: Sürüm 7'de eklenen sınır kutusu sütunları. / EN: The bounding box columns added in version 7.
+    private static final String BOUNDING_BOX_COLUMNS = "`min_latitude` REAL NOT NULL DEFAULT 0, `min_longitude` REAL NOT NULL DEFAULT 0, "
+            + "`max_latitude` REAL NOT NULL DEFAULT 0, `max_longitude` REAL NOT NULL DEFAULT 0";
+
+    private final AppDatabase database;
+
+    RouteSegmentStore(AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * TR: Bir ay tablosunu ve index'ini oluşturur. Migration'lar da bu metodu kullanır.
+     * EN: Creates a month table and its index. Migrations use this method too.
+     */
+    static void createPartition(SupportSQLiteDatabase db, String table) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS `" + table + "` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                + "`start_time` INTEGER NOT NULL, `end_time` INTEGER NOT NULL, `raw_count` INTEGER NOT NULL, "
+                + "`point_count` INTEGER NOT NULL, `tolerance_meters` REAL NOT NULL, "
+                + "`sample_interval_ms` INTEGER NOT NULL DEFAULT 0, `data` BLOB NOT NULL, "
+                + BOUNDING_BOX_COLUMNS + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_" + table + "_start_time` ON `" + table + "` (`start_time`)");
+    }
+
+    /**
+     * TR: Sınır kutusu sütunları olmayan eski bir ay tablosuna bu sütunları ekler ve tablodaki her parçanın kutusunu
+     * TR: parçayı çözerek doldurur. Çözülemeyen bir parçanın kutusu bütün dünya olur; böylece hiçbir sorgudan kaçmaz.
+     * TR: Sadece migration'lar kullanır.
+     * EN: Adds the bounding box columns to an old month table that doesn't have them, and fills the box of every segment
+     * EN: in the table by decoding it. A segment that can't be decoded gets the whole world as its box, so no query misses it.
+     * EN: Only used by migrations.
+     */
+    static void addBoundingBox(SupportSQLiteDatabase db, String table) {
+        boolean hasColumns = false;
+        try (Cursor cursor = db.query("PRAGMA table_info(`" + table + "`)")) {
+            while (cursor.moveToNext()) {
+                if ("min_latitude".equals(cursor.getString(cursor.getColumnIndexOrThrow("name")))) {
+                    hasColumns = true;
+                }
+            }
+        }
+        if (!hasColumns) {
+            for (String column : BOUNDING_BOX_COLUMNS.split(", ")) {
+                db.execSQL("ALTER TABLE `" + table + "` ADD COLUMN " + column);
+            }
+        }
+        List<Long> ids = new ArrayList<>();
+        List<double[]> boxes = new ArrayList<>();
+        try (Cursor cursor = db.query("SELECT id, data FROM `" + table + "`")) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+                boxes.add(boundingBoxOf(cursor.getBlob(1)));
+            }
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            double[] box = boxes.get(i);
+            db.execSQL("UPDATE `" + table + "` SET min_latitude = ?, min_longitude = ?, max_latitude = ?, max_longitude = ? WHERE id = ?",
+                    new Object[]{box[0], box[1], box[2], box[3], ids.get(i)});
+        }
+    }
+
+    // TR: {minLat, minLon, maxLat, maxLon} / EN: {minLat, minLon, maxLat, maxLon}
+    private static double[] boundingBoxOf(byte[] data) {
+        double[] box = {90, 180, -90, -180};
+        try {
+            RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(data);
+            while (reader.next()) {
+                box[0] = Math.min(box[0], reader.latitude());
+                box[1] = Math.min(box[1], reader.longitude());
+                box[2] = Math.max(box[2], reader.latitude());
+                box[3] = Math.max(box[3], reader.longitude());
+            }
+        } catch (IllegalStateException e) {
+            return new double[]{-90, -180, 90, 180};
+        }
+        return box;
+    }
+
+    // TR: Verilen zamanın ait olduğu ay tablosunun adı. Adlar sabit genişlikte olduğu için alfabetik sıra = zaman sırası.
+    // EN: The name of the month table the given time belongs to. Names have a fixed width, so alphabetical order = time order.
+    static String tableFor(long time) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(time);
+        return String.format(Locale.US, "%s%04d%02d", TABLE_PREFIX,
+                calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1);
+    }
+
+    public long insert(RouteSegment segment) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        String table = tableFor(segment.startTime);
+        createPartition(db, table);
+        segment.id = (int) db.insert(table, SQLiteDatabase.CONFLICT_ABORT, toValues(segment));
+        // TR: Sıkıştırma önbellekteki noktaları değiştirir. / EN: Compaction changes the cached points.
+        clearCacheIfCommitted(db);
+        return segment.id;
+    }
+
+    public void update(RouteSegment segment) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        db.update(tableFor(segment.startTime), SQLiteDatabase.CONFLICT_ABORT, toValues(segment), "id = ?", new Object[]{segment.id});
+        clearCacheIfCommitted(db);
+    }
+
+    // TR: Rota önbelleği ancak değişiklik commit edildikten sonra temizlenir (bkz. RouteCache.clear). Değişiklik bir
+    // TR: transaction'ın içindeyse temizleme, transaction'ı açan çağırana bırakılır (ör. RouteCompactor).
+    // EN: The route cache is only cleared once the change has committed (see RouteCache.clear). If the change is inside a
+    // EN: transaction, clearing is left to the caller that opened it (e.g. RouteCompactor).
+    private void clearCacheIfCommitted(SupportSQLiteDatabase db) {
+        if (!db.inTransaction()) {
+            database.routeCache().clear();
+        }
+    }
+
+    /**
+     * TR: Verilen zamandan önce başlayan parçaları yeniden eskiye getirir. Sadece o aya ve öncesine ait tablolar okunur.
+     * EN: Returns the segments starting before the given time, newest first. Only the tables of that month and earlier are read.
+     */
+    public List<RouteSegment> getStartingBefore(long before, int limit) {
+        List<RouteSegment> result = new ArrayList<>();
+        List<String> tables = listPartitions();
+        String last = tableFor(before);
+        for (int i = tables.size() - 1; i >= 0 && result.size() < limit; i--) {
+            String table = tables.get(i);
+            if (table.compareTo(last) > 0) {
+                continue;
+            }
+            result.addAll(query("SELECT * FROM `" + table + "` WHERE start_time < ? ORDER BY start_time DESC LIMIT ?",
+                    before, limit - result.size()));
+        }
+        return result;
+    }
+
+    /**
+     * TR: Verilen zamandan sonra biten parçaları eskiden yeniye getirir.
+     * EN: Returns the segments ending after the given time, oldest first.
+     */
+    public List<RouteSegment> getEndingAfter(long after, int limit) {
+        List<RouteSegment> result = new ArrayList<>();
+        String first = tableFor(minusSpan(after));
+        for (String table : listPartitions()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (table.compareTo(first) < 0) {
+                continue;
+            }
+            result.addAll(query("SELECT * FROM `" + table + "` WHERE end_time > ? ORDER BY start_time ASC LIMIT ?",
+                    after, limit - result.size()));
+        }
+        return result;
+    }
+
+    /**
+     * TR: İki zaman arasıyla kesişen parçaları eskiden yeniye getirir; sadece aralığı kapsayan ay tabloları okunur.
+     * EN: Returns the segments overlapping the range between two times, oldest first; only the month tables covering the range are read.
+     */
+    public List<RouteSegment> getOverlapping(long from, long to) {
+        List<RouteSegment> result = new ArrayList<>();
+        String first = tableFor(minusSpan(from));
+        String last = tableFor(to);
+        for (String table : listPartitions()) {
+            if (table.compareTo(first) < 0 || table.compareTo(last) > 0) {
+                continue;
+            }
+            result.addAll(query("SELECT * FROM `" + table + "` WHERE start_time <= ? AND end_time >= ? ORDER BY start_time ASC",
+                    to, from));
+        }
+        return result;
+    }
+
+    /**
+     * TR: İki zaman arasıyla kesişen parçalardaki toplam nokta sayısı. Parçalar çözülmez; sayı aralık kenarlarındaki
+     * TR: parçaların dışarıda kalan noktalarını da içerdiği için bir üst sınırdır (ilerleme göstermek için yeterli).
+     * EN: The total number of points in the segments overlapping the range between two times. Segments aren't decoded; the number
+     * EN: also includes the points of the edge segments that fall outside the range, so it is an upper bound (enough for showing progress).
+     */
+    public long countPoints(long from, long to) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getReadableDatabase();
+        String first = tableFor(minusSpan(from));
+        String last = tableFor(to);
+        long total = 0;
+        for (String table : listPartitions(db)) {
+            if (table.compareTo(first) < 0 || table.compareTo(last) > 0) {
+                continue;
+            }
+            try (Cursor cursor = db.query("SELECT TOTAL(point_count) FROM `" + table + "` WHERE start_time <= ? AND end_time >= ?",
+                    new Object[]{to, from})) {
+                if (cursor.moveToFirst()) {
+                    total += cursor.getLong(0);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * TR: İki zaman arasıyla kesişen ve sınır kutusu verilen kutuyla kesişen parçaları eskiden yeniye getirir.
+     * TR: Bir ayda az sayıda parça olduğu için kutu koşulu index'siz de ucuzdur; asıl maliyet sadece eşleşen parçaların çözülmesidir.
+     * EN: Returns the segments overlapping the time range whose bounding box intersects the given box, oldest first.
+     * EN: A month has few segments, so the box condition is cheap even without an index; the real cost is only decoding the matching segments.
+     */
+    public List<RouteSegment> getInArea(long from, long to, double minLatitude, double minLongitude,
+                                        double maxLatitude, double maxLongitude) {
+        List<RouteSegment> result = new ArrayList<>();
+        String first = tableFor(minusSpan(from));
+        String last = tableFor(to);
+        for (String table : listPartitions()) {
+            if (table.compareTo(first) < 0 || table.compareTo(last) > 0) {
+                continue;
+            }
+            result.addAll(query("SELECT * FROM `" + table + "` WHERE start_time <= ? AND end_time >= ? "
+                    + "AND max_latitude >= ? AND min_latitude <= ? AND max_longitude >= ? AND min_longitude <= ? "
+                    + "ORDER BY start_time ASC", to, from, minLatitude, maxLatitude, minLongitude, maxLongitude));
+        }
+        return result;
+    }
+
+    /**
+     * TR: Verilen zamandan önce bitmiş ve henüz intervalMs aralığına seyreltilmemiş parçaları getirir (eskiden yeniye).
+     * EN: Returns the segments that ended before the given time and are not yet downsampled to intervalMs (oldest first).
+     */
+    public List<RouteSegment> getNeedingResample(long olderThan, long intervalMs, int limit) {
+        List<RouteSegment> result = new ArrayList<>();
+        String last = tableFor(olderThan);
+        for (String table : listPartitions()) {
+            if (result.size() >= limit || table.compareTo(last) > 0) {
+                break;
+            }
+            result.addAll(query("SELECT * FROM `" + table + "` WHERE end_time < ? AND sample_interval_ms < ? "
+                    + "ORDER BY start_time ASC LIMIT ?", olderThan, intervalMs, limit - result.size()));
+        }
+        return result;
+    }
+
+    /**
+     * TR: Tamamen verilen zamandan önceki ayların tablolarını siler. Her ay için tek bir DROP TABLE çalışır; silinen ay sayısını döndürür.
+     * EN: Drops the tables of the months entirely before the given time. A single DROP TABLE runs per month; returns the number of months dropped.
+     */
+    public int expireBefore(long time) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        String boundary = tableFor(time);
+        int dropped = 0;
+        for (String table : listPartitions()) {
+            if (table.compareTo(boundary) >= 0) {
+                break;
+            }
+            db.execSQL("DROP TABLE IF EXISTS `" + table + "`");
+            dropped++;
+        }
+        if (dropped > 0) {
+            clearCacheIfCommitted(db);
+        }
+        return dropped;
+    }
+
+    public void deleteAll() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        for (String table : listPartitions()) {
+            db.execSQL("DROP TABLE IF EXISTS `" + table + "`");
+        }
+        clearCacheIfCommitted(db);
+    }
+
+    /**
+     * TR: Mevcut ay tablolarını eskiden yeniye döndürür. Tablolar başka bir bileşen tarafından oluşturulmuş olabileceği
+     * TR: için liste önbelleğe alınmaz; sqlite_master sorgusu birkaç satırlık olduğundan ucuzdur.
+     * EN: Returns the existing month tables, oldest first. The list isn't cached, because the tables may have been created
+     * EN: by another component; the sqlite_master query is cheap since it only has a few rows.
+     */
+    List<String> listPartitions() {
+        return listPartitions(database.getOpenHelper().getReadableDatabase());
+    }
+
+    static List<String> listPartitions(SupportSQLiteDatabase db) {
+        List<String> tables = new ArrayList<>();
+        try (Cursor cursor = db.query(
+                "SELECT name FROM sqlite_master WHERE type = 'table' AND name GLOB '" + TABLE_PREFIX + "[0-9]*' ORDER BY name")) {
+            while (cursor.moveToNext()) {
+                tables.add(cursor.getString(0));
+            }
+        }
+        return tables;
+    }
+
+    // TR: Long.MIN_VALUE gibi uç değerlerde taşmayı önler. / EN: Prevents overflow for extreme values such as Long.MIN_VALUE.
+    private static long minusSpan(long time) {
+        return Math.max(time, Long.MIN_VALUE + MAX_SEGMENT_SPAN_MS) - MAX_SEGMENT_SPAN_MS;
+    }
+
+    private List<RouteSegment> query(String sql, Object... args) {
+        return database.routeSegmentDao().query(new SimpleSQLiteQuery(sql, args));
+    }
+
+    private static ContentValues toValues(RouteSegment segment) {
+        ContentValues values = new ContentValues();
+        values.put("start_time", segment.startTime);
+        values.put("end_time", segment.endTime);
+        values.put("raw_count", segment.rawCount);
+        values.put("point_count", segment.pointCount);
+        values.put("tolerance_meters", segment.toleranceMeters);
+        values.put("sample_interval_ms", segment.sampleIntervalMs);
+        values.put("min_latitude", segment.minLatitude);
+        values.put("min_longitude", segment.minLongitude);
+        values.put("max_latitude", segment.maxLatitude);
+        values.put("max_longitude", segment.maxLongitude);
+        values.put("data", segment.data);
+        return values;
+    }
+}
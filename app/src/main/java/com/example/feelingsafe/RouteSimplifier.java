@@ -0,0 +1,83 @@
+package com.example.feelingsafe;
+
+/**
+ * TR: RouteSimplifier, Douglas–Peucker algoritması ile bir rotadan şekli bozmayan gereksiz noktaları ayıklar.
+ * TR: Tolerans metre cinsindendir: atılan hiçbir nokta, sadeleştirilmiş rotadan tolerans değerinden daha uzak değildir.
+ * EN: RouteSimplifier removes the points of a route that do not change its shape, using the Douglas–Peucker algorithm.
+ * EN: The tolerance is in meters: no removed point is farther than the tolerance from the simplified route.
+ */
+final class RouteSimplifier {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    private RouteSimplifier() {
+    }
+
+    /**
+     * TR: Hangi noktaların tutulacağını döndürür. İlk ve son nokta her zaman tutulur.
+     * TR: Özyineleme yerine kendi yığınımızı kullanıyoruz; böylece uzun rotalarda StackOverflow olmaz.
+     * EN: Returns which points to keep. The first and last points are always kept.
+     * EN: We use our own stack instead of recursion, so long routes can't cause a StackOverflow.
+     */
+    static boolean[] simplify(double[] latitudes, double[] longitudes, int count, double toleranceMeters) {
+        boolean[] keep = new boolean[count];
+        if (count <= 2) {
+            for (int i = 0; i < count; i++) {
+                keep[i] = true;
+            }
+            return keep;
+        }
+
+        // TR: Kısa mesafelerde yeterince doğru olan eşdikdörtgen (equirectangular) izdüşümü ile metreye çeviriyoruz.
+        // EN: We convert to meters with an equirectangular projection, which is accurate enough for short distances.
+        double cosLat = Math.cos(Math.toRadians(latitudes[0]));
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = Math.toRadians(longitudes[i]) * cosLat * EARTH_RADIUS_METERS;
+            y[i] = Math.toRadians(latitudes[i]) * EARTH_RADIUS_METERS;
+        }
+
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+        int[] stack = new int[count * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            double maxDistance = -1;
+            int maxIndex = -1;
+            for (int i = start + 1; i < end; i++) {
+                double d = distanceToSegmentSquared(x[i], y[i], x[start], y[start], x[end], y[end]);
+                if (d > maxDistance) {
+                    maxDistance = d;
+                    maxIndex = i;
+                }
+            }
+            if (maxIndex != -1 && maxDistance > toleranceSquared) {
+                keep[maxIndex] = true;
+                stack[top++] = start;
+                stack[top++] = maxIndex;
+                stack[top++] = maxIndex;
+                stack[top++] = end;
+            }
+        }
+        return keep;
+    }
+
+    // TR: (px, py) noktasının [a, b] doğru parçasına olan uzaklığının karesi. / EN: The squared distance from point (px, py) to the segment [a, b].
+    private static double distanceToSegmentSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double cx = ax + t * dx - px;
+        double cy = ay + t * dy - py;
+        return cx * cx + cy * cy;
+    }
+}
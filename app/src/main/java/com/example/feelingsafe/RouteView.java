@@ -0,0 +1,316 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * TR: RouteView, seçilen bir zaman aralığındaki rotayı (RouteWindow) çizgi olarak çizen özel bir arayüz bileşenidir.
+ * TR: Noktalar sadece bir kez, arkaplanda "temel" koordinatlara (rota ekrana sığacak şekilde) çevrilir. Kaydırma ve
+ * TR: yakınlaştırma sadece bir Matrix'i değiştirir; her karede Path bu matris ile çizilir, hiçbir nokta yeniden hesaplanmaz.
+ * TR: Hareket bittiğinde, o anki yakınlaştırma seviyesine uygun sadeleştirilmiş (level of detail) ve sadece görünen
+ * TR: bölgeyi kapsayan yeni bir Path arkaplan thread'inde hazırlanır ve hazır olunca eskisinin yerine geçer.
+ * EN: RouteView is a custom UI component that draws the route of a selected time range (RouteWindow) as a polyline.
+ * EN: The points are converted to "base" coordinates (with the route fitting the screen) only once, in the background.
+ * EN: Panning and zooming only change a Matrix; every frame draws the Path with this matrix, no point is recomputed.
+ * EN: When a gesture ends, a new Path simplified for the current zoom level (level of detail) and covering only the visible
+ * EN: area is prepared on a background thread and replaces the old one when it is ready.
+ */
+public class RouteView extends View {
+
+    // TR: Sadeleştirme toleransı (ekran pikseli). Bundan küçük sapmalar ekranda görünmez.
+    // EN: The simplification tolerance (screen pixels). Deviations smaller than this aren't visible on screen.
+    private static final float LOD_TOLERANCE_PX = 1.5f;
+    // TR: Hareket bittikten sonra yeni Path hazırlanmadan önce beklenen süre. / EN: How long to wait after a gesture ends before preparing a new Path.
+    private static final long LOD_DELAY_MS = 120;
+    private static final float MIN_SCALE = 1f;
+    private static final float MAX_SCALE = 2000f;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private Paint routePaint;
+    private float strokeWidth;
+    private final Matrix viewMatrix = new Matrix();     // TR: Temel koordinatlardan ekrana. / EN: From base coordinates to the screen.
+    private final Matrix inverseMatrix = new Matrix();
+    private final float[] matrixValues = new float[9];
+    private final RectF visibleRect = new RectF();
+
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector gestureDetector;
+    private ExecutorService renderExecutor;              // TR: Path'leri hazırlayan arkaplan thread'i. / EN: The background thread that prepares Paths.
+
+    private RouteWindow window;
+    // TR: Temel koordinatlar; setWindow() sonrası arkaplanda bir kez hesaplanır. / EN: Base coordinates; computed once in the background after setWindow().
+    private float[] baseX;
+    private float[] baseY;
+    private double metersPerBaseUnit;
+    private Path path = new Path();
+    // TR: Her yeni istek artırılır; eski isteklerin sonuçları atılır. / EN: Incremented for every new request; results of old requests are dropped.
+    private int generation = 0;
+    private final Runnable rebuildTask = this::requestRebuild;
+
+    public RouteView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    private void init() {
+        strokeWidth = 4f * getResources().getDisplayMetrics().density;
+        routePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        routePaint.setColor(Color.parseColor("#D32F2F"));
+        routePaint.setStyle(Paint.Style.STROKE);
+        routePaint.setStrokeJoin(Paint.Join.ROUND);
+        routePaint.setStrokeCap(Paint.Cap.ROUND);
+
+        scaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                float factor = detector.getScaleFactor();
+                float target = Math.max(MIN_SCALE, Math.min(MAX_SCALE, currentScale() * factor));
+                factor = target / currentScale();
+                viewMatrix.postScale(factor, factor, detector.getFocusX(), detector.getFocusY());
+                invalidate();
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                viewMatrix.postTranslate(-distanceX, -distanceY);
+                invalidate();
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                // TR: Çift dokunma tüm rotayı tekrar ekrana sığdırır. / EN: A double tap fits the whole route on screen again.
+                viewMatrix.reset();
+                invalidate();
+                scheduleRebuild();
+                return true;
+            }
+        });
+    }
+
+    /**
+     * TR: Çizilecek rotayı verir. Temel koordinatlar ve ilk Path arkaplanda hazırlanır. Ana thread'den çağrılmalıdır.
+     * EN: Sets the route to draw. The base coordinates and the first Path are prepared in the background. Must be called from the main thread.
+     */
+    public void setWindow(RouteWindow window) {
+        this.window = window;
+        baseX = null;
+        baseY = null;
+        path = new Path();
+        viewMatrix.reset();
+        invalidate();
+        scheduleRebuild();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        renderExecutor = Executors.newSingleThreadExecutor();
+        scheduleRebuild();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removeCallbacks(rebuildTask);
+        renderExecutor.shutdownNow();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        // TR: Temel koordinatlar görünümün boyutuna bağlıdır. / EN: The base coordinates depend on the size of the view.
+        baseX = null;
+        baseY = null;
+        scheduleRebuild();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        scaleDetector.onTouchEvent(event);
+        gestureDetector.onTouchEvent(event);
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            scheduleRebuild();
+        } else if (action == MotionEvent.ACTION_DOWN) {
+            // TR: Hareket sürerken yeni Path hazırlanmaz. / EN: No new Path is prepared while a gesture is ongoing.
+            removeCallbacks(rebuildTask);
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        return true;
+    }
+
+    /**
+     * TR: Her karede sadece hazır Path, o anki matris ile çizilir. Çizgi kalınlığı yakınlaştırmadan bağımsız kalsın diye ölçeğe bölünür.
+     * EN: Every frame only draws the prepared Path with the current matrix. The stroke width is divided by the scale so it stays independent of zoom.
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        canvas.save();
+        canvas.concat(viewMatrix);
+        routePaint.setStrokeWidth(strokeWidth / currentScale());
+        canvas.drawPath(path, routePaint);
+        canvas.restore();
+    }
+
+    private float currentScale() {
+        viewMatrix.getValues(matrixValues);
+        return matrixValues[Matrix.MSCALE_X];
+    }
+
+    private void scheduleRebuild() {
+        removeCallbacks(rebuildTask);
+        postDelayed(rebuildTask, LOD_DELAY_MS);
+    }
+
+    /**
+     * TR: O anki ölçek ve görünen bölge için arkaplanda yeni bir Path ister.
+     * EN: Requests a new Path in the background for the current scale and visible area.
+     */
+    private void requestRebuild() {
+        final RouteWindow route = window;
+        final int width = getWidth();
+        final int height = getHeight();
+        if (route == null || width == 0 || height == 0 || renderExecutor == null) {
+            return;
+        }
+        final int requestGeneration = ++generation;
+        final float scale = currentScale();
+        // TR: Görünen bölge (temel koordinatlarda), kısa kaydırmalar için her yönde yarım ekran genişletilir.
+        // EN: The visible area (in base coordinates), expanded by half a screen in every direction for short pans.
+        viewMatrix.invert(inverseMatrix);
+        visibleRect.set(-width / 2f, -height / 2f, width * 1.5f, height * 1.5f);
+        inverseMatrix.mapRect(visibleRect);
+        final RectF clip = new RectF(visibleRect);
+        final float[] knownX = baseX;
+        final float[] knownY = baseY;
+        try {
+            renderExecutor.execute(() -> {
+                float[] x = knownX;
+                float[] y = knownY;
+                if (x == null || y == null) {
+                    float[][] projected = project(route, width, height);
+                    x = projected[0];
+                    y = projected[1];
+                }
+                Path built = buildPath(route, x, y, scale, clip);
+                final float[] resultX = x;
+                final float[] resultY = y;
+                post(() -> {
+                    if (requestGeneration != generation || route != window) {
+                        return;
+                    }
+                    baseX = resultX;
+                    baseY = resultY;
+                    path = built;
+                    invalidate();
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            // TR: Görünüm ekrandan ayrıldı. / EN: The view was detached.
+        }
+    }
+
+    /**
+     * TR: Noktaları eşdikdörtgen izdüşümü ile metreye, sonra rotanın görünüme ortalanıp sığacağı temel koordinatlara çevirir.
+     * EN: Converts the points to meters with an equirectangular projection, then to base coordinates where the route is centered and fits the view.
+     */
+    private float[][] project(RouteWindow route, int width, int height) {
+        int n = route.size();
+        float[] x = new float[n];
+        float[] y = new float[n];
+        if (n == 0) {
+            return new float[][]{x, y};
+        }
+        double minLat = 90, maxLat = -90, minLon = 180, maxLon = -180;
+        for (int i = 0; i < n; i++) {
+            minLat = Math.min(minLat, route.latitude(i));
+            maxLat = Math.max(maxLat, route.latitude(i));
+            minLon = Math.min(minLon, route.longitude(i));
+            maxLon = Math.max(maxLon, route.longitude(i));
+        }
+        double cosLat = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        double spanX = Math.max(1, (maxLon - minLon) * METERS_PER_DEGREE * cosLat);
+        double spanY = Math.max(1, (maxLat - minLat) * METERS_PER_DEGREE);
+        // TR: Kenarlarda biraz boşluk bırakıyoruz. / EN: We leave some space at the edges.
+        double unitsPerMeter = 0.9 * Math.min(width / spanX, height / spanY);
+        double offsetX = (width - spanX * unitsPerMeter) / 2;
+        double offsetY = (height - spanY * unitsPerMeter) / 2;
+        for (int i = 0; i < n; i++) {
+            x[i] = (float) (offsetX + (route.longitude(i) - minLon) * METERS_PER_DEGREE * cosLat * unitsPerMeter);
+            // TR: Ekranda y aşağı doğru artar. / EN: On screen, y grows downwards.
+            y[i] = (float) (offsetY + (maxLat - route.latitude(i)) * METERS_PER_DEGREE * unitsPerMeter);
+        }
+        metersPerBaseUnit = 1 / unitsPerMeter;
+        return new float[][]{x, y};
+    }
+
+    /**
+     * TR: Rotayı o anki ölçekte LOD_TOLERANCE_PX pikselden küçük sapmaları atarak sadeleştirir (RouteSimplifier) ve
+     * TR: sadece görünen bölgeye giren parçaları Path'e ekler.
+     * EN: Simplifies the route at the current scale by dropping deviations smaller than LOD_TOLERANCE_PX pixels (RouteSimplifier),
+     * EN: and adds only the parts entering the visible area to the Path.
+     */
+    private Path buildPath(RouteWindow route, float[] x, float[] y, float scale, RectF clip) {
+        int n = route.size();
+        Path result = new Path();
+        if (n == 0) {
+            return result;
+        }
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = route.latitude(i);
+            longitudes[i] = route.longitude(i);
+        }
+        double toleranceMeters = LOD_TOLERANCE_PX / scale * metersPerBaseUnit;
+        boolean[] keep = RouteSimplifier.simplify(latitudes, longitudes, n, toleranceMeters);
+        int previous = -1;
+        boolean drawing = false;
+        for (int i = 0; i < n; i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            if (previous >= 0 && segmentVisible(x[previous], y[previous], x[i], y[i], clip)) {
+                if (!drawing) {
+                    result.moveTo(x[previous], y[previous]);
+                    drawing = true;
+                }
+                result.lineTo(x[i], y[i]);
+            } else {
+                drawing = false;
+            }
+            previous = i;
+        }
+        if (previous == 0) {
+            // TR: Tek noktalı rota. / EN: A single-point route.
+            result.moveTo(x[0], y[0]);
+            result.lineTo(x[0], y[0]);
+        }
+        return result;
+    }
+
+    private static boolean segmentVisible(float x1, float y1, float x2, float y2, RectF clip) {
+        return Math.max(x1, x2) >= clip.left && Math.min(x1, x2) <= clip.right
+                && Math.max(y1, y2) >= clip.top && Math.min(y1, y2) <= clip.bottom;
+    }
+}
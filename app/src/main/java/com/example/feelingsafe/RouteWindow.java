@@ -0,0 +1,90 @@
+package com.example.feelingsafe;
+
+/**
+ * TR: RouteWindow, bir zaman aralığındaki konumları nesne yerine paralel ilkel dizilerde (sütunlar) tutar:
+ * TR: nokta başına sadece 24 byte (enlem, boylam, zaman), LocationHistory nesnesi ve ArrayList yükü yok.
+ * TR: Noktalar eskiden yeniye sıralıdır. Değişmez (immutable) olduğu için thread'ler arasında paylaşılabilir;
+ * TR: dizilere dışarıdan yazılmamalıdır.
+ * EN: RouteWindow keeps the locations of a time range in parallel primitive arrays (columns) instead of objects:
+ * EN: only 24 bytes per point (latitude, longitude, time), with no LocationHistory object or ArrayList overhead.
+ * EN: Points are ordered oldest first. Since it is immutable, it can be shared between threads;
+ * EN: the arrays must not be written from outside.
+ */
+public final class RouteWindow {
+
+    /**
+     * TR: forEach() ile noktaları nesne oluşturmadan gezmek için.
+     * EN: For walking the points with forEach() without creating objects.
+     */
+    public interface PointVisitor {
+        void visit(double latitude, double longitude, long timestamp);
+    }
+
+    public final long from;
+    public final long to;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] timestamps;
+    private final int size;
+
+    RouteWindow(long from, long to, double[] latitudes, double[] longitudes, long[] timestamps, int size) {
+        this.from = from;
+        this.to = to;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.timestamps = timestamps;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double latitude(int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(int index) {
+        return longitudes[index];
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public void forEach(PointVisitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(latitudes[i], longitudes[i], timestamps[i]);
+        }
+    }
+
+    /**
+     * TR: Zaman damgası verilen zamana eşit veya ondan büyük olan ilk noktanın sırası; yoksa size().
+     * EN: The index of the first point whose timestamp is equal to or after the given time; size() if there is none.
+     */
+    public int indexOf(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * TR: Rotanın toplam uzunluğu (metre).
+     * EN: The total length of the route (meters).
+     */
+    public double distanceMeters() {
+        double total = 0;
+        for (int i = 1; i < size; i++) {
+            total += GeoCell.distanceMeters(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+        return total;
+    }
+}
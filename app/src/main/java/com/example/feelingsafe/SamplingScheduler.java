@@ -0,0 +1,181 @@
+package com.example.feelingsafe;
+
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.Priority;
+
+/**
+ * TR: SamplingScheduler, takip servisinin konum isteğini (öncelik, aralık, en kısa mesafe) kullanıcının hızına, son hareketine
+ * TR: ve pil durumuna göre seçer. Hızlı giderken sık ve GPS ile, dururken seyrek ve GPS'siz (ve en az 100 m hareket
+ * TR: etmeden hiç konum gelmeyecek şekilde) örnekleme yapılır; böylece dururken veritabanına da neredeyse hiç yazılmaz.
+ * TR: Daha sık örneklemeye hemen geçilir, daha seyreğe ise hedef DOWNGRADE_DELAY_MS boyunca değişmezse geçilir (histerezis).
+ * TR: Pil azsa (veya güç tasarrufu açıksa) hareket profilleri bir kademe düşürülür.
+ * TR: Dururken konum gelmediği için servis onTick()'i düzenli olarak çağırır. Thread-safe değildir; servisin konum thread'inden kullanılır.
+ * EN: SamplingScheduler chooses the tracking service's location request (priority, interval, minimum distance) based on the
+ * EN: user's speed, recent movement and battery state. While moving fast it samples often and with GPS; while still it samples
+ * EN: rarely, without GPS (and with no location at all until the user moves at least 100 m), so almost nothing is written to
+ * EN: the database either. It switches to denser sampling immediately, and to sparser sampling only if the target stays the
+ * EN: same for DOWNGRADE_DELAY_MS (hysteresis). If the battery is low (or power saving is on), the moving profiles drop one level.
+ * EN: No locations arrive while still, so the service calls onTick() regularly. It isn't thread-safe; it is used from the service's location thread.
+ */
+final class SamplingScheduler {
+
+    /**
+     * TR: Bir örnekleme profili ve konum isteği parametreleri. Sıra, seyrekten sıka doğrudur.
+     * EN: A sampling profile and its location request parameters. The order is from sparse to dense.
+     */
+    enum Profile {
+        STILL(Priority.PRIORITY_BALANCED_POWER_ACCURACY, 180_000, 120_000, 100),
+        IDLE(Priority.PRIORITY_BALANCED_POWER_ACCURACY, 60_000, 30_000, 50),
+        WALKING(Priority.PRIORITY_HIGH_ACCURACY, 20_000, 10_000, 15),
+        DRIVING(Priority.PRIORITY_HIGH_ACCURACY, 5_000, 2_000, 20);
+
+        final int priority;
+        final long intervalMs;
+        final long minIntervalMs;
+        final float minDistanceMeters;
+
+        Profile(int priority, long intervalMs, long minIntervalMs, float minDistanceMeters) {
+            this.priority = priority;
+            this.intervalMs = intervalMs;
+            this.minIntervalMs = minIntervalMs;
+            this.minDistanceMeters = minDistanceMeters;
+        }
+
+        LocationRequest toRequest() {
+            return new LocationRequest.Builder(priority, intervalMs)
+                    .setMinUpdateIntervalMillis(minIntervalMs)
+                    .setMinUpdateDistanceMeters(minDistanceMeters)
+                    .build();
+        }
+    }
+
+    // TR: Bu hızların (m/s) üstünde yürüyüş ve araç profilleri seçilir. / EN: Above these speeds (m/s) the walking and driving profiles are chosen.
+    static final double WALKING_SPEED_MPS = 0.8;
+    static final double DRIVING_SPEED_MPS = 7;
+    // TR: Kullanıcı bu yarıçapın dışına çıkmadan STILL_AFTER_MS geçerse durmuş sayılır.
+    // EN: If STILL_AFTER_MS passes without the user leaving this radius, they count as still.
+    static final double STILL_RADIUS_METERS = 50;
+    static final long STILL_AFTER_MS = 5 * 60 * 1000L;
+    static final long DOWNGRADE_DELAY_MS = 90 * 1000L;
+
+    private Profile current = Profile.IDLE;
+    private boolean hasLast = false;
+    private double lastLatitude;
+    private double lastLongitude;
+    private long lastTimestamp;
+    private double speedEstimate = 0;
+
+    private double anchorLatitude;
+    private double anchorLongitude;
+    private long lastMovedAt;
+
+    // TR: Daha seyrek bir hedefin ilk görüldüğü an; bekleyen bir düşüş yoksa -1. / EN: When a sparser target was first seen; -1 if no downgrade is pending.
+    private long downgradeSince = -1;
+
+    Profile current() {
+        return current;
+    }
+
+    /**
+     * TR: Kullanıcının en son STILL_RADIUS_METERS'tan fazla hareket ettiği an ve o zamandan beri bulunduğu yer (çapa).
+     * EN: When the user last moved more than STILL_RADIUS_METERS, and the place they have been at since then (the anchor).
+     */
+    long lastMovedAt() {
+        return lastMovedAt;
+    }
+
+    double anchorLatitude() {
+        return anchorLatitude;
+    }
+
+    double anchorLongitude() {
+        return anchorLongitude;
+    }
+
+    /**
+     * TR: Kullanıcı hareket etmeye başladı (ör. durağan moddaki geofence'tan çıktı). Geçmiş unutulur; bir sonraki konum
+     * TR: yeni çapa olur ve hızı eski konuma göre hesaplanmaz. Yeni profil (IDLE) döndürülür.
+     * EN: The user started moving (e.g. left the geofence of stationary mode). The history is forgotten; the next location
+     * EN: becomes the new anchor and its speed isn't computed from the old location. Returns the new profile (IDLE).
+     */
+    Profile wake(long now) {
+        hasLast = false;
+        speedEstimate = 0;
+        lastMovedAt = now;
+        downgradeSince = -1;
+        current = Profile.IDLE;
+        return current;
+    }
+
+    /**
+     * TR: Filtreden geçmiş yeni bir konumu işler. Profil değiştiyse yeni profili, değişmediyse null döndürür.
+     * EN: Processes a new location that passed the filter. Returns the new profile if it changed, otherwise null.
+     */
+    Profile onFix(LocationHistory location, boolean lowPower) {
+        double speed = location.speed;
+        if (speed < 0 && hasLast && location.timestamp > lastTimestamp) {
+            // TR: Sağlayıcı hız vermediyse iki konumdan hesaplanır. / EN: If the provider gave no speed, it is computed from two locations.
+            speed = GeoCell.distanceMeters(lastLatitude, lastLongitude, location.latitude, location.longitude)
+                    / ((location.timestamp - lastTimestamp) / 1000.0);
+        }
+        if (speed >= 0) {
+            // TR: Tek bir hatalı hız ölçümü profili hemen değiştirmesin. / EN: So a single bad speed reading doesn't change the profile at once.
+            speedEstimate = hasLast ? (speedEstimate + speed) / 2 : speed;
+        }
+        if (!hasLast || GeoCell.distanceMeters(anchorLatitude, anchorLongitude, location.latitude, location.longitude) > STILL_RADIUS_METERS) {
+            anchorLatitude = location.latitude;
+            anchorLongitude = location.longitude;
+            lastMovedAt = location.timestamp;
+        }
+        hasLast = true;
+        lastLatitude = location.latitude;
+        lastLongitude = location.longitude;
+        lastTimestamp = location.timestamp;
+        return update(location.timestamp, lowPower);
+    }
+
+    /**
+     * TR: Konum gelmese de zaman geçtiğini bildirir (ör. dakikada bir). Profil değiştiyse yeni profili, değişmediyse null döndürür.
+     * EN: Reports that time has passed even if no location arrived (e.g. once a minute). Returns the new profile if it changed, otherwise null.
+     */
+    Profile onTick(long now, boolean lowPower) {
+        if (!hasLast) {
+            return null;
+        }
+        // TR: Konum gelmiyorsa kullanıcı en az seçili mesafe kadar hareket etmemiştir. / EN: If no location arrives, the user hasn't moved the chosen distance.
+        if (now - lastTimestamp >= STILL_AFTER_MS) {
+            speedEstimate = 0;
+        }
+        return update(now, lowPower);
+    }
+
+    private Profile update(long now, boolean lowPower) {
+        Profile target;
+        if (now - lastMovedAt >= STILL_AFTER_MS) {
+            target = Profile.STILL;
+        } else if (speedEstimate >= DRIVING_SPEED_MPS) {
+            target = lowPower ? Profile.WALKING : Profile.DRIVING;
+        } else if (speedEstimate >= WALKING_SPEED_MPS) {
+            target = lowPower ? Profile.IDLE : Profile.WALKING;
+        } else {
+            target = Profile.IDLE;
+        }
+        if (target.ordinal() >= current.ordinal()) {
+            downgradeSince = -1;
+            if (target == current) {
+                return null;
+            }
+            current = target;
+            return target;
+        }
+        if (downgradeSince < 0) {
+            downgradeSince = now;
+        }
+        if (now - downgradeSince < DOWNGRADE_DELAY_MS) {
+            return null;
+        }
+        downgradeSince = -1;
+        current = target;
+        return target;
+    }
+}
@@ -1,29 +1,82 @@
 package com.example.feelingsafe;
 
+import android.Manifest;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Bundle;
+import android.text.format.DateFormat;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SwitchCompat;
 import androidx.core.content.ContextCompat;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class SettingActivity extends AppCompatActivity {
 
     private EditText editTextSosMessage;
     private SwitchCompat switchFallDetection;
     private SwitchCompat switchRouteTracking;
+    private SwitchCompat switchJournalStorage;
+    private SwitchCompat switchSeparateProcess;
+    private TextView textViewTrackerStatus;
+    // Ekran görünürken takip servisinin canlı durumunu alır (servis ayrı süreçte de olabilir)
+    private TrackingStatusClient trackingStatusClient;
+    private EditText editTextStationaryDwell;
+    private SwitchCompat switchAdaptiveSampling;
+    private SwitchCompat switchHighAccuracy;
+    private EditText editTextInterval;
+    private EditText editTextMinDistance;
+    private EditText editTextBatchSize;
+    private EditText editTextBatchDelay;
+    private EditText editTextHistoryExpiry;
     private Button buttonSaveSettings;
     private Button buttonShowRouteHistory;
+    // Yedekleme ve geri yükleme arka planda bu thread'de çalışır
+    private ExecutorService backupExecutor;
+
+    // Yedek dosyasının yerini kullanıcıya sorar (Storage Access Framework); izin gerekmez
+    private final ActivityResultLauncher<String> createBackupDocument = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/octet-stream"), this::backupHistory);
+    private final ActivityResultLauncher<String[]> openBackupDocument = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::restoreHistory);
+    // Durağan moddaki geofence arkaplan konum izni ister; izin verilse de verilmese de ayarlar ekranı sonra kapanır
+    private final ActivityResultLauncher<String> requestBackgroundLocation = registerForActivityResult(
+            new ActivityResultContracts.RequestPermission(), granted -> finish());
 
     // Ayarları kaydetmek için kullanılacak anahtarlar (Keys)
-    private static final String PREFS_NAME = "MyPrefs";
+    static final String PREFS_NAME = "MyPrefs";
     public static final String CUSTOM_MESSAGE_KEY = "custom_message";
     public static final String FALL_DETECTION_KEY = "fall_detection_enabled";
     public static final String TRACKING_STATE_KEY = "tracking_state";
+    // Açıksa takip servisi konumları önce hafızaya eşlenmiş günlüğe (LocationJournal) yazar
+    public static final String JOURNAL_STORAGE_KEY = "journal_storage_enabled";
+    // Kullanıcı bu kadar dakika hareket etmezse takip servisi konum isteğini kaldırıp geofence ile bekler (0 ise kapalı)
+    public static final String STATIONARY_DWELL_KEY = "stationary_dwell_minutes";
+    public static final int DEFAULT_STATIONARY_DWELL_MINUTES = 10;
+    // Açıksa takip servisi kendi sürecinde (IsolatedLocationTrackingService) çalışır
+    public static final String SEPARATE_PROCESS_KEY = "tracking_separate_process";
+    // Takip servisinin çalışırken değiştirilebilen ayarları (bkz. TrackingConfig); kaydedilince servis yeniden başlatılmaz
+    public static final String ADAPTIVE_SAMPLING_KEY = "adaptive_sampling";
+    public static final String HIGH_ACCURACY_KEY = "fixed_high_accuracy";
+    public static final String INTERVAL_SECONDS_KEY = "fixed_interval_seconds";
+    public static final String MIN_DISTANCE_KEY = "fixed_min_distance_meters";
+    public static final String BATCH_SIZE_KEY = "write_batch_size";
+    public static final String BATCH_DELAY_KEY = "write_batch_delay_minutes";
+    // Geçmişin kaç ay tutulacağı; 0 (varsayılan) geçmişi hiç silmez
+    public static final String HISTORY_EXPIRY_MONTHS_KEY = "history_expiry_months";
     // DÜZELTME: Hard-coded varsayılan mesaj buradan kaldırıldı, çünkü artık strings.xml'den okunuyor.
 
     @Override
@@ -36,8 +89,23 @@ public class SettingActivity extends AppCompatActivity {
         editTextSosMessage = findViewById(R.id.editTextSosMessage);
         switchFallDetection = findViewById(R.id.switchFallDetection);
         switchRouteTracking = findViewById(R.id.switchRouteTracking);
+        switchJournalStorage = findViewById(R.id.switchJournalStorage);
+        switchSeparateProcess = findViewById(R.id.switchSeparateProcess);
+        textViewTrackerStatus = findViewById(R.id.textViewTrackerStatus);
+        trackingStatusClient = new TrackingStatusClient(this, this::showTrackerStatus);
+        editTextStationaryDwell = findViewById(R.id.editTextStationaryDwell);
+        switchAdaptiveSampling = findViewById(R.id.switchAdaptiveSampling);
+        switchHighAccuracy = findViewById(R.id.switchHighAccuracy);
+        editTextInterval = findViewById(R.id.editTextInterval);
+        editTextMinDistance = findViewById(R.id.editTextMinDistance);
+        editTextBatchSize = findViewById(R.id.editTextBatchSize);
+        editTextBatchDelay = findViewById(R.id.editTextBatchDelay);
+        editTextHistoryExpiry = findViewById(R.id.editTextHistoryExpiry);
+        // Sabit istek ayarları sadece uyarlamalı örnekleme kapalıyken geçerlidir
+        switchAdaptiveSampling.setOnCheckedChangeListener((button, checked) -> updateFixedSamplingFields(checked));
         buttonSaveSettings = findViewById(R.id.buttonSaveSettings);
         buttonShowRouteHistory = findViewById(R.id.buttonShowRouteHistory);
+        backupExecutor = Executors.newSingleThreadExecutor();
 
         // Kayıtlı ayarları yükleyip ekranda gösteriyoruz
         loadSettings();
@@ -49,6 +117,89 @@ public class SettingActivity extends AppCompatActivity {
             Intent intent = new Intent(SettingActivity.this, RouteHistoryActivity.class);
             startActivity(intent);
         });
+
+        findViewById(R.id.buttonBackupHistory).setOnClickListener(v -> createBackupDocument.launch("feelingsafe_history.fslb"));
+        findViewById(R.id.buttonRestoreHistory).setOnClickListener(v -> openBackupDocument.launch(new String[]{"*/*"}));
+    }
+
+    private void backupHistory(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        AppDatabase database = AppDatabase.getInstance(getApplicationContext());
+        backupExecutor.execute(() -> {
+            String message;
+            try (OutputStream out = getContentResolver().openOutputStream(uri, "wt")) {
+                if (out == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                long count = new LocationHistoryBackup(database).backup(out, true);
+                message = getString(R.string.backup_done, count);
+            } catch (IOException | RuntimeException e) {
+                message = getString(R.string.backup_failed, e.getMessage());
+            }
+            showResult(message);
+        });
+    }
+
+    private void restoreHistory(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        AppDatabase database = AppDatabase.getInstance(getApplicationContext());
+        // Servisin yazma yolu son konumu hafızada tuttuğu için geri yükleme sırasında servis durdurulur
+        boolean wasTracking = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getBoolean(TRACKING_STATE_KEY, false);
+        stopTrackingService();
+        backupExecutor.execute(() -> {
+            String message;
+            try (InputStream in = getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                long count = new LocationHistoryBackup(database).restore(in);
+                message = getString(R.string.restore_done, count);
+            } catch (IOException | RuntimeException e) {
+                message = getString(R.string.restore_failed, e.getMessage());
+            }
+            String result = message;
+            runOnUiThread(() -> {
+                if (wasTracking) {
+                    startTrackingService();
+                }
+                Toast.makeText(this, result, Toast.LENGTH_LONG).show();
+            });
+        });
+    }
+
+    private void showResult(String message) {
+        runOnUiThread(() -> Toast.makeText(this, message, Toast.LENGTH_LONG).show());
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        trackingStatusClient.bind();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        trackingStatusClient.unbind();
+    }
+
+    private void showTrackerStatus(TrackingStatus status) {
+        String lastFix = status.lastFixTime == 0 ? getString(R.string.tracker_status_no_fix)
+                : DateFormat.getTimeFormat(this).format(status.lastFixTime);
+        String state = status.stationary ? getString(R.string.tracker_status_stationary) : status.profile;
+        textViewTrackerStatus.setText(getString(R.string.tracker_status, status.process, state,
+                status.pointsWritten, status.queueDepth, status.pointsRejected, lastFix));
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Devam eden yedekleme yarıda kesilmez; kuyruktaki iş tamamlanır
+        backupExecutor.shutdown();
     }
 
     private void saveSettings() {
@@ -58,22 +209,70 @@ public class SettingActivity extends AppCompatActivity {
         String customMessage = editTextSosMessage.getText().toString();
         boolean isFallDetectionEnabled = switchFallDetection.isChecked();
         boolean isTrackingEnabled = switchRouteTracking.isChecked();
+        boolean isJournalStorageEnabled = switchJournalStorage.isChecked();
+        int stationaryDwellMinutes = parseNumber(editTextStationaryDwell, DEFAULT_STATIONARY_DWELL_MINUTES);
+        boolean wasTracking = sharedPreferences.getBoolean(TRACKING_STATE_KEY, false);
+        boolean isSeparateProcessEnabled = switchSeparateProcess.isChecked();
+        boolean journalStorageChanged = sharedPreferences.getBoolean(JOURNAL_STORAGE_KEY, false) != isJournalStorageEnabled;
+        boolean separateProcessChanged = sharedPreferences.getBoolean(SEPARATE_PROCESS_KEY, false) != isSeparateProcessEnabled;
 
         editor.putString(CUSTOM_MESSAGE_KEY, customMessage);
         editor.putBoolean(FALL_DETECTION_KEY, isFallDetectionEnabled);
         editor.putBoolean(TRACKING_STATE_KEY, isTrackingEnabled);
-        editor.apply();
+        editor.putBoolean(JOURNAL_STORAGE_KEY, isJournalStorageEnabled);
+        editor.putInt(STATIONARY_DWELL_KEY, stationaryDwellMinutes);
+        editor.putBoolean(SEPARATE_PROCESS_KEY, isSeparateProcessEnabled);
+        editor.putBoolean(ADAPTIVE_SAMPLING_KEY, switchAdaptiveSampling.isChecked());
+        editor.putBoolean(HIGH_ACCURACY_KEY, switchHighAccuracy.isChecked());
+        editor.putInt(INTERVAL_SECONDS_KEY, Math.max(1, parseNumber(editTextInterval, TrackingConfig.DEFAULT_INTERVAL_SECONDS)));
+        editor.putInt(MIN_DISTANCE_KEY, parseNumber(editTextMinDistance, TrackingConfig.DEFAULT_MIN_DISTANCE_METERS));
+        editor.putInt(BATCH_SIZE_KEY, Math.max(1, parseNumber(editTextBatchSize, TrackingConfig.DEFAULT_BATCH_SIZE)));
+        editor.putInt(BATCH_DELAY_KEY, Math.max(1, parseNumber(editTextBatchDelay, TrackingConfig.DEFAULT_BATCH_DELAY_MINUTES)));
+        editor.putInt(HISTORY_EXPIRY_MONTHS_KEY, parseNumber(editTextHistoryExpiry, TrackingConfig.DEFAULT_HISTORY_EXPIRY_MONTHS));
+        // Ayarlar servise Intent ile gider; sistem servisi Intent'siz yeniden başlatırsa diskten okunacağı için hemen yazılır
+        editor.commit();
 
         if (isTrackingEnabled) {
-            startTrackingService();
+            if (journalStorageChanged || separateProcessChanged) {
+                // Yazma yolu ve süreç servis başlarken seçildiği için servisi yeniden başlatıyoruz
+                stopTrackingService();
+                startTrackingService();
+            } else if (wasTracking) {
+                // Diğer ayarlar çalışan servise uygulanır; sadece konum isteği değişir
+                LocationTrackingService.reconfigure(this);
+            } else {
+                startTrackingService();
+            }
         } else {
             stopTrackingService();
         }
 
         Toast.makeText(this, getString(R.string.settings_saved), Toast.LENGTH_SHORT).show();
+        // Durağan mod açıksa ve arkaplan konum izni yoksa önce izin istenir; ekran izin sonucundan sonra kapanır
+        if (isTrackingEnabled && stationaryDwellMinutes > 0
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_BACKGROUND_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            requestBackgroundLocation.launch(Manifest.permission.ACCESS_BACKGROUND_LOCATION);
+            return;
+        }
         finish();
     }
 
+    // Boş veya geçersiz bir değer girildiyse varsayılan değer kullanılır
+    private static int parseNumber(EditText editText, int defaultValue) {
+        try {
+            return Math.max(0, Integer.parseInt(editText.getText().toString().trim()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private void updateFixedSamplingFields(boolean adaptive) {
+        switchHighAccuracy.setEnabled(!adaptive);
+        editTextInterval.setEnabled(!adaptive);
+        editTextMinDistance.setEnabled(!adaptive);
+    }
+
     private void loadSettings() {
         SharedPreferences sharedPreferences = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
 
@@ -81,19 +280,31 @@ public class SettingActivity extends AppCompatActivity {
         String savedMessage = sharedPreferences.getString(CUSTOM_MESSAGE_KEY, getString(R.string.default_sos_message_value));
         boolean isFallDetectionEnabled = sharedPreferences.getBoolean(FALL_DETECTION_KEY, false);
         boolean isTrackingEnabled = sharedPreferences.getBoolean(TRACKING_STATE_KEY, false);
+        boolean isJournalStorageEnabled = sharedPreferences.getBoolean(JOURNAL_STORAGE_KEY, false);
+        int stationaryDwellMinutes = sharedPreferences.getInt(STATIONARY_DWELL_KEY, DEFAULT_STATIONARY_DWELL_MINUTES);
 
         editTextSosMessage.setText(savedMessage);
         switchFallDetection.setChecked(isFallDetectionEnabled);
         switchRouteTracking.setChecked(isTrackingEnabled);
+        switchJournalStorage.setChecked(isJournalStorageEnabled);
+        switchSeparateProcess.setChecked(sharedPreferences.getBoolean(SEPARATE_PROCESS_KEY, false));
+        editTextStationaryDwell.setText(String.valueOf(stationaryDwellMinutes));
+        boolean adaptive = sharedPreferences.getBoolean(ADAPTIVE_SAMPLING_KEY, TrackingConfig.DEFAULT_ADAPTIVE);
+        switchAdaptiveSampling.setChecked(adaptive);
+        switchHighAccuracy.setChecked(sharedPreferences.getBoolean(HIGH_ACCURACY_KEY, TrackingConfig.DEFAULT_HIGH_ACCURACY));
+        editTextInterval.setText(String.valueOf(sharedPreferences.getInt(INTERVAL_SECONDS_KEY, TrackingConfig.DEFAULT_INTERVAL_SECONDS)));
+        editTextMinDistance.setText(String.valueOf(sharedPreferences.getInt(MIN_DISTANCE_KEY, TrackingConfig.DEFAULT_MIN_DISTANCE_METERS)));
+        editTextBatchSize.setText(String.valueOf(sharedPreferences.getInt(BATCH_SIZE_KEY, TrackingConfig.DEFAULT_BATCH_SIZE)));
+        editTextBatchDelay.setText(String.valueOf(sharedPreferences.getInt(BATCH_DELAY_KEY, TrackingConfig.DEFAULT_BATCH_DELAY_MINUTES)));
+        editTextHistoryExpiry.setText(String.valueOf(sharedPreferences.getInt(HISTORY_EXPIRY_MONTHS_KEY, TrackingConfig.DEFAULT_HISTORY_EXPIRY_MONTHS)));
+        updateFixedSamplingFields(adaptive);
     }
 
     private void startTrackingService() {
-        Intent serviceIntent = new Intent(this, LocationTrackingService.class);
-        ContextCompat.startForegroundService(this, serviceIntent);
+        LocationTrackingService.start(this, null);
     }
 
     private void stopTrackingService() {
-        Intent serviceIntent = new Intent(this, LocationTrackingService.class);
-        stopService(serviceIntent);
+        LocationTrackingService.stopAll(this);
     }
 }
\ No newline at end of file
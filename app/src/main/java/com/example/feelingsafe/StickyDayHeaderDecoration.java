@@ -0,0 +1,73 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * TR: StickyDayHeaderDecoration, listenin en üstünde o an görünen günün başlığını sabit tutar. Bir sonraki günün başlığı
+ * TR: yukarı geldiğinde eskisini yukarı doğru iter. Başlık metni RouteRow'da hazır olduğu için çizim sırasında hiçbir
+ * TR: nesne oluşturulmaz; sadece bir dikdörtgen ve bir metin çizilir.
+ * EN: StickyDayHeaderDecoration keeps the header of the day currently visible pinned to the top of the list. When the next
+ * EN: day's header comes up, it pushes the old one upwards. Since the header text is ready in RouteRow, no objects are
+ * EN: created while drawing; only a rectangle and a text are drawn.
+ */
+public class StickyDayHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final RouteHistoryAdapter adapter;
+    private final Paint backgroundPaint = new Paint();
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float headerHeight;
+    private final float textX;
+    private final float textBaseline;
+
+    public StickyDayHeaderDecoration(Context context, RouteHistoryAdapter adapter) {
+        this.adapter = adapter;
+        Resources resources = context.getResources();
+        // TR: Ölçüler ve renkler route_day_header.xml ile aynıdır. / EN: The sizes and colors are the same as route_day_header.xml.
+        headerHeight = resources.getDimension(R.dimen.route_day_header_height);
+        textX = resources.getDimension(R.dimen.route_day_header_padding);
+        backgroundPaint.setColor(ContextCompat.getColor(context, R.color.primary_background));
+        textPaint.setColor(ContextCompat.getColor(context, R.color.sos_red));
+        textPaint.setTextSize(resources.getDimension(R.dimen.route_day_header_text_size));
+        textPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        textBaseline = (headerHeight - metrics.ascent - metrics.descent) / 2;
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        if (parent.getChildCount() == 0) {
+            return;
+        }
+        int topPosition = parent.getChildAdapterPosition(parent.getChildAt(0));
+        if (topPosition == RecyclerView.NO_POSITION || topPosition >= adapter.getItemCount()) {
+            return;
+        }
+        String label = adapter.getRow(topPosition).dayLabel;
+
+        // TR: Bir sonraki gün başlığı sabit başlığın altına girdiyse sabit başlık yukarı itilir.
+        // EN: If the next day header has slid under the pinned header, the pinned header is pushed up.
+        float offset = 0;
+        for (int i = 1; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            if (child.getTop() >= headerHeight) {
+                break;
+            }
+            int position = parent.getChildAdapterPosition(child);
+            if (position != RecyclerView.NO_POSITION && position < adapter.getItemCount() && adapter.getRow(position).isHeader()) {
+                offset = Math.min(0, child.getTop() - headerHeight);
+                break;
+            }
+        }
+
+        canvas.drawRect(0, offset, parent.getWidth(), offset + headerHeight, backgroundPaint);
+        canvas.drawText(label, textX, offset + textBaseline, textPaint);
+    }
+}
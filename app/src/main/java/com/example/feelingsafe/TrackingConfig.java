@@ -0,0 +1,137 @@
+package com.example.feelingsafe;
+
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.Priority;
+
+/**
+ * TR: TrackingConfig, takip servisinin çalışırken değiştirilebilen ayarlarıdır: örnekleme uyarlamalı mı yoksa sabit mi,
+ * TR: sabitse öncelik, aralık ve en kısa mesafe; yazma tamponunun boyut ve süre eşikleri; durağan moda geçiş süresi;
+ * TR: geçmişin kaç ay tutulacağı. Bir de sadece servis başlarken uygulanan yazma yolu (günlük açık mı) vardır.
+ * TR: Ayarları kaydeden süreç yapılandırmayı read() ile okur ve servise giden Intent'e ekler (writeTo); servis onu fromIntent()
+ * TR: ile alır. Servis ayrı bir süreçte çalışabildiği ve SharedPreferences süreçler arasında güvenilir şekilde güncellenmediği
+ * TR: için servis ayarları kendisi okumaz (sadece sistem onu Intent'siz yeniden başlattığında, yeni açılan süreçte okur).
+ * TR: Değiştirilemez bir nesnedir.
+ * EN: TrackingConfig holds the tracking service settings that can change while it runs: whether sampling is adaptive or
+ * EN: fixed, and if fixed the priority, interval and minimum distance; the size and age thresholds of the write buffer; the
+ * EN: dwell before stationary mode; how many months of history are kept. It also holds the write path (whether the journal
+ * EN: is on), which is only applied when the service starts. The process that saves the settings reads the config with
+ * EN: read() and adds it to the Intent sent to the service (writeTo); the service takes it with fromIntent(). The service may
+ * EN: run in its own process and SharedPreferences aren't reliably refreshed across processes, so the service doesn't read
+ * EN: the settings itself (only when the system restarts it without an Intent, in a freshly started process). It is immutable.
+ */
+final class TrackingConfig {
+
+    static final boolean DEFAULT_ADAPTIVE = true;
+    static final boolean DEFAULT_HIGH_ACCURACY = false;
+    static final int DEFAULT_INTERVAL_SECONDS = 60;
+    static final int DEFAULT_MIN_DISTANCE_METERS = 50;
+    static final int DEFAULT_BATCH_SIZE = LocationWriteBuffer.MAX_BATCH_SIZE;
+    static final int DEFAULT_BATCH_DELAY_MINUTES = (int) (LocationWriteBuffer.MAX_BATCH_AGE_MS / 60_000);
+    // TR: Varsayılan olarak geçmiş hiç silinmez. / EN: By default, history is never deleted.
+    static final int DEFAULT_HISTORY_EXPIRY_MONTHS = 0;
+
+    // TR: Intent'teki alanların anahtarları. / EN: The keys of the fields in the Intent.
+    private static final String EXTRA_PREFIX = "com.example.feelingsafe.extra.config.";
+    private static final String EXTRA_ADAPTIVE = EXTRA_PREFIX + "ADAPTIVE";
+    private static final String EXTRA_PRIORITY = EXTRA_PREFIX + "PRIORITY";
+    private static final String EXTRA_INTERVAL_MS = EXTRA_PREFIX + "INTERVAL_MS";
+    private static final String EXTRA_MIN_DISTANCE = EXTRA_PREFIX + "MIN_DISTANCE";
+    private static final String EXTRA_BATCH_SIZE = EXTRA_PREFIX + "BATCH_SIZE";
+    private static final String EXTRA_BATCH_MAX_AGE_MS = EXTRA_PREFIX + "BATCH_MAX_AGE_MS";
+    private static final String EXTRA_STATIONARY_DWELL_MS = EXTRA_PREFIX + "STATIONARY_DWELL_MS";
+    private static final String EXTRA_HISTORY_EXPIRY_MONTHS = EXTRA_PREFIX + "HISTORY_EXPIRY_MONTHS";
+    private static final String EXTRA_JOURNAL = EXTRA_PREFIX + "JOURNAL";
+
+    final boolean adaptive;
+    final int priority;
+    final long intervalMs;
+    final float minDistanceMeters;
+    final int batchSize;
+    final long batchMaxAgeMs;
+    // TR: 0 ise durağan mod kapalıdır. / EN: 0 turns stationary mode off.
+    final long stationaryDwellMs;
+    // TR: 0 ise geçmiş süresiz tutulur. / EN: 0 keeps history indefinitely.
+    final int historyExpiryMonths;
+    // TR: Sadece servis başlarken uygulanır. / EN: Only applied when the service starts.
+    final boolean journal;
+
+    private TrackingConfig(boolean adaptive, int priority, long intervalMs, float minDistanceMeters, int batchSize,
+                           long batchMaxAgeMs, long stationaryDwellMs, int historyExpiryMonths, boolean journal) {
+        this.adaptive = adaptive;
+        this.priority = priority;
+        this.intervalMs = intervalMs;
+        this.minDistanceMeters = minDistanceMeters;
+        this.batchSize = batchSize;
+        this.batchMaxAgeMs = batchMaxAgeMs;
+        this.stationaryDwellMs = stationaryDwellMs;
+        this.historyExpiryMonths = historyExpiryMonths;
+        this.journal = journal;
+    }
+
+    static TrackingConfig read(SharedPreferences prefs) {
+        return new TrackingConfig(
+                prefs.getBoolean(SettingActivity.ADAPTIVE_SAMPLING_KEY, DEFAULT_ADAPTIVE),
+                prefs.getBoolean(SettingActivity.HIGH_ACCURACY_KEY, DEFAULT_HIGH_ACCURACY)
+                        ? Priority.PRIORITY_HIGH_ACCURACY : Priority.PRIORITY_BALANCED_POWER_ACCURACY,
+                Math.max(1, prefs.getInt(SettingActivity.INTERVAL_SECONDS_KEY, DEFAULT_INTERVAL_SECONDS)) * 1000L,
+                Math.max(0, prefs.getInt(SettingActivity.MIN_DISTANCE_KEY, DEFAULT_MIN_DISTANCE_METERS)),
+                Math.max(1, prefs.getInt(SettingActivity.BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE)),
+                Math.max(1, prefs.getInt(SettingActivity.BATCH_DELAY_KEY, DEFAULT_BATCH_DELAY_MINUTES)) * 60_000L,
+                prefs.getInt(SettingActivity.STATIONARY_DWELL_KEY, SettingActivity.DEFAULT_STATIONARY_DWELL_MINUTES) * 60_000L,
+                Math.max(0, prefs.getInt(SettingActivity.HISTORY_EXPIRY_MONTHS_KEY, DEFAULT_HISTORY_EXPIRY_MONTHS)),
+                prefs.getBoolean(SettingActivity.JOURNAL_STORAGE_KEY, false));
+    }
+
+    /**
+     * TR: Yapılandırmayı Intent'e ekler.
+     * EN: Adds the config to the Intent.
+     */
+    Intent writeTo(Intent intent) {
+        return intent.putExtra(EXTRA_ADAPTIVE, adaptive)
+                .putExtra(EXTRA_PRIORITY, priority)
+                .putExtra(EXTRA_INTERVAL_MS, intervalMs)
+                .putExtra(EXTRA_MIN_DISTANCE, minDistanceMeters)
+                .putExtra(EXTRA_BATCH_SIZE, batchSize)
+                .putExtra(EXTRA_BATCH_MAX_AGE_MS, batchMaxAgeMs)
+                .putExtra(EXTRA_STATIONARY_DWELL_MS, stationaryDwellMs)
+                .putExtra(EXTRA_HISTORY_EXPIRY_MONTHS, historyExpiryMonths)
+                .putExtra(EXTRA_JOURNAL, journal);
+    }
+
+    /**
+     * TR: writeTo() ile eklenmiş yapılandırmayı okur; Intent yoksa veya yapılandırma eklenmemişse null döner.
+     * EN: Reads the config added with writeTo(); returns null if there is no Intent or no config was added.
+     */
+    @Nullable
+    static TrackingConfig fromIntent(@Nullable Intent intent) {
+        if (intent == null || !intent.hasExtra(EXTRA_ADAPTIVE)) {
+            return null;
+        }
+        return new TrackingConfig(
+                intent.getBooleanExtra(EXTRA_ADAPTIVE, DEFAULT_ADAPTIVE),
+                intent.getIntExtra(EXTRA_PRIORITY, Priority.PRIORITY_BALANCED_POWER_ACCURACY),
+                intent.getLongExtra(EXTRA_INTERVAL_MS, DEFAULT_INTERVAL_SECONDS * 1000L),
+                intent.getFloatExtra(EXTRA_MIN_DISTANCE, DEFAULT_MIN_DISTANCE_METERS),
+                intent.getIntExtra(EXTRA_BATCH_SIZE, DEFAULT_BATCH_SIZE),
+                intent.getLongExtra(EXTRA_BATCH_MAX_AGE_MS, LocationWriteBuffer.MAX_BATCH_AGE_MS),
+                intent.getLongExtra(EXTRA_STATIONARY_DWELL_MS, SettingActivity.DEFAULT_STATIONARY_DWELL_MINUTES * 60_000L),
+                intent.getIntExtra(EXTRA_HISTORY_EXPIRY_MONTHS, DEFAULT_HISTORY_EXPIRY_MONTHS),
+                intent.getBooleanExtra(EXTRA_JOURNAL, false));
+    }
+
+    /**
+     * TR: Uyarlamalı örnekleme kapalıyken kullanılan sabit istek. En kısa aralık, eski sabit istekteki gibi aralığın yarısıdır.
+     * EN: The fixed request used while adaptive sampling is off. The minimum interval is half the interval, as in the old fixed request.
+     */
+    LocationRequest fixedRequest() {
+        return new LocationRequest.Builder(priority, intervalMs)
+                .setMinUpdateIntervalMillis(intervalMs / 2)
+                .setMinUpdateDistanceMeters(minDistanceMeters)
+                .build();
+    }
+}
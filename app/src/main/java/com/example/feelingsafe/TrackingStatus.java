@@ -0,0 +1,78 @@
+package com.example.feelingsafe;
+
+import android.os.Bundle;
+
+/**
+ * TR: TrackingStatus, takip servisinin anlık durumudur (yazılan ve atılan nokta sayısı, yazılmayı bekleyen kuyruk, son konum,
+ * TR: örnekleme profili). Servis ayrı bir süreçte çalışabildiği için durum Messenger üzerinden Bundle olarak taşınır;
+ * TR: mesaj kodları ve anahtarlar burada tanımlıdır. İstemci MSG_REGISTER'ı replyTo ile gönderir, servis durumu hemen ve
+ * TR: sonra her yeni konumda (en fazla MIN_PUBLISH_INTERVAL_MS'de bir) MSG_STATUS ile yollar.
+ * EN: TrackingStatus is the live state of the tracking service (points written and rejected, the queue waiting to be
+ * EN: written, the last fix, the sampling profile). The service may run in a separate process, so the state travels as a
+ * EN: Bundle over a Messenger; the message codes and keys are defined here. The client sends MSG_REGISTER with replyTo,
+ * EN: and the service sends the state with MSG_STATUS at once and then on every new fix (at most once per MIN_PUBLISH_INTERVAL_MS).
+ */
+public final class TrackingStatus {
+
+    public static final int MSG_REGISTER = 1;
+    public static final int MSG_UNREGISTER = 2;
+    public static final int MSG_STATUS = 3;
+
+    static final long MIN_PUBLISH_INTERVAL_MS = 1000;
+
+    private static final String KEY_POINTS_WRITTEN = "points_written";
+    private static final String KEY_POINTS_REJECTED = "points_rejected";
+    private static final String KEY_QUEUE_DEPTH = "queue_depth";
+    private static final String KEY_LAST_FIX_TIME = "last_fix_time";
+    private static final String KEY_LAST_LATITUDE = "last_latitude";
+    private static final String KEY_LAST_LONGITUDE = "last_longitude";
+    private static final String KEY_LAST_ACCURACY = "last_accuracy";
+    private static final String KEY_PROFILE = "profile";
+    private static final String KEY_STATIONARY = "stationary";
+    private static final String KEY_PROCESS = "process";
+
+    // TR: Veritabanına yazılmış (tampondan veya günlükten aktarılmış) nokta sayısı. / EN: Points written to the database (flushed from the buffer or folded from the journal).
+    public long pointsWritten;
+    public long pointsRejected;
+    // TR: Tamponda ve günlükte yazılmayı bekleyen nokta sayısı. / EN: Points waiting in the buffer and the journal.
+    public int queueDepth;
+    // TR: Hiç konum yoksa 0. / EN: 0 if there is no fix yet.
+    public long lastFixTime;
+    public double lastLatitude;
+    public double lastLongitude;
+    public float lastAccuracy;
+    public String profile;
+    public boolean stationary;
+    // TR: Servisin çalıştığı sürecin adı. / EN: The name of the process the service runs in.
+    public String process;
+
+    public Bundle toBundle() {
+        Bundle bundle = new Bundle();
+        bundle.putLong(KEY_POINTS_WRITTEN, pointsWritten);
+        bundle.putLong(KEY_POINTS_REJECTED, pointsRejected);
+        bundle.putInt(KEY_QUEUE_DEPTH, queueDepth);
+        bundle.putLong(KEY_LAST_FIX_TIME, lastFixTime);
+        bundle.putDouble(KEY_LAST_LATITUDE, lastLatitude);
+        bundle.putDouble(KEY_LAST_LONGITUDE, lastLongitude);
+        bundle.putFloat(KEY_LAST_ACCURACY, lastAccuracy);
+        bundle.putString(KEY_PROFILE, profile);
+        bundle.putBoolean(KEY_STATIONARY, stationary);
+        bundle.putString(KEY_PROCESS, process);
+        return bundle;
+    }
+
+    public static TrackingStatus fromBundle(Bundle bundle) {
+        TrackingStatus status = new TrackingStatus();
+        status.pointsWritten = bundle.getLong(KEY_POINTS_WRITTEN);
+        status.pointsRejected = bundle.getLong(KEY_POINTS_REJECTED);
+        status.queueDepth = bundle.getInt(KEY_QUEUE_DEPTH);
+        status.lastFixTime = bundle.getLong(KEY_LAST_FIX_TIME);
+        status.lastLatitude = bundle.getDouble(KEY_LAST_LATITUDE);
+        status.lastLongitude = bundle.getDouble(KEY_LAST_LONGITUDE);
+        status.lastAccuracy = bundle.getFloat(KEY_LAST_ACCURACY);
+        status.profile = bundle.getString(KEY_PROFILE);
+        status.stationary = bundle.getBoolean(KEY_STATIONARY);
+        status.process = bundle.getString(KEY_PROCESS);
+        return status;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.feelingsafe;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+
+/**
+ * TR: TrackingStatusClient, arayüz ekranlarının takip servisine (hangi süreçte çalışıyorsa) bağlanıp canlı durumunu
+ * TR: (TrackingStatus) almasını sağlar. Servisi kendisi başlatmaz: servis çalışmıyorsa bağlantı bekler ve servis
+ * TR: başladığında kurulur. Tüm metodlar ve dinleyici ana thread'de çalışır.
+ * EN: TrackingStatusClient lets UI screens connect to the tracking service (whichever process it runs in) and receive its
+ * EN: live state (TrackingStatus). It doesn't start the service itself: if the service isn't running the connection
+ * EN: waits and is made when the service starts. All methods and the listener run on the main thread.
+ */
+public class TrackingStatusClient {
+
+    public interface Listener {
+        void onStatus(TrackingStatus status);
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final Messenger replyMessenger = new Messenger(new Handler(Looper.getMainLooper(), this::handleMessage));
+    private Messenger service;
+    private boolean bound = false;
+
+    private final ServiceConnection connection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            service = new Messenger(binder);
+            send(TrackingStatus.MSG_REGISTER);
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // TR: Servisin süreci öldü; yeniden başlarsa bağlantı kendiliğinden kurulur. / EN: The service's process died; if it restarts, the connection is made again by itself.
+            service = null;
+        }
+    };
+
+    public TrackingStatusClient(Context context, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+    }
+
+    /**
+     * TR: Ayarlardaki servis sınıfına bağlanır. Ekran görünür olduğunda (onStart) çağrılır.
+     * EN: Binds to the service class from the settings. Called when the screen becomes visible (onStart).
+     */
+    public void bind() {
+        if (bound) {
+            return;
+        }
+        // TR: BIND_AUTO_CREATE yok: bağlantı servisi başlatmaz ve durdurulmasını engellemez.
+        // EN: No BIND_AUTO_CREATE: the binding doesn't start the service or keep it from being stopped.
+        bound = context.bindService(new Intent(context, LocationTrackingService.serviceClass(context)), connection, 0);
+    }
+
+    /**
+     * TR: Bağlantıyı kapatır. Ekran görünmez olduğunda (onStop) çağrılır.
+     * EN: Closes the connection. Called when the screen is no longer visible (onStop).
+     */
+    public void unbind() {
+        if (!bound) {
+            return;
+        }
+        send(TrackingStatus.MSG_UNREGISTER);
+        context.unbindService(connection);
+        service = null;
+        bound = false;
+    }
+
+    private void send(int what) {
+        if (service == null) {
+            return;
+        }
+        Message message = Message.obtain(null, what);
+        message.replyTo = replyMessenger;
+        try {
+            service.send(message);
+        } catch (RemoteException e) {
+            service = null;
+        }
+    }
+
+    private boolean handleMessage(Message message) {
+        if (message.what != TrackingStatus.MSG_STATUS) {
+            return false;
+        }
+        if (bound) {
+            listener.onStatus(TrackingStatus.fromBundle(message.getData()));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.feelingsafe;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// Bir yolculuğun özeti. TripSegmenter konumlar yazılırken yolculukları artımlı olarak bulur ve bu satırları yazar.
+// Geçmiş ekranı sadece bu küçük tabloyu listeler; bir yolculuğun noktaları ancak açıldığında
+// start_time ile end_time arasından okunur.
+@Entity(tableName = "trips", indices = {@Index(value = "start_time")})
+public class Trip {
+
+    @PrimaryKey(autoGenerate = true)
+    public int id;
+
+    // Yolculuğun ilk ve son noktasının zaman damgası.
+    @ColumnInfo(name = "start_time")
+    public long startTime;
+
+    @ColumnInfo(name = "end_time")
+    public long endTime;
+
+    // Ardışık noktalar arasındaki haversine mesafelerinin toplamı.
+    @ColumnInfo(name = "distance_meters")
+    public double distanceMeters;
+
+    @ColumnInfo(name = "point_count")
+    public int pointCount;
+
+    // Yolculuğun tüm noktalarını içine alan kutu.
+    @ColumnInfo(name = "min_latitude")
+    public double minLatitude;
+
+    @ColumnInfo(name = "min_longitude")
+    public double minLongitude;
+
+    @ColumnInfo(name = "max_latitude")
+    public double maxLatitude;
+
+    @ColumnInfo(name = "max_longitude")
+    public double maxLongitude;
+
+    // Yolculuk bittiyse true; hâlâ devam ediyorsa false.
+    @ColumnInfo(name = "closed")
+    public boolean closed;
+
+    // Başlangıç ve bitiş noktalarının adresleri (PlaceAddressEnricher yazar). Henüz çözülmediyse null,
+    // çözüldü ama adres bulunamadıysa boş metindir. Sadece kapanmış yolculuklar için doldurulur.
+    @ColumnInfo(name = "start_address")
+    public String startAddress;
+
+    @ColumnInfo(name = "end_address")
+    public String endAddress;
+
+    // Arama için adresler, TripSearch.searchText ile birleştirilmiş ve katlanmış (ı, İ -> i) hali. trip_search bunu
+    // index'ler. Adresler yazılırken birlikte yazılır; adres yoksa null'dır.
+    @ColumnInfo(name = "search_text")
+    public String searchText;
+
+    // Yolculuğu tek bir noktayla başlatır. Room bu kurucu metodu kullanmaz.
+    @Ignore
+    public Trip(long startTime, double latitude, double longitude) {
+        this.startTime = startTime;
+        this.endTime = startTime;
+        this.pointCount = 1;
+        this.minLatitude = latitude;
+        this.minLongitude = longitude;
+        this.maxLatitude = latitude;
+        this.maxLongitude = longitude;
+    }
+
+    // Room, satırları okurken bu kurucu metodu kullanır.
+    public Trip() {
+    }
+
+    public long durationMs() {
+        return endTime - startTime;
+    }
+}
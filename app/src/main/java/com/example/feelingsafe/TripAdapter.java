@@ -0,0 +1,110 @@
+package com.example.feelingsafe;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * TR: TripAdapter, trips tablosundaki yolculuk özetlerini RecyclerView içinde birer satır olarak gösterir.
+ * TR: Bir satıra dokunulduğunda yolculuğun noktaları açılır (bkz. RouteHistoryActivity).
+ * EN: TripAdapter shows the trip summaries from the trips table as rows in the RecyclerView.
+ * EN: Tapping a row opens the trip's points (see RouteHistoryActivity).
+ * TR: Başlangıç ve bitiş adresleri PlaceAddressEnricher tarafından önceden çözülüp tabloya yazıldığı için burada Geocoder çağrılmaz.
+ * EN: The start and end addresses are resolved in advance by PlaceAddressEnricher and stored in the table, so Geocoder is never called here.
+ */
+public class TripAdapter extends ListAdapter<Trip, TripAdapter.TripViewHolder> {
+
+    /**
+     * TR: Bir yolculuğa dokunulduğunda çağrılır.
+     * EN: Called when a trip is tapped.
+     */
+    public interface OnTripClickListener {
+        void onTripClick(Trip trip);
+    }
+
+    private static final DiffUtil.ItemCallback<Trip> DIFF_CALLBACK = new DiffUtil.ItemCallback<Trip>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Trip oldItem, @NonNull Trip newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Trip oldItem, @NonNull Trip newItem) {
+            return oldItem.endTime == newItem.endTime
+                    && oldItem.pointCount == newItem.pointCount
+                    && oldItem.closed == newItem.closed
+                    && Objects.equals(oldItem.startAddress, newItem.startAddress)
+                    && Objects.equals(oldItem.endAddress, newItem.endAddress);
+        }
+    };
+
+    private final OnTripClickListener listener;
+    // TR: Her satırda yeniden oluşturmamak için tek bir örnek. / EN: A single instance so we don't recreate it for every row.
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm", Locale.getDefault());
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+
+    public TripAdapter(OnTripClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public TripViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.trip_list_item, parent, false);
+        return new TripViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TripViewHolder holder, int position) {
+        Trip trip = getItem(position);
+        Context context = holder.itemView.getContext();
+
+        String end = trip.closed ? timeFormat.format(new Date(trip.endTime)) : context.getString(R.string.trip_ongoing);
+        holder.timeTextView.setText(context.getString(R.string.trip_time_label, dateFormat.format(new Date(trip.startTime)), end));
+        holder.summaryTextView.setText(context.getString(R.string.trip_summary_label,
+                trip.distanceMeters / 1000.0, (int) (trip.durationMs() / 60000), trip.pointCount));
+        String places = placesOf(trip, context);
+        holder.placesTextView.setVisibility(places == null ? View.GONE : View.VISIBLE);
+        holder.placesTextView.setText(places);
+        holder.itemView.setOnClickListener(v -> listener.onTripClick(trip));
+    }
+
+    // TR: "başlangıç → bitiş"; adreslerden biri bulunamadıysa sadece diğeri, hiçbiri yoksa null.
+    // EN: "start → end"; only the other one if one of the addresses wasn't found, null if there are none.
+    private static String placesOf(Trip trip, Context context) {
+        boolean hasStart = trip.startAddress != null && !trip.startAddress.isEmpty();
+        boolean hasEnd = trip.endAddress != null && !trip.endAddress.isEmpty();
+        if (hasStart && hasEnd) {
+            return context.getString(R.string.trip_places_label, trip.startAddress, trip.endAddress);
+        }
+        return hasStart ? trip.startAddress : hasEnd ? trip.endAddress : null;
+    }
+
+    /**
+     * TR: Bir yolculuk satırının TextView'larını tutar.
+     * EN: Holds the TextViews of a trip row.
+     */
+    static class TripViewHolder extends RecyclerView.ViewHolder {
+        final TextView timeTextView;
+        final TextView summaryTextView;
+        final TextView placesTextView;
+
+        TripViewHolder(@NonNull View itemView) {
+            super(itemView);
+            timeTextView = itemView.findViewById(R.id.textViewTripTime);
+            summaryTextView = itemView.findViewById(R.id.textViewTripSummary);
+            placesTextView = itemView.findViewById(R.id.textViewTripPlaces);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.feelingsafe;
+
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+// Yolculuk özetlerini okur ve yazar. Yazma işlemleri sadece TripSegmenter tarafından yapılır.
+@Dao
+public interface TripDao {
+
+    @Insert
+    long insert(Trip trip);
+
+    @Update
+    void update(Trip trip);
+
+    @Delete
+    void delete(Trip trip);
+
+    // Tüm yolculuklar, en yeniden en eskiye. Tablo küçük olduğu için sayfalamaya gerek yoktur.
+    @Query("SELECT * FROM trips ORDER BY start_time DESC")
+    List<Trip> getAll();
+
+    // Henüz kapanmamış yolculuklar (servis kapanmadan önce devam eden yolculuk).
+    @Query("SELECT * FROM trips WHERE closed = 0")
+    List<Trip> getOpenTrips();
+
+    // Adresleri henüz çözülmemiş kapanmış yolculuklar, en yeniden başlayarak (kullanıcının ilk göreceği satırlar).
+    @Query("SELECT * FROM trips WHERE closed = 1 AND (start_address IS NULL OR end_address IS NULL) ORDER BY start_time DESC LIMIT :limit")
+    List<Trip> getClosedWithoutAddresses(int limit);
+
+    // Sadece adres sütunlarını yazar; yolculuğun diğer alanlarına dokunmaz.
+    @Query("UPDATE trips SET start_address = :startAddress, end_address = :endAddress, search_text = :searchText WHERE id = :id")
+    void setAddresses(int id, String startAddress, String endAddress, String searchText);
+
+    // Adreslerinde verilen MATCH ifadesi (bkz. TripSearch.toMatchQuery) geçen yolculuklar, en yeniden en eskiye.
+    // Eşleşmeler FTS index'inden bulunur; sadece eşleşen satırlar sıralanır.
+    @Query("SELECT trips.* FROM trips JOIN trip_search ON trips.id = trip_search.rowid "
+            + "WHERE trip_search MATCH :matchQuery ORDER BY trips.start_time DESC LIMIT :limit")
+    List<Trip> search(String matchQuery, int limit);
+
+    @Query("SELECT COUNT(*) FROM trips")
+    int count();
+
+    // Yolculuk hâlâ var ve açık mı? Başka biri (ör. yedekten geri yükleme) kapattıysa false döner.
+    @Query("SELECT EXISTS(SELECT 1 FROM trips WHERE id = :id AND closed = 0)")
+    boolean isOpen(int id);
+}
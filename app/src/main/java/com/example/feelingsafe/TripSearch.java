@@ -0,0 +1,55 @@
+package com.example.feelingsafe;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+import java.util.Locale;
+
+// Yolculuk adreslerinin tam metin (FTS4) index'i. İçerik trips.search_text sütunundan gelir (contentEntity); Room trips
+// üzerinde tetikleyiciler (trigger) oluşturur, böylece PlaceAddressEnricher adresleri yazdığında index kendiliğinden
+// güncellenir. Arama TripDao.search ile yapılır; LIKE ile tablo taranmaz.
+// unicode61 büyük/küçük harf ve aksan farkını (ö, ü, ş, ç, ğ) yok sayar, ama ı ve İ'yi i'nin bir biçimi saymaz:
+// "kadikoy*" "Kadıköy"ü bulmaz. Bu yüzden hem index'lenen metinde hem de aramada ı ve İ önce i'ye çevrilir (fold).
+@Fts4(contentEntity = Trip.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "trip_search")
+public class TripSearch {
+
+    @ColumnInfo(name = "search_text")
+    public String searchText;
+
+    // trips.search_text değeri: iki adres, ı ve İ i'ye çevrilmiş olarak. Migration aynı dönüşümü SQL ile yapar.
+    static String searchText(String startAddress, String endAddress) {
+        return fold(startAddress + " " + endAddress);
+    }
+
+    // Türkçe noktasız ı ve noktalı İ'yi i'ye çevirir. toLowerCase(Locale.ROOT) "İ"yi "i" + U+0307 (birleşen nokta) yapar;
+    // U+0307 harf olmadığı için kelime ikiye bölünürdü. Diğer harfler tokenizer'a bırakılır.
+    static String fold(String text) {
+        return text.replace('İ', 'i').replace('ı', 'i');
+    }
+
+    // Kullanıcının yazdığı metni bir MATCH ifadesine çevirir: her kelime önek olarak aranır ve hepsi eşleşmelidir
+    // ("hast bağdat" -> "hast* bağdat*", "İstanbul" -> "istanbul*"). Harf ve rakam dışındaki karakterler (FTS operatörleri
+    // dahil) atılır.
+    // Aranacak kelime yoksa null döner.
+    static String toMatchQuery(String text) {
+        StringBuilder query = new StringBuilder();
+        StringBuilder token = new StringBuilder();
+        String lower = fold(text).toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append(token).append('*');
+                token.setLength(0);
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+}
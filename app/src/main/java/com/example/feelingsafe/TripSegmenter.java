@@ -0,0 +1,255 @@
+package com.example.feelingsafe;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TR: TripSegmenter, konum akışını yolculuklara böler ve her yolculuk için trips tablosuna bir özet satırı yazar.
+ * TR: Bir yolculuk, kullanıcı bir "çapa" noktasından STATIONARY_RADIUS_METERS'ten fazla uzaklaştığında başlar;
+ * TR: kullanıcı STATIONARY_MS boyunca aynı yarıçap içinde kaldığında (durduğunda) veya iki konum arasında TRIP_GAP_MS'ten
+ * TR: uzun bir boşluk olduğunda biter. Mesafe, süre, sınır kutusu ve nokta sayısı akış sırasında (streaming) hesaplanır;
+ * TR: hiçbir nokta tekrar okunmaz. Devam eden yolculuk her batch'in sonunda güncellenir. Açık yolculuk satırı dışarıda
+ * TR: kapatıldıysa (ör. yedekten geri yükleme) durum bir sonraki batch'te veritabanından yeniden yüklenir.
+ * TR: Veritabanı thread'inde, konumları ekleyen transaction'ın içinde çağrılmalıdır.
+ * EN: TripSegmenter splits the location stream into trips and writes a summary row for each trip to the trips table.
+ * EN: A trip starts when the user moves more than STATIONARY_RADIUS_METERS away from an "anchor" point; it ends when
+ * EN: the user stays within the same radius for STATIONARY_MS (stops), or when there is a gap longer than TRIP_GAP_MS
+ * EN: between two locations. Distance, duration, bounding box and point count are computed while streaming;
+ * EN: no point is ever read again. The ongoing trip is updated at the end of every batch. If the open trip row was closed
+ * EN: elsewhere (e.g. by restoring a backup), the state is reloaded from the database on the next batch.
+ * EN: It must be called on the database thread, inside the transaction that inserts the locations.
+ */
+public class TripSegmenter {
+
+    private static final String TAG = "TripSegmenter";
+
+    // TR: İki konum arasında bundan uzun boşluk varsa yolculuk biter. / EN: If there is a longer gap than this between two locations, the trip ends.
+    static final long TRIP_GAP_MS = 10 * 60 * 1000L;
+    // TR: Çapa noktasına bu kadar yakın olan konumlar "yerinde duruyor" sayılır. / EN: Locations this close to the anchor count as "standing still".
+    static final double STATIONARY_RADIUS_METERS = 100;
+    // TR: Bu kadar süre yerinde durulursa yolculuk biter. / EN: If the user stands still for this long, the trip ends.
+    static final long STATIONARY_MS = 5 * 60 * 1000L;
+    // TR: Bundan kısa yolculuklar (ör. GPS sapmaları) kaydedilmez. / EN: Shorter trips (e.g. GPS jitter) aren't saved.
+    static final double MIN_TRIP_METERS = 200;
+
+    private static final int BACKFILL_PAGE_SIZE = 500;
+    // TR: backfillOnce() işaretinin anahtarı. / EN: The key of the backfillOnce() marker.
+    static final String BACKFILLED_KEY = "trips_backfilled";
+
+    private final AppDatabase database;
+    private boolean initialized = false;
+
+    // TR: En son işlenen konum. / EN: The last processed location.
+    private boolean hasLast = false;
+    private long lastTimestamp;
+    // TR: Kullanıcının en son uzaklaştığı nokta; yerinde durma buna göre ölçülür. / EN: The point the user last moved away from; standing still is measured against it.
+    private double anchorLatitude;
+    private double anchorLongitude;
+    private long anchorTimestamp;
+    // TR: Devam eden yolculuk ve ona eklenen son nokta; yolculuk yoksa openTrip null'dır.
+    // EN: The ongoing trip and the last point added to it; openTrip is null if there is no trip.
+    private Trip openTrip;
+    private double tripLastLatitude;
+    private double tripLastLongitude;
+    // TR: Yolculuk sırasında çapanın yakınında kalan noktalar. Kullanıcı tekrar hareket ederse yolculuğa eklenir,
+    // TR: durduğu anlaşılırsa atılır; böylece yolculuk durulan yerde biter.
+    // EN: Points that stayed near the anchor during a trip. They are added to the trip if the user moves on again,
+    // EN: and dropped if it turns out the user stopped; this way the trip ends where the user stopped.
+    private final List<LocationHistory> nearAnchor = new ArrayList<>();
+
+    public TripSegmenter(AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * TR: Yazılmak üzere olan konumları (eskiden yeniye) işler.
+     * EN: Processes the locations about to be written (oldest first).
+     */
+    public void add(List<LocationHistory> batch) {
+        // TR: Hafızadaki açık yolculuk artık açık değilse onu başka biri kapatmıştır; eski id'nin üzerine yazılmaz.
+        // EN: If the open trip in memory is no longer open, someone else closed it; its old id isn't written over.
+        if (!initialized || (openTrip != null && openTrip.id != 0 && !database.tripDao().isOpen(openTrip.id))) {
+            initialize();
+        }
+        for (LocationHistory location : batch) {
+            process(location.latitude, location.longitude, location.timestamp);
+        }
+        saveOpenTrip();
+    }
+
+    /**
+     * TR: Mevcut geçmişi bir kereliğine yolculuklara böler (ilk kurulum veya güncelleme sonrası). İş bittiğinde state'e bir
+     * TR: işaret yazılır; hiç yolculuğu olmayan (200 m'yi aşmayan) bir geçmiş de her servis başlangıcında yeniden taranmaz.
+     * TR: Servis başlarken, diğer yazma işlemlerinden önce veritabanı thread'ine gönderilmelidir.
+     * EN: Splits the existing history into trips once (first install or after an upgrade). When done, a marker is written to
+     * EN: state, so a history with no trips at all (none over 200 m) isn't rescanned on every service start either.
+     * EN: It must be sent to the database thread when the service starts, before any other write.
+     */
+    public void backfillOnce(SharedPreferences state) {
+        if (state.getBoolean(BACKFILLED_KEY, false)) {
+            return;
+        }
+        // TR: İşaretten önceki sürümler yolculukları zaten yazmış olabilir. / EN: Versions before the marker may have written the trips already.
+        if (database.tripDao().count() == 0) {
+            backfill();
+        }
+        state.edit().putBoolean(BACKFILLED_KEY, true).apply();
+    }
+
+    private void backfill() {
+        LocationHistoryRepository repository = new LocationHistoryRepository(database);
+        initialized = true;
+        long afterTimestamp = Long.MIN_VALUE;
+        int afterId = LocationHistoryRepository.COMPACTED_ID;
+        int processed = 0;
+        while (true) {
+            List<LocationHistory> page = repository.getPageAfter(afterTimestamp, afterId, BACKFILL_PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            boolean reachedJournal = false;
+            for (LocationHistory location : page) {
+                // TR: Günlükteki noktalar Room'a aktarılırken zaten işlenecek. / EN: Journal points will be processed when they are moved to Room.
+                if (location.id == LocationHistoryRepository.JOURNAL_ID) {
+                    reachedJournal = true;
+                    break;
+                }
+                process(location.latitude, location.longitude, location.timestamp);
+                processed++;
+            }
+            saveOpenTrip();
+            LocationHistory last = page.get(page.size() - 1);
+            if (reachedJournal || page.size() < BACKFILL_PAGE_SIZE) {
+                break;
+            }
+            afterTimestamp = last.timestamp;
+            afterId = last.id;
+        }
+        if (processed > 0) {
+            Log.d(TAG, "Segmented " + processed + " existing locations into " + database.tripDao().count() + " trips");
+        }
+    }
+
+    /**
+     * TR: Veritabanındaki açık yolculukları kapatır ve işlemeyi verilen konumdan (null ise hiçbir konumdan) sonra gelen
+     * TR: noktalarla yeniden başlatır. Geçmişe dışarıdan eklenen bir nokta dizisinden önce çağrılır (ör. yedekten geri
+     * TR: yükleme); o sırada çalışan bir servis kendi açık yolculuğunun kapandığını görüp durumunu yeniden yükler.
+     * EN: Closes the open trips in the database and restarts processing with the points that come after the given
+     * EN: location (after no location if null). Called before a run of points added to the history from outside (e.g.
+     * EN: restoring a backup); a service still running at that moment sees its open trip closed and reloads its state.
+     */
+    public void restartAfter(@Nullable LocationHistory previous) {
+        initialized = true;
+        openTrip = null;
+        nearAnchor.clear();
+        for (Trip trip : database.tripDao().getOpenTrips()) {
+            trip.closed = true;
+            database.tripDao().update(trip);
+        }
+        hasLast = previous != null;
+        if (previous != null) {
+            lastTimestamp = previous.timestamp;
+            setAnchor(previous.latitude, previous.longitude, previous.timestamp);
+        }
+    }
+
+    /**
+     * TR: Devam eden yolculuğu kapatır (yeterince uzunsa kaydeder). Dışarıdan eklenen nokta dizisinin sonunda çağrılır.
+     * EN: Closes the ongoing trip (saving it if it is long enough). Called at the end of a run of points added from outside.
+     */
+    public void finish() {
+        closeTrip();
+    }
+
+    // TR: Servis yeniden başladıysa önceki çalışmadan kalan açık yolculuğu kapatır ve en son konumdan devam eder.
+    // EN: If the service restarted, closes the trip left open by the previous run and continues from the latest location.
+    private void initialize() {
+        List<LocationHistory> latest = database.locationHistoryDao().getLatestPage(1);
+        restartAfter(latest.isEmpty() ? null : latest.get(0));
+    }
+
+    private void process(double latitude, double longitude, long timestamp) {
+        if (!hasLast || timestamp - lastTimestamp > TRIP_GAP_MS) {
+            closeTrip();
+            setAnchor(latitude, longitude, timestamp);
+        } else if (GeoCell.distanceMeters(anchorLatitude, anchorLongitude, latitude, longitude) <= STATIONARY_RADIUS_METERS) {
+            if (openTrip != null) {
+                if (timestamp - anchorTimestamp >= STATIONARY_MS) {
+                    // TR: Kullanıcı durdu; yolculuk çapada biter. / EN: The user stopped; the trip ends at the anchor.
+                    closeTrip();
+                } else {
+                    nearAnchor.add(new LocationHistory(latitude, longitude, timestamp));
+                }
+            }
+        } else {
+            if (openTrip == null) {
+                openTrip = new Trip(anchorTimestamp, anchorLatitude, anchorLongitude);
+                tripLastLatitude = anchorLatitude;
+                tripLastLongitude = anchorLongitude;
+            }
+            for (LocationHistory point : nearAnchor) {
+                extendTrip(point.latitude, point.longitude, point.timestamp);
+            }
+            nearAnchor.clear();
+            extendTrip(latitude, longitude, timestamp);
+            setAnchor(latitude, longitude, timestamp);
+        }
+        hasLast = true;
+        lastTimestamp = timestamp;
+    }
+
+    private void extendTrip(double latitude, double longitude, long timestamp) {
+        Trip trip = openTrip;
+        trip.distanceMeters += GeoCell.distanceMeters(tripLastLatitude, tripLastLongitude, latitude, longitude);
+        trip.endTime = timestamp;
+        trip.pointCount++;
+        trip.minLatitude = Math.min(trip.minLatitude, latitude);
+        trip.minLongitude = Math.min(trip.minLongitude, longitude);
+        trip.maxLatitude = Math.max(trip.maxLatitude, latitude);
+        trip.maxLongitude = Math.max(trip.maxLongitude, longitude);
+        tripLastLatitude = latitude;
+        tripLastLongitude = longitude;
+    }
+
+    private void setAnchor(double latitude, double longitude, long timestamp) {
+        anchorLatitude = latitude;
+        anchorLongitude = longitude;
+        anchorTimestamp = timestamp;
+    }
+
+    private void closeTrip() {
+        nearAnchor.clear();
+        if (openTrip == null) {
+            return;
+        }
+        Trip trip = openTrip;
+        openTrip = null;
+        if (trip.distanceMeters >= MIN_TRIP_METERS) {
+            trip.closed = true;
+            save(trip);
+        } else if (trip.id != 0) {
+            database.tripDao().delete(trip);
+        }
+    }
+
+    // TR: Devam eden yolculuk, en az MIN_TRIP_METERS uzunluğa ulaştıysa ekranda görünsün diye yazılır.
+    // EN: The ongoing trip is written so it shows up on screen, once it has reached at least MIN_TRIP_METERS.
+    private void saveOpenTrip() {
+        if (openTrip != null && openTrip.distanceMeters >= MIN_TRIP_METERS) {
+            save(openTrip);
+        }
+    }
+
+    private void save(Trip trip) {
+        if (trip.id == 0) {
+            trip.id = (int) database.tripDao().insert(trip);
+        } else {
+            database.tripDao().update(trip);
+        }
+    }
+}
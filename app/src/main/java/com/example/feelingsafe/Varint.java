@@ -0,0 +1,77 @@
+package com.example.feelingsafe;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * TR: Varint, sayıları değişken uzunlukta (küçük sayılar az byte) kodlamak için kullanılan yardımcı metodları içerir.
+ * TR: ZigZag dönüşümü, küçük negatif farkların da az byte ile yazılmasını sağlar.
+ * EN: Varint contains helper methods for encoding numbers with a variable length (small numbers take few bytes).
+ * EN: The ZigZag transform makes small negative deltas take few bytes as well.
+ */
+final class Varint {
+
+    private Varint() {
+    }
+
+    // TR: İşaretli sayıyı işaretsize çevirir: 0, -1, 1, -2, 2 ... -> 0, 1, 2, 3, 4 ... / EN: Maps a signed number to unsigned: 0, -1, 1, -2, 2 ... -> 0, 1, 2, 3, 4 ...
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // TR: zigZag() işleminin tersi. / EN: The inverse of zigZag().
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * TR: İşaretsiz bir sayıyı her byte'ta 7 bit olacak şekilde yazar.
+     * EN: Writes an unsigned number with 7 bits per byte.
+     */
+    static void write(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * TR: Bir diziden varint okuyan basit okuyucu. Okuma konumunu kendi içinde tutar.
+     * EN: A simple reader that reads varints from an array. It keeps the read position internally.
+     */
+    static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        long read() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= data.length || shift > 63) {
+                    throw new IllegalStateException("Malformed varint at " + position);
+                }
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+
+        long readSigned() {
+            return unZigZag(read());
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalStateException("Unexpected end of data");
+            }
+            return data[position++] & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.feelingsafe;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the binary backup format written by LocationHistoryBackup.
+ */
+public class LocationBackupCodecTest {
+
+    private static byte[] write(int count, boolean compress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LocationBackupCodec.Writer writer = new LocationBackupCodec.Writer(out, compress);
+        for (int i = 0; i < count; i++) {
+            writer.write(41.0 + i * 0.0001, 29.0 - i * 0.0001, 1_700_000_000_000L + i * 30_000L);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static List<LocationHistory> readAll(byte[] data) throws IOException {
+        LocationBackupCodec.Reader reader = new LocationBackupCodec.Reader(new ByteArrayInputStream(data));
+        List<LocationHistory> result = new ArrayList<>();
+        while (reader.readBlock(result)) {
+            // Keep reading until the end block.
+        }
+        return result;
+    }
+
+    @Test
+    public void roundTrip_acrossSeveralBlocks() throws IOException {
+        int count = LocationBackupCodec.BLOCK_SIZE * 2 + 17;
+        for (boolean compress : new boolean[]{false, true}) {
+            List<LocationHistory> points = readAll(write(count, compress));
+
+            assertEquals(count, points.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(41.0 + i * 0.0001, points.get(i).latitude, 1e-6);
+                assertEquals(29.0 - i * 0.0001, points.get(i).longitude, 1e-6);
+                assertEquals(1_700_000_000_000L + i * 30_000L, points.get(i).timestamp);
+            }
+        }
+    }
+
+    // A walk with ~10 m Gaussian steps and irregular 1-60 s fix intervals, ids assigned as Room would.
+    private static List<LocationHistory> randomWalk(int count) {
+        Random random = new Random(42);
+        List<LocationHistory> points = new ArrayList<>(count);
+        double latitude = 41.0;
+        double longitude = 29.0;
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            latitude += random.nextGaussian() * 0.0001;
+            longitude += random.nextGaussian() * 0.0001;
+            timestamp += 1_000 + random.nextInt(59_000);
+            LocationHistory point = new LocationHistory(latitude, longitude, timestamp);
+            point.id = i + 1;
+            points.add(point);
+        }
+        return points;
+    }
+
+    @Test
+    public void compressedBackup_isMuchSmallerThanGsonJson() throws IOException {
+        int count = 10_000;
+        List<LocationHistory> points = randomWalk(count);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LocationBackupCodec.Writer writer = new LocationBackupCodec.Writer(out, true);
+        for (LocationHistory point : points) {
+            writer.write(point.latitude, point.longitude, point.timestamp);
+        }
+        writer.finish();
+        int backupBytes = out.size();
+        int jsonBytes = new Gson().toJson(points).getBytes(StandardCharsets.UTF_8).length;
+
+        // Measured at about 5.2 bytes per point against about 159 bytes per Gson row.
+        assertTrue("backup is " + backupBytes + " bytes", backupBytes < count * 6);
+        assertTrue("backup is " + backupBytes + " bytes, JSON is " + jsonBytes, backupBytes * 20 < jsonBytes);
+        assertEquals(count, readAll(out.toByteArray()).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptPayload_failsChecksum() throws IOException {
+        byte[] data = write(100, false);
+        // Header (6 bytes) + count and length varints (3 bytes), then the payload.
+        data[20] ^= 0x01;
+        readAll(data);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.feelingsafe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the accuracy and speed filter that runs before fixes are stored.
+ */
+public class LocationFilterTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+    // About 111 meters of latitude.
+    private static final double DEGREE_PER_111_M = 0.001;
+
+    private static LocationHistory fix(LocationFilter filter, double latitude, double longitude, long timestamp, float accuracy) {
+        return filter.process(latitude, longitude, timestamp, accuracy, 1.5f, 90f, "fused");
+    }
+
+    @Test
+    public void keepsMeasurementFields() {
+        LocationFilter filter = new LocationFilter();
+        LocationHistory location = fix(filter, 41.0, 29.0, T0, 10f);
+        assertNotNull(location);
+        assertEquals(T0, location.timestamp);
+        assertEquals(10f, location.accuracy, 1e-3);
+        assertEquals(1.5f, location.speed, 0);
+        assertEquals(90f, location.bearing, 0);
+        assertEquals("fused", location.provider);
+        assertEquals(GeoCell.cellOf(41.0, 29.0), location.cell);
+    }
+
+    @Test
+    public void rejectsPoorAccuracyAndOutOfOrderFixes() {
+        LocationFilter filter = new LocationFilter();
+        assertNull(fix(filter, 41.0, 29.0, T0, LocationFilter.MAX_ACCURACY_METERS + 1));
+        assertNotNull(fix(filter, 41.0, 29.0, T0, 10f));
+        assertNull(fix(filter, 41.0, 29.0, T0 - 1000, 10f));
+        assertNull(fix(filter, 41.0, 29.0, T0, 10f));
+        assertEquals(1, filter.acceptedCount());
+        assertEquals(3, filter.rejectedCount());
+    }
+
+    @Test
+    public void rejectsImpossibleJump() {
+        LocationFilter filter = new LocationFilter();
+        assertNotNull(fix(filter, 41.0, 29.0, T0, 10f));
+        // About 11 km in 30 seconds.
+        assertNull(fix(filter, 41.1, 29.0, T0 + 30_000, 10f));
+        // About 1.1 km in 60 seconds is fast driving, but possible.
+        assertNotNull(fix(filter, 41.0 + 10 * DEGREE_PER_111_M, 29.0, T0 + 60_000, 10f));
+    }
+
+    @Test
+    public void acceptsNewPositionAfterRepeatedRejectsOrLongGap() {
+        LocationFilter filter = new LocationFilter();
+        assertNotNull(fix(filter, 41.0, 29.0, T0, 10f));
+        long t = T0;
+        for (int i = 0; i < LocationFilter.MAX_CONSECUTIVE_REJECTS; i++) {
+            t += 10_000;
+            assertNull(fix(filter, 42.0, 29.0, t, 10f));
+        }
+        LocationHistory moved = fix(filter, 42.0, 29.0, t + 10_000, 10f);
+        assertNotNull(moved);
+        assertEquals(42.0, moved.latitude, 1e-9);
+
+        LocationHistory afterGap = fix(filter, 45.0, 29.0, t + 10_000 + LocationFilter.RESET_GAP_MS + 1, 10f);
+        assertNotNull(afterGap);
+        assertEquals(45.0, afterGap.latitude, 1e-9);
+    }
+
+    @Test
+    public void smoothsJitterAroundAStationaryPoint() {
+        LocationFilter filter = new LocationFilter();
+        double maxRawError = 0;
+        double maxSmoothedError = 0;
+        for (int i = 0; i < 60; i++) {
+            // Alternating +-30 m of noise around a fixed point, one fix every 5 seconds.
+            double offset = (i % 2 == 0 ? 1 : -1) * 0.27 * DEGREE_PER_111_M;
+            LocationHistory location = fix(filter, 41.0 + offset, 29.0, T0 + i * 5_000L, 30f);
+            assertNotNull(location);
+            if (i >= 10) {
+                maxRawError = Math.max(maxRawError, GeoCell.distanceMeters(41.0, 29.0, 41.0 + offset, 29.0));
+                maxSmoothedError = Math.max(maxSmoothedError, GeoCell.distanceMeters(41.0, 29.0, location.latitude, location.longitude));
+            }
+        }
+        assertTrue("smoothed error " + maxSmoothedError + " m vs raw " + maxRawError + " m", maxSmoothedError < maxRawError / 2);
+    }
+}
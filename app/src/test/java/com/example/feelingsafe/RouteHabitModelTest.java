@@ -0,0 +1,85 @@
+package com.example.feelingsafe;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the time-of-day habit model used by RouteDeviationMatcher.
+ */
+public class RouteHabitModelTest {
+
+    private static final long MINUTE_MS = 60_000L;
+
+    // Local midnight of the given day offset, so the hour buckets don't depend on the machine's time zone.
+    private static long midnight(int dayOffset) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2024, Calendar.MARCH, 4, 0, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, dayOffset);
+        return calendar.getTimeInMillis();
+    }
+
+    // Ten weekday mornings driving the same 30 minute commute, starting at 08:00.
+    private static RouteHabitModel commuteModel() {
+        RouteHabitModel model = new RouteHabitModel();
+        for (int day = 0; day < 10; day++) {
+            long start = midnight(day) + 8 * 60 * MINUTE_MS;
+            for (int minute = 0; minute < 30; minute++) {
+                model.add(41.00 + minute * 0.001, 29.00, start + minute * MINUTE_MS);
+            }
+        }
+        return model;
+    }
+
+    @Test
+    public void commuteAtUsualHour_isHabitual() {
+        RouteHabitModel model = commuteModel();
+        assertEquals(10, model.trainedDays());
+        long morning = midnight(10) + 8 * 60 * MINUTE_MS + 15 * MINUTE_MS;
+        assertTrue(model.isHabitual(41.015, 29.00, morning));
+        // One hour off and a few hundred meters aside still counts as the same habit.
+        assertTrue(model.isHabitual(41.015, 29.004, morning + 60 * MINUTE_MS));
+    }
+
+    @Test
+    public void commuteAtNight_isUnusual() {
+        RouteHabitModel model = commuteModel();
+        long night = midnight(10) + 3 * 60 * MINUTE_MS;
+        assertFalse(model.isHabitual(41.015, 29.00, night));
+    }
+
+    @Test
+    public void farAwayAtUsualHour_isUnusual() {
+        RouteHabitModel model = commuteModel();
+        long morning = midnight(10) + 8 * 60 * MINUTE_MS + 15 * MINUTE_MS;
+        assertFalse(model.isHabitual(41.10, 29.10, morning));
+    }
+
+    @Test
+    public void placeSeenOnTooFewDays_isUnusual() {
+        RouteHabitModel model = new RouteHabitModel();
+        for (int day = 0; day < RouteHabitModel.MIN_HABIT_DAYS - 1; day++) {
+            model.add(40.0, 30.0, midnight(day) + 20 * 60 * MINUTE_MS);
+        }
+        assertFalse(model.isHabitual(40.0, 30.0, midnight(5) + 20 * 60 * MINUTE_MS));
+        model.add(40.0, 30.0, midnight(6) + 20 * 60 * MINUTE_MS);
+        assertTrue(model.isHabitual(40.0, 30.0, midnight(7) + 20 * 60 * MINUTE_MS));
+    }
+
+    @Test
+    public void manyKeys_surviveGrowing() {
+        RouteHabitModel model = new RouteHabitModel();
+        for (int day = 0; day < 3; day++) {
+            for (int i = 0; i < 5000; i++) {
+                model.add(-30.0 + i * 0.015, 20.0, midnight(day) + 12 * 60 * MINUTE_MS);
+            }
+        }
+        assertEquals(5000, model.size());
+        for (int i = 0; i < 5000; i += 97) {
+            assertTrue(model.isHabitual(-30.0 + i * 0.015, 20.0, midnight(4) + 12 * 60 * MINUTE_MS));
+        }
+    }
+}
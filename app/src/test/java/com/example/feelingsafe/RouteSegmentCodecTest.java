@@ -0,0 +1,78 @@
+package com.example.feelingsafe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the route simplification and segment encoding used by RouteCompactor.
+ */
+public class RouteSegmentCodecTest {
+
+    @Test
+    public void encodeDecode_roundTripsToMicrodegrees() {
+        double[] lat = {41.008240, 41.008901, 41.010000, 40.999999};
+        double[] lon = {28.978359, 28.979001, 28.981111, 29.000001};
+        long[] ts = {1_700_000_000_000L, 1_700_000_030_000L, 1_700_000_060_500L, 1_700_000_120_000L};
+        boolean[] keep = {true, true, true, true};
+
+        RouteSegmentCodec.Reader reader = new RouteSegmentCodec.Reader(RouteSegmentCodec.encode(lat, lon, ts, keep, 4));
+
+        assertEquals(4, reader.count());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(reader.next());
+            assertEquals(i, reader.index());
+            assertEquals(lat[i], reader.latitude(), 1e-6);
+            assertEquals(lon[i], reader.longitude(), 1e-6);
+            assertEquals(ts[i], reader.timestamp());
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void simplify_dropsPointsOnStraightLineAndKeepsCorners() {
+        // 100 points going north, then 100 points going east; roughly 11 m apart.
+        int n = 200;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < 100; i++) {
+            lat[i] = 41.0 + i * 0.0001;
+            lon[i] = 29.0;
+        }
+        for (int i = 100; i < n; i++) {
+            lat[i] = lat[99];
+            lon[i] = 29.0 + (i - 99) * 0.0001;
+        }
+
+        boolean[] keep = RouteSimplifier.simplify(lat, lon, n, 5.0);
+
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        assertEquals(3, kept);
+        assertTrue(keep[0]);
+        assertTrue(keep[99]);
+        assertTrue(keep[n - 1]);
+    }
+
+    @Test
+    public void encode_straightRouteIsAtLeastTenTimesSmallerThanRawDoubles() {
+        int n = 1000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        long[] ts = new long[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 41.0 + i * 0.0003;
+            lon[i] = 29.0 + i * 0.0002;
+            ts[i] = 1_700_000_000_000L + i * 30_000L;
+        }
+
+        boolean[] keep = RouteSimplifier.simplify(lat, lon, n, 10.0);
+        byte[] data = RouteSegmentCodec.encode(lat, lon, ts, keep, n);
+
+        assertTrue(data.length * 10 < n * 24);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.feelingsafe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the adaptive sampling profile decisions (speed, stillness, hysteresis and battery).
+ */
+public class SamplingSchedulerTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+    // About 111 meters of latitude.
+    private static final double DEGREE_PER_111_M = 0.001;
+
+    private static LocationHistory fix(double latitude, long timestamp, float speed) {
+        return new LocationHistory(latitude, 29.0, timestamp, 10f, speed, LocationHistory.UNKNOWN, "fused");
+    }
+
+    @Test
+    public void switchesToDrivingImmediately() {
+        SamplingScheduler scheduler = new SamplingScheduler();
+        assertEquals(SamplingScheduler.Profile.IDLE, scheduler.current());
+        assertNull(scheduler.onFix(fix(41.0, T0, 0f), false));
+        assertEquals(SamplingScheduler.Profile.DRIVING, scheduler.onFix(fix(41.0 + DEGREE_PER_111_M, T0 + 5000, 25f), false));
+    }
+
+    @Test
+    public void derivesSpeedWhenProviderGivesNone() {
+        SamplingScheduler scheduler = new SamplingScheduler();
+        scheduler.onFix(fix(41.0, T0, LocationHistory.UNKNOWN), false);
+        // 111 m in 60 s is about 1.85 m/s, averaged with the starting 0 this is still walking pace.
+        assertEquals(SamplingScheduler.Profile.WALKING,
+                scheduler.onFix(fix(41.0 + DEGREE_PER_111_M * 2, T0 + 60_000, LocationHistory.UNKNOWN), false));
+    }
+
+    @Test
+    public void slowsDownOnlyAfterDelay() {
+        SamplingScheduler scheduler = new SamplingScheduler();
+        scheduler.onFix(fix(41.0, T0, 20f), false);
+        assertEquals(SamplingScheduler.Profile.DRIVING, scheduler.current());
+        double latitude = 41.0;
+        long time = T0;
+        for (int i = 0; i < 5; i++) {
+            latitude += DEGREE_PER_111_M;
+            time += 10_000;
+            assertNull(scheduler.onFix(fix(latitude, time, 0f), false));
+        }
+        latitude += DEGREE_PER_111_M;
+        time += SamplingScheduler.DOWNGRADE_DELAY_MS;
+        assertEquals(SamplingScheduler.Profile.IDLE, scheduler.onFix(fix(latitude, time, 0f), false));
+    }
+
+    @Test
+    public void becomesStillWithoutFixesAndWakesOnMovement() {
+        SamplingScheduler scheduler = new SamplingScheduler();
+        assertNull(scheduler.onTick(T0, false));
+        scheduler.onFix(fix(41.0, T0, 0f), false);
+        assertNull(scheduler.onTick(T0 + 60_000, false));
+        long still = T0 + SamplingScheduler.STILL_AFTER_MS;
+        assertNull(scheduler.onTick(still, false));
+        assertEquals(SamplingScheduler.Profile.STILL, scheduler.onTick(still + SamplingScheduler.DOWNGRADE_DELAY_MS, false));
+        assertEquals(SamplingScheduler.Profile.IDLE,
+                scheduler.onFix(fix(41.0 + DEGREE_PER_111_M, still + 200_000, 0f), false));
+    }
+
+    @Test
+    public void lowBatteryDropsOneLevel() {
+        SamplingScheduler scheduler = new SamplingScheduler();
+        assertEquals(SamplingScheduler.Profile.WALKING, scheduler.onFix(fix(41.0, T0, 20f), true));
+        assertEquals(SamplingScheduler.Profile.DRIVING, scheduler.onFix(fix(41.001, T0 + 5000, 20f), false));
+    }
+}
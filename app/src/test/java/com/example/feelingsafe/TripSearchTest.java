@@ -0,0 +1,35 @@
+package com.example.feelingsafe;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the MATCH expressions and the folded search text used by the trip address index.
+ */
+public class TripSearchTest {
+
+    @Test
+    public void toMatchQuery_foldsDottedCapitalI() {
+        // Locale.ROOT alone would give "i̇stanbul" and split it into "i* stanbul*".
+        assertEquals("istanbul*", TripSearch.toMatchQuery("İstanbul"));
+    }
+
+    @Test
+    public void toMatchQuery_foldsDotlessI() {
+        // unicode61 folds the ö itself, but not the ı.
+        assertEquals("kadiköy*", TripSearch.toMatchQuery("Kadıköy"));
+        assertEquals("kadiköy*", TripSearch.toMatchQuery("KADIKÖY"));
+    }
+
+    @Test
+    public void toMatchQuery_prefixesEveryWordAndDropsOperators() {
+        assertEquals("hast* bağdat*", TripSearch.toMatchQuery("hast \"bağdat\" -"));
+        assertNull(TripSearch.toMatchQuery(" * - "));
+    }
+
+    @Test
+    public void searchText_foldsTheSameLettersAsTheQuery() {
+        assertEquals("Kadiköy istanbul", TripSearch.searchText("Kadıköy", "İstanbul"));
+    }
+}